@@ -0,0 +1,54 @@
+#!/bin/bash
+
+# Startup-optimised build and run for TymelessTyre
+# Uses Spring AOT bean definitions (mvn -Pfast-startup) and an AppCDS archive recorded by a training run.
+#
+#   ./fast-startup.sh build   package with AOT and unpack the jar (CDS needs plain classpath entries)
+#   ./fast-startup.sh train   boot once against the database, exit when ready and write the CDS archive
+#   ./fast-startup.sh run     start with AOT + CDS; pass extra JVM options in JAVA_OPTS
+#
+# Rebuild and retrain after every code or dependency change; a stale archive is ignored by the JVM.
+
+set -e
+
+APP_DIR="target/fast-startup"
+ARCHIVE="$APP_DIR/app.jsa"
+CLASSPATH="$APP_DIR/BOOT-INF/classes:$APP_DIR/BOOT-INF/lib/*"
+MAIN_CLASS="za.co.tt.Main"
+SPRING_OPTS="-Dspring.aot.enabled=true -Dspring.profiles.active=fast-startup"
+
+build() {
+    echo "🔨 Building with AOT processing..."
+    mvn -B -Pfast-startup -DskipTests package
+    rm -rf "$APP_DIR"
+    mkdir -p "$APP_DIR"
+    (cd "$APP_DIR" && jar -xf ../TymelessTyre-1.0-SNAPSHOT.jar)
+    echo "✅ Unpacked to $APP_DIR"
+}
+
+train() {
+    echo "🏋️  Training run (writes $ARCHIVE)..."
+    rm -f "$ARCHIVE"
+    java -XX:ArchiveClassesAtExit="$ARCHIVE" $SPRING_OPTS -Dstartup.training-run=true \
+        -Dstartup.report.file="$APP_DIR/startup-training.json" \
+        -cp "$CLASSPATH" "$MAIN_CLASS"
+    echo "✅ Class archive written"
+}
+
+run() {
+    if [ ! -f "$ARCHIVE" ]; then
+        echo "⚠️  No CDS archive at $ARCHIVE, starting without it (run ./fast-startup.sh train first)"
+    fi
+    exec java -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto $SPRING_OPTS $JAVA_OPTS \
+        -cp "$CLASSPATH" "$MAIN_CLASS"
+}
+
+case "$1" in
+    build) build ;;
+    train) train ;;
+    run) run ;;
+    *)
+        echo "Usage: $0 {build|train|run}"
+        exit 1
+        ;;
+esac
@@ -0,0 +1,86 @@
+package za.co.tt.controller;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.domain.Enum.RollupType;
+import za.co.tt.service.SalesAnalyticsService;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/analytics")
+@CrossOrigin(origins = "http://localhost:5173")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminAnalyticsController {
+
+    private final SalesAnalyticsService analyticsService;
+
+    public AdminAnalyticsController(SalesAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    /**
+     * Orders, units and revenue per day. Defaults to the last 30 days.
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<?> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        try {
+            return ResponseEntity.ok(analyticsService.getDailySales(start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Orders, units and revenue per hour. Defaults to today.
+     */
+    @GetMapping("/hourly")
+    public ResponseEntity<?> getHourlySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end;
+        try {
+            return ResponseEntity.ok(analyticsService.getHourlySales(start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<?> getTopProducts(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(analyticsService.getTopProducts(limit));
+    }
+
+    @GetMapping("/mix")
+    public ResponseEntity<?> getSalesMix() {
+        return ResponseEntity.ok(Map.of(
+                "season", analyticsService.getRollups(RollupType.SEASON),
+                "vehicleType", analyticsService.getRollups(RollupType.VEHICLE_TYPE)));
+    }
+
+    @GetMapping("/funnel")
+    public ResponseEntity<?> getStatusFunnel() {
+        return ResponseEntity.ok(analyticsService.getStatusFunnel());
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild() {
+        if (!analyticsService.startRebuild()) {
+            return ResponseEntity.status(409).body(Map.of("error", "A rebuild is already running"));
+        }
+        return ResponseEntity.accepted().body(analyticsService.getRebuildStatus());
+    }
+
+    @GetMapping("/rebuild")
+    public ResponseEntity<?> getRebuildStatus() {
+        return ResponseEntity.ok(analyticsService.getRebuildStatus());
+    }
+}
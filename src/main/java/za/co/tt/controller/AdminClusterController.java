@@ -0,0 +1,69 @@
+package za.co.tt.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.service.ClusterInvalidationService;
+import za.co.tt.service.ClusterSchedulerService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/cluster")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminClusterController {
+
+    private final ClusterInvalidationService clusterInvalidationService;
+    private final ClusterSchedulerService clusterSchedulerService;
+
+    @Autowired
+    public AdminClusterController(ClusterInvalidationService clusterInvalidationService,
+                                  ClusterSchedulerService clusterSchedulerService) {
+        this.clusterInvalidationService = clusterInvalidationService;
+        this.clusterSchedulerService = clusterSchedulerService;
+    }
+
+    /**
+     * Cross-node cache invalidation counters and propagation lag for this node.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/invalidation")
+    public ResponseEntity<Map<String, Object>> getInvalidationStatus() {
+        return ResponseEntity.ok(clusterInvalidationService.getMetrics());
+    }
+
+    /**
+     * Scheduler leader, live nodes, registered jobs and the state of every job shard.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> getJobs() {
+        return ResponseEntity.ok(clusterSchedulerService.getStatus());
+    }
+
+    /**
+     * Most recent job runs (one row per shard) with node, duration and outcome.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/jobs/history")
+    public ResponseEntity<List<Map<String, Object>>> getJobHistory(@RequestParam(required = false) String job,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(clusterSchedulerService.getHistory(job, limit));
+    }
+
+    /**
+     * Run a job on the next scheduler tick instead of waiting for its schedule.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/jobs/{name}/run")
+    public ResponseEntity<?> runJob(@PathVariable String name) {
+        try {
+            clusterSchedulerService.requestRun(name);
+            return ResponseEntity.accepted().body(Map.of("message", "Job " + name + " will start on the next scheduler tick"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
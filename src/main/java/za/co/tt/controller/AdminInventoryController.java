@@ -0,0 +1,73 @@
+package za.co.tt.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.domain.Branch;
+import za.co.tt.domain.BranchStockUpdate;
+import za.co.tt.domain.StockTransfer;
+import za.co.tt.service.BranchInventoryService;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/inventory")
+@CrossOrigin(origins = "http://localhost:5173")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminInventoryController {
+
+    private final BranchInventoryService inventoryService;
+
+    public AdminInventoryController(BranchInventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Counters of the in-memory branch stock (reservations, rejections, transfers, last resync).
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(inventoryService.getStatus());
+    }
+
+    @GetMapping("/branches")
+    public ResponseEntity<List<Branch>> getBranches() {
+        return ResponseEntity.ok(inventoryService.getBranches());
+    }
+
+    @PostMapping("/branches")
+    public ResponseEntity<?> createBranch(@RequestBody Map<String, String> request) {
+        try {
+            Branch branch = inventoryService.createBranch(request.get("code"), request.get("name"));
+            return ResponseEntity.created(URI.create("/admin/inventory/branches/" + branch.getBranchId())).body(branch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Set the on-hand quantity of products at a branch; units reserved by open orders are kept.
+     */
+    @PutMapping("/branches/{branchId}/stock")
+    public ResponseEntity<?> setBranchStock(@PathVariable Long branchId, @RequestBody List<BranchStockUpdate> updates) {
+        try {
+            return ResponseEntity.ok(inventoryService.setStock(branchId, updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Move stock between branches; the whole batch is applied in one transaction or not at all.
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<?> transferStock(@RequestBody List<StockTransfer> transfers) {
+        try {
+            return ResponseEntity.ok(inventoryService.transfer(transfers));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import za.co.tt.domain.Order;
 import za.co.tt.domain.OrderDto;
+import za.co.tt.service.OrderArchiveService;
+import za.co.tt.service.OrderExpiryService;
 import za.co.tt.service.OrderService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import java.util.List;
@@ -17,9 +19,48 @@ import java.util.Optional;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderArchiveService orderArchiveService;
+    private final OrderExpiryService orderExpiryService;
 
-    public AdminOrderController(OrderService orderService) {
+    public AdminOrderController(OrderService orderService,
+                                OrderArchiveService orderArchiveService,
+                                OrderExpiryService orderExpiryService) {
         this.orderService = orderService;
+        this.orderArchiveService = orderArchiveService;
+        this.orderExpiryService = orderExpiryService;
+    }
+
+    /**
+     * Pending-order expiry metrics: tracked orders, expired orders and stock units released.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/expiry")
+    public ResponseEntity<?> getExpiryMetrics() {
+        return ResponseEntity.ok(orderExpiryService.getMetrics());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/archive")
+    public ResponseEntity<?> getArchiveStatus() {
+        return ResponseEntity.ok(orderArchiveService.getStatus());
+    }
+
+    /**
+     * Ask the cluster scheduler to start an archival run; progress is visible through
+     * GET /admin/orders/archive and /admin/cluster/jobs.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/archive")
+    public ResponseEntity<?> runArchive() {
+        try {
+            if (!orderArchiveService.requestArchival()) {
+                return ResponseEntity.status(409)
+                        .body(Map.<String, String>of("error", "An archival run is already requested or in progress"));
+            }
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.<String, String>of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(Map.<String, String>of("message", "Archival requested"));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -73,8 +114,9 @@ public class AdminOrderController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Order>> getOrdersByUser(@PathVariable Long userId) {
-        List<Order> orders = orderService.getOrdersByUserId(userId);
+    public ResponseEntity<List<Order>> getOrdersByUser(@PathVariable Long userId,
+                                                       @RequestParam(defaultValue = "true") boolean includeArchived) {
+        List<Order> orders = orderService.getOrdersByUserId(userId, includeArchived);
         return ResponseEntity.ok(orders);
     }
 
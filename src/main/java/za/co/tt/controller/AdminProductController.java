@@ -1,4 +1,150 @@
 package za.co.tt.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import za.co.tt.domain.ProductImportJob;
+import za.co.tt.domain.SupplierSyncReport;
+import za.co.tt.service.CatalogResponseCache;
+import za.co.tt.service.CoPurchaseService;
+import za.co.tt.service.ProductImportService;
+import za.co.tt.service.SupplierSyncService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/admin/products")
+@CrossOrigin(origins = "http://localhost:5173")
 public class AdminProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminProductController.class);
+
+    private final ProductImportService productImportService;
+    private final SupplierSyncService supplierSyncService;
+    private final CatalogResponseCache catalogResponseCache;
+    private final CoPurchaseService coPurchaseService;
+
+    @Autowired
+    public AdminProductController(ProductImportService productImportService,
+                                  SupplierSyncService supplierSyncService,
+                                  CatalogResponseCache catalogResponseCache,
+                                  CoPurchaseService coPurchaseService) {
+        this.productImportService = productImportService;
+        this.supplierSyncService = supplierSyncService;
+        this.catalogResponseCache = catalogResponseCache;
+        this.coPurchaseService = coPurchaseService;
+    }
+
+    /**
+     * Queue a supplier catalog file (CSV with header row or JSON array) for bulk upsert.
+     * Poll the returned job at GET /admin/products/import/{jobId}.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importCatalog(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "format", required = false) String format) {
+        if (file == null || file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Import file is required"));
+        }
+        try (InputStream in = file.getInputStream()) {
+            ProductImportJob job = productImportService.submit(in, file.getOriginalFilename(), format);
+            logger.info("Queued catalog import {} for file {}", job.getJobId(), file.getOriginalFilename());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/admin/products/import/" + job.getJobId()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            logger.error("Failed to receive catalog import file: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "Failed to read import file"));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/import")
+    public ResponseEntity<?> getImportJobs() {
+        return ResponseEntity.ok(productImportService.getJobs());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        Optional<ProductImportJob> job = productImportService.getJob(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Import job " + jobId + " not found"));
+        }
+        return ResponseEntity.ok(job.get());
+    }
+
+    /**
+     * Run the supplier feed delta sync now; with dryRun=true only the change statistics are produced.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/sync")
+    public ResponseEntity<?> startSupplierSync(@RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun) {
+        try {
+            if (!supplierSyncService.startSync(dryRun)) {
+                return ResponseEntity.status(409).body(Map.of("error", "A supplier sync is already running"));
+            }
+            return ResponseEntity.accepted().body(supplierSyncService.getLastReport());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/sync")
+    public ResponseEntity<?> getSupplierSyncReport() {
+        SupplierSyncReport report = supplierSyncService.getLastReport();
+        if (report == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "No supplier sync has run yet"));
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Hit, miss and coalescing counters of the public catalog response cache.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/response-cache")
+    public ResponseEntity<Map<String, Object>> getResponseCacheMetrics() {
+        return ResponseEntity.ok(catalogResponseCache.getMetrics());
+    }
+
+    /**
+     * Drop every cached catalog response on this node.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/response-cache")
+    public ResponseEntity<Void> clearResponseCache() {
+        catalogResponseCache.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Rebuild the "customers also bought" matrix from all completed orders in the background.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/related/rebuild")
+    public ResponseEntity<?> rebuildRelatedProducts() {
+        if (!coPurchaseService.startRebuild()) {
+            return ResponseEntity.status(409).body(Map.of("error", "A rebuild is already running"));
+        }
+        return ResponseEntity.accepted().body(coPurchaseService.getRebuildStatus());
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/related/rebuild")
+    public ResponseEntity<?> getRelatedProductsRebuildStatus() {
+        return ResponseEntity.ok(coPurchaseService.getRebuildStatus());
+    }
 }
@@ -0,0 +1,32 @@
+package za.co.tt.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.service.StartupReportService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/startup")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminStartupController {
+
+    private final StartupReportService startupReportService;
+
+    @Autowired
+    public AdminStartupController(StartupReportService startupReportService) {
+        this.startupReportService = startupReportService;
+    }
+
+    /**
+     * Startup timing of this instance: time to ready, per-phase step totals, slowest beans,
+     * deferred startup tasks and time to first request.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStartupReport() {
+        return ResponseEntity.ok(startupReportService.getReport());
+    }
+}
@@ -0,0 +1,39 @@
+package za.co.tt.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.security.AdaptiveConcurrencyLimiter;
+import za.co.tt.security.RateLimitFilter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/traffic")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminTrafficController {
+
+    private final RateLimitFilter rateLimitFilter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    public AdminTrafficController(RateLimitFilter rateLimitFilter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.rateLimitFilter = rateLimitFilter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Rate-limit counters per endpoint class, bucket map size, and the current concurrency limit
+     * with requests shed per priority.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTrafficStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("rateLimit", rateLimitFilter.getMetrics());
+        status.put("concurrency", concurrencyLimiter.getMetrics());
+        return ResponseEntity.ok(status);
+    }
+}
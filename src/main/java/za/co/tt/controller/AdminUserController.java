@@ -4,11 +4,13 @@ package za.co.tt.controller;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import za.co.tt.domain.User;
+import za.co.tt.security.PooledPasswordEncoder;
+import za.co.tt.service.CustomerSummaryService;
+import za.co.tt.service.UserAvailabilityService;
 import za.co.tt.service.UserService;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 @RestController
@@ -17,19 +19,66 @@ import org.springframework.security.access.prepost.PreAuthorize;
 public class AdminUserController {
 
     private final UserService userService;
+    private final PooledPasswordEncoder passwordEncoder;
+    private final UserAvailabilityService availabilityService;
+    private final CustomerSummaryService customerSummaryService;
 
-    public AdminUserController(UserService userService) {
+    public AdminUserController(UserService userService, PooledPasswordEncoder passwordEncoder,
+                               UserAvailabilityService availabilityService,
+                               CustomerSummaryService customerSummaryService) {
         this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.availabilityService = availabilityService;
+        this.customerSummaryService = customerSummaryService;
+    }
+
+    /**
+     * Keyset-paginated user search, newest first, with order count and lifetime spend per user.
+     * q matches the start of name, surname, username, email or phone; pass nextCursor from the
+     * previous page as cursor.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchUsers(@RequestParam(defaultValue = "CUSTOMER") String role,
+                                                           @RequestParam(required = false) String q,
+                                                           @RequestParam(required = false) Long cursor,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(customerSummaryService.search(role, q, cursor, limit));
+    }
+
+    /**
+     * BCrypt pool usage, rejections and the cost this node calibrated to.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingMetrics() {
+        return ResponseEntity.ok(passwordEncoder.getMetrics());
+    }
+
+    /**
+     * Size and hit rates of the username/email availability filter.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/availability-filter")
+    public ResponseEntity<Map<String, Object>> getAvailabilityFilterMetrics() {
+        return ResponseEntity.ok(availabilityService.getMetrics());
+    }
+
+    /**
+     * Rebuild the availability filter from the users table now.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/availability-filter/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAvailabilityFilter() {
+        availabilityService.rebuild();
+        return ResponseEntity.ok(availabilityService.getMetrics());
     }
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
     public ResponseEntity<List<User>> findAllCustomers() {
-        List<User> users = userService.findAll()
-                .stream()
-                .filter(user -> "CUSTOMER".equalsIgnoreCase(user.getRole()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+        // Filtered by the role index rather than loading every user; paged screens should use /search
+        return ResponseEntity.ok(userService.findByRole("CUSTOMER"));
     }
 
     @PreAuthorize("hasRole('ADMIN')")
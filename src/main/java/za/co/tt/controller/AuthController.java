@@ -1,6 +1,8 @@
 package za.co.tt.controller;
 
+import za.co.tt.security.CustomUserDetails;
 import za.co.tt.security.JwtUtil;
+import org.springframework.security.core.Authentication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -74,6 +76,21 @@ public class AuthController {
         }
     }
 
+    /**
+     * Issue a short-lived token for opening event streams
+     * (/api/products/stock/stream, /api/orders/stream) as ?stream_token=
+     * POST /api/auth/stream-token
+     */
+    @PostMapping("/stream-token")
+    public ResponseEntity<?> issueStreamToken(Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "Authentication required"));
+        }
+        String token = JwtUtil.generateStreamToken(((CustomUserDetails) authentication.getPrincipal()).getUser());
+        return ResponseEntity.ok(Map.of("token", token, "expiresInMs", JwtUtil.getStreamExpirationTimeInMillis()));
+    }
+
     /**
      * Get JWT configuration information (no authentication required)
      * GET /api/auth/config
@@ -1,55 +1,90 @@
-// package za.co.tt.controller;
-
-// import org.springframework.http.ResponseEntity;
-// import org.springframework.web.bind.annotation.*;
-// import za.co.tt.domain.Cart;
-// import za.co.tt.service.CartService;
-
-// import java.util.List;
-// @CrossOrigin(origins = "http://localhost:5173")
-//     @RestController
-//     @RequestMapping("id/cart")
-
-//     public class CartController {
-
-//         private final CartService service;
-
-//         public CartController(CartService service) {
-//             this.service = service;
-//         }
-
-//         @PostMapping
-//         public ResponseEntity<Cart> createCart(@RequestBody Cart cart) {
-//             Cart created = service.createCart(cart);
-//             return ResponseEntity.ok(created);
-//         }
-
-//     @GetMapping("/{id}")
-//     public ResponseEntity<Cart> getCart(@PathVariable Long id) {
-//         Cart cart = service.read(id);
-//         if (cart != null) {
-//             return ResponseEntity.ok(cart);
-//         } else {
-//             return ResponseEntity.notFound().build();
-//         }
-//     } // made some changes, to avoid having errors.
-
-//         @GetMapping
-//         public ResponseEntity<List<Cart>> getAllCarts() {
-//             return ResponseEntity.ok(service.getAllCarts());
-//         }
-
-//         @PutMapping("/{id}")
-//         public ResponseEntity<Cart> updateCart(@PathVariable Long id, @RequestBody Cart cart) {
-//             if (!id.equals(cart.getCartId())) {
-//                 return ResponseEntity.badRequest().build();
-//             }
-//             try {
-//                 Cart updated = service.createCart(cart);
-//                 return ResponseEntity.ok(updated);
-//             } catch (IllegalArgumentException ex) {
-//                 return ResponseEntity.notFound().build();
-//             }
-
-//         }
-// }
+package za.co.tt.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import za.co.tt.domain.CartItem;
+import za.co.tt.service.ICartService;
+import za.co.tt.service.UserService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cart")
+@CrossOrigin(origins = "http://localhost:5173")
+@PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+public class CartController {
+
+    private final ICartService cartService;
+    private final UserService userService;
+
+    @Autowired
+    public CartController(ICartService cartService, UserService userService) {
+        this.cartService = cartService;
+        this.userService = userService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getCart(HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        return ResponseEntity.ok(cartService.getCart(userId));
+    }
+
+    @PostMapping("/items")
+    public ResponseEntity<?> addItem(@RequestBody CartItem item, HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        try {
+            return ResponseEntity.ok(cartService.addItem(userId, item.getProductId(), item.getQuantity()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<?> setItemQuantity(@PathVariable Long productId,
+                                             @RequestParam int quantity,
+                                             HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        try {
+            return ResponseEntity.ok(cartService.setItemQuantity(userId, productId, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<?> removeItem(@PathVariable Long productId, HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        return ResponseEntity.ok(cartService.removeItem(userId, productId));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clearCart(HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        cartService.clearCart(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
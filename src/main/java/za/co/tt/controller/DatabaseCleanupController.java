@@ -76,6 +76,45 @@ public class DatabaseCleanupController {
         }
     }
 
+    /**
+     * Start a whole-database integrity scan in the background
+     * POST /api/admin/cleanup/scan
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/scan")
+    public ResponseEntity<?> startIntegrityScan() {
+        if (!cleanupService.startIntegrityScan()) {
+            return ResponseEntity.status(409)
+                .body(Map.of("error", "An integrity scan is already running"));
+        }
+        logger.info("Admin started a full integrity scan");
+        return ResponseEntity.accepted().body(cleanupService.getIntegrityScanStatus());
+    }
+
+    /**
+     * Progress and findings of the current or last integrity scan
+     * GET /api/admin/cleanup/scan
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/scan")
+    public ResponseEntity<?> getIntegrityScanStatus() {
+        return ResponseEntity.ok(cleanupService.getIntegrityScanStatus());
+    }
+
+    /**
+     * Stop a running integrity scan
+     * DELETE /api/admin/cleanup/scan
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/scan")
+    public ResponseEntity<?> cancelIntegrityScan() {
+        if (!cleanupService.cancelIntegrityScan()) {
+            return ResponseEntity.status(409)
+                .body(Map.of("error", "No integrity scan is running"));
+        }
+        return ResponseEntity.accepted().body(cleanupService.getIntegrityScanStatus());
+    }
+
     /**
      * Get system health check for database integrity
      * GET /api/admin/cleanup/health
@@ -90,7 +129,10 @@ public class DatabaseCleanupController {
             health.put("timestamp", java.time.LocalDateTime.now());
             health.put("availableOperations", java.util.List.of(
                 "GET /order/{orderId}/check - Check order integrity",
-                "POST /order/{orderId}/fix - Fix order duplicates"
+                "POST /order/{orderId}/fix - Fix order duplicates",
+                "POST /scan - Start a full integrity scan",
+                "GET /scan - Integrity scan progress and findings",
+                "DELETE /scan - Cancel the running integrity scan"
             ));
             
             return ResponseEntity.ok(health);
@@ -11,10 +11,15 @@ import za.co.tt.domain.Enum.OrderStatus;
 import za.co.tt.service.IOrderService;
 import za.co.tt.service.UserService;
 import za.co.tt.service.OrderService;
+import za.co.tt.service.OrderHistoryService;
+import za.co.tt.service.OrderTrackingService;
+import za.co.tt.security.CustomUserDetails;
 import za.co.tt.security.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,12 +38,17 @@ public class OrderController {
     private final IOrderService orderService;
     private final OrderService orderServiceImpl;
     private final UserService userService;
+    private final OrderTrackingService orderTrackingService;
+    private final OrderHistoryService orderHistoryService;
 
     @Autowired
-    public OrderController(IOrderService orderService, OrderService orderServiceImpl, UserService userService) {
+    public OrderController(IOrderService orderService, OrderService orderServiceImpl, UserService userService,
+                           OrderTrackingService orderTrackingService, OrderHistoryService orderHistoryService) {
         this.orderService = orderService;
         this.orderServiceImpl = orderServiceImpl;
         this.userService = userService;
+        this.orderTrackingService = orderTrackingService;
+        this.orderHistoryService = orderHistoryService;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -89,9 +99,36 @@ public class OrderController {
         }
     }
 
+    /**
+     * Server-Sent Events stream of order, payment and delivery status changes.
+     * Customers receive events for their own orders, admins receive every order.
+     * Reconnecting clients send Last-Event-ID to continue where they left off. Events are per node,
+     * so with several nodes this endpoint needs sticky sessions (see OrderTrackingService).
+     */
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamOrderEvents(@RequestParam(required = false) Long orderId,
+                                               @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                               Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).contentType(MediaType.APPLICATION_JSON)
+                .body(java.util.Map.of("error", "Authentication required"));
+        }
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
+        boolean admin = authentication.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        try {
+            return ResponseEntity.ok(orderTrackingService.subscribe(user.getUserId(), admin, orderId, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.APPLICATION_JSON)
+                .body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     @GetMapping("/my-orders")
-    public ResponseEntity<?> getMyOrders(HttpServletRequest request) {
+    public ResponseEntity<?> getMyOrders(HttpServletRequest request,
+                                         @RequestParam(defaultValue = "true") boolean includeArchived) {
         try {
             String authHeader = request.getHeader("Authorization");
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -109,7 +146,7 @@ public class OrderController {
             }
             
             User user = userOpt.get();
-            List<Order> orders = orderService.getOrdersByUserId(user.getUserId());
+            List<Order> orders = orderService.getOrdersByUserId(user.getUserId(), includeArchived);
             
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
@@ -118,6 +155,24 @@ public class OrderController {
         }
     }
 
+    /**
+     * The caller's order history as summaries (date, status, total, item count, first product), newest
+     * first and including archived orders. Pass nextCursor as cursor for the next page; items load only
+     * from GET /api/orders/{id}.
+     */
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    @GetMapping("/my-orders/page")
+    public ResponseEntity<?> getMyOrderPage(@RequestParam(required = false) Long cursor,
+                                            @RequestParam(required = false) Integer limit,
+                                            Authentication authentication) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(java.util.Map.of("error", "Authentication required"));
+        }
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
+        return ResponseEntity.ok(orderHistoryService.getOrderPage(user.getUserId(), cursor, limit));
+    }
+
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     @GetMapping
     public ResponseEntity<List<Order>> getAllOrders() {
@@ -145,7 +200,7 @@ public class OrderController {
             }
             
             User user = userOpt.get();
-            Optional<Order> orderOpt = orderService.getOrderById(id);
+            Optional<Order> orderOpt = orderServiceImpl.getOrderDetail(id);
             
             if (orderOpt.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -323,9 +378,10 @@ public class OrderController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getOrdersByUserId(@PathVariable Long userId) {
+    public ResponseEntity<?> getOrdersByUserId(@PathVariable Long userId,
+                                               @RequestParam(defaultValue = "true") boolean includeArchived) {
         try {
-            List<Order> orders = orderService.getOrdersByUserId(userId);
+            List<Order> orders = orderService.getOrdersByUserId(userId, includeArchived);
             return ResponseEntity.ok(orders);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -378,6 +434,8 @@ public class OrderController {
             String deliveryMethodStr = (String) request.get("deliveryMethod");
             Long addressId = request.get("addressId") != null ? 
                 Long.valueOf(request.get("addressId").toString()) : null;
+            Long branchId = request.get("branchId") != null ?
+                Long.valueOf(request.get("branchId").toString()) : null;
 
             // Convert order data to OrderDto
             OrderDto orderDto = convertMapToOrderDto(orderData);
@@ -416,7 +474,7 @@ public class OrderController {
 
             // Create complete order
             Order completedOrder = orderServiceImpl.createOrderWithPaymentAndDelivery(
-                orderDto, paymentMethod, deliveryMethod, addressId);
+                orderDto, paymentMethod, deliveryMethod, addressId, branchId);
 
             logger.info("Successfully created complete order {} with payment and delivery", 
                 completedOrder.getOrderId());
@@ -1,18 +1,34 @@
 package za.co.tt.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.security.access.prepost.PreAuthorize;
 import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockAvailabilityDto;
+import za.co.tt.domain.StockCheckItem;
 import za.co.tt.domain.Enum.Season;
 import za.co.tt.domain.Enum.VehicleType;
+import za.co.tt.service.BranchInventoryService;
+import za.co.tt.service.CatalogResponseCache;
+import za.co.tt.service.CoPurchaseService;
+import za.co.tt.service.ProductPopularityService;
 import za.co.tt.service.ProductService;
+import za.co.tt.service.StockStreamService;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Arrays;
 import za.co.tt.domain.ProductFitment;
@@ -21,6 +37,11 @@ import za.co.tt.domain.ProductFitment;
 @RequestMapping("/api/products")
 @CrossOrigin(origins = "*")
 public class ProductController {
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_TIRE_WIDTH = 400;
+    private static final int MAX_ASPECT_RATIO = 100;
+    private static final int MAX_RIM_DIAMETER = 30;
+
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping(value = "/create-with-image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Product> createProductWithImage(
@@ -52,9 +73,8 @@ public class ProductController {
         // Handle fitments JSON array
         if (fitmentsJson != null && !fitmentsJson.isBlank()) {
             try {
-                ObjectMapper mapper = new ObjectMapper();
                 List<ProductFitment> fitments = Arrays.asList(
-                    mapper.readValue(fitmentsJson, ProductFitment[].class));
+                    objectMapper.readValue(fitmentsJson, ProductFitment[].class));
                 for (ProductFitment fitment : fitments) {
                     fitment.setProduct(product);
                 }
@@ -75,22 +95,37 @@ public class ProductController {
     }
 
     private final ProductService productService;
+    private final StockStreamService stockStreamService;
+    private final ObjectMapper objectMapper;
+    private final CatalogResponseCache catalogResponseCache;
+    private final ProductPopularityService productPopularityService;
+    private final CoPurchaseService coPurchaseService;
+    private final BranchInventoryService branchInventoryService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, StockStreamService stockStreamService,
+                             ObjectMapper objectMapper, CatalogResponseCache catalogResponseCache,
+                             ProductPopularityService productPopularityService,
+                             CoPurchaseService coPurchaseService, BranchInventoryService branchInventoryService) {
         this.productService = productService;
+        this.stockStreamService = stockStreamService;
+        this.objectMapper = objectMapper;
+        this.catalogResponseCache = catalogResponseCache;
+        this.productPopularityService = productPopularityService;
+        this.coPurchaseService = coPurchaseService;
+        this.branchInventoryService = branchInventoryService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getAllProducts(HttpServletRequest request) {
+        return cachedJson("all", request, productService::getAllProducts);
     }
 
     @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         Optional<Product> product = productService.getProductById(id);
+        product.ifPresent(productPopularityService::recordView);
         return product.map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -133,21 +168,45 @@ public class ProductController {
     }
 
     @GetMapping("/season/{season}")
-    public ResponseEntity<List<Product>> getProductsBySeason(@PathVariable Season season) {
-        List<Product> products = productService.getProductsBySeason(season);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getProductsBySeason(@PathVariable Season season, HttpServletRequest request) {
+        return cachedJson("season:" + season.name(), request, () -> productService.getProductsBySeason(season));
     }
 
     @GetMapping("/vehicle-type/{vehicleType}")
-    public ResponseEntity<List<Product>> getProductsByVehicleType(@PathVariable VehicleType vehicleType) {
-        List<Product> products = productService.getProductsByVehicleType(vehicleType);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getProductsByVehicleType(@PathVariable VehicleType vehicleType,
+                                                           HttpServletRequest request) {
+        return cachedJson("vehicle-type:" + vehicleType.name(), request,
+                () -> productService.getProductsByVehicleType(vehicleType));
+    }
+
+    /**
+     * Most popular products over the recent window (views, add-to-carts and purchases, newest counting
+     * most), overall or for one season or vehicle type. Served from memory.
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingProducts(@RequestParam(required = false) Season season,
+                                                 @RequestParam(required = false) VehicleType vehicleType,
+                                                 @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(productPopularityService.getTrending(season, vehicleType, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Products most often bought together with this one in completed orders ("customers also bought").
+     * Served from memory.
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<Map<String, Object>> getRelatedProducts(@PathVariable Long id,
+                                                                  @RequestParam(defaultValue = "6") int limit) {
+        return ResponseEntity.ok(coPurchaseService.getRelated(id, limit));
     }
 
     @GetMapping("/in-stock")
-    public ResponseEntity<List<Product>> getProductsInStock() {
-        List<Product> products = productService.getProductsInStock();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getProductsInStock(HttpServletRequest request) {
+        return cachedJson("in-stock", request, productService::getProductsInStock);
     }
 
     @GetMapping("/price-range")
@@ -165,12 +224,18 @@ public class ProductController {
     }
 
     @GetMapping("/tire-specs")
-    public ResponseEntity<List<Product>> getProductsByTireSpecifications(
+    public ResponseEntity<?> getProductsByTireSpecifications(
             @RequestParam int width,
             @RequestParam int aspectRatio,
-            @RequestParam int rimDiameter) {
-        List<Product> products = productService.getProductsByTireSpecifications(width, aspectRatio, rimDiameter);
-        return ResponseEntity.ok(products);
+            @RequestParam int rimDiameter,
+            HttpServletRequest request) {
+        // Bounded so the cache key space stays small
+        if (width < 1 || width > MAX_TIRE_WIDTH || aspectRatio < 1 || aspectRatio > MAX_ASPECT_RATIO
+                || rimDiameter < 1 || rimDiameter > MAX_RIM_DIAMETER) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Tire specification out of range"));
+        }
+        return cachedJson("tire-specs:" + width + "/" + aspectRatio + "/" + rimDiameter, request,
+                () -> productService.getProductsByTireSpecifications(width, aspectRatio, rimDiameter));
     }
 
     @PatchMapping("/{id}/stock")
@@ -211,39 +276,127 @@ public class ProductController {
         return ResponseEntity.ok(productOpt.get().getImage());
     }
 
-    @GetMapping("/{id}/validate-stock")
-    public ResponseEntity<String> validateStock(@PathVariable Long id, @RequestParam int quantity) {
-        try {
-            Optional<Product> productOpt = productService.getProductById(id);
-            if (productOpt.isEmpty()) {
-                return ResponseEntity.status(400).body("{\"valid\": false, \"message\": \"Product not found\"}");
-            }
-            
-            Product product = productOpt.get();
-            boolean isValid = product.getStockQuantity() >= quantity;
-            
-            if (isValid) {
-                return ResponseEntity.ok("{\"valid\": true, \"availableStock\": " + product.getStockQuantity() + ", \"message\": \"Stock available\"}");
-            } else {
-                return ResponseEntity.ok("{\"valid\": false, \"availableStock\": " + product.getStockQuantity() + ", \"requested\": " + quantity + ", \"message\": \"Insufficient stock\"}");
+    /**
+     * Fetch price/stock snapshots for several products in one call, e.g. to render a cart.
+     * Unknown ids are left out of the response.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> getProductsBatch(@RequestBody List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "productIds must not be empty"));
+        }
+        if (productIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_SIZE + " products per request"));
+        }
+        List<ProductSummary> products = productService.getProductSummaries(productIds);
+        return ResponseEntity.ok(products);
+    }
+
+    /**
+     * Check stock for several products (and optionally requested quantities) in one call.
+     */
+    @PostMapping("/stock/batch")
+    public ResponseEntity<?> getStockBatch(@RequestBody List<StockCheckItem> items) {
+        if (items == null || items.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "items must not be empty"));
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_BATCH_SIZE + " products per request"));
+        }
+        for (StockCheckItem item : items) {
+            if (item == null || item.getProductId() == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Every item must have a productId"));
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(400).body("{\"valid\": false, \"message\": \"Error validating stock: " + e.getMessage() + "\"}");
         }
+        List<StockAvailabilityDto> availability = productService.checkStock(items);
+        return ResponseEntity.ok(availability);
     }
 
-    @GetMapping("/{id}/stock")
-    public ResponseEntity<String> getProductStock(@PathVariable Long id) {
+    /**
+     * Server-Sent Events stream of stock levels for the given products, e.g. ?ids=1,2,3.
+     * Sends the current levels first, then coalesced "stock" events as levels change.
+     */
+    @GetMapping(value = "/stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamStock(@RequestParam("ids") List<Long> productIds) {
         try {
-            Optional<Product> productOpt = productService.getProductById(id);
-            if (productOpt.isEmpty()) {
-                return ResponseEntity.status(404).body("{\"error\": \"Product not found\"}");
-            }
-            
-            Product product = productOpt.get();
-            return ResponseEntity.ok("{\"productId\": " + id + ", \"stockQuantity\": " + product.getStockQuantity() + ", \"productName\": \"" + product.getProductName() + "\"}");
-        } catch (Exception e) {
-            return ResponseEntity.status(400).body("{\"error\": \"" + e.getMessage() + "\"}");
+            return ResponseEntity.ok(stockStreamService.subscribe(productIds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/validate-stock")
+    public ResponseEntity<?> validateStock(@PathVariable Long id, @RequestParam int quantity) {
+        StockAvailabilityDto availability = productService.checkStock(List.of(new StockCheckItem(id, quantity))).get(0);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("valid", availability.isValid());
+        if (!availability.isFound()) {
+            body.put("message", availability.getMessage());
+            return ResponseEntity.status(400).body(body);
+        }
+        body.put("availableStock", availability.getAvailableStock());
+        if (!availability.isValid()) {
+            body.put("requested", quantity);
+        }
+        body.put("message", availability.getMessage());
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<?> getProductStock(@PathVariable Long id) {
+        List<ProductSummary> products = productService.getProductSummaries(List.of(id));
+        if (products.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("error", "Product not found"));
+        }
+        ProductSummary product = products.get(0);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("productId", id);
+        body.put("stockQuantity", product.getStockQuantity());
+        body.put("productName", product.getProductName());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Delivery stock and the units each branch can still reserve for collection, served from memory.
+     */
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getProductAvailability(@PathVariable Long id) {
+        Map<String, Object> availability = branchInventoryService.getAvailability(id);
+        if (availability == null) {
+            return ResponseEntity.status(404).body(Map.of("error", "Product not found"));
+        }
+        return ResponseEntity.ok(availability);
+    }
+
+    /**
+     * Serve a public listing from the catalog response cache. The key names the listing and its
+     * validated parameters in a fixed order; the raw query string is never part of it, so extra or
+     * reordered parameters cannot create new entries.
+     * Answers 304 when If-None-Match carries the current ETag and sends the gzipped copy when accepted.
+     */
+    private ResponseEntity<byte[]> cachedJson(String key, HttpServletRequest request, Supplier<?> loader) {
+        CatalogResponseCache.CachedResponse cached = catalogResponseCache.get(key, loader);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(cached.getEtag());
+        // Clients may keep the body but must revalidate; a 304 costs no query
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (cached.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            catalogResponseCache.recordNotModified();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.getGzipped() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(cached.getGzipped(), headers, HttpStatus.OK);
         }
+        return new ResponseEntity<>(cached.getJson(), headers, HttpStatus.OK);
     }
 }
@@ -9,8 +9,10 @@ import za.co.tt.domain.Order;
 import za.co.tt.domain.ReviewEligibilityResponse;
 import za.co.tt.domain.OrderReviewEligibilityResponse;
 import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Enum.ReviewSort;
 import za.co.tt.service.IReviewService;
 import za.co.tt.service.ReviewService;
+import za.co.tt.service.ReviewVoteService;
 import za.co.tt.service.UserService;
 import za.co.tt.service.IOrderService;
 import za.co.tt.security.JwtUtil;
@@ -24,6 +26,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -37,16 +41,19 @@ public class ReviewController {
     private final ReviewService reviewServiceImpl;
     private final UserService userService;
     private final IOrderService orderService;
+    private final ReviewVoteService reviewVoteService;
 
     @Autowired
     public ReviewController(IReviewService reviewService, 
                            ReviewService reviewServiceImpl,
                            UserService userService,
-                           IOrderService orderService) {
+                           IOrderService orderService,
+                           ReviewVoteService reviewVoteService) {
         this.reviewService = reviewService;
         this.reviewServiceImpl = reviewServiceImpl;
         this.userService = userService;
         this.orderService = orderService;
+        this.reviewVoteService = reviewVoteService;
     }
 
    
@@ -370,6 +377,55 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    /**
+     * Paginated reviews for a product page: sort=newest|highest|lowest|helpful, then pass nextCursor
+     * back as cursor for the next page. Returns reviewer name, rating, comment, date and helpful count.
+     */
+    @GetMapping("/product/{productId}/page")
+    public ResponseEntity<?> getReviewPage(@PathVariable Long productId,
+                                           @RequestParam(defaultValue = "newest") String sort,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false) Integer limit) {
+        ReviewSort reviewSort;
+        try {
+            reviewSort = ReviewSort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown sort: " + sort));
+        }
+        try {
+            return ResponseEntity.ok(reviewServiceImpl.getReviewPage(productId, reviewSort, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * "Was this review helpful?" - one vote per user per review, counted within a few seconds.
+     */
+    @PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
+    @PostMapping("/{id}/helpful")
+    public ResponseEntity<?> markHelpful(@PathVariable Long id, HttpServletRequest request) {
+        Long userId = userService.resolveUserId(request.getHeader("Authorization"));
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Missing or invalid authorization header"));
+        }
+        try {
+            long helpfulCount = reviewVoteService.vote(id, userId);
+            return ResponseEntity.ok(Map.of("reviewId", id, "helpfulCount", helpfulCount));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/helpful/metrics")
+    public ResponseEntity<Map<String, Object>> getHelpfulVoteMetrics() {
+        return ResponseEntity.ok(reviewVoteService.getMetrics());
+    }
+
     @GetMapping("/rating/{rating}")
     public ResponseEntity<List<Review>> getReviewsByRating(@PathVariable int rating) {
         List<Review> reviews = reviewService.getReviewsByRating(rating);
@@ -398,4 +454,4 @@ public class ReviewController {
                 .body("Error diagnosing order: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
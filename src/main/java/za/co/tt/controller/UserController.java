@@ -8,12 +8,15 @@ import za.co.tt.domain.ChangePasswordRequest;
 import za.co.tt.domain.LoginRequest;
 import za.co.tt.domain.RegisterRequest;
 import za.co.tt.domain.User;
+import za.co.tt.service.UserAvailabilityService;
 import za.co.tt.service.UserService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import za.co.tt.security.JwtUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = "*")
 @RestController
@@ -21,20 +24,53 @@ import java.util.Optional;
 public class UserController {
 
     private final UserService userService;
+    private final UserAvailabilityService availabilityService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserAvailabilityService availabilityService) {
         this.userService = userService;
+        this.availabilityService = availabilityService;
+    }
+
+    /**
+     * Live signup-form check: is this username and/or email still free? Most answers come from an
+     * in-memory filter without a database query.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        boolean hasUsername = username != null && !username.isBlank();
+        boolean hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Provide a username and/or an email"));
+        }
+        Map<String, Object> response = new java.util.LinkedHashMap<>();
+        if (hasUsername) {
+            response.put("username", Map.of("value", username.trim(), "available", availabilityService.isUsernameAvailable(username)));
+        }
+        if (hasEmail) {
+            response.put("email", Map.of("value", email.trim(), "available", availabilityService.isEmailAvailable(email)));
+        }
+        return ResponseEntity.ok(response);
     }
 
     @PostMapping("/register")
-    public ResponseEntity<User> register(@RequestBody RegisterRequest request) {
-        User newUser = userService.register(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(newUser);
+    public ResponseEntity<?> register(@RequestBody RegisterRequest request) {
+        try {
+            User newUser = userService.register(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(newUser);
+        } catch (RejectedExecutionException e) {
+            return hashingBusy(e);
+        }
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        Optional<User> userOpt = userService.login(request.getUsername(), request.getPassword());
+        Optional<User> userOpt;
+        try {
+            userOpt = userService.login(request.getUsername(), request.getPassword());
+        } catch (RejectedExecutionException e) {
+            return hashingBusy(e);
+        }
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             String token = JwtUtil.generateToken(user);
@@ -158,6 +194,8 @@ public class UserController {
             userService.updatePassword(userId, request.getNewPassword());
             
             return ResponseEntity.ok().body("Password updated successfully");
+        } catch (RejectedExecutionException ex) {
+            return hashingBusy(ex);
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Password change failed: " + ex.getMessage());
         }
@@ -178,4 +216,13 @@ public class UserController {
         List<User> users = userService.findAll();
         return ResponseEntity.ok(users);
     }
+
+    /**
+     * Password hashing pool is full: tell the client to back off briefly instead of queueing forever.
+     */
+    private ResponseEntity<?> hashingBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("error", e.getMessage()));
+    }
 }
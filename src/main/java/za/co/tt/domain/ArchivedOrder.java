@@ -0,0 +1,85 @@
+package za.co.tt.domain;
+
+import jakarta.persistence.*;
+import za.co.tt.domain.Enum.DeliveryMethod;
+import za.co.tt.domain.Enum.DeliveryStatus;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Enum.PaymentMethod;
+import za.co.tt.domain.Enum.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only view of an order in cold storage (orders_archive), with its payment and delivery flattened in.
+ * Rows are written and removed by native INSERT ... SELECT statements in ArchivedOrderRepository.
+ */
+@Entity
+@Table(name = "orders_archive")
+public class ArchivedOrder {
+    @Id
+    private Long orderId;
+
+    private Long userId;
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    private BigDecimal totalAmount;
+
+    @ElementCollection
+    @CollectionTable(name = "order_items_archive", joinColumns = @JoinColumn(name = "order_id"))
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    private Long paymentId;
+    private Long paymentUserId;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentMethod paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    private BigDecimal paymentAmount;
+    private LocalDateTime paymentDate;
+
+    private Long deliveryId;
+    private Long addressId;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryMethod deliveryMethod;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+    private String courierName;
+    private LocalDateTime estimatedDeliveryDate;
+    private LocalDateTime actualDeliveryDate;
+    private LocalDateTime archivedAt;
+
+    public ArchivedOrder() {}
+
+    public Long getOrderId() { return orderId; }
+    public Long getUserId() { return userId; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public OrderStatus getOrderStatus() { return orderStatus; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public List<ArchivedOrderItem> getItems() { return items; }
+    public Long getPaymentId() { return paymentId; }
+    public Long getPaymentUserId() { return paymentUserId; }
+    public PaymentMethod getPaymentMethod() { return paymentMethod; }
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public BigDecimal getPaymentAmount() { return paymentAmount; }
+    public LocalDateTime getPaymentDate() { return paymentDate; }
+    public Long getDeliveryId() { return deliveryId; }
+    public Long getAddressId() { return addressId; }
+    public DeliveryMethod getDeliveryMethod() { return deliveryMethod; }
+    public DeliveryStatus getDeliveryStatus() { return deliveryStatus; }
+    public String getCourierName() { return courierName; }
+    public LocalDateTime getEstimatedDeliveryDate() { return estimatedDeliveryDate; }
+    public LocalDateTime getActualDeliveryDate() { return actualDeliveryDate; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
@@ -0,0 +1,28 @@
+package za.co.tt.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.math.BigDecimal;
+
+@Embeddable
+public class ArchivedOrderItem {
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    private int quantity;
+    private BigDecimal price;
+    private BigDecimal subtotal;
+
+    public ArchivedOrderItem() {}
+
+    public Long getItemId() { return itemId; }
+    public Long getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+    public BigDecimal getPrice() { return price; }
+    public BigDecimal getSubtotal() { return subtotal; }
+}
@@ -0,0 +1,23 @@
+package za.co.tt.domain;
+
+/**
+ * A fitment centre that keeps its own stock for collection orders.
+ */
+public class Branch {
+    private final Long branchId;
+    private final String code;
+    private final String name;
+    private final boolean active;
+
+    public Branch(Long branchId, String code, String name, boolean active) {
+        this.branchId = branchId;
+        this.code = code;
+        this.name = name;
+        this.active = active;
+    }
+
+    public Long getBranchId() { return branchId; }
+    public String getCode() { return code; }
+    public String getName() { return name; }
+    public boolean isActive() { return active; }
+}
@@ -0,0 +1,23 @@
+package za.co.tt.domain;
+
+/**
+ * Units of a product that can still be reserved for collection at one branch.
+ */
+public class BranchAvailability {
+    private final Long branchId;
+    private final String branchCode;
+    private final String branchName;
+    private final int available;
+
+    public BranchAvailability(Long branchId, String branchCode, String branchName, int available) {
+        this.branchId = branchId;
+        this.branchCode = branchCode;
+        this.branchName = branchName;
+        this.available = available;
+    }
+
+    public Long getBranchId() { return branchId; }
+    public String getBranchCode() { return branchCode; }
+    public String getBranchName() { return branchName; }
+    public int getAvailable() { return available; }
+}
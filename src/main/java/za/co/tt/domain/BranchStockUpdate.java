@@ -0,0 +1,23 @@
+package za.co.tt.domain;
+
+/**
+ * One entry of a PUT /admin/inventory/branches/{branchId}/stock request: the product's new on-hand
+ * quantity at the branch, e.g. after a stock count or a delivery from the supplier.
+ */
+public class BranchStockUpdate {
+    private Long productId;
+    private Integer quantity;
+
+    public BranchStockUpdate() {}
+
+    public BranchStockUpdate(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -1,139 +1,147 @@
-// package za.co.tt.domain;
-
-// import jakarta.persistence.*;
-// import org.hibernate.annotations.CreationTimestamp;
-// import org.hibernate.annotations.UpdateTimestamp;
-
-// import java.time.LocalDate;
-// import java.util.ArrayList;
-// import java.util.List;
-
-
-// @Entity
-// @Table(name="cart")
-// public class Cart {
-//     @Id
-//     @GeneratedValue(strategy = GenerationType.IDENTITY)
-//     private Long cartId;
-//     @OneToOne
-//     @JoinColumn(name = "userId", nullable = false)
-//     private User user;
-
-//     @ElementCollection
-//     @CollectionTable(
-//             name = "cart_items",
-//             joinColumns = @JoinColumn(name = "cart_id")
-//     )
-//     private List<CartItem> items = new ArrayList<>();
-
-//     @CreationTimestamp
-//     private LocalDate createdAt;
-
-//     @UpdateTimestamp
-//     private LocalDate updatedAt;
-
-//     private Boolean isActive;
-
-
-
-//     public Cart() {
-//     }
-
-//     private Cart(Builder builder) {
-//         this.cartId = builder.cartId;
-//         this.user = builder.user;
-//         this.items = builder.items;
-//         this.createdAt = builder.createdAt;
-//         this.updatedAt = builder.updatedAt;
-//         this.isActive = builder.isActive;
-//     }
-
-//     public Long getCartId() {
-//         return cartId;
-//     }
-
-//     public User getUser() {
-//         return user;
-//     }
-
-//     public List<CartItem> getItems() {
-//         return items;
-//     }
-
-//     public LocalDate getCreatedAt() {
-//         return createdAt;
-//     }
-
-//     public LocalDate getUpdatedAt() {
-//         return updatedAt;
-//     }
-
-//     public Boolean getIsActive() {
-//         return isActive;
-//     }
-
-//     @Override
-//     public String toString() {
-//         return "Cart{" +
-//                 "cartId=" + cartId +
-//                 ", user=" + user +
-//                 ", items=" + items +
-//                 ", createdAt=" + createdAt +
-//                 ", updatedAt=" + updatedAt +
-//                 ", isActive=" + isActive +
-//                 '}';
-//     }
-
-//     public static class Builder {
-//         private Long cartId;
-//         private User user;
-//         private List<CartItem> items;
-//         private LocalDate createdAt;
-//         private LocalDate updatedAt;
-//         private Boolean isActive;
-
-//         public Builder setCartId(Long cartId) {
-//             this.cartId = cartId;
-//             return this;
-//         }
-
-//         public Builder setUser(User user) {
-//             this.user = user;
-//             return this;
-//         }
-
-//         public Builder setItems(List<CartItem> items) {
-//             this.items = items;
-//             return this;
-//         }
-
-//         public Builder setCreatedAt(LocalDate createdAt) {
-//             this.createdAt = createdAt;
-//             return this;
-//         }
-
-//         public Builder setUpdatedAt(LocalDate updatedAt) {
-//             this.updatedAt = updatedAt;
-//             return this;
-//         }
-
-//         public Builder setIsActive(Boolean isActive) {
-//             this.isActive = isActive;
-//             return this;
-//         }
-
-//         public Builder copy(Cart cart) {
-//             this.cartId = cart.cartId;
-//             this.user = cart.user;
-//             this.items = cart.items;
-//             this.createdAt = cart.createdAt;
-//             this.updatedAt = cart.updatedAt;
-//             this.isActive = cart.isActive;
-//             return this;
-//         }
-
-//         public Cart build() {
-//             return new Cart(this);
-//         }
-//     }
-// }
\ No newline at end of file
+package za.co.tt.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Entity
+@Table(name = "cart")
+public class Cart {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long cartId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    @JsonIgnore
+    private User user;
+
+    @ElementCollection
+    @CollectionTable(
+            name = "cart_items",
+            joinColumns = @JoinColumn(name = "cart_id")
+    )
+    private List<CartItem> items = new ArrayList<>();
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private Boolean isActive;
+
+    public Cart() {
+    }
+
+    private Cart(Builder builder) {
+        this.cartId = builder.cartId;
+        this.user = builder.user;
+        this.items = builder.items != null ? builder.items : new ArrayList<>();
+        this.createdAt = builder.createdAt;
+        this.updatedAt = builder.updatedAt;
+        this.isActive = builder.isActive;
+    }
+
+    public Long getCartId() {
+        return cartId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public void setIsActive(Boolean isActive) {
+        this.isActive = isActive;
+    }
+
+    @Override
+    public String toString() {
+        return "Cart{" +
+                "cartId=" + cartId +
+                ", user=" + (user != null ? user.getUserId() : null) +
+                ", items=" + items +
+                ", createdAt=" + createdAt +
+                ", updatedAt=" + updatedAt +
+                ", isActive=" + isActive +
+                '}';
+    }
+
+    public static class Builder {
+        private Long cartId;
+        private User user;
+        private List<CartItem> items;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private Boolean isActive;
+
+        public Builder setCartId(Long cartId) {
+            this.cartId = cartId;
+            return this;
+        }
+
+        public Builder setUser(User user) {
+            this.user = user;
+            return this;
+        }
+
+        public Builder setItems(List<CartItem> items) {
+            this.items = items;
+            return this;
+        }
+
+        public Builder setCreatedAt(LocalDateTime createdAt) {
+            this.createdAt = createdAt;
+            return this;
+        }
+
+        public Builder setUpdatedAt(LocalDateTime updatedAt) {
+            this.updatedAt = updatedAt;
+            return this;
+        }
+
+        public Builder setIsActive(Boolean isActive) {
+            this.isActive = isActive;
+            return this;
+        }
+
+        public Builder copy(Cart cart) {
+            this.cartId = cart.cartId;
+            this.user = cart.user;
+            this.items = cart.items;
+            this.createdAt = cart.createdAt;
+            this.updatedAt = cart.updatedAt;
+            this.isActive = cart.isActive;
+            return this;
+        }
+
+        public Cart build() {
+            return new Cart(this);
+        }
+    }
+}
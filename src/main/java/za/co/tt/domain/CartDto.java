@@ -0,0 +1,47 @@
+package za.co.tt.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Priced, stock-checked cart returned by GET /api/cart in a single round trip.
+ */
+public class CartDto {
+    private Long userId;
+    private List<CartLineDto> items = new ArrayList<>();
+    private int itemCount;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private boolean allInStock = true;
+
+    public CartDto() {}
+
+    public CartDto(Long userId) {
+        this.userId = userId;
+    }
+
+    public void addLine(CartLineDto line) {
+        items.add(line);
+        itemCount += line.getQuantity();
+        subtotal = subtotal.add(line.getLineTotal());
+        if (!line.isAvailable() || !line.isInStock()) {
+            allInStock = false;
+        }
+    }
+
+    // Getters and setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public List<CartLineDto> getItems() { return items; }
+    public void setItems(List<CartLineDto> items) { this.items = items; }
+
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+
+    public boolean isAllInStock() { return allInStock; }
+    public void setAllInStock(boolean allInStock) { this.allInStock = allInStock; }
+}
@@ -1,27 +1,45 @@
-// package za.co.tt.domain;
+package za.co.tt.domain;
 
-// import jakarta.persistence.Embeddable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
 
-// @Embeddable
-// public class CartItem {
+@Embeddable
+public class CartItem {
 
-//     private Long productId;
-//     private int quantity;
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
 
+    @Column(nullable = false)
+    private int quantity;
 
-//     public Long getProductId() {
-//         return productId;
-//     }
+    public CartItem() {}
 
-//     public void setProductId(Long productId) {
-//         this.productId = productId;
-//     }
+    public CartItem(Long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
 
-//     public int getQuantity() {
-//         return quantity;
-//     }
+    public Long getProductId() {
+        return productId;
+    }
 
-//     public void setQuantity(int quantity) {
-//         this.quantity = quantity;
-//     }
-// }
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "CartItem{" +
+                "productId=" + productId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
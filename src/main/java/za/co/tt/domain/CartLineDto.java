@@ -0,0 +1,56 @@
+package za.co.tt.domain;
+
+import java.math.BigDecimal;
+
+public class CartLineDto {
+    private Long productId;
+    private String productName;
+    private String productModel;
+    private String imageUrl;
+    private int quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal lineTotal;
+    private int availableStock;
+    private boolean inStock;
+    private boolean available;
+
+    public CartLineDto() {}
+
+    public CartLineDto(Long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = BigDecimal.ZERO;
+        this.lineTotal = BigDecimal.ZERO;
+    }
+
+    // Getters and setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public String getProductModel() { return productModel; }
+    public void setProductModel(String productModel) { this.productModel = productModel; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public BigDecimal getLineTotal() { return lineTotal; }
+    public void setLineTotal(BigDecimal lineTotal) { this.lineTotal = lineTotal; }
+
+    public int getAvailableStock() { return availableStock; }
+    public void setAvailableStock(int availableStock) { this.availableStock = availableStock; }
+
+    public boolean isInStock() { return inStock; }
+    public void setInStock(boolean inStock) { this.inStock = inStock; }
+
+    public boolean isAvailable() { return available; }
+    public void setAvailable(boolean available) { this.available = available; }
+}
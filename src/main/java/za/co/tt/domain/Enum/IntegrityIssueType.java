@@ -0,0 +1,9 @@
+package za.co.tt.domain.Enum;
+
+public enum IntegrityIssueType {
+    DUPLICATE_PAYMENT,  // more than one payment row for an order
+    DUPLICATE_DELIVERY, // more than one delivery row for an order
+    ORPHANED_ITEM,      // order item with no product, or no order
+    TOTAL_MISMATCH,     // order total differs from the sum of its item subtotals
+    NEGATIVE_STOCK      // product stock below zero
+}
@@ -0,0 +1,8 @@
+package za.co.tt.domain.Enum;
+
+public enum ReviewSort {
+    NEWEST,   // Most recently written first
+    HIGHEST,  // Highest rating first, newest first within a rating
+    LOWEST,   // Lowest rating first, oldest first within a rating
+    HELPFUL   // Most "helpful" votes first, newest first among equals
+}
@@ -0,0 +1,10 @@
+package za.co.tt.domain.Enum;
+
+public enum RollupType {
+    HOUR,         // keyed by order date and hour (yyyy-MM-ddTHH)
+    DAY,          // keyed by order date (yyyy-MM-dd)
+    PRODUCT,      // keyed by product id
+    SEASON,       // keyed by Season name
+    VEHICLE_TYPE, // keyed by VehicleType name
+    STATUS        // keyed by OrderStatus name
+}
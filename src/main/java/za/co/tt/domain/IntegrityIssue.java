@@ -0,0 +1,25 @@
+package za.co.tt.domain;
+
+import za.co.tt.domain.Enum.IntegrityIssueType;
+
+/**
+ * One finding of the whole-database integrity scan.
+ */
+public class IntegrityIssue {
+    private final IntegrityIssueType type;
+    private final Long orderId;
+    private final Long recordId;
+    private final String detail;
+
+    public IntegrityIssue(IntegrityIssueType type, Long orderId, Long recordId, String detail) {
+        this.type = type;
+        this.orderId = orderId;
+        this.recordId = recordId;
+        this.detail = detail;
+    }
+
+    public IntegrityIssueType getType() { return type; }
+    public Long getOrderId() { return orderId; }
+    public Long getRecordId() { return recordId; }
+    public String getDetail() { return detail; }
+}
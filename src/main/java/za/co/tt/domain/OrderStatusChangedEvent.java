@@ -0,0 +1,45 @@
+package za.co.tt.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever an order, its payment or its delivery changes status.
+ * OrderTrackingService turns these into the live tracking stream after the transaction commits.
+ */
+public class OrderStatusChangedEvent {
+
+    public enum Kind { ORDER, PAYMENT, DELIVERY }
+
+    private final Kind kind;
+    private final Long orderId;
+    private final Long userId;
+    private final String previousStatus;
+    private final String status;
+    private final LocalDateTime occurredAt;
+
+    public OrderStatusChangedEvent(Kind kind, Long orderId, Long userId, Object previousStatus, Object status) {
+        this.kind = kind;
+        this.orderId = orderId;
+        this.userId = userId;
+        this.previousStatus = previousStatus != null ? previousStatus.toString() : null;
+        this.status = status != null ? status.toString() : null;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    public Kind getKind() { return kind; }
+    public Long getOrderId() { return orderId; }
+    public Long getUserId() { return userId; }
+    public String getPreviousStatus() { return previousStatus; }
+    public String getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    @Override
+    public String toString() {
+        return "OrderStatusChangedEvent{" +
+                "kind=" + kind +
+                ", orderId=" + orderId +
+                ", previousStatus='" + previousStatus + '\'' +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package za.co.tt.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a customer's order history. Loaded by a single aggregate query, so the items, user,
+ * payment and delivery of the order are never fetched or serialised; the full order is only loaded
+ * by the detail view.
+ */
+public class OrderSummary {
+    private final Long orderId;
+    private final LocalDateTime orderDate;
+    private final String orderStatus;
+    private final BigDecimal totalAmount;
+    private final int itemCount;
+    private final Long firstProductId;
+    private final String firstProductName;
+    private final String thumbnailUrl;
+
+    public OrderSummary(Long orderId, LocalDateTime orderDate, String orderStatus, BigDecimal totalAmount, int itemCount,
+                        Long firstProductId, String firstProductName, String thumbnailUrl) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+        this.totalAmount = totalAmount;
+        this.itemCount = itemCount;
+        this.firstProductId = firstProductId;
+        this.firstProductName = firstProductName;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public String getOrderStatus() { return orderStatus; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public int getItemCount() { return itemCount; }
+    public Long getFirstProductId() { return firstProductId; }
+    public String getFirstProductName() { return firstProductName; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+}
@@ -0,0 +1,38 @@
+package za.co.tt.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status transition as delivered on the order tracking stream. The eventId doubles as the SSE id,
+ * so clients can resume with Last-Event-ID.
+ */
+public class OrderTrackingEvent {
+    private final long eventId;
+    private final OrderStatusChangedEvent.Kind kind;
+    private final Long orderId;
+    @JsonIgnore
+    private final Long userId;
+    private final String previousStatus;
+    private final String status;
+    private final LocalDateTime occurredAt;
+
+    public OrderTrackingEvent(long eventId, OrderStatusChangedEvent change) {
+        this.eventId = eventId;
+        this.kind = change.getKind();
+        this.orderId = change.getOrderId();
+        this.userId = change.getUserId();
+        this.previousStatus = change.getPreviousStatus();
+        this.status = change.getStatus();
+        this.occurredAt = change.getOccurredAt();
+    }
+
+    public long getEventId() { return eventId; }
+    public OrderStatusChangedEvent.Kind getKind() { return kind; }
+    public Long getOrderId() { return orderId; }
+    public Long getUserId() { return userId; }
+    public String getPreviousStatus() { return previousStatus; }
+    public String getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+}
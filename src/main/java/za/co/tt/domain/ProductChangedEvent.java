@@ -0,0 +1,42 @@
+package za.co.tt.domain;
+
+/**
+ * Published by ProductService whenever a product row is created, updated, re-stocked or deleted.
+ * Listeners that keep derived state (caches, stock feeds) react after the transaction commits.
+ * Changes made on other nodes are replayed locally with remote set.
+ */
+public class ProductChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, STOCK, DELETED }
+
+    private final Long productId;
+    private final ChangeType changeType;
+    private final int stockQuantity;
+    private final boolean remote;
+
+    public ProductChangedEvent(Long productId, ChangeType changeType, int stockQuantity) {
+        this(productId, changeType, stockQuantity, false);
+    }
+
+    public ProductChangedEvent(Long productId, ChangeType changeType, int stockQuantity, boolean remote) {
+        this.productId = productId;
+        this.changeType = changeType;
+        this.stockQuantity = stockQuantity;
+        this.remote = remote;
+    }
+
+    public Long getProductId() { return productId; }
+    public ChangeType getChangeType() { return changeType; }
+    public int getStockQuantity() { return stockQuantity; }
+    public boolean isRemote() { return remote; }
+
+    @Override
+    public String toString() {
+        return "ProductChangedEvent{" +
+                "productId=" + productId +
+                ", changeType=" + changeType +
+                ", stockQuantity=" + stockQuantity +
+                ", remote=" + remote +
+                '}';
+    }
+}
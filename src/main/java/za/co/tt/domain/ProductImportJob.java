@@ -0,0 +1,99 @@
+package za.co.tt.domain;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and outcome of one asynchronous catalog import, returned by the job-status endpoint.
+ */
+public class ProductImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String jobId;
+    private final String fileName;
+    private final String format;
+    private final int maxErrors;
+    private volatile Status status = Status.QUEUED;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<RowError> errors = new ArrayList<>();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+
+    public ProductImportJob(String jobId, String fileName, String format, int maxErrors) {
+        this.jobId = jobId;
+        this.fileName = fileName;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+        startedAt = LocalDateTime.now();
+    }
+
+    public void finish(Status finalStatus, String message) {
+        this.status = finalStatus;
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public void rowRead() { rowsRead.incrementAndGet(); }
+    public void addInserted(int count) { inserted.addAndGet(count); }
+    public void addUpdated(int count) { updated.addAndGet(count); }
+
+    /**
+     * Count a failed row; only the first maxErrors are kept in detail.
+     */
+    public void addError(long rowNumber, String error) {
+        failed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(rowNumber, error));
+            }
+        }
+    }
+
+    public String getJobId() { return jobId; }
+    public String getFileName() { return fileName; }
+    public String getFormat() { return format; }
+    public Status getStatus() { return status; }
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getInserted() { return inserted.get(); }
+    public long getUpdated() { return updated.get(); }
+    public long getFailed() { return failed.get(); }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public String getMessage() { return message; }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public boolean isErrorsTruncated() {
+        return failed.get() > maxErrors;
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String error;
+
+        public RowError(long row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+
+        public long getRow() { return row; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,75 @@
+package za.co.tt.domain;
+
+import za.co.tt.domain.Enum.Season;
+import za.co.tt.domain.Enum.VehicleType;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One validated row of a catalog import file. Products are matched on name, model and tyre size;
+ * null price, stock, season, vehicle type, image URL or description leave the stored value unchanged,
+ * and null fitments leave the product's fitments alone.
+ */
+public class ProductImportRow {
+    private final long rowNumber;
+    private final String productName;
+    private final String productModel;
+    private final int width;
+    private final int aspectRatio;
+    private final int rimDiameter;
+    private final Season season;
+    private final VehicleType vehicleType;
+    private final Integer productPrice;
+    private final Integer stockQuantity;
+    private final String imageUrl;
+    private final String description;
+    private final List<ProductFitment> fitments;
+
+    public ProductImportRow(long rowNumber, String productName, String productModel,
+                            int width, int aspectRatio, int rimDiameter,
+                            Season season, VehicleType vehicleType,
+                            Integer productPrice, Integer stockQuantity,
+                            String imageUrl, String description, List<ProductFitment> fitments) {
+        this.rowNumber = rowNumber;
+        this.productName = productName;
+        this.productModel = productModel;
+        this.width = width;
+        this.aspectRatio = aspectRatio;
+        this.rimDiameter = rimDiameter;
+        this.season = season;
+        this.vehicleType = vehicleType;
+        this.productPrice = productPrice;
+        this.stockQuantity = stockQuantity;
+        this.imageUrl = imageUrl;
+        this.description = description;
+        this.fitments = fitments;
+    }
+
+    /**
+     * Upsert key; MySQL compares the name and model case-insensitively, so the key does too.
+     */
+    public String getKey() {
+        return catalogKey(productName, productModel, width, aspectRatio, rimDiameter);
+    }
+
+    public static String catalogKey(String name, String model, int width, int aspectRatio, int rimDiameter) {
+        return (name == null ? "" : name.trim().toLowerCase(Locale.ROOT)) + '|'
+                + (model == null ? "" : model.trim().toLowerCase(Locale.ROOT)) + '|'
+                + width + '/' + aspectRatio + 'R' + rimDiameter;
+    }
+
+    public long getRowNumber() { return rowNumber; }
+    public String getProductName() { return productName; }
+    public String getProductModel() { return productModel; }
+    public int getWidth() { return width; }
+    public int getAspectRatio() { return aspectRatio; }
+    public int getRimDiameter() { return rimDiameter; }
+    public Season getSeason() { return season; }
+    public VehicleType getVehicleType() { return vehicleType; }
+    public Integer getProductPrice() { return productPrice; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public String getImageUrl() { return imageUrl; }
+    public String getDescription() { return description; }
+    public List<ProductFitment> getFitments() { return fitments; }
+}
@@ -0,0 +1,48 @@
+package za.co.tt.domain;
+
+/**
+ * Lightweight, immutable view of a product used for pricing and stock checks.
+ * Loaded through a constructor projection so the image LOB and collections are never touched.
+ */
+public class ProductSummary {
+    private final Long productId;
+    private final String productName;
+    private final String productModel;
+    private final int productPrice;
+    private final int stockQuantity;
+    private final String imageUrl;
+
+    public ProductSummary(Long productId, String productName, String productModel,
+                          int productPrice, int stockQuantity, String imageUrl) {
+        this.productId = productId;
+        this.productName = productName;
+        this.productModel = productModel;
+        this.productPrice = productPrice;
+        this.stockQuantity = stockQuantity;
+        this.imageUrl = imageUrl;
+    }
+
+    public static ProductSummary from(Product product) {
+        return new ProductSummary(product.getProductId(), product.getProductName(), product.getProductModel(),
+                product.getProductPrice(), product.getStockQuantity(), product.getImageUrl());
+    }
+
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public String getProductModel() { return productModel; }
+    public int getProductPrice() { return productPrice; }
+    public int getStockQuantity() { return stockQuantity; }
+    public String getImageUrl() { return imageUrl; }
+
+    @Override
+    public String toString() {
+        return "ProductSummary{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", productModel='" + productModel + '\'' +
+                ", productPrice=" + productPrice +
+                ", stockQuantity=" + stockQuantity +
+                ", imageUrl='" + imageUrl + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,46 @@
+package za.co.tt.domain;
+
+/**
+ * A product often bought together with another: the product as shown on a listing card, how many
+ * completed orders contained both, and their similarity (co-purchases relative to how often each
+ * product sells, between 0 and 1).
+ */
+public class RelatedProduct {
+    private final Long productId;
+    private final String productName;
+    private final String productModel;
+    private final int productPrice;
+    private final int stockQuantity;
+    private final String imageUrl;
+    private final long boughtTogether;
+    private final double score;
+
+    public RelatedProduct(ProductSummary product, long boughtTogether, double score) {
+        this.productId = product.getProductId();
+        this.productName = product.getProductName();
+        this.productModel = product.getProductModel();
+        this.productPrice = product.getProductPrice();
+        this.stockQuantity = product.getStockQuantity();
+        this.imageUrl = product.getImageUrl();
+        this.boughtTogether = boughtTogether;
+        this.score = score;
+    }
+
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public String getProductModel() { return productModel; }
+    public int getProductPrice() { return productPrice; }
+    public int getStockQuantity() { return stockQuantity; }
+    public String getImageUrl() { return imageUrl; }
+    public long getBoughtTogether() { return boughtTogether; }
+    public double getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return "RelatedProduct{" +
+                "productId=" + productId +
+                ", boughtTogether=" + boughtTogether +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package za.co.tt.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a product page shows for one review. Loaded through a constructor projection so the user,
+ * order and product of each review are never fetched or serialised.
+ */
+public class ReviewSummary {
+    private final Long reviewId;
+    private final String reviewerName;
+    private final int rating;
+    private final String comment;
+    private final LocalDateTime reviewDate;
+    private final long helpfulCount;
+
+    public ReviewSummary(Long reviewId, String reviewerName, int rating, String comment, LocalDateTime reviewDate) {
+        this(reviewId, reviewerName, rating, comment, reviewDate, 0);
+    }
+
+    public ReviewSummary(Long reviewId, String reviewerName, int rating, String comment, LocalDateTime reviewDate,
+                         long helpfulCount) {
+        this.reviewId = reviewId;
+        this.reviewerName = reviewerName;
+        this.rating = rating;
+        this.comment = comment;
+        this.reviewDate = reviewDate;
+        this.helpfulCount = helpfulCount;
+    }
+
+    /**
+     * Copy with the current helpful vote count, which is not part of the projection query.
+     */
+    public ReviewSummary withHelpfulCount(long count) {
+        return new ReviewSummary(reviewId, reviewerName, rating, comment, reviewDate, count);
+    }
+
+    public Long getReviewId() { return reviewId; }
+    public String getReviewerName() { return reviewerName; }
+    public int getRating() { return rating; }
+    public String getComment() { return comment; }
+    public LocalDateTime getReviewDate() { return reviewDate; }
+    public long getHelpfulCount() { return helpfulCount; }
+
+    @Override
+    public String toString() {
+        return "ReviewSummary{" +
+                "reviewId=" + reviewId +
+                ", rating=" + rating +
+                ", reviewDate=" + reviewDate +
+                ", helpfulCount=" + helpfulCount +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package za.co.tt.domain;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One pre-aggregated analytics row. Which counters are meaningful depends on the rollup type:
+ * DAY rows carry all of them, PRODUCT/SEASON/VEHICLE_TYPE rows carry net units and revenue
+ * (orderCount = order lines), STATUS rows only carry orderCount.
+ */
+@Entity
+@Table(name = "sales_rollup")
+public class SalesRollup {
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    private long orderCount;
+    private long cancelledCount;
+    private long completedCount;
+    private long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal cancelledRevenue;
+
+    private LocalDateTime updatedAt;
+
+    public SalesRollup() {}
+
+    private SalesRollup(Builder builder) {
+        this.id = builder.id;
+        this.orderCount = builder.orderCount;
+        this.cancelledCount = builder.cancelledCount;
+        this.completedCount = builder.completedCount;
+        this.units = builder.units;
+        this.revenue = builder.revenue;
+        this.cancelledRevenue = builder.cancelledRevenue;
+        this.updatedAt = builder.updatedAt;
+    }
+
+    public SalesRollupId getId() { return id; }
+    public long getOrderCount() { return orderCount; }
+    public long getCancelledCount() { return cancelledCount; }
+    public long getCompletedCount() { return completedCount; }
+    public long getUnits() { return units; }
+    public BigDecimal getRevenue() { return revenue; }
+    public BigDecimal getCancelledRevenue() { return cancelledRevenue; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    public static class Builder {
+        private SalesRollupId id;
+        private long orderCount;
+        private long cancelledCount;
+        private long completedCount;
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private BigDecimal cancelledRevenue = BigDecimal.ZERO;
+        private LocalDateTime updatedAt;
+
+        public Builder setId(SalesRollupId id) { this.id = id; return this; }
+        public Builder setOrderCount(long orderCount) { this.orderCount = orderCount; return this; }
+        public Builder setCancelledCount(long cancelledCount) { this.cancelledCount = cancelledCount; return this; }
+        public Builder setCompletedCount(long completedCount) { this.completedCount = completedCount; return this; }
+        public Builder setUnits(long units) { this.units = units; return this; }
+        public Builder setRevenue(BigDecimal revenue) { this.revenue = revenue; return this; }
+        public Builder setCancelledRevenue(BigDecimal cancelledRevenue) { this.cancelledRevenue = cancelledRevenue; return this; }
+        public Builder setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; return this; }
+
+        public SalesRollup build() {
+            return new SalesRollup(this);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package za.co.tt.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import za.co.tt.domain.Enum.RollupType;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class SalesRollupId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rollup_type", length = 16, nullable = false)
+    private RollupType rollupType;
+
+    @Column(name = "rollup_key", length = 64, nullable = false)
+    private String rollupKey;
+
+    public SalesRollupId() {}
+
+    public SalesRollupId(RollupType rollupType, String rollupKey) {
+        this.rollupType = rollupType;
+        this.rollupKey = rollupKey;
+    }
+
+    public RollupType getRollupType() { return rollupType; }
+    public String getRollupKey() { return rollupKey; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SalesRollupId)) return false;
+        SalesRollupId that = (SalesRollupId) o;
+        return rollupType == that.rollupType && Objects.equals(rollupKey, that.rollupKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rollupType, rollupKey);
+    }
+
+    @Override
+    public String toString() {
+        return rollupType + ":" + rollupKey;
+    }
+}
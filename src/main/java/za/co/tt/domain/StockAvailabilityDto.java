@@ -0,0 +1,57 @@
+package za.co.tt.domain;
+
+public class StockAvailabilityDto {
+    private Long productId;
+    private String productName;
+    private boolean found;
+    private int availableStock;
+    private Integer requested;
+    private boolean valid;
+    private String message;
+
+    public StockAvailabilityDto() {}
+
+    public static StockAvailabilityDto notFound(Long productId, Integer requested) {
+        StockAvailabilityDto dto = new StockAvailabilityDto();
+        dto.productId = productId;
+        dto.requested = requested;
+        dto.found = false;
+        dto.valid = false;
+        dto.message = "Product not found";
+        return dto;
+    }
+
+    public static StockAvailabilityDto of(ProductSummary product, Integer requested) {
+        StockAvailabilityDto dto = new StockAvailabilityDto();
+        dto.productId = product.getProductId();
+        dto.productName = product.getProductName();
+        dto.found = true;
+        dto.availableStock = product.getStockQuantity();
+        dto.requested = requested;
+        dto.valid = requested == null || product.getStockQuantity() >= requested;
+        dto.message = dto.valid ? "Stock available" : "Insufficient stock";
+        return dto;
+    }
+
+    // Getters and setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+
+    public boolean isFound() { return found; }
+    public void setFound(boolean found) { this.found = found; }
+
+    public int getAvailableStock() { return availableStock; }
+    public void setAvailableStock(int availableStock) { this.availableStock = availableStock; }
+
+    public Integer getRequested() { return requested; }
+    public void setRequested(Integer requested) { this.requested = requested; }
+
+    public boolean isValid() { return valid; }
+    public void setValid(boolean valid) { this.valid = valid; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,23 @@
+package za.co.tt.domain;
+
+/**
+ * One entry of a POST /api/products/stock/batch request. Quantity is optional;
+ * when omitted only the available stock is reported.
+ */
+public class StockCheckItem {
+    private Long productId;
+    private Integer quantity;
+
+    public StockCheckItem() {}
+
+    public StockCheckItem(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,17 @@
+package za.co.tt.domain;
+
+/**
+ * Payload pushed to storefront subscribers of the stock stream.
+ */
+public class StockLevelUpdate {
+    private final Long productId;
+    private final int stockQuantity;
+
+    public StockLevelUpdate(Long productId, int stockQuantity) {
+        this.productId = productId;
+        this.stockQuantity = stockQuantity;
+    }
+
+    public Long getProductId() { return productId; }
+    public int getStockQuantity() { return stockQuantity; }
+}
@@ -0,0 +1,32 @@
+package za.co.tt.domain;
+
+/**
+ * One entry of a POST /admin/inventory/transfers request: units of a product to move between branches.
+ */
+public class StockTransfer {
+    private Long productId;
+    private Long fromBranchId;
+    private Long toBranchId;
+    private Integer quantity;
+
+    public StockTransfer() {}
+
+    public StockTransfer(Long productId, Long fromBranchId, Long toBranchId, Integer quantity) {
+        this.productId = productId;
+        this.fromBranchId = fromBranchId;
+        this.toBranchId = toBranchId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Long getFromBranchId() { return fromBranchId; }
+    public void setFromBranchId(Long fromBranchId) { this.fromBranchId = fromBranchId; }
+
+    public Long getToBranchId() { return toBranchId; }
+    public void setToBranchId(Long toBranchId) { this.toBranchId = toBranchId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,116 @@
+package za.co.tt.domain;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change statistics of one supplier feed sync (or dry run).
+ */
+public class SupplierSyncReport {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private static final int MAX_SAMPLES = 50;
+
+    private final String feedFile;
+    private final boolean dryRun;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String message;
+    private long feedBytes;
+    private long rowsRead;
+    private long unchanged;
+    private long changed;
+    private long priceChanges;
+    private long stockChanges;
+    private long specChanges;
+    private long unitsAdded;
+    private long unitsRemoved;
+    private long unknownProducts;
+    private long malformedRows;
+    private long failedRows;
+    private final List<Change> sampleChanges = new ArrayList<>();
+    private final List<String> sampleErrors = new ArrayList<>();
+
+    public SupplierSyncReport(String feedFile, boolean dryRun) {
+        this.feedFile = feedFile;
+        this.dryRun = dryRun;
+    }
+
+    public synchronized void recordChange(Change change) {
+        changed++;
+        if (change.getOldPrice() != change.getNewPrice()) priceChanges++;
+        if (change.getOldStock() != change.getNewStock()) {
+            stockChanges++;
+            long delta = (long) change.getNewStock() - change.getOldStock();
+            if (delta > 0) unitsAdded += delta; else unitsRemoved -= delta;
+        }
+        if (change.isSpecChanged()) specChanges++;
+        if (sampleChanges.size() < MAX_SAMPLES) sampleChanges.add(change);
+    }
+
+    public synchronized void recordMalformed(long record, String error) {
+        malformedRows++;
+        if (sampleErrors.size() < MAX_SAMPLES) sampleErrors.add("Record " + record + ": " + error);
+    }
+
+    public synchronized void rowRead() { rowsRead++; }
+    public synchronized void unchangedRow() { unchanged++; }
+    public synchronized void unknownProduct() { unknownProducts++; }
+    public synchronized void failedRows(int count) { failedRows += count; }
+    public synchronized void setFeedBytes(long feedBytes) { this.feedBytes = feedBytes; }
+
+    public void finish(Status finalStatus, String message) {
+        this.status = finalStatus;
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    public String getFeedFile() { return feedFile; }
+    public boolean isDryRun() { return dryRun; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public String getMessage() { return message; }
+    public synchronized long getFeedBytes() { return feedBytes; }
+    public synchronized long getRowsRead() { return rowsRead; }
+    public synchronized long getUnchanged() { return unchanged; }
+    public synchronized long getChanged() { return changed; }
+    public synchronized long getPriceChanges() { return priceChanges; }
+    public synchronized long getStockChanges() { return stockChanges; }
+    public synchronized long getSpecChanges() { return specChanges; }
+    public synchronized long getUnitsAdded() { return unitsAdded; }
+    public synchronized long getUnitsRemoved() { return unitsRemoved; }
+    public synchronized long getUnknownProducts() { return unknownProducts; }
+    public synchronized long getMalformedRows() { return malformedRows; }
+    public synchronized long getFailedRows() { return failedRows; }
+    public synchronized List<Change> getSampleChanges() { return new ArrayList<>(sampleChanges); }
+    public synchronized List<String> getSampleErrors() { return new ArrayList<>(sampleErrors); }
+
+    public static class Change {
+        private final Long productId;
+        private final int oldPrice;
+        private final int newPrice;
+        private final int oldStock;
+        private final int newStock;
+        private final boolean specChanged;
+
+        public Change(Long productId, int oldPrice, int newPrice, int oldStock, int newStock, boolean specChanged) {
+            this.productId = productId;
+            this.oldPrice = oldPrice;
+            this.newPrice = newPrice;
+            this.oldStock = oldStock;
+            this.newStock = newStock;
+            this.specChanged = specChanged;
+        }
+
+        public Long getProductId() { return productId; }
+        public int getOldPrice() { return oldPrice; }
+        public int getNewPrice() { return newPrice; }
+        public int getOldStock() { return oldStock; }
+        public int getNewStock() { return newStock; }
+        public boolean isSpecChanged() { return specChanged; }
+    }
+}
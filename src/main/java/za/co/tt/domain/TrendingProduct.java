@@ -0,0 +1,42 @@
+package za.co.tt.domain;
+
+/**
+ * One entry of a trending products list: the product as shown on a listing card plus its popularity
+ * score (weighted, time-decayed views, add-to-carts and purchases).
+ */
+public class TrendingProduct {
+    private final Long productId;
+    private final String productName;
+    private final String productModel;
+    private final int productPrice;
+    private final int stockQuantity;
+    private final String imageUrl;
+    private final double score;
+
+    public TrendingProduct(ProductSummary product, double score) {
+        this.productId = product.getProductId();
+        this.productName = product.getProductName();
+        this.productModel = product.getProductModel();
+        this.productPrice = product.getProductPrice();
+        this.stockQuantity = product.getStockQuantity();
+        this.imageUrl = product.getImageUrl();
+        this.score = score;
+    }
+
+    public Long getProductId() { return productId; }
+    public String getProductName() { return productName; }
+    public String getProductModel() { return productModel; }
+    public int getProductPrice() { return productPrice; }
+    public int getStockQuantity() { return stockQuantity; }
+    public String getImageUrl() { return imageUrl; }
+    public double getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return "TrendingProduct{" +
+                "productId=" + productId +
+                ", productName='" + productName + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,40 @@
+package za.co.tt.domain;
+
+/**
+ * Published by UserService whenever a user row is created, updated, gets a new password or is deleted.
+ * Listeners holding per-user state (caches, credentials) drop it after the transaction commits.
+ */
+public class UserChangedEvent {
+
+    public enum ChangeType { CREATED, UPDATED, PASSWORD, DELETED }
+
+    private final Long userId;
+    private final ChangeType changeType;
+    private final boolean remote;
+
+    public UserChangedEvent(Long userId, ChangeType changeType) {
+        this(userId, changeType, false);
+    }
+
+    /**
+     * @param remote true when the change was made on another node and replayed from the cluster change log
+     */
+    public UserChangedEvent(Long userId, ChangeType changeType, boolean remote) {
+        this.userId = userId;
+        this.changeType = changeType;
+        this.remote = remote;
+    }
+
+    public Long getUserId() { return userId; }
+    public ChangeType getChangeType() { return changeType; }
+    public boolean isRemote() { return remote; }
+
+    @Override
+    public String toString() {
+        return "UserChangedEvent{" +
+                "userId=" + userId +
+                ", changeType=" + changeType +
+                ", remote=" + remote +
+                '}';
+    }
+}
@@ -0,0 +1,116 @@
+package za.co.tt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.ArchivedOrder;
+import za.co.tt.domain.Enum.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @Query("SELECT DISTINCT a FROM ArchivedOrder a LEFT JOIN FETCH a.items WHERE a.userId = :userId")
+    List<ArchivedOrder> findByUserIdWithItems(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT a FROM ArchivedOrder a LEFT JOIN FETCH a.items WHERE a.userId = :userId AND a.orderStatus = :status")
+    List<ArchivedOrder> findByUserIdAndOrderStatusWithItems(@Param("userId") Long userId, @Param("status") OrderStatus status);
+
+    @Query("SELECT a FROM ArchivedOrder a LEFT JOIN FETCH a.items WHERE a.orderId = :orderId")
+    Optional<ArchivedOrder> findByIdWithItems(@Param("orderId") Long orderId);
+
+    /**
+     * Terminal-state orders placed before the cutoff, restricted to one shard of the id space.
+     * Orders that already have reviews stay live because reviews reference them by foreign key.
+     */
+    @Query(value = "SELECT o.order_id FROM orders o " +
+            "WHERE o.order_status IN ('COMPLETED', 'CANCELLED') AND o.order_date < :cutoff " +
+            "AND MOD(o.order_id, :shardCount) = :shardIndex " +
+            "AND NOT EXISTS (SELECT 1 FROM reviews r WHERE r.order_id = o.order_id) " +
+            "ORDER BY o.order_id LIMIT :limit", nativeQuery = true)
+    List<Long> findArchivableOrderIds(@Param("cutoff") LocalDateTime cutoff,
+                                      @Param("shardIndex") int shardIndex,
+                                      @Param("shardCount") int shardCount,
+                                      @Param("limit") int limit);
+
+    // ---- move live -> archive ----
+
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (order_id, user_id, order_date, order_status, total_amount, " +
+            "payment_id, payment_user_id, payment_method, payment_status, payment_amount, payment_date, " +
+            "delivery_id, address_id, delivery_method, delivery_status, courier_name, " +
+            "estimated_delivery_date, actual_delivery_date, archived_at) " +
+            "SELECT o.order_id, o.user_id, o.order_date, o.order_status, o.total_amount, " +
+            "p.payment_id, p.user_id, p.payment_method, p.payment_status, p.amount, p.payment_date, " +
+            "d.delivery_id, d.address_id, d.delivery_method, d.delivery_status, d.courier_name, " +
+            "d.estimated_delivery_date, d.actual_delivery_date, NOW(6) " +
+            "FROM orders o " +
+            "LEFT JOIN payment p ON p.order_id = o.order_id " +
+            "LEFT JOIN delivery d ON d.order_id = o.order_id " +
+            "WHERE o.order_id IN (:orderIds)", nativeQuery = true)
+    int copyOrdersToArchive(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (order_id, item_id, product_id, quantity, price, subtotal) " +
+            "SELECT order_id, id, product_id, quantity, price, subtotal FROM order_items " +
+            "WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int copyOrderItemsToArchive(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM delivery WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int deleteLiveDeliveries(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM payment WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int deleteLivePayments(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int deleteLiveOrderItems(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE order_id IN (:orderIds)", nativeQuery = true)
+    int deleteLiveOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    // ---- move archive -> live ----
+
+    @Modifying
+    @Query(value = "INSERT INTO orders (order_id, user_id, order_date, order_status, total_amount) " +
+            "SELECT order_id, user_id, order_date, order_status, total_amount FROM orders_archive " +
+            "WHERE order_id = :orderId", nativeQuery = true)
+    int restoreOrder(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_items (id, order_id, product_id, quantity, price, subtotal) " +
+            "SELECT item_id, order_id, product_id, quantity, price, subtotal FROM order_items_archive " +
+            "WHERE order_id = :orderId", nativeQuery = true)
+    int restoreOrderItems(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query(value = "INSERT INTO payment (payment_id, payment_method, payment_status, amount, payment_date, user_id, order_id) " +
+            "SELECT payment_id, payment_method, payment_status, payment_amount, payment_date, payment_user_id, order_id " +
+            "FROM orders_archive WHERE order_id = :orderId AND payment_id IS NOT NULL", nativeQuery = true)
+    int restorePayment(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query(value = "INSERT INTO delivery (delivery_id, order_id, address_id, delivery_method, delivery_status, " +
+            "courier_name, estimated_delivery_date, actual_delivery_date) " +
+            "SELECT delivery_id, order_id, address_id, delivery_method, delivery_status, " +
+            "courier_name, estimated_delivery_date, actual_delivery_date " +
+            "FROM orders_archive WHERE order_id = :orderId AND delivery_id IS NOT NULL", nativeQuery = true)
+    int restoreDelivery(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items_archive WHERE order_id = :orderId", nativeQuery = true)
+    int deleteArchivedOrderItems(@Param("orderId") Long orderId);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders_archive WHERE order_id = :orderId", nativeQuery = true)
+    int deleteArchivedOrder(@Param("orderId") Long orderId);
+}
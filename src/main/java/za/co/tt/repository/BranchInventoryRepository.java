@@ -0,0 +1,246 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.Branch;
+import za.co.tt.domain.BranchStockUpdate;
+import za.co.tt.domain.StockTransfer;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to branches, their stock (branch_stock), the units collection orders hold there
+ * (branch_reservation) and the inter-branch transfer log (branch_transfer).
+ */
+@Repository
+public class BranchInventoryRepository {
+
+    /**
+     * Stock of one product at one branch.
+     */
+    public static final class StockRow {
+        private final long productId;
+        private final long branchId;
+        private final int quantity;
+        private final int reserved;
+
+        public StockRow(long productId, long branchId, int quantity, int reserved) {
+            this.productId = productId;
+            this.branchId = branchId;
+            this.quantity = quantity;
+            this.reserved = reserved;
+        }
+
+        public long getProductId() { return productId; }
+        public long getBranchId() { return branchId; }
+        public int getQuantity() { return quantity; }
+        public int getReserved() { return reserved; }
+        public int getAvailable() { return quantity - reserved; }
+    }
+
+    /**
+     * Units of one product a collection order holds at its branch.
+     */
+    public static final class ReservationRow {
+        private final long orderId;
+        private final long productId;
+        private final long branchId;
+        private final int quantity;
+        private final boolean consumed;
+        private final boolean released;
+
+        public ReservationRow(long orderId, long productId, long branchId, int quantity, boolean consumed,
+                              boolean released) {
+            this.orderId = orderId;
+            this.productId = productId;
+            this.branchId = branchId;
+            this.quantity = quantity;
+            this.consumed = consumed;
+            this.released = released;
+        }
+
+        public long getOrderId() { return orderId; }
+        public long getProductId() { return productId; }
+        public long getBranchId() { return branchId; }
+        public int getQuantity() { return quantity; }
+        public boolean isConsumed() { return consumed; }
+        public boolean isReleased() { return released; }
+    }
+
+    private static final RowMapper<StockRow> STOCK_MAPPER = (rs, rowNum) -> new StockRow(
+            rs.getLong("product_id"), rs.getLong("branch_id"), rs.getInt("quantity"), rs.getInt("reserved"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BranchInventoryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Branch> findBranches() {
+        return jdbcTemplate.query("SELECT branch_id, code, name, active FROM branch ORDER BY branch_id",
+                (rs, rowNum) -> new Branch(rs.getLong("branch_id"), rs.getString("code"), rs.getString("name"),
+                        rs.getBoolean("active")));
+    }
+
+    public long insertBranch(String code, String name) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update("INSERT INTO branch (code, name, active) VALUES (:code, :name, TRUE)",
+                new MapSqlParameterSource().addValue("code", code).addValue("name", name), keyHolder, new String[]{"branch_id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Hand every branch_stock row to consumer.
+     */
+    public void forEachStock(Consumer<StockRow> consumer) {
+        jdbcTemplate.query("SELECT product_id, branch_id, quantity, reserved FROM branch_stock",
+                (ResultSet rs) -> consumer.accept(STOCK_MAPPER.mapRow(rs, 0)));
+    }
+
+    public List<StockRow> findStock(long productId, long branchId) {
+        return jdbcTemplate.query("SELECT product_id, branch_id, quantity, reserved FROM branch_stock " +
+                        "WHERE product_id = :productId AND branch_id = :branchId",
+                new MapSqlParameterSource().addValue("productId", productId).addValue("branchId", branchId), STOCK_MAPPER);
+    }
+
+    /**
+     * Lock the rows of the given {productId, branchId} keys in primary key order, so concurrent
+     * transfers and stock counts over the same keys queue instead of deadlocking.
+     */
+    public List<StockRow> lockStock(List<Object[]> keys) {
+        return jdbcTemplate.query("SELECT product_id, branch_id, quantity, reserved FROM branch_stock " +
+                        "WHERE (product_id, branch_id) IN (:keys) ORDER BY product_id, branch_id FOR UPDATE",
+                new MapSqlParameterSource("keys", keys), STOCK_MAPPER);
+    }
+
+    /**
+     * Reserve units of a product at a branch if that many are still available. Only this
+     * (product, branch) row is locked, so collection orders at different branches never wait on
+     * each other. Returns false if the branch has too few.
+     */
+    public boolean reserve(long productId, long branchId, int quantity) {
+        return jdbcTemplate.update("UPDATE branch_stock SET reserved = reserved + :quantity, updated_at = NOW(6) " +
+                        "WHERE product_id = :productId AND branch_id = :branchId AND quantity - reserved >= :quantity",
+                new MapSqlParameterSource()
+                        .addValue("productId", productId)
+                        .addValue("branchId", branchId)
+                        .addValue("quantity", quantity)) == 1;
+    }
+
+    public void insertReservations(long orderId, long branchId, Map<Long, Integer> quantities) {
+        List<SqlParameterSource> batch = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> batch.add(new MapSqlParameterSource()
+                .addValue("orderId", orderId)
+                .addValue("productId", productId)
+                .addValue("branchId", branchId)
+                .addValue("quantity", quantity)));
+        jdbcTemplate.batchUpdate("INSERT INTO branch_reservation (order_id, product_id, branch_id, quantity, created_at) " +
+                "VALUES (:orderId, :productId, :branchId, :quantity, NOW(6))", batch.toArray(new SqlParameterSource[0]));
+    }
+
+    /**
+     * Reservations of the given orders, released ones included, locked so an order is released at most
+     * once across nodes.
+     */
+    public List<ReservationRow> lockReservations(Collection<Long> orderIds) {
+        return jdbcTemplate.query("SELECT order_id, product_id, branch_id, quantity, consumed_at IS NOT NULL AS consumed, " +
+                        "released_at IS NOT NULL AS released " +
+                        "FROM branch_reservation WHERE order_id IN (:orderIds) ORDER BY order_id, product_id FOR UPDATE",
+                new MapSqlParameterSource("orderIds", orderIds),
+                (rs, rowNum) -> new ReservationRow(rs.getLong("order_id"), rs.getLong("product_id"),
+                        rs.getLong("branch_id"), rs.getInt("quantity"), rs.getBoolean("consumed"),
+                        rs.getBoolean("released")));
+    }
+
+    /**
+     * Give reserved units back to their branch and mark the reservations released. Units of consumed
+     * reservations have already left the branch and are put back on hand. The rows stay so the order
+     * is still known to be a branch order.
+     */
+    public void releaseReservations(List<ReservationRow> rows) {
+        List<SqlParameterSource> batch = new ArrayList<>(rows.size());
+        List<Long> orderIds = new ArrayList<>();
+        for (ReservationRow row : rows) {
+            batch.add(new MapSqlParameterSource()
+                    .addValue("productId", row.getProductId())
+                    .addValue("branchId", row.getBranchId())
+                    .addValue("quantity", row.getQuantity())
+                    .addValue("consumed", row.isConsumed()));
+            if (!orderIds.contains(row.getOrderId())) {
+                orderIds.add(row.getOrderId());
+            }
+        }
+        jdbcTemplate.batchUpdate("UPDATE branch_stock SET " +
+                "quantity = quantity + CASE WHEN :consumed THEN :quantity ELSE 0 END, " +
+                "reserved = GREATEST(reserved - CASE WHEN :consumed THEN 0 ELSE :quantity END, 0), " +
+                "updated_at = NOW(6) WHERE product_id = :productId AND branch_id = :branchId",
+                batch.toArray(new SqlParameterSource[0]));
+        jdbcTemplate.update("UPDATE branch_reservation SET released_at = NOW(6) " +
+                        "WHERE order_id IN (:orderIds) AND released_at IS NULL",
+                new MapSqlParameterSource("orderIds", orderIds));
+    }
+
+    /**
+     * The order has been collected: its reserved units leave the branch's stock. Returns the number of
+     * reservation rows consumed (0 if the order had none or they were already consumed or released).
+     */
+    public int consumeReservations(long orderId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("orderId", orderId);
+        jdbcTemplate.update("UPDATE branch_stock s JOIN branch_reservation r " +
+                "ON r.product_id = s.product_id AND r.branch_id = s.branch_id " +
+                "SET s.quantity = s.quantity - r.quantity, s.reserved = GREATEST(s.reserved - r.quantity, 0), s.updated_at = NOW(6) " +
+                "WHERE r.order_id = :orderId AND r.consumed_at IS NULL AND r.released_at IS NULL", params);
+        return jdbcTemplate.update("UPDATE branch_reservation SET consumed_at = NOW(6) " +
+                "WHERE order_id = :orderId AND consumed_at IS NULL AND released_at IS NULL", params);
+    }
+
+    /**
+     * Apply transfers whose source rows the caller has locked and checked: one batch taking units off
+     * the sources, one adding them to the targets (creating missing rows) and one logging them.
+     */
+    public void applyTransfers(String batchId, List<StockTransfer> transfers) {
+        SqlParameterSource[] batch = new SqlParameterSource[transfers.size()];
+        for (int i = 0; i < transfers.size(); i++) {
+            StockTransfer transfer = transfers.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("batchId", batchId)
+                    .addValue("productId", transfer.getProductId())
+                    .addValue("fromBranchId", transfer.getFromBranchId())
+                    .addValue("toBranchId", transfer.getToBranchId())
+                    .addValue("quantity", transfer.getQuantity());
+        }
+        jdbcTemplate.batchUpdate("UPDATE branch_stock SET quantity = quantity - :quantity, updated_at = NOW(6) " +
+                "WHERE product_id = :productId AND branch_id = :fromBranchId", batch);
+        jdbcTemplate.batchUpdate("INSERT INTO branch_stock (product_id, branch_id, quantity, reserved, updated_at) " +
+                "VALUES (:productId, :toBranchId, :quantity, 0, NOW(6)) " +
+                "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), updated_at = VALUES(updated_at)", batch);
+        jdbcTemplate.batchUpdate("INSERT INTO branch_transfer (batch_id, product_id, from_branch_id, to_branch_id, quantity, transferred_at) " +
+                "VALUES (:batchId, :productId, :fromBranchId, :toBranchId, :quantity, NOW(6))", batch);
+    }
+
+    /**
+     * Set on-hand quantities at a branch, creating missing rows; reserved units are kept.
+     */
+    public void setQuantities(long branchId, List<BranchStockUpdate> updates) {
+        SqlParameterSource[] batch = new SqlParameterSource[updates.size()];
+        for (int i = 0; i < updates.size(); i++) {
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("productId", updates.get(i).getProductId())
+                    .addValue("branchId", branchId)
+                    .addValue("quantity", updates.get(i).getQuantity());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO branch_stock (product_id, branch_id, quantity, reserved, updated_at) " +
+                "VALUES (:productId, :branchId, :quantity, 0, NOW(6)) " +
+                "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), updated_at = VALUES(updated_at)", batch);
+    }
+}
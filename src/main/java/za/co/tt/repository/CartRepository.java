@@ -1,9 +1,21 @@
-// package za.co.tt.repository;
+package za.co.tt.repository;
 
-// import org.springframework.data.jpa.repository.JpaRepository;
-// import org.springframework.stereotype.Repository;
-// import za.co.tt.domain.Cart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.Cart;
 
-// @Repository
-// public interface CartRepository extends JpaRepository<Cart,Long> {
-// }
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CartRepository extends JpaRepository<Cart, Long> {
+
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.user.userId = :userId")
+    Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
+
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.user.userId IN :userIds")
+    List<Cart> findByUserIdsWithItems(@Param("userIds") Collection<Long> userIds);
+}
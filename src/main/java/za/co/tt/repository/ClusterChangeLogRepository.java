@@ -0,0 +1,107 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC access to cluster_change_log, the table nodes use to tell each other which cached entities changed.
+ */
+@Repository
+public class ClusterChangeLogRepository {
+
+    /**
+     * One change row; lagMillis is measured on the database clock, so node clock skew does not matter.
+     */
+    public static final class ChangeRow {
+        private final long id;
+        private final String entityType;
+        private final long entityId;
+        private final String changeType;
+        private final Integer stockQuantity;
+        private final String originNode;
+        private final long lagMillis;
+
+        public ChangeRow(long id, String entityType, long entityId, String changeType,
+                         Integer stockQuantity, String originNode, long lagMillis) {
+            this.id = id;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.changeType = changeType;
+            this.stockQuantity = stockQuantity;
+            this.originNode = originNode;
+            this.lagMillis = lagMillis;
+        }
+
+        public long getId() { return id; }
+        public String getEntityType() { return entityType; }
+        public long getEntityId() { return entityId; }
+        public String getChangeType() { return changeType; }
+        public Integer getStockQuantity() { return stockQuantity; }
+        public String getOriginNode() { return originNode; }
+        public long getLagMillis() { return lagMillis; }
+    }
+
+    private static final String SELECT_ROWS =
+            "SELECT id, entity_type, entity_id, change_type, stock_quantity, origin_node, " +
+            "TIMESTAMPDIFF(MICROSECOND, created_at, NOW(3)) DIV 1000 AS lag_ms FROM cluster_change_log ";
+
+    private static final RowMapper<ChangeRow> ROW_MAPPER = (rs, rowNum) -> new ChangeRow(
+            rs.getLong("id"), rs.getString("entity_type"), rs.getLong("entity_id"), rs.getString("change_type"),
+            rs.getObject("stock_quantity", Integer.class), rs.getString("origin_node"), rs.getLong("lag_ms"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ClusterChangeLogRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long findMaxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cluster_change_log",
+                new MapSqlParameterSource(), Long.class);
+        return max != null ? max : 0;
+    }
+
+    public List<ChangeRow> findAfter(long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_ROWS + "WHERE id > :afterId ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource().addValue("afterId", afterId).addValue("limit", limit), ROW_MAPPER);
+    }
+
+    public List<ChangeRow> findByIds(Collection<Long> ids) {
+        return jdbcTemplate.query(SELECT_ROWS + "WHERE id IN (:ids) ORDER BY id",
+                new MapSqlParameterSource("ids", ids), ROW_MAPPER);
+    }
+
+    /**
+     * Append changes as one batch; each entry is {entityType, entityId, changeType, stockQuantity}.
+     */
+    public void insertAll(List<Object[]> changes, String originNode) {
+        SqlParameterSource[] batch = new SqlParameterSource[changes.size()];
+        for (int i = 0; i < changes.size(); i++) {
+            Object[] change = changes.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("entityType", change[0])
+                    .addValue("entityId", change[1])
+                    .addValue("changeType", change[2])
+                    .addValue("stockQuantity", change[3])
+                    .addValue("originNode", originNode);
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cluster_change_log (entity_type, entity_id, change_type, stock_quantity, origin_node) " +
+                "VALUES (:entityType, :entityId, :changeType, :stockQuantity, :originNode)", batch);
+    }
+
+    /**
+     * Delete up to limit rows older than the given age; returns the number deleted.
+     */
+    public int deleteOlderThan(int minutes, int limit) {
+        return jdbcTemplate.update(
+                "DELETE FROM cluster_change_log WHERE created_at < NOW(3) - INTERVAL :minutes MINUTE LIMIT :limit",
+                new MapSqlParameterSource().addValue("minutes", minutes).addValue("limit", limit));
+    }
+}
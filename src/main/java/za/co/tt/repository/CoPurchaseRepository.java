@@ -0,0 +1,76 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to the products of completed orders, live and archived, for the co-purchase matrix.
+ */
+@Repository
+public class CoPurchaseRepository {
+
+    private static final String LIVE_LINES =
+            "SELECT oi.order_id, oi.product_id FROM orders o JOIN order_items oi ON oi.order_id = o.order_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId AND o.order_status = 'COMPLETED' AND oi.product_id IS NOT NULL " +
+            "ORDER BY oi.order_id";
+
+    private static final String ARCHIVED_LINES =
+            "SELECT oi.order_id, oi.product_id FROM orders_archive o JOIN order_items_archive oi ON oi.order_id = o.order_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId AND o.order_status = 'COMPLETED' AND oi.product_id IS NOT NULL " +
+            "ORDER BY oi.order_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CoPurchaseRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Hand the distinct product ids of every completed order with an id in fromId..toId to consumer,
+     * one array per order. Archived orders keep their ids, so both tables are read for the range.
+     */
+    public void forEachCompletedOrder(long fromId, long toId, Consumer<long[]> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("fromId", fromId).addValue("toId", toId);
+        for (String sql : new String[]{LIVE_LINES, ARCHIVED_LINES}) {
+            OrderCollector collector = new OrderCollector(consumer);
+            jdbcTemplate.query(sql, params, (ResultSet rs) -> collector.add(rs.getLong("order_id"), rs.getLong("product_id")));
+            collector.finish();
+        }
+    }
+
+    /**
+     * Groups consecutive (order, product) rows into one product array per order.
+     */
+    private static final class OrderCollector {
+        private final Consumer<long[]> consumer;
+        private final List<Long> products = new ArrayList<>();
+        private long orderId = -1;
+
+        private OrderCollector(Consumer<long[]> consumer) {
+            this.consumer = consumer;
+        }
+
+        private void add(long order, long productId) {
+            if (order != orderId) {
+                finish();
+                orderId = order;
+            }
+            if (!products.contains(productId)) {
+                products.add(productId);
+            }
+        }
+
+        private void finish() {
+            if (!products.isEmpty()) {
+                consumer.accept(products.stream().mapToLong(Long::longValue).toArray());
+                products.clear();
+            }
+        }
+    }
+}
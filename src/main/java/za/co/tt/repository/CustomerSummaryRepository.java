@@ -0,0 +1,185 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC access to customer_order_summary and the indexed admin user search that joins it.
+ */
+@Repository
+public class CustomerSummaryRepository {
+
+    /**
+     * One user as listed in the admin search, with their order totals.
+     */
+    public static final class CustomerRow {
+        private final long userId;
+        private final String name;
+        private final String surname;
+        private final String username;
+        private final String email;
+        private final String phoneNumber;
+        private final String role;
+        private final LocalDateTime createdAt;
+        private final long orderCount;
+        private final BigDecimal lifetimeSpend;
+        private final LocalDateTime lastOrderAt;
+
+        public CustomerRow(long userId, String name, String surname, String username, String email, String phoneNumber,
+                           String role, LocalDateTime createdAt, long orderCount, BigDecimal lifetimeSpend,
+                           LocalDateTime lastOrderAt) {
+            this.userId = userId;
+            this.name = name;
+            this.surname = surname;
+            this.username = username;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.role = role;
+            this.createdAt = createdAt;
+            this.orderCount = orderCount;
+            this.lifetimeSpend = lifetimeSpend;
+            this.lastOrderAt = lastOrderAt;
+        }
+
+        public long getUserId() { return userId; }
+        public String getName() { return name; }
+        public String getSurname() { return surname; }
+        public String getUsername() { return username; }
+        public String getEmail() { return email; }
+        public String getPhoneNumber() { return phoneNumber; }
+        public String getRole() { return role; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public long getOrderCount() { return orderCount; }
+        public BigDecimal getLifetimeSpend() { return lifetimeSpend; }
+        public LocalDateTime getLastOrderAt() { return lastOrderAt; }
+    }
+
+    // Each searchable column has a (column, user_id) index: username and email through their unique keys, see V8
+    private static final String[] SEARCH_COLUMNS = {"name", "surname", "username", "email", "phone_number"};
+
+    private static final String SELECT_ROWS =
+            "SELECT u.user_id, u.name, u.surname, u.username, u.email, u.phone_number, u.role, u.created_at, " +
+            "COALESCE(s.order_count, 0) AS order_count, COALESCE(s.lifetime_spend, 0) AS lifetime_spend, s.last_order_at " +
+            "FROM users u LEFT JOIN customer_order_summary s ON s.user_id = u.user_id ";
+
+    private static final RowMapper<CustomerRow> ROW_MAPPER = (rs, rowNum) -> new CustomerRow(
+            rs.getLong("user_id"), rs.getString("name"), rs.getString("surname"), rs.getString("username"),
+            rs.getString("email"), rs.getString("phone_number"), rs.getString("role"),
+            toLocalDateTime(rs.getTimestamp("created_at")), rs.getLong("order_count"),
+            rs.getBigDecimal("lifetime_spend"), toLocalDateTime(rs.getTimestamp("last_order_at")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CustomerSummaryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Users with user_id below beforeId, newest first, optionally limited to a role and to users where
+     * any of name, surname, username, email or phone starts with prefix.
+     *
+     * With a prefix, each column is matched by a range scan of its (column, user_id) index (one UNION
+     * branch per column, each already keyset-limited), so the OR never turns into a table scan. The
+     * beforeId bound is checked in the index, but a prefix range is not in user_id order, so each branch
+     * sorts the entries it matched before applying the limit: cost grows with the number of users sharing
+     * the prefix, not with the table.
+     */
+    public List<CustomerRow> search(String role, String prefix, long beforeId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("role", role)
+                .addValue("beforeId", beforeId)
+                .addValue("limit", limit);
+        if (prefix == null) {
+            return jdbcTemplate.query(SELECT_ROWS + "WHERE " + (role != null ? "u.role = :role AND " : "") +
+                    "u.user_id < :beforeId ORDER BY u.user_id DESC LIMIT :limit", params, ROW_MAPPER);
+        }
+
+        String roleFilter = role != null ? "role = :role AND " : "";
+        params.addValue("prefix", escapeLike(prefix) + "%");
+        StringBuilder matches = new StringBuilder();
+        for (String column : SEARCH_COLUMNS) {
+            if (matches.length() > 0) {
+                matches.append(" UNION ");
+            }
+            matches.append("(SELECT user_id FROM users WHERE ").append(roleFilter)
+                    .append(column).append(" LIKE :prefix AND user_id < :beforeId ORDER BY user_id DESC LIMIT :limit)");
+        }
+        return jdbcTemplate.query(SELECT_ROWS + "JOIN (" + matches + ") m ON m.user_id = u.user_id " +
+                "ORDER BY u.user_id DESC LIMIT :limit", params, ROW_MAPPER);
+    }
+
+    /**
+     * Owner, total and date of a live order; empty if it no longer exists.
+     */
+    public List<Object[]> findOrderFacts(long orderId) {
+        return jdbcTemplate.query("SELECT user_id, total_amount, order_date FROM orders WHERE order_id = :orderId",
+                new MapSqlParameterSource("orderId", orderId),
+                (rs, rowNum) -> new Object[]{rs.getObject("user_id", Long.class), rs.getBigDecimal("total_amount"),
+                        rs.getTimestamp("order_date")});
+    }
+
+    /**
+     * Add to a customer's totals, creating their row if needed.
+     */
+    public void applyDelta(long userId, int orderCountDelta, BigDecimal spendDelta, Timestamp orderDate) {
+        jdbcTemplate.update(
+                "INSERT INTO customer_order_summary (user_id, order_count, lifetime_spend, last_order_at, updated_at) " +
+                "VALUES (:userId, GREATEST(:countDelta, 0), GREATEST(:spendDelta, 0), :orderDate, NOW(6)) " +
+                "ON DUPLICATE KEY UPDATE order_count = GREATEST(order_count + :countDelta, 0), " +
+                "lifetime_spend = GREATEST(lifetime_spend + :spendDelta, 0), " +
+                "last_order_at = CASE WHEN :orderDate IS NULL THEN last_order_at " +
+                "  ELSE GREATEST(COALESCE(last_order_at, :orderDate), :orderDate) END, " +
+                "updated_at = NOW(6)",
+                new MapSqlParameterSource()
+                        .addValue("userId", userId)
+                        .addValue("countDelta", orderCountDelta)
+                        .addValue("spendDelta", spendDelta)
+                        .addValue("orderDate", orderDate));
+    }
+
+    public long findMaxUserId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", new MapSqlParameterSource(), Long.class);
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Recompute the totals of users fromId..toId from live and archived orders; returns rows written.
+     * Users without orders get a zero row, and rows of deleted users in the range are removed.
+     */
+    public int reconcileRange(long fromId, long toId) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("fromId", fromId).addValue("toId", toId);
+        int written = jdbcTemplate.update(
+                "INSERT INTO customer_order_summary (user_id, order_count, lifetime_spend, last_order_at, updated_at) " +
+                "SELECT u.user_id, COALESCE(t.order_count, 0), COALESCE(t.spend, 0), t.last_order_at, NOW(6) " +
+                "FROM users u LEFT JOIN (" +
+                "  SELECT user_id, SUM(order_count) AS order_count, SUM(spend) AS spend, MAX(last_order_at) AS last_order_at FROM (" +
+                "    SELECT user_id, COUNT(*) AS order_count, COALESCE(SUM(total_amount), 0) AS spend, MAX(order_date) AS last_order_at " +
+                "    FROM orders WHERE user_id BETWEEN :fromId AND :toId AND order_status <> 'CANCELLED' GROUP BY user_id " +
+                "    UNION ALL " +
+                "    SELECT user_id, COUNT(*), COALESCE(SUM(total_amount), 0), MAX(order_date) " +
+                "    FROM orders_archive WHERE user_id BETWEEN :fromId AND :toId AND order_status <> 'CANCELLED' GROUP BY user_id" +
+                "  ) totals GROUP BY user_id" +
+                ") t ON t.user_id = u.user_id " +
+                "WHERE u.user_id BETWEEN :fromId AND :toId " +
+                "ON DUPLICATE KEY UPDATE order_count = VALUES(order_count), lifetime_spend = VALUES(lifetime_spend), " +
+                "last_order_at = VALUES(last_order_at), updated_at = VALUES(updated_at)", params);
+        jdbcTemplate.update("DELETE s FROM customer_order_summary s LEFT JOIN users u ON u.user_id = s.user_id " +
+                "WHERE s.user_id BETWEEN :fromId AND :toId AND u.user_id IS NULL", params);
+        return written;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -24,4 +24,11 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     @Query("SELECT d FROM Delivery d WHERE d.deliveryStatus = :status AND d.deliveryMethod = :method")
     List<Delivery> findByStatusAndMethod(@Param("status") DeliveryStatus status, @Param("method") DeliveryMethod method);
+
+    /**
+     * Orders in an id range with more than one delivery: order_id, delivery count.
+     */
+    @Query(value = "SELECT order_id, COUNT(*) FROM delivery WHERE order_id BETWEEN :fromId AND :toId " +
+            "GROUP BY order_id HAVING COUNT(*) > 1", nativeQuery = true)
+    List<Object[]> findDuplicateDeliveryCounts(@Param("fromId") long fromId, @Param("toId") long toId);
 }
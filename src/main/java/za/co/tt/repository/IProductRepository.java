@@ -1,13 +1,16 @@
 package za.co.tt.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductSummary;
 import za.co.tt.domain.Enum.Season;
 import za.co.tt.domain.Enum.VehicleType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +25,8 @@ public interface IProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findByStockQuantityGreaterThan(int minStock);
 
+    List<Product> findByStockQuantityLessThan(int maxStock);
+
     List<Product> findByProductPriceBetween(int minPrice, int maxPrice);
 
     @Query("SELECT p FROM Product p WHERE p.width = :width AND p.aspectRatio = :aspectRatio AND p.rimDiameter = :rimDiameter")
@@ -31,4 +36,25 @@ public interface IProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT p FROM Product p WHERE p.productName LIKE %:searchTerm% OR p.productModel LIKE %:searchTerm% OR p.description LIKE %:searchTerm%")
     List<Product> searchProducts(@Param("searchTerm") String searchTerm);
-}
\ No newline at end of file
+
+    // Projection used for pricing/stock lookups; skips the image LOB and collections
+    @Query("SELECT new za.co.tt.domain.ProductSummary(p.productId, p.productName, p.productModel, p.productPrice, p.stockQuantity, p.imageUrl) " +
+           "FROM Product p WHERE p.productId IN :ids")
+    List<ProductSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // {productId, season, vehicleType} for grouping products without loading them
+    /**
+     * Add to a product's stock in the database, so concurrent changes from other nodes are not
+     * overwritten. Returns 0 if the product does not exist.
+     */
+    @Modifying
+    @Query(value = "UPDATE products SET stock_quantity = stock_quantity + :quantity WHERE product_id = :productId",
+            nativeQuery = true)
+    int addStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.productId, p.stockQuantity FROM Product p WHERE p.productId IN :ids")
+    List<Object[]> findStockQuantities(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.productId, p.season, p.vehicleType FROM Product p WHERE p.productId IN :ids")
+    List<Object[]> findCategoriesByIds(@Param("ids") Collection<Long> ids);
+}
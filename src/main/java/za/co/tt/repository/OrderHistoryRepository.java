@@ -0,0 +1,59 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.OrderSummary;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC access to a customer's order history as summary rows, across live and archived orders.
+ */
+@Repository
+public class OrderHistoryRepository {
+
+    // One keyset-limited branch per table, each walking idx_orders_user_id / idx_orders_archive_user_id.
+    // The item count and first product are looked up only for the rows a branch returns.
+    private static final String SUMMARIES =
+            "SELECT h.order_id, h.order_date, h.order_status, h.total_amount, h.item_count, h.first_product_id, " +
+            "p.product_name, COALESCE(p.image_url, " +
+            "  CASE WHEN p.image IS NOT NULL THEN CONCAT('/api/products/', p.product_id, '/image') END) AS thumbnail_url " +
+            "FROM (" +
+            "  (SELECT o.order_id, o.order_date, o.order_status, o.total_amount, " +
+            "     (SELECT COALESCE(SUM(oi.quantity), 0) FROM order_items oi WHERE oi.order_id = o.order_id) AS item_count, " +
+            "     (SELECT oi.product_id FROM order_items oi WHERE oi.order_id = o.order_id ORDER BY oi.id LIMIT 1) AS first_product_id " +
+            "   FROM orders o WHERE o.user_id = :userId AND o.order_id < :beforeId ORDER BY o.order_id DESC LIMIT :limit) " +
+            "  UNION ALL " +
+            "  (SELECT a.order_id, a.order_date, a.order_status, a.total_amount, " +
+            "     (SELECT COALESCE(SUM(ai.quantity), 0) FROM order_items_archive ai WHERE ai.order_id = a.order_id), " +
+            "     (SELECT ai.product_id FROM order_items_archive ai WHERE ai.order_id = a.order_id ORDER BY ai.item_id LIMIT 1) " +
+            "   FROM orders_archive a WHERE a.user_id = :userId AND a.order_id < :beforeId ORDER BY a.order_id DESC LIMIT :limit)" +
+            ") h LEFT JOIN products p ON p.product_id = h.first_product_id " +
+            "ORDER BY h.order_id DESC LIMIT :limit";
+
+    private static final RowMapper<OrderSummary> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp orderDate = rs.getTimestamp("order_date");
+        return new OrderSummary(rs.getLong("order_id"), orderDate != null ? orderDate.toLocalDateTime() : null,
+                rs.getString("order_status"), rs.getBigDecimal("total_amount"), rs.getInt("item_count"),
+                rs.getObject("first_product_id", Long.class), rs.getString("product_name"), rs.getString("thumbnail_url"));
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrderHistoryRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to limit of the user's live and archived orders with order_id below beforeId, newest first.
+     */
+    public List<OrderSummary> findSummaries(long userId, long beforeId, int limit) {
+        return jdbcTemplate.query(SUMMARIES, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("beforeId", beforeId)
+                .addValue("limit", limit), ROW_MAPPER);
+    }
+}
@@ -3,10 +3,12 @@ package za.co.tt.repository;
 import za.co.tt.domain.Order;
 import za.co.tt.domain.Enum.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +36,59 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product")
     List<Order> findAllWithItems();
-}
\ No newline at end of file
+
+    /**
+     * Keyset page of order ids, used by the integrity scan to cut the table into chunks.
+     */
+    @Query(value = "SELECT order_id FROM orders WHERE order_id > :afterId ORDER BY order_id LIMIT :limit", nativeQuery = true)
+    List<Long> findOrderIdsAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * Orders in an id range whose total differs from the sum of their item subtotals: order_id, total, item sum.
+     */
+    @Query(value = "SELECT o.order_id, o.total_amount, t.item_total FROM orders o " +
+            "JOIN (SELECT order_id, SUM(subtotal) AS item_total FROM order_items " +
+            "      WHERE order_id BETWEEN :fromId AND :toId GROUP BY order_id) t ON t.order_id = o.order_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId AND o.total_amount <> t.item_total", nativeQuery = true)
+    List<Object[]> findTotalMismatches(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Order items in an id range without a product, or pointing at a product that no longer exists: id, order_id.
+     */
+    @Query(value = "SELECT oi.id, oi.order_id FROM order_items oi " +
+            "LEFT JOIN products p ON p.product_id = oi.product_id " +
+            "WHERE oi.order_id BETWEEN :fromId AND :toId AND p.product_id IS NULL", nativeQuery = true)
+    List<Object[]> findOrphanedItems(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query(value = "SELECT id FROM order_items WHERE order_id IS NULL", nativeQuery = true)
+    List<Long> findItemIdsWithoutOrder();
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product WHERE o.orderId IN :ids")
+    List<Order> findAllByIdWithItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * PENDING orders with their age, for the expiry wheel: order_id, order_date.
+     */
+    @Query(value = "SELECT order_id, order_date FROM orders WHERE order_status = 'PENDING'", nativeQuery = true)
+    List<Object[]> findPendingOrderDates();
+
+    /**
+     * Expiry facts for the given orders that are still PENDING: order_id, order_date, delivery_method.
+     */
+    @Query(value = "SELECT o.order_id, o.order_date, d.delivery_method FROM orders o " +
+            "LEFT JOIN delivery d ON d.order_id = o.order_id " +
+            "WHERE o.order_id IN (:ids) AND o.order_status = 'PENDING'", nativeQuery = true)
+    List<Object[]> findPendingExpiryFacts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lock the given orders that are still PENDING, so concurrent expiry (or another node) cannot cancel them twice.
+     */
+    @Query(value = "SELECT order_id FROM orders WHERE order_id IN (:ids) AND order_status = 'PENDING' FOR UPDATE",
+            nativeQuery = true)
+    List<Long> lockPendingOrderIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE orders SET order_status = 'CANCELLED' WHERE order_id IN (:ids) AND order_status = 'PENDING'",
+            nativeQuery = true)
+    int cancelPendingOrders(@Param("ids") Collection<Long> ids);
+}
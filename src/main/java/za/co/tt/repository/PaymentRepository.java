@@ -21,4 +21,11 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     @Query("SELECT p FROM Payment p WHERE p.user.userId = :userId AND p.paymentStatus = :status")
     List<Payment> findByUserIdAndPaymentStatus(@Param("userId") Long userId, @Param("status") PaymentStatus status);
+
+    /**
+     * Orders in an id range with more than one payment: order_id, payment count.
+     */
+    @Query(value = "SELECT order_id, COUNT(*) FROM payment WHERE order_id BETWEEN :fromId AND :toId " +
+            "GROUP BY order_id HAVING COUNT(*) > 1", nativeQuery = true)
+    List<Object[]> findDuplicatePaymentCounts(@Param("fromId") long fromId, @Param("toId") long toId);
 }
@@ -0,0 +1,185 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.ProductFitment;
+import za.co.tt.domain.ProductImportRow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC batch statements for the catalog import and the supplier feed sync, which write
+ * thousands of rows per file and do not need managed entities.
+ */
+@Repository
+public class ProductImportRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductImportRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Existing products with any of the given names, keyed by ProductImportRow.catalogKey.
+     * Each value is {product_id, stock_quantity}; if a key matches several rows the lowest id wins.
+     */
+    public Map<String, long[]> findByCatalogKeys(Collection<String> productNames) {
+        Map<String, long[]> found = new HashMap<>();
+        if (productNames.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.query(
+                "SELECT product_id, product_name, product_model, width, aspect_ratio, rim_diameter, stock_quantity " +
+                "FROM products WHERE product_name IN (:names) ORDER BY product_id",
+                new MapSqlParameterSource("names", productNames),
+                rs -> {
+                    String key = ProductImportRow.catalogKey(rs.getString("product_name"), rs.getString("product_model"),
+                            rs.getInt("width"), rs.getInt("aspect_ratio"), rs.getInt("rim_diameter"));
+                    found.putIfAbsent(key, new long[]{rs.getLong("product_id"), rs.getInt("stock_quantity")});
+                });
+        return found;
+    }
+
+    public void insertProducts(List<ProductImportRow> rows) {
+        SqlParameterSource[] batch = new SqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ProductImportRow row = rows.get(i);
+            batch[i] = rowParameters(row)
+                    .addValue("price", row.getProductPrice() != null ? row.getProductPrice() : 0)
+                    .addValue("stock", row.getStockQuantity() != null ? row.getStockQuantity() : 0);
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO products (product_name, product_model, width, aspect_ratio, rim_diameter, season, " +
+                "vehicle_type, product_price, stock_quantity, image_url, description) " +
+                "VALUES (:name, :model, :width, :aspectRatio, :rimDiameter, :season, :vehicleType, :price, :stock, " +
+                ":imageUrl, :description)", batch);
+    }
+
+    /**
+     * Update matched products; null values keep the stored column.
+     */
+    public void updateProducts(List<ProductImportRow> rows, List<Long> productIds) {
+        SqlParameterSource[] batch = new SqlParameterSource[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ProductImportRow row = rows.get(i);
+            batch[i] = rowParameters(row)
+                    .addValue("price", row.getProductPrice())
+                    .addValue("stock", row.getStockQuantity())
+                    .addValue("productId", productIds.get(i));
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE products SET season = COALESCE(:season, season), " +
+                "vehicle_type = COALESCE(:vehicleType, vehicle_type), " +
+                "product_price = COALESCE(:price, product_price), " +
+                "stock_quantity = COALESCE(:stock, stock_quantity), " +
+                "image_url = COALESCE(:imageUrl, image_url), " +
+                "description = COALESCE(:description, description) " +
+                "WHERE product_id = :productId", batch);
+    }
+
+    /**
+     * Replace the fitments of each product with the given list.
+     */
+    public void replaceFitments(Map<Long, List<ProductFitment>> fitmentsByProduct) {
+        if (fitmentsByProduct.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM product_fitments WHERE product_id IN (:ids)",
+                new MapSqlParameterSource("ids", fitmentsByProduct.keySet()));
+
+        List<SqlParameterSource> batch = new ArrayList<>();
+        for (Map.Entry<Long, List<ProductFitment>> entry : fitmentsByProduct.entrySet()) {
+            for (ProductFitment fitment : entry.getValue()) {
+                batch.add(new MapSqlParameterSource()
+                        .addValue("make", fitment.getMake())
+                        .addValue("model", fitment.getModel())
+                        .addValue("year", fitment.getYear())
+                        .addValue("trim", fitment.getTrim())
+                        .addValue("productId", entry.getKey()));
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO product_fitments (make, model, year, trim, product_id) " +
+                    "VALUES (:make, :model, :year, :trim, :productId)",
+                    batch.toArray(new SqlParameterSource[0]));
+        }
+    }
+
+    /**
+     * Stream the sync-relevant columns of products (all of them when ids is null) to the consumer:
+     * product_id, product_name, product_model, width, aspect_ratio, rim_diameter, season, vehicle_type,
+     * product_price, stock_quantity.
+     */
+    public void streamSyncSnapshot(Collection<Long> ids, Consumer<Object[]> consumer) {
+        String sql = "SELECT product_id, product_name, product_model, width, aspect_ratio, rim_diameter, " +
+                "season, vehicle_type, product_price, stock_quantity FROM products" +
+                (ids != null ? " WHERE product_id IN (:ids)" : "");
+        if (ids != null && ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(sql, new MapSqlParameterSource("ids", ids), rs -> {
+            consumer.accept(new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5),
+                    rs.getInt(6), rs.getString(7), rs.getString(8), rs.getInt(9), rs.getInt(10)});
+        });
+    }
+
+    /**
+     * Write synced price, season and vehicle type and apply the supplier's stock change; each values
+     * row is {productId, price, stockDelta, season, vehicleType}. Stock is adjusted by the delta rather
+     * than overwritten so units taken by orders since the sync read it stay taken.
+     */
+    public void updateSyncedProducts(List<Object[]> values) {
+        SqlParameterSource[] batch = new SqlParameterSource[values.size()];
+        for (int i = 0; i < values.size(); i++) {
+            Object[] row = values.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("productId", row[0])
+                    .addValue("price", row[1])
+                    .addValue("stockDelta", row[2])
+                    .addValue("season", row[3])
+                    .addValue("vehicleType", row[4]);
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE products SET product_price = :price, " +
+                "stock_quantity = GREATEST(stock_quantity + :stockDelta, 0), " +
+                "season = :season, vehicle_type = :vehicleType WHERE product_id = :productId", batch);
+    }
+
+    /**
+     * Current stock_quantity of the given products, keyed by product_id.
+     */
+    public Map<Long, Integer> findStockQuantities(Collection<Long> ids) {
+        Map<Long, Integer> found = new HashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        jdbcTemplate.query("SELECT product_id, stock_quantity FROM products WHERE product_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    found.put(rs.getLong("product_id"), rs.getInt("stock_quantity"));
+                });
+        return found;
+    }
+
+    private MapSqlParameterSource rowParameters(ProductImportRow row) {
+        return new MapSqlParameterSource()
+                .addValue("name", row.getProductName())
+                .addValue("model", row.getProductModel())
+                .addValue("width", row.getWidth())
+                .addValue("aspectRatio", row.getAspectRatio())
+                .addValue("rimDiameter", row.getRimDiameter())
+                .addValue("season", row.getSeason() != null ? row.getSeason().name() : null)
+                .addValue("vehicleType", row.getVehicleType() != null ? row.getVehicleType().name() : null)
+                .addValue("imageUrl", row.getImageUrl())
+                .addValue("description", row.getDescription());
+    }
+}
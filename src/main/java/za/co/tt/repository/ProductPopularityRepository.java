@@ -0,0 +1,56 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * JDBC access to product_popularity, the persisted per-bucket trending scores.
+ */
+@Repository
+public class ProductPopularityRepository {
+
+    /**
+     * Consumer of one persisted (product, bucket, score) row.
+     */
+    public interface ScoreConsumer {
+        void accept(long productId, long bucket, long score);
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ProductPopularityRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add {productId, bucket, score} deltas in one batch. Rows of products deleted in the meantime are
+     * skipped by IGNORE instead of failing the batch.
+     */
+    public void addScores(List<long[]> deltas) {
+        SqlParameterSource[] batch = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("productId", delta[0])
+                        .addValue("bucket", delta[1])
+                        .addValue("score", delta[2]))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+                "INSERT IGNORE INTO product_popularity (product_id, bucket, score) VALUES (:productId, :bucket, :score) " +
+                "ON DUPLICATE KEY UPDATE score = score + VALUES(score)", batch);
+    }
+
+    public void forEachScore(long fromBucket, ScoreConsumer consumer) {
+        jdbcTemplate.query("SELECT product_id, bucket, score FROM product_popularity WHERE bucket >= :fromBucket",
+                new MapSqlParameterSource("fromBucket", fromBucket),
+                (ResultSet rs) -> consumer.accept(rs.getLong("product_id"), rs.getLong("bucket"), rs.getLong("score")));
+    }
+
+    public int deleteBefore(long bucket) {
+        return jdbcTemplate.update("DELETE FROM product_popularity WHERE bucket < :bucket",
+                new MapSqlParameterSource("bucket", bucket));
+    }
+}
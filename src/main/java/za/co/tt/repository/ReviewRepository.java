@@ -1,6 +1,8 @@
 package za.co.tt.repository;
 
 import za.co.tt.domain.Review;
+import za.co.tt.domain.ReviewSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -22,4 +24,31 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.productId = :productId")
     Double findAverageRatingByProductId(@Param("productId") Long productId);
-}
\ No newline at end of file
+
+    @Query("SELECT r.product.productId FROM Review r WHERE r.reviewId = :reviewId")
+    Long findProductIdByReviewId(@Param("reviewId") Long reviewId);
+
+    // Keyset pages of review projections; the Pageable only carries the page size
+    @Query("SELECT new za.co.tt.domain.ReviewSummary(r.reviewId, r.reviewerName, r.rating, r.comment, r.reviewDate) " +
+           "FROM Review r WHERE r.product.productId = :productId AND r.reviewId < :beforeId " +
+           "ORDER BY r.reviewId DESC")
+    List<ReviewSummary> findNewestPage(@Param("productId") Long productId, @Param("beforeId") Long beforeId, Pageable page);
+
+    @Query("SELECT new za.co.tt.domain.ReviewSummary(r.reviewId, r.reviewerName, r.rating, r.comment, r.reviewDate) " +
+           "FROM Review r WHERE r.product.productId = :productId " +
+           "AND (r.rating < :rating OR (r.rating = :rating AND r.reviewId < :reviewId)) " +
+           "ORDER BY r.rating DESC, r.reviewId DESC")
+    List<ReviewSummary> findHighestPage(@Param("productId") Long productId, @Param("rating") int rating,
+                                        @Param("reviewId") Long reviewId, Pageable page);
+
+    @Query("SELECT new za.co.tt.domain.ReviewSummary(r.reviewId, r.reviewerName, r.rating, r.comment, r.reviewDate) " +
+           "FROM Review r WHERE r.product.productId = :productId " +
+           "AND (r.rating > :rating OR (r.rating = :rating AND r.reviewId > :reviewId)) " +
+           "ORDER BY r.rating ASC, r.reviewId ASC")
+    List<ReviewSummary> findLowestPage(@Param("productId") Long productId, @Param("rating") int rating,
+                                       @Param("reviewId") Long reviewId, Pageable page);
+
+    @Query("SELECT new za.co.tt.domain.ReviewSummary(r.reviewId, r.reviewerName, r.rating, r.comment, r.reviewDate) " +
+           "FROM Review r WHERE r.reviewId IN :reviewIds")
+    List<ReviewSummary> findSummariesByIds(@Param("reviewIds") List<Long> reviewIds);
+}
@@ -0,0 +1,96 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * JDBC access to review helpfulness votes (review_vote) and the per-review totals (review_helpfulness).
+ */
+@Repository
+public class ReviewVoteRepository {
+
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ReviewVoteRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Product and author of a review; empty if it does not exist.
+     */
+    public List<Object[]> findReviewFacts(long reviewId) {
+        return jdbcTemplate.query("SELECT product_id, user_id FROM reviews WHERE review_id = :reviewId",
+                new MapSqlParameterSource("reviewId", reviewId),
+                (rs, rowNum) -> new Object[]{rs.getObject("product_id", Long.class), rs.getObject("user_id", Long.class)});
+    }
+
+    /**
+     * Hand every user who has voted on a review to consumer (a primary key range scan).
+     */
+    public void forEachVoter(long reviewId, LongConsumer consumer) {
+        jdbcTemplate.query("SELECT user_id FROM review_vote WHERE review_id = :reviewId",
+                new MapSqlParameterSource("reviewId", reviewId),
+                (ResultSet rs) -> consumer.accept(rs.getLong("user_id")));
+    }
+
+    /**
+     * Record votes on one review, skipping users who already voted (on any node) and reviews that
+     * have been deleted. Returns how many votes were new, which is what the review's total should
+     * grow by.
+     */
+    public int insertVotes(long reviewId, List<Long> userIds) {
+        int inserted = 0;
+        for (int from = 0; from < userIds.size(); from += MAX_ROWS_PER_INSERT) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + MAX_ROWS_PER_INSERT));
+            MapSqlParameterSource params = new MapSqlParameterSource("reviewId", reviewId);
+            StringBuilder values = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                values.append(i == 0 ? "" : ", ").append("(:reviewId, :user").append(i).append(", NOW(6))");
+                params.addValue("user" + i, chunk.get(i));
+            }
+            // IGNORE turns duplicate keys and foreign key failures into skipped rows
+            inserted += jdbcTemplate.update("INSERT IGNORE INTO review_vote (review_id, user_id, voted_at) VALUES " + values, params);
+        }
+        return inserted;
+    }
+
+    /**
+     * Add to the helpful totals of several reviews in one batch, creating rows as needed.
+     */
+    public void addHelpfulCounts(Map<Long, Long> deltas) {
+        SqlParameterSource[] batch = deltas.entrySet().stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("reviewId", delta.getKey())
+                        .addValue("delta", delta.getValue()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO review_helpfulness (review_id, helpful_count, updated_at) VALUES (:reviewId, :delta, NOW(6)) " +
+                "ON DUPLICATE KEY UPDATE helpful_count = helpful_count + VALUES(helpful_count), updated_at = VALUES(updated_at)",
+                batch);
+    }
+
+    /**
+     * Persisted helpful total of every review of a product, including reviews without votes.
+     * Reads only idx_reviews_product_id and the review_helpfulness primary key.
+     */
+    public Map<Long, Long> findHelpfulCounts(long productId) {
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT r.review_id, COALESCE(h.helpful_count, 0) AS helpful_count FROM reviews r " +
+                        "LEFT JOIN review_helpfulness h ON h.review_id = r.review_id WHERE r.product_id = :productId",
+                new MapSqlParameterSource("productId", productId),
+                (ResultSet rs) -> {
+                    counts.put(rs.getLong("review_id"), rs.getLong("helpful_count"));
+                });
+        return counts;
+    }
+}
@@ -0,0 +1,140 @@
+package za.co.tt.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import za.co.tt.domain.SalesRollup;
+import za.co.tt.domain.SalesRollupId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollupId> {
+
+    /**
+     * Order date plus one row per line (product, season, vehicle type, quantity, subtotal) for a single order.
+     */
+    @Query(value = "SELECT o.order_date, oi.product_id, p.season, p.vehicle_type, oi.quantity, oi.subtotal " +
+            "FROM orders o " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.order_id " +
+            "LEFT JOIN products p ON p.product_id = oi.product_id " +
+            "WHERE o.order_id = :orderId", nativeQuery = true)
+    List<Object[]> findOrderLineFacts(@Param("orderId") Long orderId);
+
+    @Query(value = "SELECT MIN(order_id), MAX(order_id) FROM " +
+            "(SELECT order_id FROM orders UNION ALL SELECT order_id FROM orders_archive) ids", nativeQuery = true)
+    List<Object[]> findOrderIdRange();
+
+    /**
+     * Any consistent read starts the snapshot of a REPEATABLE READ transaction; this cheap primary key
+     * read lets a rebuild chunk know its snapshot is open before it starts aggregating.
+     */
+    @Query(value = "SELECT COUNT(*) FROM orders WHERE order_id = :orderId", nativeQuery = true)
+    long startSnapshot(@Param("orderId") long orderId);
+
+    /**
+     * Per hour (yyyy-MM-ddTHH) and status for an order id range: order count, units and line revenue.
+     */
+    @Query(value = "SELECT DATE_FORMAT(o.order_date, '%Y-%m-%dT%H'), o.order_status, COUNT(*), " +
+            "COALESCE(SUM(t.units), 0), COALESCE(SUM(t.revenue), 0) " +
+            "FROM orders o " +
+            "LEFT JOIN (SELECT order_id, SUM(quantity) AS units, SUM(subtotal) AS revenue " +
+            "           FROM order_items WHERE order_id BETWEEN :fromId AND :toId GROUP BY order_id) t " +
+            "  ON t.order_id = o.order_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId " +
+            "GROUP BY DATE_FORMAT(o.order_date, '%Y-%m-%dT%H'), o.order_status", nativeQuery = true)
+    List<Object[]> aggregateOrdersByHourAndStatus(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Per product for an order id range, excluding cancelled orders: line count, units and revenue.
+     */
+    @Query(value = "SELECT oi.product_id, p.season, p.vehicle_type, COUNT(*), SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0) " +
+            "FROM order_items oi " +
+            "JOIN orders o ON o.order_id = oi.order_id " +
+            "LEFT JOIN products p ON p.product_id = oi.product_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId AND o.order_status <> 'CANCELLED' " +
+            "GROUP BY oi.product_id, p.season, p.vehicle_type", nativeQuery = true)
+    List<Object[]> aggregateLinesByProduct(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Same as aggregateOrdersByHourAndStatus, over archived orders.
+     */
+    @Query(value = "SELECT DATE_FORMAT(o.order_date, '%Y-%m-%dT%H'), o.order_status, COUNT(*), " +
+            "COALESCE(SUM(t.units), 0), COALESCE(SUM(t.revenue), 0) " +
+            "FROM orders_archive o " +
+            "LEFT JOIN (SELECT order_id, SUM(quantity) AS units, SUM(subtotal) AS revenue " +
+            "           FROM order_items_archive WHERE order_id BETWEEN :fromId AND :toId GROUP BY order_id) t " +
+            "  ON t.order_id = o.order_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId " +
+            "GROUP BY DATE_FORMAT(o.order_date, '%Y-%m-%dT%H'), o.order_status", nativeQuery = true)
+    List<Object[]> aggregateArchivedOrdersByHourAndStatus(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Same as aggregateLinesByProduct, over archived orders.
+     */
+    @Query(value = "SELECT oi.product_id, p.season, p.vehicle_type, COUNT(*), SUM(oi.quantity), COALESCE(SUM(oi.subtotal), 0) " +
+            "FROM order_items_archive oi " +
+            "JOIN orders_archive o ON o.order_id = oi.order_id " +
+            "LEFT JOIN products p ON p.product_id = oi.product_id " +
+            "WHERE o.order_id BETWEEN :fromId AND :toId AND o.order_status <> 'CANCELLED' " +
+            "GROUP BY oi.product_id, p.season, p.vehicle_type", nativeQuery = true)
+    List<Object[]> aggregateArchivedLinesByProduct(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Add counter deltas to a rollup row, creating it if missing. Nodes flush only the changes they
+     * made, so concurrent flushes from several nodes add up instead of overwriting each other.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO sales_rollup (rollup_type, rollup_key, order_count, cancelled_count, completed_count, " +
+            "units, revenue, cancelled_revenue, updated_at) " +
+            "VALUES (:type, :key, :orderCount, :cancelledCount, :completedCount, :units, :revenue, :cancelledRevenue, :updatedAt) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + :orderCount, " +
+            "cancelled_count = cancelled_count + :cancelledCount, " +
+            "completed_count = completed_count + :completedCount, " +
+            "units = units + :units, " +
+            "revenue = COALESCE(revenue, 0) + :revenue, " +
+            "cancelled_revenue = COALESCE(cancelled_revenue, 0) + :cancelledRevenue, " +
+            "updated_at = :updatedAt", nativeQuery = true)
+    void addDeltas(@Param("type") String type, @Param("key") String key,
+                   @Param("orderCount") long orderCount, @Param("cancelledCount") long cancelledCount,
+                   @Param("completedCount") long completedCount, @Param("units") long units,
+                   @Param("revenue") BigDecimal revenue, @Param("cancelledRevenue") BigDecimal cancelledRevenue,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Rebuild generation and the highest order id the last rebuild scanned.
+     */
+    @Query(value = "SELECT generation, max_order_id FROM sales_rollup_state WHERE id = 1", nativeQuery = true)
+    List<Object[]> findState();
+
+    /**
+     * Like findState, plus whether a rebuild currently fences off flushes; locks the row until commit.
+     */
+    @Query(value = "SELECT generation, max_order_id, COALESCE(rebuilding_until > NOW(3), FALSE) " +
+            "FROM sales_rollup_state WHERE id = 1 FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockState();
+
+    /**
+     * Fence off flushes from other nodes for the given time; a rebuild renews this as it progresses.
+     */
+    @Modifying
+    @Query(value = "UPDATE sales_rollup_state SET rebuilding_until = NOW(3) + INTERVAL :seconds SECOND WHERE id = 1",
+            nativeQuery = true)
+    void fenceFlushes(@Param("seconds") int seconds);
+
+    @Modifying
+    @Query(value = "UPDATE sales_rollup_state SET rebuilding_until = NULL WHERE id = 1", nativeQuery = true)
+    void liftFence();
+
+    /**
+     * Record a finished rebuild: start a new generation and lift the fence.
+     */
+    @Modifying
+    @Query(value = "UPDATE sales_rollup_state SET generation = generation + 1, max_order_id = :maxOrderId, " +
+            "rebuilding_until = NULL WHERE id = 1", nativeQuery = true)
+    void completeRebuild(@Param("maxOrderId") long maxOrderId);
+}
@@ -0,0 +1,280 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the scheduler_* tables behind ClusterSchedulerService.
+ *
+ * Leases are taken with a conditional UPDATE that only matches when the lease is free, expired or
+ * already ours, so at most one node can hold a lease at a time. Expiry is always NOW(3) on the
+ * database, never a node clock.
+ */
+@Repository
+public class SchedulerRepository {
+
+    /**
+     * A scheduler_job row together with the database time it was read at.
+     */
+    public static final class JobRow {
+        private final String jobName;
+        private final long generation;
+        private final int shardCount;
+        private final LocalDateTime nextRunAt;
+        private final LocalDateTime lastTriggeredAt;
+        private final LocalDateTime dbNow;
+
+        public JobRow(String jobName, long generation, int shardCount, LocalDateTime nextRunAt,
+                      LocalDateTime lastTriggeredAt, LocalDateTime dbNow) {
+            this.jobName = jobName;
+            this.generation = generation;
+            this.shardCount = shardCount;
+            this.nextRunAt = nextRunAt;
+            this.lastTriggeredAt = lastTriggeredAt;
+            this.dbNow = dbNow;
+        }
+
+        public String getJobName() { return jobName; }
+        public long getGeneration() { return generation; }
+        public int getShardCount() { return shardCount; }
+        public LocalDateTime getNextRunAt() { return nextRunAt; }
+        public LocalDateTime getLastTriggeredAt() { return lastTriggeredAt; }
+        public LocalDateTime getDbNow() { return dbNow; }
+    }
+
+    /**
+     * A job shard whose lease can be claimed for the job's current generation.
+     */
+    public static final class ClaimableShard {
+        private final String jobName;
+        private final int shardIndex;
+        private final int shardCount;
+        private final long generation;
+
+        public ClaimableShard(String jobName, int shardIndex, int shardCount, long generation) {
+            this.jobName = jobName;
+            this.shardIndex = shardIndex;
+            this.shardCount = shardCount;
+            this.generation = generation;
+        }
+
+        public String getJobName() { return jobName; }
+        public int getShardIndex() { return shardIndex; }
+        public int getShardCount() { return shardCount; }
+        public long getGeneration() { return generation; }
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public SchedulerRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ---- nodes ----
+
+    public void heartbeatNode(String nodeId) {
+        jdbcTemplate.update("INSERT INTO scheduler_node (node_id, started_at, last_seen) VALUES (:node, NOW(3), NOW(3)) " +
+                "ON DUPLICATE KEY UPDATE last_seen = NOW(3)", new MapSqlParameterSource("node", nodeId));
+    }
+
+    public List<Map<String, Object>> findLiveNodes(long staleMillis) {
+        return jdbcTemplate.queryForList("SELECT node_id, started_at, last_seen FROM scheduler_node " +
+                "WHERE last_seen > NOW(3) - INTERVAL :micros MICROSECOND ORDER BY node_id",
+                new MapSqlParameterSource("micros", staleMillis * 1000));
+    }
+
+    public int deleteStaleNodes(long staleMillis) {
+        return jdbcTemplate.update("DELETE FROM scheduler_node WHERE last_seen < NOW(3) - INTERVAL :micros MICROSECOND",
+                new MapSqlParameterSource("micros", staleMillis * 1000));
+    }
+
+    public void removeNode(String nodeId) {
+        jdbcTemplate.update("DELETE FROM scheduler_node WHERE node_id = :node", new MapSqlParameterSource("node", nodeId));
+    }
+
+    // ---- leases ----
+
+    public void ensureLease(String leaseName, String jobName, Integer shardIndex) {
+        jdbcTemplate.update("INSERT IGNORE INTO scheduler_lease (lease_name, job_name, shard_index, lease_until, generation, completed) " +
+                "VALUES (:lease, :job, :shard, NOW(3), 0, TRUE)",
+                new MapSqlParameterSource().addValue("lease", leaseName).addValue("job", jobName).addValue("shard", shardIndex));
+    }
+
+    /**
+     * Take or extend a lease that is free, expired or already held by this node.
+     *
+     * @return true if this node now holds the lease
+     */
+    public boolean tryAcquire(String leaseName, String nodeId, long leaseMillis) {
+        return jdbcTemplate.update("UPDATE scheduler_lease SET owner_node = :node, " +
+                "lease_until = NOW(3) + INTERVAL :micros MICROSECOND " +
+                "WHERE lease_name = :lease AND (owner_node = :node OR owner_node IS NULL OR lease_until < NOW(3))",
+                leaseParams(leaseName, nodeId, leaseMillis)) > 0;
+    }
+
+    /**
+     * Extend leases this node still holds; leases taken over by another node are left alone.
+     */
+    public int renew(Collection<String> leaseNames, String nodeId, long leaseMillis) {
+        return jdbcTemplate.update("UPDATE scheduler_lease SET lease_until = NOW(3) + INTERVAL :micros MICROSECOND " +
+                "WHERE lease_name IN (:leases) AND owner_node = :node",
+                new MapSqlParameterSource().addValue("leases", leaseNames).addValue("node", nodeId)
+                        .addValue("micros", leaseMillis * 1000));
+    }
+
+    /**
+     * Those of the given leases this node still holds and that have not expired.
+     */
+    public List<String> findOwnedLeases(Collection<String> leaseNames, String nodeId) {
+        return jdbcTemplate.queryForList("SELECT lease_name FROM scheduler_lease " +
+                "WHERE lease_name IN (:leases) AND owner_node = :node AND lease_until >= NOW(3)",
+                new MapSqlParameterSource().addValue("leases", leaseNames).addValue("node", nodeId), String.class);
+    }
+
+    public void release(String leaseName, String nodeId) {
+        jdbcTemplate.update("UPDATE scheduler_lease SET owner_node = NULL, lease_until = NOW(3) " +
+                "WHERE lease_name = :lease AND owner_node = :node",
+                new MapSqlParameterSource().addValue("lease", leaseName).addValue("node", nodeId));
+    }
+
+    public String findLeaseOwner(String leaseName) {
+        List<String> owners = jdbcTemplate.queryForList("SELECT owner_node FROM scheduler_lease " +
+                "WHERE lease_name = :lease AND lease_until >= NOW(3)", new MapSqlParameterSource("lease", leaseName), String.class);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    // ---- jobs ----
+
+    public void ensureJob(String jobName, int shardCount) {
+        jdbcTemplate.update("INSERT IGNORE INTO scheduler_job (job_name, generation, shard_count) VALUES (:job, 0, :shards)",
+                new MapSqlParameterSource().addValue("job", jobName).addValue("shards", shardCount));
+    }
+
+    public List<JobRow> findJobs() {
+        return jdbcTemplate.query("SELECT job_name, generation, shard_count, next_run_at, last_triggered_at, NOW(3) AS db_now " +
+                "FROM scheduler_job ORDER BY job_name", new MapSqlParameterSource(),
+                (rs, rowNum) -> new JobRow(rs.getString("job_name"), rs.getLong("generation"), rs.getInt("shard_count"),
+                        toLocalDateTime(rs.getTimestamp("next_run_at")), toLocalDateTime(rs.getTimestamp("last_triggered_at")),
+                        toLocalDateTime(rs.getTimestamp("db_now"))));
+    }
+
+    public void setNextRun(String jobName, LocalDateTime nextRunAt) {
+        jdbcTemplate.update("UPDATE scheduler_job SET next_run_at = :next WHERE job_name = :job",
+                new MapSqlParameterSource().addValue("job", jobName).addValue("next", nextRunAt));
+    }
+
+    public int requestRunNow(String jobName) {
+        return jdbcTemplate.update("UPDATE scheduler_job SET next_run_at = NOW(3) WHERE job_name = :job",
+                new MapSqlParameterSource("job", jobName));
+    }
+
+    /**
+     * Make the job due now unless it is already due or a shard of its current generation is unclaimed
+     * or still running.
+     *
+     * @return true if this call requested the run
+     */
+    public boolean requestRunNowIfIdle(String jobName) {
+        return jdbcTemplate.update("UPDATE scheduler_job j SET j.next_run_at = NOW(3) WHERE j.job_name = :job " +
+                "AND (j.next_run_at IS NULL OR j.next_run_at > NOW(3)) " +
+                "AND NOT EXISTS (SELECT 1 FROM scheduler_lease l WHERE l.job_name = j.job_name " +
+                "  AND l.shard_index < j.shard_count AND (l.completed = FALSE OR l.generation < j.generation))",
+                new MapSqlParameterSource("job", jobName)) > 0;
+    }
+
+    /**
+     * Start a new generation of a job, unless another leader already did.
+     *
+     * @return true if this call bumped the generation
+     */
+    public boolean trigger(String jobName, long expectedGeneration, int shardCount, LocalDateTime nextRunAt) {
+        return jdbcTemplate.update("UPDATE scheduler_job SET generation = generation + 1, shard_count = :shards, " +
+                "next_run_at = :next, last_triggered_at = NOW(3) WHERE job_name = :job AND generation = :generation",
+                new MapSqlParameterSource().addValue("job", jobName).addValue("generation", expectedGeneration)
+                        .addValue("shards", shardCount).addValue("next", nextRunAt)) > 0;
+    }
+
+    /**
+     * Shards not yet run for their job's current generation, plus shards whose owner stopped renewing
+     * the lease before completing.
+     */
+    public List<ClaimableShard> findClaimableShards() {
+        return jdbcTemplate.query("SELECT l.job_name, l.shard_index, j.shard_count, j.generation " +
+                "FROM scheduler_lease l JOIN scheduler_job j ON j.job_name = l.job_name " +
+                "WHERE l.shard_index < j.shard_count AND j.generation > 0 " +
+                "AND (l.generation < j.generation OR (l.generation = j.generation AND l.completed = FALSE AND l.lease_until < NOW(3))) " +
+                "ORDER BY l.job_name, l.shard_index", new MapSqlParameterSource(),
+                (rs, rowNum) -> new ClaimableShard(rs.getString("job_name"), rs.getInt("shard_index"),
+                        rs.getInt("shard_count"), rs.getLong("generation")));
+    }
+
+    public boolean claimShard(String leaseName, String nodeId, long generation, long leaseMillis) {
+        return jdbcTemplate.update("UPDATE scheduler_lease SET owner_node = :node, generation = :generation, completed = FALSE, " +
+                "lease_until = NOW(3) + INTERVAL :micros MICROSECOND WHERE lease_name = :lease " +
+                "AND (generation < :generation OR (generation = :generation AND completed = FALSE AND lease_until < NOW(3)))",
+                leaseParams(leaseName, nodeId, leaseMillis).addValue("generation", generation)) > 0;
+    }
+
+    public void completeShard(String leaseName, String nodeId, long generation) {
+        jdbcTemplate.update("UPDATE scheduler_lease SET completed = TRUE, owner_node = NULL, lease_until = NOW(3) " +
+                "WHERE lease_name = :lease AND owner_node = :node AND generation = :generation",
+                new MapSqlParameterSource().addValue("lease", leaseName).addValue("node", nodeId)
+                        .addValue("generation", generation));
+    }
+
+    public List<Map<String, Object>> findShardLeases() {
+        return jdbcTemplate.queryForList("SELECT job_name, shard_index, owner_node, generation, completed, lease_until " +
+                "FROM scheduler_lease WHERE job_name IS NOT NULL ORDER BY job_name, shard_index", new MapSqlParameterSource());
+    }
+
+    // ---- history ----
+
+    public void insertRun(String jobName, long generation, int shardIndex, int shardCount, String nodeId,
+                          LocalDateTime startedAt, LocalDateTime finishedAt, long durationMillis,
+                          String status, String message) {
+        jdbcTemplate.update("INSERT INTO scheduler_job_run (job_name, generation, shard_index, shard_count, node_id, " +
+                "started_at, finished_at, duration_ms, status, message) VALUES (:job, :generation, :shard, :shards, :node, " +
+                ":started, :finished, :duration, :status, :message)",
+                new MapSqlParameterSource()
+                        .addValue("job", jobName)
+                        .addValue("generation", generation)
+                        .addValue("shard", shardIndex)
+                        .addValue("shards", shardCount)
+                        .addValue("node", nodeId)
+                        .addValue("started", startedAt)
+                        .addValue("finished", finishedAt)
+                        .addValue("duration", durationMillis)
+                        .addValue("status", status)
+                        .addValue("message", message));
+    }
+
+    public List<Map<String, Object>> findRecentRuns(String jobName, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("job", jobName).addValue("limit", limit);
+        return jdbcTemplate.queryForList("SELECT id, job_name, generation, shard_index, shard_count, node_id, started_at, " +
+                "finished_at, duration_ms, status, message FROM scheduler_job_run " +
+                "WHERE (:job IS NULL OR job_name = :job) ORDER BY id DESC LIMIT :limit", params);
+    }
+
+    public int deleteRunsOlderThan(int days, int limit) {
+        return jdbcTemplate.update("DELETE FROM scheduler_job_run WHERE finished_at < NOW(3) - INTERVAL :days DAY LIMIT :limit",
+                new MapSqlParameterSource().addValue("days", days).addValue("limit", limit));
+    }
+
+    private static MapSqlParameterSource leaseParams(String leaseName, String nodeId, long leaseMillis) {
+        return new MapSqlParameterSource()
+                .addValue("lease", leaseName)
+                .addValue("node", nodeId)
+                .addValue("micros", leaseMillis * 1000);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
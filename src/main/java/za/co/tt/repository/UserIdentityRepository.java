@@ -0,0 +1,41 @@
+package za.co.tt.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.BiConsumer;
+
+/**
+ * JDBC access to the login identities (username, email) of every user, for building in-memory indexes.
+ */
+@Repository
+public class UserIdentityRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserIdentityRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long countUsers() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", new MapSqlParameterSource(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Hand every (username, email) pair to consumer without loading the table into memory.
+     * The MySQL driver only streams rows for a forward-only, read-only statement with fetch size
+     * Integer.MIN_VALUE; any other fetch size buffers the whole result first.
+     */
+    public void forEachIdentity(BiConsumer<String, String> consumer) {
+        jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT username, email FROM users",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, (ResultSet rs) -> consumer.accept(rs.getString("username"), rs.getString("email")));
+    }
+}
@@ -0,0 +1,167 @@
+package za.co.tt.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of API requests in flight, with a limit that follows request latency.
+ *
+ * Once per window the average latency is compared with the no-load baseline: the lowest window
+ * average of the last baseline-windows windows, so one unusually fast window only lowers it until it
+ * ages out and a permanently slower deployment becomes the new baseline after that many windows. If
+ * latency has risen past baseline * latency-tolerance the limit is cut in proportion;
+ * if latency is healthy and the limit was actually being used, it grows again. Priorities share the
+ * limit unevenly: LOW traffic (anonymous catalog browsing, debug endpoints) is only admitted below
+ * low-priority-share of the limit, NORMAL up to the limit, and CRITICAL (checkout, payment) up to
+ * max-limit, so as the server slows down browsing is shed first and checkout last.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    public enum Priority { LOW, NORMAL, CRITICAL }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double lowPriorityShare;
+    // Averages of the most recent windows, oldest overwritten first; guarded by this
+    private final double[] recentAverages;
+    private int recentCount;
+    private int recentNext;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong windowSamples = new AtomicLong();
+    private final AtomicLong windowNanos = new AtomicLong();
+    private final Map<Priority, AtomicLong> shed = new EnumMap<>(Priority.class);
+
+    private volatile int limit;
+    private volatile double baselineNanos;
+    private volatile double lastAverageNanos;
+    private final AtomicLong limitDecreases = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(@Value("${rate-limit.concurrency.initial-limit:40}") int initialLimit,
+                                      @Value("${rate-limit.concurrency.min-limit:8}") int minLimit,
+                                      @Value("${rate-limit.concurrency.max-limit:200}") int maxLimit,
+                                      @Value("${rate-limit.concurrency.latency-tolerance:2.0}") double latencyTolerance,
+                                      @Value("${rate-limit.concurrency.low-priority-share:0.5}") double lowPriorityShare,
+                                      @Value("${rate-limit.concurrency.baseline-windows:300}") int baselineWindows) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.latencyTolerance = Math.max(1.0, latencyTolerance);
+        this.lowPriorityShare = Math.max(0.0, Math.min(1.0, lowPriorityShare));
+        this.recentAverages = new double[Math.max(1, baselineWindows)];
+        for (Priority priority : Priority.values()) {
+            shed.put(priority, new AtomicLong());
+        }
+    }
+
+    /**
+     * Take a slot for a request of the given priority; false means shed it. Every true must be
+     * followed by exactly one release.
+     */
+    public boolean tryAcquire(Priority priority) {
+        int capacity = capacity(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= capacity) {
+                shed.get(priority).incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back. Latency is only sampled for requests that completed on the calling thread;
+     * streaming responses that went async say nothing about how loaded the server is.
+     */
+    public void release(long latencyNanos, boolean sample) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            windowSamples.incrementAndGet();
+            windowNanos.addAndGet(latencyNanos);
+        }
+    }
+
+    private int capacity(Priority priority) {
+        return switch (priority) {
+            case LOW -> Math.max(1, (int) (limit * lowPriorityShare));
+            case NORMAL -> limit;
+            case CRITICAL -> maxLimit;
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.concurrency.window-ms:1000}")
+    public synchronized void adjustLimit() {
+        long samples = windowSamples.getAndSet(0);
+        long nanos = windowNanos.getAndSet(0);
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+
+        double average = (double) nanos / samples;
+        lastAverageNanos = average;
+        recentAverages[recentNext] = average;
+        recentNext = (recentNext + 1) % recentAverages.length;
+        recentCount = Math.min(recentCount + 1, recentAverages.length);
+        double lowest = Double.MAX_VALUE;
+        for (int i = 0; i < recentCount; i++) {
+            lowest = Math.min(lowest, recentAverages[i]);
+        }
+        baselineNanos = lowest;
+
+        int current = limit;
+        double gradient = baselineNanos * latencyTolerance / average;
+        if (gradient < 1.0) {
+            int reduced = Math.max(minLimit, (int) (current * Math.max(0.5, gradient)));
+            if (reduced < current) {
+                limit = reduced;
+                limitDecreases.incrementAndGet();
+                logger.info("Latency {} ms over baseline {} ms, concurrency limit {} -> {}",
+                        toMillis(average), toMillis(baselineNanos), current, reduced);
+            }
+        } else if (peak >= current * 0.8) {
+            limit = Math.min(maxLimit, current + Math.max(1, (int) Math.sqrt(current)));
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("limit", limit);
+        metrics.put("minLimit", minLimit);
+        metrics.put("maxLimit", maxLimit);
+        metrics.put("lowPriorityCapacity", capacity(Priority.LOW));
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("baselineLatencyMillis", toMillis(baselineNanos));
+        metrics.put("recentLatencyMillis", toMillis(lastAverageNanos));
+        metrics.put("limitDecreases", limitDecreases.get());
+        Map<String, Long> shedCounts = new LinkedHashMap<>();
+        shed.forEach((priority, count) -> shedCounts.put(priority.name(), count.get()));
+        metrics.put("shed", shedCounts);
+        return metrics;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / TimeUnit.MILLISECONDS.toNanos(1) * 10) / 10.0;
+    }
+}
@@ -15,9 +15,12 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import za.co.tt.domain.User;
 
 import java.io.IOException;
+import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Set<String> EVENT_STREAM_PATHS = Set.of("/api/products/stock/stream", "/api/orders/stream");
+
     private final CustomUserDetailsService userDetailsService;
 
     @Autowired
@@ -29,11 +32,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
         String token = null;
+        boolean streamToken = false;
         String username = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
+        } else if (isEventStreamRequest(request)) {
+            // Browser EventSource cannot set headers, so SSE endpoints accept a stream token from
+            // /api/auth/stream-token as ?stream_token=; access tokens are never taken from the URL
+            token = request.getParameter("stream_token");
+            streamToken = true;
+        }
+        if (token != null) {
             try {
-                username = JwtUtil.getUsernameFromToken(token);
+                // Stream tokens open event streams only, and only from the query parameter
+                if (JwtUtil.isStreamToken(token) == streamToken) {
+                    username = JwtUtil.getUsernameFromToken(token);
+                }
             } catch (Exception e) {
 
             }
@@ -64,4 +78,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private boolean isEventStreamRequest(HttpServletRequest request) {
+        return "GET".equals(request.getMethod())
+                && EVENT_STREAM_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
 }
@@ -17,6 +17,9 @@ public class JwtUtil {
         SignatureAlgorithm.HS256.getJcaName()
     );
     private static final long EXPIRATION_TIME = 1000 * 60 * 60 * 24;
+    private static final long STREAM_EXPIRATION_TIME = 1000 * 60 * 2;
+    private static final String PURPOSE_CLAIM = "purpose";
+    private static final String STREAM_PURPOSE = "stream";
 
     public static String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
@@ -38,6 +41,36 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Short-lived token that only opens event streams: browser EventSource cannot send headers, so it
+     * goes in the stream URL instead of the access token. Clients fetch a fresh one before each
+     * (re)connect.
+     */
+    public static String generateStreamToken(User user) {
+        String role = user.getRole();
+        if (!role.startsWith("ROLE_")) {
+            role = "ROLE_" + role;
+        }
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .claim("authorities", java.util.Collections.singletonList(role))
+                .claim("userId", user.getUserId())
+                .claim(PURPOSE_CLAIM, STREAM_PURPOSE)
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + STREAM_EXPIRATION_TIME))
+                .signWith(SECRET_KEY)
+                .compact();
+    }
+
+    public static boolean isStreamToken(String token) {
+        return STREAM_PURPOSE.equals(extractClaims(token).get(PURPOSE_CLAIM));
+    }
+
+    public static long getStreamExpirationTimeInMillis() {
+        return STREAM_EXPIRATION_TIME;
+    }
+
     public static boolean validateToken(String token, User user) {
         final String username = getUsernameFromToken(token);
         return (username.equals(user.getUsername()) && !isTokenExpired(token));
@@ -47,6 +80,15 @@ public class JwtUtil {
         return extractClaims(token).getSubject();
     }
 
+    /**
+     * Reads the userId claim so per-request handlers can skip the user lookup by username.
+     * Returns null for tokens issued before the claim was added.
+     */
+    public static Long getUserIdFromToken(String token) {
+        Object userId = extractClaims(token).get("userId");
+        return userId instanceof Number ? ((Number) userId).longValue() : null;
+    }
+
     public static Date getExpirationDateFromToken(String token) {
         return extractClaims(token).getExpiration();
     }
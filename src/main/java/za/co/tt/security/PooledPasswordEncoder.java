@@ -0,0 +1,229 @@
+package za.co.tt.security;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder that runs every hash on a small dedicated pool.
+ *
+ * Request threads hand the work over and wait; at most security.bcrypt.threads hashes run at once, so
+ * a login burst cannot take every core away from the rest of the application. When the queue is full,
+ * or a hash waits longer than security.bcrypt.max-wait-ms, the caller gets a RejectedExecutionException
+ * straight away, which the controllers turn into 503 with Retry-After.
+ *
+ * With security.bcrypt.cost=0 the cost is calibrated at startup (on the pool, without delaying boot) to
+ * the highest value whose hash stays within security.bcrypt.target-ms on this hardware. Stored hashes
+ * with a lower cost report upgradeEncoding so they are rehashed on the next successful login. Hashes
+ * are never downgraded, so nodes that calibrate differently do not rehash the same user back and forth.
+ */
+@Component
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2([ayb])?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+    private static final int MIN_COST = 10;
+    private static final int MAX_COST = 16;
+
+    private final ThreadPoolExecutor pool;
+    private final SecureRandom random = new SecureRandom();
+    private final int threads;
+    private final int queueCapacity;
+    private final long maxWaitMillis;
+    private final long targetMillis;
+    private volatile int cost;
+    private volatile String calibration = "pending";
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong upgradesRequested = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public PooledPasswordEncoder(@Value("${security.bcrypt.threads:0}") int threads,
+                                 @Value("${security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                 @Value("${security.bcrypt.max-wait-ms:2000}") long maxWaitMillis,
+                                 @Value("${security.bcrypt.cost:0}") int cost,
+                                 @Value("${security.bcrypt.target-ms:250}") long targetMillis) {
+        // Leave at least half the cores to request handling
+        this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxWaitMillis = maxWaitMillis;
+        this.targetMillis = targetMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        if (cost > 0) {
+            this.cost = Math.max(4, Math.min(31, cost));
+            this.calibration = "fixed";
+        } else {
+            this.cost = MIN_COST;
+            pool.execute(this::calibrate);
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        if (rawPassword == null) {
+            throw new IllegalArgumentException("rawPassword cannot be null");
+        }
+        int hashCost = cost;
+        return submit(() -> BCrypt.hashpw(rawPassword.toString(), BCrypt.gensalt(hashCost, random)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null) {
+            throw new IllegalArgumentException("rawPassword cannot be null");
+        }
+        if (encodedPassword == null || !BCRYPT_PATTERN.matcher(encodedPassword).matches()) {
+            return false;
+        }
+        return submit(() -> BCrypt.checkpw(rawPassword.toString(), encodedPassword));
+    }
+
+    /**
+     * True when the stored hash was made with a lower cost than this node now uses.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return false;
+        }
+        boolean upgrade = Integer.parseInt(matcher.group(2)) < cost;
+        if (upgrade) {
+            upgradesRequested.incrementAndGet();
+        }
+        return upgrade;
+    }
+
+    private <T> T submit(Callable<T> hash) {
+        Future<T> future;
+        try {
+            future = pool.submit(() -> timed(hash));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Password hashing is saturated, try again shortly");
+        }
+        waiting.incrementAndGet();
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new RejectedExecutionException("Password hashing is saturated, try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private <T> T timed(Callable<T> hash) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return hash.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            hashes.incrementAndGet();
+            hashNanos.addAndGet(elapsed);
+            maxHashNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Pick the highest cost whose hash time stays within the target. Each cost step doubles the work,
+     * so the first cost that overshoots ends the search.
+     */
+    private void calibrate() {
+        try {
+            String sample = "calibration-" + random.nextInt();
+            // Warm up so JIT compilation does not count against the low costs
+            BCrypt.hashpw(sample, BCrypt.gensalt(4, random));
+            int chosen = MIN_COST;
+            long chosenMillis = 0;
+            for (int candidate = MIN_COST; candidate <= MAX_COST; candidate++) {
+                long start = System.nanoTime();
+                BCrypt.hashpw(sample, BCrypt.gensalt(candidate, random));
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (millis > targetMillis && candidate > MIN_COST) {
+                    break;
+                }
+                chosen = candidate;
+                chosenMillis = millis;
+                if (millis * 2 > targetMillis) {
+                    break;
+                }
+            }
+            cost = chosen;
+            calibration = "cost " + chosen + " hashes in ~" + chosenMillis + " ms (target " + targetMillis + " ms)";
+            logger.info("BCrypt calibrated: {}", calibration);
+        } catch (Exception e) {
+            calibration = "failed: " + e.getMessage();
+            logger.warn("BCrypt calibration failed, keeping cost {}: {}", cost, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long count = hashes.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cost", cost);
+        metrics.put("calibration", calibration);
+        metrics.put("threads", threads);
+        metrics.put("active", pool.getActiveCount());
+        metrics.put("queueDepth", pool.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("waitingCallers", waiting.get());
+        metrics.put("hashes", count);
+        metrics.put("avgHashMillis", count > 0 ? TimeUnit.NANOSECONDS.toMillis(hashNanos.get() / count) : 0);
+        metrics.put("maxHashMillis", TimeUnit.NANOSECONDS.toMillis(maxHashNanos.get()));
+        metrics.put("rejected", rejected.get());
+        metrics.put("timedOut", timedOut.get());
+        metrics.put("upgradesRequested", upgradesRequested.get());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,336 @@
+package za.co.tt.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import za.co.tt.security.AdaptiveConcurrencyLimiter.Priority;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets and load shedding in front of every API request.
+ *
+ * Each request is put in an endpoint class (login/register, checkout, catalog, admin, debug, other)
+ * and charged to a bucket keyed by class and caller: the userId claim of a valid token, otherwise
+ * the client IP. Each class has its own rate and burst. A caller over its rate gets 429 with
+ * Retry-After set to when its next token is due. Requests within their rate then pass the
+ * AdaptiveConcurrencyLimiter, which sheds low-priority traffic first when latency climbs.
+ *
+ * Buckets are single AtomicLongs updated by compare-and-set, so the hot path takes no lock. The bucket
+ * map is capped at rate-limit.max-keys. A bucket that has refilled completely holds no state worth
+ * keeping and is swept out every rate-limit.sweep-ms. A new caller that finds the map full may also run
+ * the sweep, at most once per sweep interval across all request threads, so a flood of new callers does
+ * not scan the map on every request. If the map is still full, new callers share one overflow bucket
+ * per class until space frees up.
+ *
+ * Runs inside the security chain ahead of JwtAuthenticationFilter, after CORS, so rejected responses
+ * still carry CORS headers. The caller key needs the token's signature checked here, but a flood of
+ * requests is turned away before any user is loaded from the database.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String TOO_MANY_REQUESTS = "{\"error\":\"Too many requests, slow down\"}";
+    private static final String OVERLOADED = "{\"error\":\"Server is busy, try again shortly\"}";
+
+    public enum EndpointClass { AUTH, CHECKOUT, CATALOG, ADMIN, DEBUG, DEFAULT }
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, TokenBucket> overflowBuckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Rate> rates = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, AtomicLong> admitted = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, AtomicLong> limited = new EnumMap<>(EndpointClass.class);
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong lastSweepAt = new AtomicLong(System.nanoTime());
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${rate-limit.max-keys:50000}")
+    private int maxKeys = 50000;
+
+    @Value("${rate-limit.sweep-ms:30000}")
+    private long sweepMillis = 30000;
+
+    @Value("${rate-limit.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    @Value("${rate-limit.auth.per-second:1}")
+    private double authPerSecond = 1;
+
+    @Value("${rate-limit.auth.burst:10}")
+    private int authBurst = 10;
+
+    @Value("${rate-limit.checkout.per-second:5}")
+    private double checkoutPerSecond = 5;
+
+    @Value("${rate-limit.checkout.burst:20}")
+    private int checkoutBurst = 20;
+
+    @Value("${rate-limit.catalog.per-second:20}")
+    private double catalogPerSecond = 20;
+
+    @Value("${rate-limit.catalog.burst:60}")
+    private int catalogBurst = 60;
+
+    @Value("${rate-limit.admin.per-second:20}")
+    private double adminPerSecond = 20;
+
+    @Value("${rate-limit.admin.burst:60}")
+    private int adminBurst = 60;
+
+    @Value("${rate-limit.debug.per-second:0.5}")
+    private double debugPerSecond = 0.5;
+
+    @Value("${rate-limit.debug.burst:5}")
+    private int debugBurst = 5;
+
+    @Value("${rate-limit.default.per-second:10}")
+    private double defaultPerSecond = 10;
+
+    @Value("${rate-limit.default.burst:40}")
+    private int defaultBurst = 40;
+
+    @Autowired
+    public RateLimitFilter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            overflowBuckets.put(endpointClass, new TokenBucket());
+            admitted.put(endpointClass, new AtomicLong());
+            limited.put(endpointClass, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        rates.put(EndpointClass.AUTH, new Rate(authPerSecond, authBurst));
+        rates.put(EndpointClass.CHECKOUT, new Rate(checkoutPerSecond, checkoutBurst));
+        rates.put(EndpointClass.CATALOG, new Rate(catalogPerSecond, catalogBurst));
+        rates.put(EndpointClass.ADMIN, new Rate(adminPerSecond, adminBurst));
+        rates.put(EndpointClass.DEBUG, new Rate(debugPerSecond, debugBurst));
+        rates.put(EndpointClass.DEFAULT, new Rate(defaultPerSecond, defaultBurst));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        Long userId = userIdFrom(request);
+        String caller = userId != null ? "u:" + userId : "ip:" + clientIp(request);
+
+        long now = System.nanoTime();
+        long waitNanos = bucketFor(endpointClass, caller, now).tryConsume(now, rates.get(endpointClass));
+        if (waitNanos > 0) {
+            limited.get(endpointClass).incrementAndGet();
+            reject(response, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1), TOO_MANY_REQUESTS);
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire(priorityOf(endpointClass, userId != null))) {
+            reject(response, 1, OVERLOADED);
+            return;
+        }
+        admitted.get(endpointClass).incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, !request.isAsyncStarted());
+        }
+    }
+
+    EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if (path.startsWith("/api/debug") || path.startsWith("/api/admin/cleanup") || path.startsWith("/api/orders/debug")
+                || (path.startsWith("/api/orders/") && path.endsWith("/debug-status"))) {
+            return EndpointClass.DEBUG;
+        }
+        if (path.equals("/user/login") || path.equals("/user/register") || path.startsWith("/api/admin-setup")) {
+            return EndpointClass.AUTH;
+        }
+        if (path.startsWith("/api/cart") || path.startsWith("/api/payments")
+                || ("POST".equals(method) && path.startsWith("/api/orders"))) {
+            return EndpointClass.CHECKOUT;
+        }
+        if ("GET".equals(method) && path.startsWith("/api/products")) {
+            return EndpointClass.CATALOG;
+        }
+        if (path.startsWith("/admin")) {
+            return EndpointClass.ADMIN;
+        }
+        return EndpointClass.DEFAULT;
+    }
+
+    private static Priority priorityOf(EndpointClass endpointClass, boolean authenticated) {
+        return switch (endpointClass) {
+            case CHECKOUT -> Priority.CRITICAL;
+            case DEBUG -> Priority.LOW;
+            case CATALOG -> authenticated ? Priority.NORMAL : Priority.LOW;
+            default -> Priority.NORMAL;
+        };
+    }
+
+    private static Long userIdFrom(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            // Signature is verified here, so a forged userId cannot borrow another user's bucket
+            return JwtUtil.getUserIdFromToken(authHeader.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma >= 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private TokenBucket bucketFor(EndpointClass endpointClass, String caller, long now) {
+        String key = endpointClass.name() + "|" + caller;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            // Only the first new caller per sweep interval pays for the scan; the rest go to overflow
+            long lastSweep = lastSweepAt.get();
+            if (now - lastSweep >= TimeUnit.MILLISECONDS.toNanos(sweepMillis)
+                    && lastSweepAt.compareAndSet(lastSweep, now)) {
+                sweepIdleBuckets();
+            }
+            if (buckets.size() >= maxKeys) {
+                overflowed.incrementAndGet();
+                return overflowBuckets.get(endpointClass);
+            }
+        }
+        return buckets.computeIfAbsent(key, ignored -> new TokenBucket());
+    }
+
+    /**
+     * Drop buckets that have refilled completely; recreating one later gives exactly the same state.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-ms:30000}")
+    public void sweepIdleBuckets() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            lastSweepAt.set(now);
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            evicted.addAndGet(Math.max(0, before - buckets.size()));
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, long retryAfterSeconds, String body) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, retryAfterSeconds)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(body);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("buckets", buckets.size());
+        metrics.put("maxKeys", maxKeys);
+        metrics.put("evictedBuckets", evicted.get());
+        metrics.put("overflowRequests", overflowed.get());
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Rate rate = rates.get(endpointClass);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("perSecond", rate != null ? rate.perSecond : null);
+            stats.put("burst", rate != null ? rate.burst : null);
+            stats.put("admitted", admitted.get(endpointClass).get());
+            stats.put("rateLimited", limited.get(endpointClass).get());
+            classes.put(endpointClass.name(), stats);
+        }
+        metrics.put("classes", classes);
+        return metrics;
+    }
+
+    /**
+     * Refill rate and burst size of one endpoint class, as nanoseconds per token and burst window.
+     */
+    static final class Rate {
+        private final double perSecond;
+        private final int burst;
+        private final long intervalNanos;
+        private final long burstNanos;
+
+        Rate(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = Math.max(1, burst);
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, perSecond));
+            this.burstNanos = this.intervalNanos * this.burst;
+        }
+    }
+
+    /**
+     * Token bucket kept as a single timestamp: the time at which the bucket would be full again
+     * (the generic cell rate algorithm). Taking a token pushes it forward by one interval; a request
+     * is refused when that would put it more than a full burst ahead of now.
+     */
+    static final class TokenBucket {
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * Take one token. Returns 0 when granted, otherwise the nanoseconds until one is available.
+         */
+        long tryConsume(long now, Rate rate) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + rate.intervalNanos;
+                long wait = next - rate.burstNanos - now;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() <= now;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package za.co.tt.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
@@ -17,28 +19,48 @@ import java.util.Optional;
 @Service
 public class AdminService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
+
     @Autowired
     private UserService userService;
     
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ClusterSchedulerService clusterScheduler;
+
+    @Autowired
+    private DeferredStartupService deferredStartup;
+
     /**
-     * Auto-create default admin on startup if none exists
+     * Auto-create default admin on startup if none exists.
+     * Runs under a cluster lease so nodes booting together do not both create one, and off the
+     * startup path when non-critical startup work is deferred.
      */
     @EventListener(ApplicationReadyEvent.class)
     public void createDefaultAdminOnStartup() {
+        deferredStartup.run("default-admin", this::checkDefaultAdmin);
+    }
+
+    private void checkDefaultAdmin() {
         try {
-            System.out.println("🔍 Checking for admin users...");
-            
-            if (hasAdminUsers()) {
-                System.out.println("✅ Admin users already exist. Skipping auto-creation.");
-                return;
+            boolean ran = clusterScheduler.runExclusive("default-admin", () -> {
+                System.out.println("🔍 Checking for admin users...");
+
+                if (hasAdminUsers()) {
+                    System.out.println("✅ Admin users already exist. Skipping auto-creation.");
+                    return "Admin users already exist";
+                }
+
+                System.out.println("⚠️  No admin users found. Creating default admin...");
+                createDefaultAdmin();
+                return "Default admin created";
+            });
+            if (!ran) {
+                logger.info("Another node is running the default admin check; skipping it here");
             }
 
-            System.out.println("⚠️  No admin users found. Creating default admin...");
-            createDefaultAdmin();
-            
         } catch (Exception e) {
             System.err.println("❌ Error during admin setup: " + e.getMessage());
             e.printStackTrace();
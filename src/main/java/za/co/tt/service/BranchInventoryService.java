@@ -0,0 +1,557 @@
+package za.co.tt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Branch;
+import za.co.tt.domain.BranchAvailability;
+import za.co.tt.domain.BranchStockUpdate;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockTransfer;
+import za.co.tt.repository.BranchInventoryRepository;
+import za.co.tt.repository.BranchInventoryRepository.ReservationRow;
+import za.co.tt.repository.BranchInventoryRepository.StockRow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stock held at each fitment centre for COLLECTION orders, next to the delivery stock in
+ * products.stock_quantity.
+ *
+ * Every (product, branch) pair has its own in-memory counter of available units (on hand minus
+ * reserved), so a hot product's stock is spread over one counter and one branch_stock row per branch
+ * instead of a single products row. A collection order takes its units from the counter with a CAS,
+ * which turns most out-of-stock orders away without touching the database, then reserves them with a
+ * conditional update of only that branch's row inside the order transaction. The row update is what
+ * keeps nodes from overselling; a rollback puts the units back on the counter.
+ *
+ * Reservations are consumed when the order completes and released when it is cancelled, expires or is
+ * deleted; released rows are kept, so an order is only ever released once. Transfers between branches are applied as a batch in one transaction. Counters are reloaded
+ * from branch_stock every resync-ms to pick up other nodes' writes, skipped while a local write is in
+ * flight so the reload never overwrites one.
+ */
+@Service
+public class BranchInventoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BranchInventoryService.class);
+
+    private final BranchInventoryRepository inventoryRepository;
+    private final ProductSnapshotCache snapshotCache;
+    private final DeferredStartupService deferredStartupService;
+    private final TransactionTemplate transactionTemplate;
+    // Status events arrive after the order transaction committed, whose resources are still bound
+    private final TransactionTemplate consumeTemplate;
+
+    private volatile List<Branch> branches = List.of();
+    // Available units per product and branch; a missing counter means "not loaded", not "none"
+    private volatile Map<Long, Map<Long, AtomicInteger>> available = new ConcurrentHashMap<>();
+    // Reload guard: local writes since a reload started, and writes not yet committed or rolled back
+    private final AtomicLong stockWrites = new AtomicLong();
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+
+    private final AtomicLong reservations = new AtomicLong();
+    private final AtomicLong rejectedInMemory = new AtomicLong();
+    private final AtomicLong rejectedByDatabase = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong transfers = new AtomicLong();
+    private final AtomicLong resyncsSkipped = new AtomicLong();
+    private volatile LocalDateTime lastResync;
+
+    @Value("${inventory.max-batch-size:500}")
+    private int maxBatchSize = 500;
+
+    @Autowired
+    public BranchInventoryService(BranchInventoryRepository inventoryRepository, ProductSnapshotCache snapshotCache,
+                                  DeferredStartupService deferredStartupService,
+                                  PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.snapshotCache = snapshotCache;
+        this.deferredStartupService = deferredStartupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.consumeTemplate = new TransactionTemplate(transactionManager);
+        this.consumeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        deferredStartupService.run("branch-inventory-load", this::resync);
+    }
+
+    /**
+     * Reload branches and counters from the database. Skipped if a local reservation, release or
+     * transfer is in flight or happens during the load, since the loaded values may not include it.
+     */
+    @Scheduled(fixedDelayString = "${inventory.resync-ms:30000}", initialDelayString = "${inventory.resync-ms:30000}")
+    public void resync() {
+        branches = List.copyOf(inventoryRepository.findBranches());
+        long writesBefore = stockWrites.get();
+        if (writesInFlight.get() > 0) {
+            resyncsSkipped.incrementAndGet();
+            return;
+        }
+        Map<Long, Map<Long, AtomicInteger>> loaded = new ConcurrentHashMap<>();
+        int[] rows = {0};
+        inventoryRepository.forEachStock(row -> {
+            loaded.computeIfAbsent(row.getProductId(), id -> new ConcurrentHashMap<>())
+                    .put(row.getBranchId(), new AtomicInteger(row.getAvailable()));
+            rows[0]++;
+        });
+        if (writesInFlight.get() > 0 || stockWrites.get() != writesBefore) {
+            resyncsSkipped.incrementAndGet();
+            return;
+        }
+        available = loaded;
+        lastResync = LocalDateTime.now();
+        logger.debug("Loaded {} branch stock rows for {} branches", rows[0], branches.size());
+    }
+
+    /**
+     * Reserve an order's units at a collection branch. Must run inside the transaction that creates
+     * the order, so the reservation commits or rolls back with it.
+     *
+     * @param quantities units per product
+     * @throws IllegalArgumentException if the branch is unknown or inactive or short of any product
+     */
+    public void reserveForOrder(long orderId, long branchId, Map<Long, Integer> quantities) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Branch reservations must run inside the order transaction");
+        }
+        Branch branch = requireBranch(branchId);
+        if (!branch.isActive()) {
+            throw new IllegalArgumentException("Branch " + branch.getName() + " is not taking collection orders");
+        }
+        // Fixed product order so concurrent orders lock branch_stock rows in the same sequence
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+
+        Map<AtomicInteger, Integer> taken = new LinkedHashMap<>();
+        beginWrite();
+        try {
+            for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+                AtomicInteger counter = counter(entry.getKey(), branchId);
+                // Without a loaded counter the database alone decides
+                if (counter != null) {
+                    if (!tryTake(counter, entry.getValue())) {
+                        rejectedInMemory.incrementAndGet();
+                        throw insufficient(entry.getKey(), branch, Math.max(0, counter.get()), entry.getValue());
+                    }
+                    taken.put(counter, entry.getValue());
+                }
+            }
+            for (Map.Entry<Long, Integer> entry : sorted.entrySet()) {
+                if (!inventoryRepository.reserve(entry.getKey(), branchId, entry.getValue())) {
+                    // Another node took the units; the next resync corrects this node's counter
+                    rejectedByDatabase.incrementAndGet();
+                    List<StockRow> row = inventoryRepository.findStock(entry.getKey(), branchId);
+                    throw insufficient(entry.getKey(), branch, row.isEmpty() ? 0 : Math.max(0, row.get(0).getAvailable()),
+                            entry.getValue());
+                }
+            }
+            inventoryRepository.insertReservations(orderId, branchId, sorted);
+        } catch (RuntimeException e) {
+            taken.forEach(AtomicInteger::addAndGet);
+            endWrite();
+            throw e;
+        }
+        reservations.incrementAndGet();
+        afterTransaction(() -> { }, () -> taken.forEach(AtomicInteger::addAndGet));
+    }
+
+    /**
+     * Release the branch reservations of the given orders (cancelled, expired or deleted) in the
+     * current transaction. Returns the ids of the orders that had any, released earlier or now, whose
+     * units came from a branch rather than from products.stock_quantity.
+     */
+    public Set<Long> releaseOrders(Collection<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Set.of();
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Branch reservations must be released inside the order transaction");
+        }
+        Set<Long> branchOrders = new HashSet<>();
+        Set<Long> releasedOrders = new HashSet<>();
+        List<ReservationRow> held = new ArrayList<>();
+        for (ReservationRow row : inventoryRepository.lockReservations(orderIds)) {
+            branchOrders.add(row.getOrderId());
+            // Already released when the order was cancelled; a later delete must not return units twice
+            if (!row.isReleased()) {
+                held.add(row);
+                releasedOrders.add(row.getOrderId());
+            }
+        }
+        if (held.isEmpty()) {
+            return branchOrders;
+        }
+        beginWrite();
+        try {
+            inventoryRepository.releaseReservations(held);
+        } catch (RuntimeException e) {
+            endWrite();
+            throw e;
+        }
+        releases.addAndGet(releasedOrders.size());
+        afterTransaction(() -> held.forEach(row -> addAvailable(row.getProductId(), row.getBranchId(), row.getQuantity())),
+                () -> { });
+        return branchOrders;
+    }
+
+    /**
+     * A collected order's units leave the branch. Available units do not change, since they were
+     * taken when the order reserved them.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null
+                || !OrderStatus.COMPLETED.name().equals(event.getStatus())
+                || OrderStatus.COMPLETED.name().equals(event.getPreviousStatus())) {
+            return;
+        }
+        try {
+            consumeTemplate.executeWithoutResult(status -> inventoryRepository.consumeReservations(event.getOrderId()));
+        } catch (Exception e) {
+            logger.error("Failed to consume branch reservations of order {}: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ProductChangedEvent.ChangeType.DELETED && event.getProductId() != null) {
+            available.remove(event.getProductId());
+        }
+    }
+
+    /**
+     * Move units between branches as one batch: every transfer is applied or none is.
+     *
+     * @throws IllegalArgumentException if a transfer is invalid or a source branch is short
+     */
+    public Map<String, Object> transfer(List<StockTransfer> requested) {
+        if (requested == null || requested.isEmpty()) {
+            throw new IllegalArgumentException("At least one transfer is required");
+        }
+        if (requested.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " transfers per request");
+        }
+        // Units leaving each {productId, branchId}, checked against the source once per key
+        Map<List<Long>, Integer> outgoing = new TreeMap<>(BranchInventoryService::compareKeys);
+        Map<List<Long>, Integer> incoming = new TreeMap<>(BranchInventoryService::compareKeys);
+        for (StockTransfer transfer : requested) {
+            if (transfer.getProductId() == null || transfer.getFromBranchId() == null || transfer.getToBranchId() == null) {
+                throw new IllegalArgumentException("Each transfer needs productId, fromBranchId and toBranchId");
+            }
+            if (transfer.getQuantity() == null || transfer.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Transfer quantity must be positive");
+            }
+            if (transfer.getFromBranchId().equals(transfer.getToBranchId())) {
+                throw new IllegalArgumentException("A transfer needs two different branches");
+            }
+            requireBranch(transfer.getFromBranchId());
+            requireBranch(transfer.getToBranchId());
+            outgoing.merge(List.of(transfer.getProductId(), transfer.getFromBranchId()), transfer.getQuantity(), Integer::sum);
+            incoming.merge(List.of(transfer.getProductId(), transfer.getToBranchId()), transfer.getQuantity(), Integer::sum);
+        }
+
+        Map<AtomicInteger, Integer> taken = new LinkedHashMap<>();
+        String batchId = UUID.randomUUID().toString();
+        boolean committed = false;
+        beginWrite();
+        try {
+            for (Map.Entry<List<Long>, Integer> entry : outgoing.entrySet()) {
+                AtomicInteger counter = counter(entry.getKey().get(0), entry.getKey().get(1));
+                if (counter != null) {
+                    if (!tryTake(counter, entry.getValue())) {
+                        throw insufficient(entry.getKey().get(0), requireBranch(entry.getKey().get(1)),
+                                Math.max(0, counter.get()), entry.getValue());
+                    }
+                    taken.put(counter, entry.getValue());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> keys = new ArrayList<>();
+                Set<List<Long>> all = new TreeSet<>(BranchInventoryService::compareKeys);
+                all.addAll(outgoing.keySet());
+                all.addAll(incoming.keySet());
+                for (List<Long> key : all) {
+                    keys.add(new Object[]{key.get(0), key.get(1)});
+                }
+                Map<List<Long>, StockRow> locked = new HashMap<>();
+                for (StockRow row : inventoryRepository.lockStock(keys)) {
+                    locked.put(List.of(row.getProductId(), row.getBranchId()), row);
+                }
+                for (Map.Entry<List<Long>, Integer> entry : outgoing.entrySet()) {
+                    StockRow row = locked.get(entry.getKey());
+                    int availableUnits = row != null ? row.getAvailable() : 0;
+                    if (availableUnits < entry.getValue()) {
+                        throw insufficient(entry.getKey().get(0), requireBranch(entry.getKey().get(1)),
+                                Math.max(0, availableUnits), entry.getValue());
+                    }
+                }
+                inventoryRepository.applyTransfers(batchId, requested);
+            });
+            committed = true;
+            incoming.forEach((key, units) -> addAvailable(key.get(0), key.get(1), units));
+        } catch (RuntimeException e) {
+            if (!committed) {
+                taken.forEach(AtomicInteger::addAndGet);
+            }
+            throw e;
+        } finally {
+            endWrite();
+        }
+        transfers.addAndGet(requested.size());
+
+        int units = 0;
+        for (StockTransfer transfer : requested) {
+            units += transfer.getQuantity();
+        }
+        logger.info("Applied transfer batch {}: {} transfers, {} units", batchId, requested.size(), units);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("batchId", batchId);
+        result.put("transfers", requested.size());
+        result.put("units", units);
+        return result;
+    }
+
+    /**
+     * Set on-hand quantities at a branch, e.g. after a stock count or a supplier delivery.
+     *
+     * @throws IllegalArgumentException if the branch or a product is unknown or a quantity is negative
+     */
+    public Map<String, Object> setStock(long branchId, List<BranchStockUpdate> updates) {
+        requireBranch(branchId);
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("At least one stock level is required");
+        }
+        if (updates.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " stock levels per request");
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (BranchStockUpdate update : updates) {
+            if (update.getProductId() == null || update.getQuantity() == null || update.getQuantity() < 0) {
+                throw new IllegalArgumentException("Each stock level needs a productId and a quantity of at least 0");
+            }
+            if (quantities.put(update.getProductId(), update.getQuantity()) != null) {
+                throw new IllegalArgumentException("Product " + update.getProductId() + " is listed more than once");
+            }
+        }
+        Map<Long, ProductSummary> products = snapshotCache.getAll(quantities.keySet());
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) {
+                throw new IllegalArgumentException("Product with ID " + productId + " not found");
+            }
+        }
+
+        Map<Long, Integer> previous = new HashMap<>();
+        beginWrite();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> keys = new ArrayList<>();
+                quantities.keySet().forEach(productId -> keys.add(new Object[]{productId, branchId}));
+                for (StockRow row : inventoryRepository.lockStock(keys)) {
+                    previous.put(row.getProductId(), row.getQuantity());
+                }
+                List<BranchStockUpdate> rows = new ArrayList<>();
+                quantities.forEach((productId, quantity) -> rows.add(new BranchStockUpdate(productId, quantity)));
+                inventoryRepository.setQuantities(branchId, rows);
+            });
+            quantities.forEach((productId, quantity) ->
+                    addAvailable(productId, branchId, quantity - previous.getOrDefault(productId, 0)));
+        } finally {
+            endWrite();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("branchId", branchId);
+        result.put("updated", quantities.size());
+        return result;
+    }
+
+    /**
+     * Delivery stock plus the units each active branch can still reserve, all from memory.
+     * Returns null if the product does not exist.
+     */
+    public Map<String, Object> getAvailability(Long productId) {
+        ProductSummary product = snapshotCache.getAll(List.of(productId)).get(productId);
+        if (product == null) {
+            return null;
+        }
+        Map<Long, AtomicInteger> byBranch = available.getOrDefault(productId, Map.of());
+        List<BranchAvailability> branchStock = new ArrayList<>();
+        int collectionStock = 0;
+        for (Branch branch : branches) {
+            if (branch.isActive()) {
+                AtomicInteger counter = byBranch.get(branch.getBranchId());
+                int units = counter != null ? Math.max(0, counter.get()) : 0;
+                branchStock.add(new BranchAvailability(branch.getBranchId(), branch.getCode(), branch.getName(), units));
+                collectionStock += units;
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("deliveryStock", product.getStockQuantity());
+        result.put("collectionStock", collectionStock);
+        result.put("totalAvailable", product.getStockQuantity() + collectionStock);
+        result.put("branches", branchStock);
+        return result;
+    }
+
+    public List<Branch> getBranches() {
+        return branches;
+    }
+
+    /**
+     * @throws IllegalArgumentException if code or name is blank or the code is taken
+     */
+    public Branch createBranch(String code, String name) {
+        if (code == null || code.isBlank() || name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Branch code and name are required");
+        }
+        String normalisedCode = code.trim().toUpperCase(Locale.ROOT);
+        long branchId;
+        try {
+            branchId = inventoryRepository.insertBranch(normalisedCode, name.trim());
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Branch code " + normalisedCode + " already exists");
+        }
+        branches = List.copyOf(inventoryRepository.findBranches());
+        logger.info("Created branch {} ({})", normalisedCode, branchId);
+        return requireBranch(branchId);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<Long, Map<Long, AtomicInteger>> current = available;
+        int counters = 0;
+        for (Map<Long, AtomicInteger> byBranch : current.values()) {
+            counters += byBranch.size();
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("branches", branches.size());
+        status.put("products", current.size());
+        status.put("counters", counters);
+        status.put("reservations", reservations.get());
+        status.put("rejectedInMemory", rejectedInMemory.get());
+        status.put("rejectedByDatabase", rejectedByDatabase.get());
+        status.put("releases", releases.get());
+        status.put("transfers", transfers.get());
+        status.put("lastResync", lastResync);
+        status.put("resyncsSkipped", resyncsSkipped.get());
+        return status;
+    }
+
+    private Branch requireBranch(long branchId) {
+        for (Branch branch : branches) {
+            if (branch.getBranchId() == branchId) {
+                return branch;
+            }
+        }
+        // May have been created on another node since the last resync
+        branches = List.copyOf(inventoryRepository.findBranches());
+        for (Branch branch : branches) {
+            if (branch.getBranchId() == branchId) {
+                return branch;
+            }
+        }
+        throw new IllegalArgumentException("Branch with ID " + branchId + " not found");
+    }
+
+    private AtomicInteger counter(long productId, long branchId) {
+        Map<Long, AtomicInteger> byBranch = available.get(productId);
+        return byBranch != null ? byBranch.get(branchId) : null;
+    }
+
+    /**
+     * Apply a committed change to a counter, loading it from the database if it is not in memory yet
+     * (the loaded value already includes the change).
+     */
+    private void addAvailable(long productId, long branchId, int delta) {
+        AtomicInteger counter = counter(productId, branchId);
+        if (counter != null) {
+            counter.addAndGet(delta);
+            return;
+        }
+        List<StockRow> row = inventoryRepository.findStock(productId, branchId);
+        if (!row.isEmpty()) {
+            available.computeIfAbsent(productId, id -> new ConcurrentHashMap<>())
+                    .putIfAbsent(branchId, new AtomicInteger(row.get(0).getAvailable()));
+        }
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int units) {
+        while (true) {
+            int current = counter.get();
+            if (current < units) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - units)) {
+                return true;
+            }
+        }
+    }
+
+    private void beginWrite() {
+        writesInFlight.incrementAndGet();
+        stockWrites.incrementAndGet();
+    }
+
+    private void endWrite() {
+        writesInFlight.decrementAndGet();
+    }
+
+    // Ends the write begun by the caller once the current transaction commits or rolls back
+    private void afterTransaction(Runnable onCommit, Runnable onRollback) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    } else {
+                        onRollback.run();
+                    }
+                } finally {
+                    endWrite();
+                }
+            }
+        });
+    }
+
+    private static IllegalArgumentException insufficient(long productId, Branch branch, int availableUnits, int requested) {
+        return new IllegalArgumentException("Insufficient stock for product " + productId + " at " + branch.getName() + ". " +
+                "Available: " + availableUnits + ", Requested: " + requested);
+    }
+
+    private static int compareKeys(List<Long> a, List<Long> b) {
+        int byProduct = Long.compare(a.get(0), b.get(0));
+        return byProduct != 0 ? byProduct : Long.compare(a.get(1), b.get(1));
+    }
+}
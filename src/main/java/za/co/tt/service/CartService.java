@@ -1,60 +1,312 @@
-// package za.co.tt.service;
+package za.co.tt.service;
 
-// import org.springframework.beans.factory.annotation.Autowired;
-// import org.springframework.http.ResponseEntity;
-// import org.springframework.stereotype.Service;
-// import za.co.tt.domain.Cart;
-// import za.co.tt.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Cart;
+import za.co.tt.domain.CartDto;
+import za.co.tt.domain.CartItem;
+import za.co.tt.domain.CartLineDto;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.repository.CartRepository;
+import za.co.tt.repository.UserRepository;
 
-// import java.util.List;
-// @Service
-// public class CartService implements ICartService {
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-//     @Autowired
-//     private final CartRepository cartRepository;
+/**
+ * Server-side cart store.
+ *
+ * Active carts live in a bounded, access-ordered in-memory map keyed by userId. Mutations only touch
+ * memory and mark the cart dirty; a scheduled flush writes dirty carts to the cart/cart_items tables
+ * in one transaction (write-behind). Pricing and stock come from ProductSnapshotCache so a full cart
+ * is priced with at most one projection query.
+ */
+@Service
+public class CartService implements ICartService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
 
-//     public CartService(CartRepository cartRepository) {
-//         this.cartRepository = cartRepository;
-//     }
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final ProductSnapshotCache productSnapshotCache;
+    private final ProductPopularityService productPopularityService;
+    private final TransactionTemplate transactionTemplate;
 
-//     @Override
+    private final Map<Long, ActiveCart> activeCarts;
+    private final Map<Long, ActiveCart> evictedDirtyCarts = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyUserIds = ConcurrentHashMap.newKeySet();
 
-//     public Cart save(Cart entity) {
-//         return cartRepository.save(entity);
-//     }
+    @Value("${cart.flush-batch-size:200}")
+    private int flushBatchSize = 200;
 
-//     @Override
-//     public Cart update(Cart entity) {
-//         return cartRepository.save(entity);
-//     }
+    @Value("${cart.max-quantity-per-item:50}")
+    private int maxQuantityPerItem = 50;
 
-//     @Override
-//     public Cart read(Long id) {
-//         return cartRepository.findById(id).orElse(null);
-//     }
+    @Autowired
+    public CartService(CartRepository cartRepository,
+                       UserRepository userRepository,
+                       ProductSnapshotCache productSnapshotCache,
+                       ProductPopularityService productPopularityService,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${cart.store.max-active:10000}") int maxActiveCarts) {
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.productSnapshotCache = productSnapshotCache;
+        this.productPopularityService = productPopularityService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.activeCarts = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ActiveCart> eldest) {
+                if (size() <= maxActiveCarts) {
+                    return false;
+                }
+                // Dirty carts are parked until the next flush has persisted them
+                if (dirtyUserIds.contains(eldest.getKey())) {
+                    evictedDirtyCarts.put(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        });
+    }
 
+    @Override
+    public CartDto getCart(Long userId) {
+        return price(userId, load(userId).snapshot());
+    }
 
-//     @Override
-//     public void deleteById(Long id) {
-//         if (id == null) {
-//             throw new IllegalArgumentException("id cannot be null");
-//         }
-//         cartRepository.deleteById(id);
+    @Override
+    public CartDto addItem(Long userId, Long productId, int quantity) {
+        validateProduct(productId, quantity);
+        ActiveCart cart = load(userId);
+        Map<Long, Integer> items = cart.mutate(lines -> lines.merge(productId, quantity,
+                (current, added) -> Math.min(current + added, maxQuantityPerItem)));
+        markDirty(userId, cart);
+        productPopularityService.recordAddToCart(productId);
+        return price(userId, items);
+    }
 
-//         // return null;  //I made some changes
-//     }
+    @Override
+    public CartDto setItemQuantity(Long userId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            return removeItem(userId, productId);
+        }
+        validateProduct(productId, quantity);
+        ActiveCart cart = load(userId);
+        Map<Long, Integer> items = cart.mutate(lines -> lines.put(productId, Math.min(quantity, maxQuantityPerItem)));
+        markDirty(userId, cart);
+        return price(userId, items);
+    }
 
-//     @Override
-//     public List<Cart> findAll() {
-//         return cartRepository.findAll();
-//     }
+    @Override
+    public CartDto removeItem(Long userId, Long productId) {
+        ActiveCart cart = load(userId);
+        Map<Long, Integer> items = cart.mutate(lines -> lines.remove(productId));
+        markDirty(userId, cart);
+        return price(userId, items);
+    }
 
-//     public Cart createCart(Cart cart) {
-//         return cartRepository.save(cart);
-//     }
+    @Override
+    public void clearCart(Long userId) {
+        ActiveCart cart = load(userId);
+        cart.mutate(Map::clear);
+        markDirty(userId, cart);
+    }
 
-//     public List<Cart> getAllCarts() {
-//         return cartRepository.findAll();
-//     }
-// }
+    /**
+     * Record a change for the next flush. The mark is set before checking whether the cart is still
+     * active: either the LRU sees the mark when it evicts the cart and parks it, or the eviction already
+     * happened and the cart is parked here, so a changed cart is always reachable by the flush.
+     */
+    private void markDirty(Long userId, ActiveCart cart) {
+        dirtyUserIds.add(userId);
+        if (activeCarts.get(userId) != cart) {
+            evictedDirtyCarts.putIfAbsent(userId, cart);
+        }
+    }
+
+    /**
+     * Write-behind flush of dirty carts. Runs on a fixed delay and on shutdown.
+     *
+     * A cart stays marked dirty until the write of its snapshot has committed, so the LRU keeps parking
+     * it in evictedDirtyCarts for the whole flush. The mark is then cleared only if the cart has not
+     * changed since the snapshot; otherwise the next flush writes the newer lines.
+     */
+    @Scheduled(fixedDelayString = "${cart.flush-interval-ms:2000}")
+    public void flushDirtyCarts() {
+        Set<Long> attempted = new HashSet<>();
+        while (true) {
+            Map<Long, ActiveCart> carts = new HashMap<>();
+            Map<Long, Map<Long, Integer>> batch = new HashMap<>();
+            Map<Long, Long> versions = new HashMap<>();
+            for (Long userId : dirtyUserIds) {
+                if (batch.size() >= flushBatchSize) {
+                    break;
+                }
+                // Carts changed again during this flush wait for the next one
+                if (!attempted.add(userId)) {
+                    continue;
+                }
+                ActiveCart cart = evictedDirtyCarts.get(userId);
+                if (cart == null) {
+                    cart = activeCarts.get(userId);
+                }
+                if (cart == null) {
+                    dirtyUserIds.remove(userId);
+                    continue;
+                }
+                synchronized (cart) {
+                    batch.put(userId, cart.snapshot());
+                    versions.put(userId, cart.version);
+                }
+                carts.put(userId, cart);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(batch));
+            } catch (Exception e) {
+                logger.error("Failed to flush {} carts, will retry: {}", batch.size(), e.getMessage());
+                return;
+            }
+            carts.forEach((userId, cart) -> {
+                synchronized (cart) {
+                    if (cart.version == versions.get(userId)) {
+                        dirtyUserIds.remove(userId);
+                        evictedDirtyCarts.remove(userId, cart);
+                    }
+                }
+            });
+            logger.debug("Flushed {} carts", batch.size());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirtyCarts();
+    }
+
+    private void persist(Map<Long, Map<Long, Integer>> batch) {
+        Map<Long, Cart> existing = new HashMap<>();
+        for (Cart cart : cartRepository.findByUserIdsWithItems(batch.keySet())) {
+            existing.put(cart.getUser().getUserId(), cart);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Cart> toSave = new ArrayList<>(batch.size());
+        batch.forEach((userId, lines) -> {
+            Cart cart = existing.get(userId);
+            if (cart == null) {
+                cart = new Cart.Builder()
+                        .setUser(userRepository.getReferenceById(userId))
+                        .setCreatedAt(now)
+                        .setIsActive(true)
+                        .build();
+            }
+            List<CartItem> items = new ArrayList<>(lines.size());
+            lines.forEach((productId, quantity) -> items.add(new CartItem(productId, quantity)));
+            cart.getItems().clear();
+            cart.getItems().addAll(items);
+            cart.setUpdatedAt(now);
+            cart.setIsActive(!items.isEmpty());
+            toSave.add(cart);
+        });
+        cartRepository.saveAll(toSave);
+    }
+
+    private ActiveCart load(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("UserId must not be null");
+        }
+        ActiveCart cart = activeCarts.get(userId);
+        if (cart != null) {
+            return cart;
+        }
+        cart = evictedDirtyCarts.get(userId);
+        if (cart == null) {
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            cartRepository.findByUserIdWithItems(userId).ifPresent(stored ->
+                    stored.getItems().forEach(item -> lines.put(item.getProductId(), item.getQuantity())));
+            cart = new ActiveCart(lines);
+        }
+        ActiveCart raced = activeCarts.putIfAbsent(userId, cart);
+        return raced != null ? raced : cart;
+    }
+
+    private void validateProduct(Long productId, int quantity) {
+        if (productId == null) {
+            throw new IllegalArgumentException("ProductId must not be null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (productSnapshotCache.get(productId) == null) {
+            throw new IllegalArgumentException("Product with ID " + productId + " not found");
+        }
+    }
+
+    private CartDto price(Long userId, Map<Long, Integer> lines) {
+        CartDto cart = new CartDto(userId);
+        if (lines.isEmpty()) {
+            return cart;
+        }
+        Map<Long, ProductSummary> products = productSnapshotCache.getAll(lines.keySet());
+        lines.forEach((productId, quantity) -> {
+            CartLineDto line = new CartLineDto(productId, quantity);
+            ProductSummary product = products.get(productId);
+            if (product != null) {
+                BigDecimal unitPrice = BigDecimal.valueOf(product.getProductPrice());
+                line.setProductName(product.getProductName());
+                line.setProductModel(product.getProductModel());
+                line.setImageUrl(product.getImageUrl());
+                line.setUnitPrice(unitPrice);
+                line.setLineTotal(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+                line.setAvailableStock(product.getStockQuantity());
+                line.setInStock(product.getStockQuantity() >= quantity);
+                line.setAvailable(true);
+            }
+            cart.addLine(line);
+        });
+        return cart;
+    }
+
+    /**
+     * In-memory cart lines for one user; all access is synchronized on the instance. The version counts
+     * changes so the flush can tell whether the cart changed after it took its snapshot.
+     */
+    private static final class ActiveCart {
+        private final Map<Long, Integer> lines;
+        private long version;
+
+        private ActiveCart(Map<Long, Integer> lines) {
+            this.lines = lines;
+        }
+
+        private synchronized Map<Long, Integer> snapshot() {
+            return new LinkedHashMap<>(lines);
+        }
+
+        private synchronized Map<Long, Integer> mutate(java.util.function.Consumer<Map<Long, Integer>> change) {
+            change.accept(lines);
+            version++;
+            return new LinkedHashMap<>(lines);
+        }
+    }
+}
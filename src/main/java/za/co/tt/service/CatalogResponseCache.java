@@ -0,0 +1,213 @@
+package za.co.tt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.ProductChangedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Response cache for the public catalog listings (/api/products, season, vehicle type, in stock, ...).
+ *
+ * Entries hold the serialised JSON and, for larger bodies, a gzipped copy, so a hit costs no query and
+ * no serialisation. Every entry is stamped with the catalog version it was built from; any product
+ * write (local or replayed from another node) bumps the version, which invalidates all entries at once.
+ * Concurrent misses for the same key and version share one load. Callers build keys from validated
+ * request parameters only, and at max-entries the least recently used entry is dropped.
+ *
+ * The ETag is a digest of the cached bytes rather than the version number itself, because version
+ * counters are per node and a client may revalidate against a different node.
+ */
+@Service
+public class CatalogResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogResponseCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<String, CachedResponse> entries;
+    private final Map<String, CompletableFuture<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Value("${catalog.response-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${catalog.response-cache.max-entries:500}")
+    private int maxEntries = 500;
+
+    @Value("${catalog.response-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes = 1024;
+
+    @Autowired
+    public CatalogResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Return the cached response for key, loading and serialising it with loader on a miss.
+     * Only one caller per key and catalog version runs the loader; the others wait for its result.
+     */
+    public CachedResponse get(String key, Supplier<?> loader) {
+        long version = catalogVersion.get();
+        CachedResponse cached = entries.get(key);
+        if (enabled && cached != null && cached.version == version) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        String flightKey = key + "@" + version;
+        CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> running = inFlight.putIfAbsent(flightKey, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            CachedResponse loaded = build(version, loader.get());
+            // Do not store a body that a product write may already have made stale
+            if (enabled && catalogVersion.get() == version) {
+                entries.put(key, loaded);
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    public void recordNotModified() {
+        notModified.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        catalogVersion.incrementAndGet();
+    }
+
+    public void evictAll() {
+        catalogVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("catalogVersion", catalogVersion.get());
+        metrics.put("entries", entries.size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("coalescedMisses", coalesced.get());
+        metrics.put("notModified", notModified.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+    private CachedResponse build(long version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] gzipped = null;
+            if (json.length >= gzipMinBytes) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                    gzip.write(json);
+                }
+                gzipped = buffer.toByteArray();
+            }
+            return new CachedResponse(version, json, gzipped, etag(json));
+        } catch (IOException e) {
+            logger.error("Could not serialise catalog response: {}", e.getMessage());
+            throw new RuntimeException("Could not serialise catalog response", e);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            // Weak: the same tag covers the identity and gzip encodings of the body
+            return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serialised response body for one catalog version.
+     */
+    public static final class CachedResponse {
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzipped;
+        private final String etag;
+
+        private CachedResponse(long version, byte[] json, byte[] gzipped, String etag) {
+            this.version = version;
+            this.json = json;
+            this.gzipped = gzipped;
+            this.etag = etag;
+        }
+
+        public byte[] getJson() { return json; }
+        public byte[] getGzipped() { return gzipped; }
+        public String getEtag() { return etag; }
+
+        /**
+         * True if an If-None-Match header value lists this response's tag (or is "*").
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+                return false;
+            }
+            String opaque = etag.substring(2);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
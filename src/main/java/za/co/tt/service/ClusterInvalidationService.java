@@ -0,0 +1,335 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.UserChangedEvent;
+import za.co.tt.repository.ClusterChangeLogRepository;
+import za.co.tt.repository.ClusterChangeLogRepository.ChangeRow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the per-node caches of several application instances consistent through a shared change log.
+ *
+ * Local product and user changes are coalesced per entity and appended to cluster_change_log in one
+ * batch every publish interval. Every node tails the log past its high-water mark, skips its own rows
+ * and replays the rest as remote ProductChangedEvent / UserChangedEvent, so the existing cache listeners
+ * evict or refresh without knowing about the cluster. Remote events are never written back to the log.
+ *
+ * Auto-increment ids can become visible out of order when concurrent inserts commit in a different
+ * order than they were allocated, so ids skipped over by the high-water mark are re-read for a short
+ * grace period before they are given up on.
+ */
+@Service
+public class ClusterInvalidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterInvalidationService.class);
+
+    private static final String PRODUCT = "PRODUCT";
+    private static final String USER = "USER";
+    private static final int MAX_TRACKED_GAPS = 10000;
+    private static final int PRUNE_BATCH = 5000;
+
+    private final ClusterChangeLogRepository changeLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId;
+    private final ClusterSchedulerService clusterScheduler;
+
+    // Coalesced outbound changes keyed by entity, latest change wins
+    private final Map<String, Object[]> outbound = new LinkedHashMap<>();
+    // Ids skipped by the high-water mark -> when they were first noticed
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    private volatile boolean ready;
+    private volatile long highWaterMark;
+    private volatile LocalDateTime lastPoll;
+    private volatile String lastError;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong gapsRecovered = new AtomicLong();
+    private final AtomicLong gapsAbandoned = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+    private volatile double avgLagMillis;
+
+    @Value("${cluster.invalidation.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${cluster.invalidation.poll-batch-size:1000}")
+    private int pollBatchSize = 1000;
+
+    @Value("${cluster.invalidation.gap-timeout-ms:10000}")
+    private long gapTimeoutMillis = 10000;
+
+    @Value("${cluster.invalidation.retention-minutes:1440}")
+    private int retentionMinutes = 1440;
+
+    @Value("${cluster.invalidation.prune-cron:0 0 * * * *}")
+    private String pruneCron = "0 0 * * * *";
+
+    @Autowired
+    public ClusterInvalidationService(ClusterChangeLogRepository changeLogRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      ClusterNode clusterNode,
+                                      ClusterSchedulerService clusterScheduler) {
+        this.changeLogRepository = changeLogRepository;
+        this.eventPublisher = eventPublisher;
+        this.nodeId = clusterNode.getNodeId();
+        this.clusterScheduler = clusterScheduler;
+    }
+
+    @PostConstruct
+    public void registerJobs() {
+        if (enabled) {
+            clusterScheduler.register("cluster-change-log-prune", pruneCron, 1, (shard, shards) -> pruneChangeLog());
+        }
+    }
+
+    /**
+     * Start tailing from the current end of the log; changes made before this node started are
+     * already reflected in the database it is about to read from.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            highWaterMark = changeLogRepository.findMaxId();
+            ready = true;
+            logger.info("Cluster invalidation started on node {} at change {}", nodeId, highWaterMark);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Could not read cluster change log, will retry on next poll: {}", e.getMessage());
+        }
+    }
+
+    // ---- outbound ----
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isRemote() || event.getProductId() == null) {
+            return;
+        }
+        enqueue(PRODUCT, event.getProductId(), event.getChangeType().name(), event.getStockQuantity());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isRemote() || event.getUserId() == null) {
+            return;
+        }
+        enqueue(USER, event.getUserId(), event.getChangeType().name(), null);
+    }
+
+    private void enqueue(String entityType, Long entityId, String changeType, Integer stockQuantity) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (outbound) {
+            if (outbound.put(entityType + ":" + entityId,
+                    new Object[]{entityType, entityId, changeType, stockQuantity}) != null) {
+                coalesced.incrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.invalidation.publish-ms:200}")
+    public void publishPending() {
+        List<Object[]> batch;
+        synchronized (outbound) {
+            if (outbound.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(outbound.values());
+            outbound.clear();
+        }
+        try {
+            changeLogRepository.insertAll(batch, nodeId);
+            published.addAndGet(batch.size());
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Could not publish {} cluster changes, will retry: {}", batch.size(), e.getMessage());
+            synchronized (outbound) {
+                for (Object[] change : batch) {
+                    // A newer change for the same entity may have been queued meanwhile
+                    outbound.putIfAbsent(change[0] + ":" + change[1], change);
+                }
+            }
+        }
+    }
+
+    // ---- inbound ----
+
+    @Scheduled(fixedDelayString = "${cluster.invalidation.poll-ms:500}")
+    public void pollChanges() {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            start();
+            if (!ready) {
+                return;
+            }
+        }
+        try {
+            List<ChangeRow> rows = new ArrayList<>();
+            List<Long> gapIds;
+            synchronized (gaps) {
+                gapIds = new ArrayList<>(gaps.keySet());
+            }
+            if (!gapIds.isEmpty()) {
+                List<ChangeRow> late = changeLogRepository.findByIds(gapIds);
+                synchronized (gaps) {
+                    late.forEach(row -> gaps.remove(row.getId()));
+                }
+                gapsRecovered.addAndGet(late.size());
+                rows.addAll(late);
+            }
+
+            List<ChangeRow> fresh;
+            do {
+                fresh = changeLogRepository.findAfter(highWaterMark, pollBatchSize);
+                advance(fresh);
+                rows.addAll(fresh);
+            } while (fresh.size() == pollBatchSize);
+
+            expireGaps();
+            apply(rows);
+            lastPoll = LocalDateTime.now();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Cluster change poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void advance(List<ChangeRow> rows) {
+        long expected = highWaterMark + 1;
+        long now = System.currentTimeMillis();
+        synchronized (gaps) {
+            for (ChangeRow row : rows) {
+                for (long missing = expected; missing < row.getId() && gaps.size() < MAX_TRACKED_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                expected = row.getId() + 1;
+            }
+        }
+        if (!rows.isEmpty()) {
+            highWaterMark = rows.get(rows.size() - 1).getId();
+        }
+    }
+
+    private void expireGaps() {
+        long cutoff = System.currentTimeMillis() - gapTimeoutMillis;
+        synchronized (gaps) {
+            Iterator<Long> noticedAt = gaps.values().iterator();
+            while (noticedAt.hasNext()) {
+                if (noticedAt.next() < cutoff) {
+                    noticedAt.remove();
+                    gapsAbandoned.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void apply(List<ChangeRow> rows) {
+        Map<String, ChangeRow> latest = new LinkedHashMap<>();
+        for (ChangeRow row : rows) {
+            if (nodeId.equals(row.getOriginNode())) {
+                continue;
+            }
+            received.incrementAndGet();
+            recordLag(row.getLagMillis());
+            latest.put(row.getEntityType() + ":" + row.getEntityId(), row);
+        }
+        for (ChangeRow row : latest.values()) {
+            try {
+                if (PRODUCT.equals(row.getEntityType())) {
+                    int stock = row.getStockQuantity() != null ? row.getStockQuantity() : 0;
+                    eventPublisher.publishEvent(new ProductChangedEvent(row.getEntityId(),
+                            ProductChangedEvent.ChangeType.valueOf(row.getChangeType()), stock, true));
+                } else if (USER.equals(row.getEntityType())) {
+                    eventPublisher.publishEvent(new UserChangedEvent(row.getEntityId(),
+                            UserChangedEvent.ChangeType.valueOf(row.getChangeType()), true));
+                } else {
+                    continue;
+                }
+                applied.incrementAndGet();
+            } catch (Exception e) {
+                logger.warn("Could not apply cluster change {}: {}", row.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void recordLag(long lagMillis) {
+        lastLagMillis = lagMillis;
+        if (lagMillis > maxLagMillis) {
+            maxLagMillis = lagMillis;
+        }
+        avgLagMillis = avgLagMillis == 0 ? lagMillis : avgLagMillis * 0.9 + lagMillis * 0.1;
+    }
+
+    /**
+     * Delete change rows past the retention window in chunks; runs on one node via the cluster scheduler.
+     */
+    public String pruneChangeLog() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = changeLogRepository.deleteOlderThan(retentionMinutes, PRUNE_BATCH);
+            total += deleted;
+        } while (deleted == PRUNE_BATCH && !clusterScheduler.isLeaseLost());
+        if (total > 0) {
+            logger.info("Pruned {} cluster change log rows older than {} minutes", total, retentionMinutes);
+        }
+        return "Pruned " + total + " rows";
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("nodeId", nodeId);
+        metrics.put("ready", ready);
+        metrics.put("highWaterMark", highWaterMark);
+        synchronized (outbound) {
+            metrics.put("pendingOutbound", outbound.size());
+        }
+        synchronized (gaps) {
+            metrics.put("pendingGaps", gaps.size());
+        }
+        metrics.put("published", published.get());
+        metrics.put("coalesced", coalesced.get());
+        metrics.put("received", received.get());
+        metrics.put("applied", applied.get());
+        metrics.put("gapsRecovered", gapsRecovered.get());
+        metrics.put("gapsAbandoned", gapsAbandoned.get());
+        metrics.put("lastLagMillis", lastLagMillis);
+        metrics.put("avgLagMillis", Math.round(avgLagMillis));
+        metrics.put("maxLagMillis", maxLagMillis);
+        metrics.put("lastPoll", lastPoll);
+        metrics.put("lastError", lastError);
+        return metrics;
+    }
+}
@@ -0,0 +1,550 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import za.co.tt.repository.SchedulerRepository;
+import za.co.tt.repository.SchedulerRepository.ClaimableShard;
+import za.co.tt.repository.SchedulerRepository.JobRow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs background jobs once per cluster instead of once per node.
+ *
+ * Every node heartbeats into scheduler_node and competes for the "leader" lease on each tick. The
+ * leader only decides when a job is due: it bumps the job's generation and moves next_run_at to the
+ * next cron time. A run that was missed while no node was up is caught up once, not once per missed slot.
+ * The work itself is split into shards, each with its own lease; any node with a free worker claims one
+ * shard per job at a time, so shards spread across the fleet. Leases are renewed on every tick while a
+ * shard runs, and a shard whose owner stops renewing is picked up again by another node. A node that
+ * loses a shard's lease, or cannot renew it for half the lease time, marks the shard's lease as lost and
+ * interrupts it. An interrupt does not stop a statement already running in the database, so tasks that
+ * work in batches call isLeaseLost between batches and stop; at most the batch in flight can still
+ * overlap with the node that takes the shard over, so batches must be safe to repeat.
+ *
+ * Ticks run on a dedicated thread, so lease renewal is never delayed behind the @Scheduled jobs that
+ * share the Spring scheduling pool.
+ *
+ * One-off startup work that must not run concurrently on several nodes uses runExclusive instead.
+ */
+@Service
+public class ClusterSchedulerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterSchedulerService.class);
+
+    private static final String LEADER_LEASE = "leader";
+    private static final int PRUNE_BATCH = 5000;
+
+    /**
+     * Work for one shard of a job. Returns a short summary for the run history.
+     */
+    @FunctionalInterface
+    public interface ShardedTask {
+        String run(int shardIndex, int shardCount) throws Exception;
+    }
+
+    /**
+     * Thrown by a task that cannot run its shard right now. The shard is recorded as SKIPPED and its
+     * lease handed back, so it is claimed again instead of counting as done.
+     */
+    public static class ShardSkippedException extends RuntimeException {
+        public ShardSkippedException(String message) {
+            super(message);
+        }
+    }
+
+    private final SchedulerRepository schedulerRepository;
+    private final String nodeId;
+
+    private final Map<String, JobDefinition> jobs = new ConcurrentHashMap<>();
+    private final Map<String, RunningShard> runningShards = new ConcurrentHashMap<>();
+    private final Set<String> exclusiveLeases = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService ticker;
+    // Shard run by the current worker thread, for isLeaseLost
+    private final ThreadLocal<RunningShard> currentShard = new ThreadLocal<>();
+
+    private volatile boolean leader;
+    private volatile boolean leaderLeaseEnsured;
+    private volatile LocalDateTime lastTick;
+    private volatile String lastError;
+    private final AtomicLong shardsCompleted = new AtomicLong();
+    private final AtomicLong shardsFailed = new AtomicLong();
+    private final AtomicLong shardsSkipped = new AtomicLong();
+    private final AtomicLong shardsStopped = new AtomicLong();
+    private final AtomicLong leaderChanges = new AtomicLong();
+
+    @Value("${scheduler.tick-ms:5000}")
+    private long tickMillis = 5000;
+
+    @Value("${scheduler.lease-ms:30000}")
+    private long leaseMillis = 30000;
+
+    @Value("${scheduler.node-stale-ms:60000}")
+    private long nodeStaleMillis = 60000;
+
+    @Value("${scheduler.history-retention-days:30}")
+    private int historyRetentionDays = 30;
+
+    private final int workerThreads;
+
+    @Autowired
+    public ClusterSchedulerService(SchedulerRepository schedulerRepository,
+                                   ClusterNode clusterNode,
+                                   @Value("${scheduler.worker-threads:2}") int workerThreads,
+                                   @Value("${scheduler.prune-cron:0 15 3 * * *}") String pruneCron) {
+        this.schedulerRepository = schedulerRepository;
+        this.nodeId = clusterNode.getNodeId();
+        this.workerThreads = Math.max(1, workerThreads);
+        this.workers = Executors.newFixedThreadPool(this.workerThreads);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-scheduler-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        register("scheduler-maintenance", pruneCron, 1, (shard, shards) -> pruneHistory());
+    }
+
+    /**
+     * Register a cluster job. Jobs are matched across nodes by name, so every node should register the
+     * same jobs with the same schedule.
+     *
+     * @param cron Spring cron expression, evaluated against the database clock
+     * @param shardCount number of independently leased pieces the work is split into
+     * @throws IllegalArgumentException if the cron expression or shard count is invalid
+     */
+    public void register(String name, String cron, int shardCount, ShardedTask task) {
+        if (name == null || name.isBlank() || name.length() > 64) {
+            throw new IllegalArgumentException("Job name must be 1-64 characters");
+        }
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1");
+        }
+        jobs.put(name, new JobDefinition(name, cron, CronExpression.parse(cron), shardCount, task));
+    }
+
+    /**
+     * Run a task on this node only if no other node is running it right now.
+     *
+     * @return false if another node holds the task's lease
+     */
+    public boolean runExclusive(String name, Callable<String> task) throws Exception {
+        String lease = "exclusive:" + name;
+        schedulerRepository.ensureLease(lease, null, null);
+        if (!schedulerRepository.tryAcquire(lease, nodeId, leaseMillis)) {
+            return false;
+        }
+        exclusiveLeases.add(lease);
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        String status = "COMPLETED";
+        String message = null;
+        try {
+            message = task.call();
+            return true;
+        } catch (Exception e) {
+            status = "FAILED";
+            message = e.getMessage();
+            throw e;
+        } finally {
+            exclusiveLeases.remove(lease);
+            try {
+                schedulerRepository.release(lease, nodeId);
+                recordRun(name, 0, 0, 1, startedAt, startNanos, status, message);
+            } catch (Exception e) {
+                logger.warn("Could not release exclusive lease {}: {}", lease, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Whether the shard running on the calling thread has lost its lease. Tasks call this between
+     * batches and stop when it returns true; always false outside a shard.
+     */
+    public boolean isLeaseLost() {
+        RunningShard running = currentShard.get();
+        return running != null && running.leaseLost;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTicking() {
+        ticker.scheduleWithFixedDelay(this::tick, 0, Math.max(1, tickMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void tick() {
+        try {
+            renewHeldLeases();
+            schedulerRepository.heartbeatNode(nodeId);
+            ensureRows();
+            updateLeadership();
+            if (leader) {
+                triggerDueJobs();
+            }
+            claimShards();
+            lastTick = LocalDateTime.now();
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.warn("Scheduler tick failed on node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private void renewHeldLeases() {
+        List<String> held = new ArrayList<>(runningShards.keySet());
+        held.addAll(exclusiveLeases);
+        if (held.isEmpty()) {
+            return;
+        }
+        try {
+            int renewed = schedulerRepository.renew(held, nodeId, leaseMillis);
+            Set<String> owned = renewed >= held.size()
+                    ? new HashSet<>(held)
+                    : new HashSet<>(schedulerRepository.findOwnedLeases(held, nodeId));
+            if (renewed < held.size()) {
+                logger.warn("Only {} of {} scheduler leases could be renewed on node {}", renewed, held.size(), nodeId);
+            }
+            long now = System.nanoTime();
+            runningShards.forEach((lease, running) -> {
+                if (owned.contains(lease)) {
+                    running.renewedAtNanos = now;
+                } else {
+                    stopShard(lease, running, "lease is no longer held by this node");
+                }
+            });
+        } finally {
+            // If renewing keeps failing, stop well before the lease can expire and be claimed elsewhere
+            long staleNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis / 2);
+            long now = System.nanoTime();
+            runningShards.forEach((lease, running) -> {
+                if (now - running.renewedAtNanos > staleNanos) {
+                    stopShard(lease, running, "lease could not be renewed");
+                }
+            });
+        }
+    }
+
+    private void stopShard(String lease, RunningShard running, String reason) {
+        if (running.leaseLost) {
+            return;
+        }
+        running.leaseLost = true;
+        logger.warn("Stopping {} on node {}: {}", lease, nodeId, reason);
+        Future<?> future = running.future;
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    private void ensureRows() {
+        if (!leaderLeaseEnsured) {
+            schedulerRepository.ensureLease(LEADER_LEASE, null, null);
+            leaderLeaseEnsured = true;
+        }
+        for (JobDefinition job : jobs.values()) {
+            if (!job.ensured) {
+                schedulerRepository.ensureJob(job.name, job.shardCount);
+                for (int shard = 0; shard < job.shardCount; shard++) {
+                    schedulerRepository.ensureLease(shardLease(job.name, shard), job.name, shard);
+                }
+                job.ensured = true;
+            }
+        }
+    }
+
+    private void updateLeadership() {
+        boolean nowLeader = schedulerRepository.tryAcquire(LEADER_LEASE, nodeId, leaseMillis);
+        if (nowLeader != leader) {
+            leaderChanges.incrementAndGet();
+            logger.info("Node {} {} scheduler leadership", nodeId, nowLeader ? "acquired" : "lost");
+        }
+        leader = nowLeader;
+    }
+
+    private void triggerDueJobs() {
+        Set<String> activeJobs = new HashSet<>();
+        for (Map<String, Object> lease : schedulerRepository.findShardLeases()) {
+            if (!Boolean.TRUE.equals(asBoolean(lease.get("completed")))) {
+                activeJobs.add((String) lease.get("job_name"));
+            }
+        }
+        for (JobRow row : schedulerRepository.findJobs()) {
+            JobDefinition job = jobs.get(row.getJobName());
+            if (job == null) {
+                continue;
+            }
+            LocalDateTime now = row.getDbNow();
+            if (row.getNextRunAt() == null) {
+                schedulerRepository.setNextRun(job.name, job.cron.next(now));
+                continue;
+            }
+            if (row.getNextRunAt().isAfter(now)) {
+                continue;
+            }
+            if (activeJobs.contains(job.name)) {
+                // Previous run still going; start the next one when it has finished
+                continue;
+            }
+            for (int shard = 0; shard < job.shardCount; shard++) {
+                schedulerRepository.ensureLease(shardLease(job.name, shard), job.name, shard);
+            }
+            LocalDateTime next = job.cron.next(now);
+            if (schedulerRepository.trigger(job.name, row.getGeneration(), job.shardCount, next)) {
+                LocalDateTime slotAfterDue = job.cron.next(row.getNextRunAt());
+                if (slotAfterDue != null && !slotAfterDue.isAfter(now)) {
+                    logger.info("Catching up missed run of {} (due {})", job.name, row.getNextRunAt());
+                }
+                logger.info("Triggered {} run {} in {} shard(s); next run {}", job.name,
+                        row.getGeneration() + 1, job.shardCount, next);
+            }
+        }
+    }
+
+    private void claimShards() {
+        if (runningShards.size() >= workerThreads) {
+            return;
+        }
+        List<ClaimableShard> claimable = schedulerRepository.findClaimableShards();
+        if (claimable.isEmpty()) {
+            return;
+        }
+        // Start at a node-specific offset so nodes ticking at the same time tend to pick different shards
+        Collections.rotate(claimable, Math.floorMod(nodeId.hashCode(), claimable.size()));
+        Set<String> jobsRunningHere = new HashSet<>();
+        runningShards.values().forEach(running -> jobsRunningHere.add(running.jobName));
+
+        for (ClaimableShard shard : claimable) {
+            if (runningShards.size() >= workerThreads) {
+                break;
+            }
+            JobDefinition job = jobs.get(shard.getJobName());
+            if (job == null || jobsRunningHere.contains(job.name)) {
+                continue;
+            }
+            String lease = shardLease(job.name, shard.getShardIndex());
+            if (schedulerRepository.claimShard(lease, nodeId, shard.getGeneration(), leaseMillis)) {
+                RunningShard running = new RunningShard(job.name, shard.getGeneration(),
+                        shard.getShardIndex(), shard.getShardCount());
+                runningShards.put(lease, running);
+                jobsRunningHere.add(job.name);
+                running.future = workers.submit(() -> runShard(job, lease, running));
+            }
+        }
+    }
+
+    private void runShard(JobDefinition job, String lease, RunningShard running) {
+        String status = "COMPLETED";
+        String message = null;
+        currentShard.set(running);
+        try {
+            message = job.task.run(running.shardIndex, running.shardCount);
+        } catch (ShardSkippedException e) {
+            status = "SKIPPED";
+            message = e.getMessage();
+        } catch (Exception e) {
+            status = "FAILED";
+            message = e.getMessage();
+            logger.error("Job {} shard {}/{} failed: {}", job.name, running.shardIndex, running.shardCount,
+                    e.getMessage(), e);
+        } finally {
+            currentShard.remove();
+        }
+        if (running.leaseLost) {
+            // Another node may own the shard by now; it will run it again under its own lease
+            status = "STOPPED";
+            message = "Lease lost while running" + (message != null ? ": " + message : "");
+        }
+        switch (status) {
+            case "COMPLETED" -> shardsCompleted.incrementAndGet();
+            case "SKIPPED" -> shardsSkipped.incrementAndGet();
+            case "STOPPED" -> shardsStopped.incrementAndGet();
+            default -> shardsFailed.incrementAndGet();
+        }
+
+        runningShards.remove(lease);
+        try {
+            if ("SKIPPED".equals(status)) {
+                schedulerRepository.release(lease, nodeId);
+            } else if (!"STOPPED".equals(status)) {
+                schedulerRepository.completeShard(lease, nodeId, running.generation);
+            }
+            recordRun(job.name, running.generation, running.shardIndex, running.shardCount,
+                    running.startedAt, running.startNanos, status, message);
+        } catch (Exception e) {
+            logger.warn("Could not record completion of {}: {}", lease, e.getMessage());
+        }
+    }
+
+    private void recordRun(String jobName, long generation, int shardIndex, int shardCount,
+                           LocalDateTime startedAt, long startNanos, String status, String message) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (message != null && message.length() > 512) {
+            message = message.substring(0, 512);
+        }
+        schedulerRepository.insertRun(jobName, generation, shardIndex, shardCount, nodeId,
+                startedAt, LocalDateTime.now(), durationMillis, status, message);
+    }
+
+    private String pruneHistory() {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = schedulerRepository.deleteRunsOlderThan(historyRetentionDays, PRUNE_BATCH);
+            total += deleted;
+        } while (deleted == PRUNE_BATCH && !isLeaseLost());
+        int nodes = schedulerRepository.deleteStaleNodes(TimeUnit.DAYS.toMillis(1));
+        return "Pruned " + total + " history rows and " + nodes + " departed nodes";
+    }
+
+    /**
+     * Ask the leader to start a job on its next tick instead of waiting for the schedule.
+     *
+     * @throws IllegalArgumentException if no job with that name is registered
+     */
+    public void requestRun(String jobName) {
+        if (!jobs.containsKey(jobName)) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        schedulerRepository.ensureJob(jobName, jobs.get(jobName).shardCount);
+        schedulerRepository.requestRunNow(jobName);
+    }
+
+    /**
+     * Like requestRun, but only if the job is neither running nor already due, checked and set in one
+     * conditional update so concurrent callers on any node get exactly one run.
+     *
+     * @return false if the job is running or a run is already pending
+     * @throws IllegalArgumentException if no job with that name is registered
+     */
+    public boolean requestRunIfIdle(String jobName) {
+        if (!jobs.containsKey(jobName)) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        schedulerRepository.ensureJob(jobName, jobs.get(jobName).shardCount);
+        return schedulerRepository.requestRunNowIfIdle(jobName);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("nodeId", nodeId);
+        status.put("leader", leader);
+        status.put("leaderNode", schedulerRepository.findLeaseOwner(LEADER_LEASE));
+        status.put("leaderChanges", leaderChanges.get());
+        status.put("lastTick", lastTick);
+        status.put("lastError", lastError);
+        status.put("shardsCompleted", shardsCompleted.get());
+        status.put("shardsFailed", shardsFailed.get());
+        status.put("shardsSkipped", shardsSkipped.get());
+        status.put("shardsStopped", shardsStopped.get());
+        status.put("nodes", schedulerRepository.findLiveNodes(nodeStaleMillis));
+
+        Map<String, List<Map<String, Object>>> shardsByJob = new LinkedHashMap<>();
+        for (Map<String, Object> lease : schedulerRepository.findShardLeases()) {
+            shardsByJob.computeIfAbsent((String) lease.get("job_name"), name -> new ArrayList<>()).add(lease);
+        }
+        List<Map<String, Object>> jobList = new ArrayList<>();
+        for (JobRow row : schedulerRepository.findJobs()) {
+            JobDefinition job = jobs.get(row.getJobName());
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", row.getJobName());
+            entry.put("cron", job != null ? job.cronText : null);
+            entry.put("generation", row.getGeneration());
+            entry.put("shardCount", row.getShardCount());
+            entry.put("nextRunAt", row.getNextRunAt());
+            entry.put("lastTriggeredAt", row.getLastTriggeredAt());
+            entry.put("shards", shardsByJob.getOrDefault(row.getJobName(), List.of()));
+            jobList.add(entry);
+        }
+        status.put("jobs", jobList);
+        return status;
+    }
+
+    public List<Map<String, Object>> getHistory(String jobName, int limit) {
+        return schedulerRepository.findRecentRuns(jobName, Math.max(1, Math.min(limit, 500)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+        try {
+            // Hand leases back so other nodes do not have to wait for them to expire
+            for (String lease : runningShards.keySet()) {
+                schedulerRepository.release(lease, nodeId);
+            }
+            if (leader) {
+                schedulerRepository.release(LEADER_LEASE, nodeId);
+            }
+            schedulerRepository.removeNode(nodeId);
+        } catch (Exception e) {
+            logger.warn("Could not release scheduler leases on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private static String shardLease(String jobName, int shardIndex) {
+        return jobName + "#" + shardIndex;
+    }
+
+    private static Boolean asBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number ? ((Number) value).intValue() != 0 : null;
+    }
+
+    private static final class JobDefinition {
+        private final String name;
+        private final String cronText;
+        private final CronExpression cron;
+        private final int shardCount;
+        private final ShardedTask task;
+        private volatile boolean ensured;
+
+        private JobDefinition(String name, String cronText, CronExpression cron, int shardCount, ShardedTask task) {
+            this.name = name;
+            this.cronText = cronText;
+            this.cron = cron;
+            this.shardCount = shardCount;
+            this.task = task;
+        }
+    }
+
+    private static final class RunningShard {
+        private final String jobName;
+        private final long generation;
+        private final int shardIndex;
+        private final int shardCount;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private volatile long renewedAtNanos = startNanos;
+        private volatile boolean leaseLost;
+        private volatile Future<?> future;
+
+        private RunningShard(String jobName, long generation, int shardIndex, int shardCount) {
+            this.jobName = jobName;
+            this.generation = generation;
+            this.shardIndex = shardIndex;
+            this.shardCount = shardCount;
+        }
+    }
+}
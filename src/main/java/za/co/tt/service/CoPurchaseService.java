@@ -0,0 +1,495 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.RelatedProduct;
+import za.co.tt.repository.CoPurchaseRepository;
+import za.co.tt.repository.SalesRollupRepository;
+import za.co.tt.util.IdRangeScan;
+import za.co.tt.util.LongCountMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Customers also bought": products that appear together in completed orders.
+ *
+ * A sparse product x product matrix of co-occurrence counts is held in memory, one primitive
+ * LongCountMap row per product, next to the number of completed orders each product appears in.
+ * An order reaching COMPLETED adds one to every pair of its distinct products (and leaving COMPLETED
+ * takes it away again). The related products of a product are its row ranked by cosine similarity,
+ * together / sqrt(orders(a) * orders(b)), so best sellers do not top every list just by selling a
+ * lot; the top N per product is cached until its row or the order count of a product in it changes.
+ *
+ * The matrix is built from all live and archived completed orders at startup and on
+ * recommendations.rebuild-cron: order id ranges are split recursively on a fork-join pool, each
+ * leaf reads its range and counts into a private partial matrix, and partials are merged as the
+ * tasks join, so no locking is needed while building. Completions arriving meanwhile are applied to
+ * the current matrix and buffered; those the scan may have missed are replayed on the new matrix
+ * before it is swapped in.
+ */
+@Service
+public class CoPurchaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoPurchaseService.class);
+
+    // Bulk orders would otherwise add up to n^2 pairs each
+    private static final int MAX_PRODUCTS_PER_ORDER = 50;
+
+    private final CoPurchaseRepository coPurchaseRepository;
+    private final SalesRollupRepository rollupRepository;
+    private final ProductSnapshotCache snapshotCache;
+    private final DeferredStartupService deferredStartupService;
+    private final TransactionTemplate snapshotTemplate;
+    private final ExecutorService rebuildRunner = Executors.newSingleThreadExecutor();
+
+    private volatile Matrix matrix = new Matrix();
+    // Events update the matrix under the read lock; swapping in a rebuilt one takes the write lock
+    private final ReadWriteLock matrixLock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final List<BufferedEvent> eventsDuringRebuild = new ArrayList<>();
+    private volatile IdRangeScan scan;
+    private final AtomicInteger rebuildChunksDone = new AtomicInteger();
+    private volatile int rebuildChunksTotal;
+    private volatile LocalDateTime lastRebuildStarted;
+    private volatile LocalDateTime lastRebuildFinished;
+    private volatile String lastRebuildError;
+    private volatile long lastRebuildMillis;
+
+    @Value("${recommendations.rebuild.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    @Value("${recommendations.rebuild.threads:4}")
+    private int rebuildThreads = 4;
+
+    @Value("${recommendations.max-related:20}")
+    private int maxRelated = 20;
+
+    @Value("${recommendations.min-bought-together:1}")
+    private int minBoughtTogether = 1;
+
+    @Autowired
+    public CoPurchaseService(CoPurchaseRepository coPurchaseRepository,
+                             SalesRollupRepository rollupRepository,
+                             ProductSnapshotCache snapshotCache,
+                             DeferredStartupService deferredStartupService,
+                             PlatformTransactionManager transactionManager) {
+        this.coPurchaseRepository = coPurchaseRepository;
+        this.rollupRepository = rollupRepository;
+        this.snapshotCache = snapshotCache;
+        this.deferredStartupService = deferredStartupService;
+        // Each leaf reads its live and archived orders from one consistent snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        deferredStartupService.run("co-purchase-matrix", () -> {
+            if (rebuilding.compareAndSet(false, true)) {
+                runRebuild();
+            }
+        });
+    }
+
+    @Scheduled(cron = "${recommendations.rebuild-cron:0 30 4 * * *}")
+    public void scheduledRebuild() {
+        startRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null) {
+            return;
+        }
+        int sign = completionDelta(event);
+        if (sign == 0) {
+            return;
+        }
+        matrixLock.readLock().lock();
+        try {
+            if (rebuilding.get()) {
+                IdRangeScan current = scan;
+                boolean chunkStarted = current != null && current.hasStarted(event.getOrderId());
+                synchronized (eventsDuringRebuild) {
+                    eventsDuringRebuild.add(new BufferedEvent(event, chunkStarted));
+                }
+            }
+            matrix.addOrder(productsOf(event.getOrderId()), sign);
+        } catch (Exception e) {
+            logger.error("Failed to update co-purchases for order {}: {}", event.getOrderId(), e.getMessage());
+        } finally {
+            matrixLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit products most often bought together with productId, most similar first.
+     */
+    public Map<String, Object> getRelated(Long productId, int limit) {
+        int size = Math.max(1, Math.min(maxRelated, limit));
+        List<Related> related = matrix.topRelated(productId, maxRelated, minBoughtTogether);
+
+        Map<Long, ProductSummary> summaries = snapshotCache.getAll(related.stream().map(entry -> entry.productId).toList());
+        List<RelatedProduct> items = new ArrayList<>(size);
+        for (Related entry : related) {
+            ProductSummary summary = summaries.get(entry.productId);
+            // Absent if the product has been deleted
+            if (summary != null) {
+                items.add(new RelatedProduct(summary, entry.together, entry.score));
+                if (items.size() == size) {
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("productId", productId);
+        result.put("items", items);
+        return result;
+    }
+
+    /**
+     * Start a background rebuild from order history. Returns false if one is already running.
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildRunner.submit(this::runRebuild);
+        return true;
+    }
+
+    public Map<String, Object> getRebuildStatus() {
+        Matrix current = matrix;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", rebuilding.get());
+        status.put("chunksDone", rebuildChunksDone.get());
+        status.put("chunksTotal", rebuildChunksTotal);
+        status.put("lastStarted", lastRebuildStarted);
+        status.put("lastFinished", lastRebuildFinished);
+        status.put("lastError", lastRebuildError);
+        status.put("lastRebuildMillis", lastRebuildMillis);
+        status.put("products", current.rows.size());
+        status.put("cachedRelatedLists", current.topCache.size());
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildRunner.shutdownNow();
+    }
+
+    // Caller has set rebuilding
+    private void runRebuild() {
+        synchronized (eventsDuringRebuild) {
+            eventsDuringRebuild.clear();
+        }
+        lastRebuildStarted = LocalDateTime.now();
+        lastRebuildError = null;
+        try {
+            rebuild();
+        } catch (Exception e) {
+            lastRebuildError = e.getMessage();
+            logger.error("Co-purchase rebuild failed: {}", e.getMessage(), e);
+        } finally {
+            scan = null;
+            lastRebuildFinished = LocalDateTime.now();
+            rebuilding.set(false);
+        }
+    }
+
+    private void rebuild() {
+        long startMillis = System.currentTimeMillis();
+        Partial built = new Partial();
+
+        List<Object[]> range = rollupRepository.findOrderIdRange();
+        IdRangeScan rebuildScan = null;
+        if (!range.isEmpty() && range.get(0)[0] != null) {
+            rebuildScan = new IdRangeScan(((Number) range.get(0)[0]).longValue(),
+                    ((Number) range.get(0)[1]).longValue(), Math.max(1, chunkSize));
+            scan = rebuildScan;
+            rebuildChunksTotal = rebuildScan.chunkCount();
+            rebuildChunksDone.set(0);
+
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, rebuildThreads));
+            try {
+                built = pool.invoke(new RangeTask(rebuildScan, rebuildScan.getMinId(), rebuildScan.getMaxId()));
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        Matrix fresh = built.toMatrix();
+        int replayed = 0;
+        matrixLock.writeLock().lock();
+        try {
+            List<BufferedEvent> buffered;
+            synchronized (eventsDuringRebuild) {
+                buffered = new ArrayList<>(eventsDuringRebuild);
+                eventsDuringRebuild.clear();
+            }
+            // Replay changes to orders whose chunk had already been read, and orders beyond the range
+            for (BufferedEvent buffer : buffered) {
+                long orderId = buffer.event.getOrderId();
+                if (rebuildScan == null || rebuildScan.needsReplay(orderId, buffer.chunkStarted)) {
+                    fresh.addOrder(productsOf(orderId), completionDelta(buffer.event));
+                    replayed++;
+                }
+            }
+            matrix = fresh;
+            scan = null;
+            rebuilding.set(false);
+        } finally {
+            matrixLock.writeLock().unlock();
+        }
+        lastRebuildMillis = System.currentTimeMillis() - startMillis;
+        logger.info("Built co-purchase matrix for {} products from orders up to id {} ({} events replayed) in {} ms",
+                fresh.rows.size(), rebuildScan != null ? rebuildScan.getMaxId() : 0, replayed, lastRebuildMillis);
+    }
+
+    private long[] productsOf(long orderId) {
+        List<Long> products = new ArrayList<>();
+        for (Object[] line : rollupRepository.findOrderLineFacts(orderId)) {
+            if (line[1] != null) {
+                Long productId = ((Number) line[1]).longValue();
+                if (!products.contains(productId)) {
+                    products.add(productId);
+                }
+            }
+        }
+        return products.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int completionDelta(OrderStatusChangedEvent event) {
+        boolean wasCompleted = OrderStatus.COMPLETED.name().equals(event.getPreviousStatus());
+        boolean isCompleted = OrderStatus.COMPLETED.name().equals(event.getStatus());
+        return wasCompleted == isCompleted ? 0 : isCompleted ? 1 : -1;
+    }
+
+    private static boolean tooLarge(long[] products) {
+        return products.length > MAX_PRODUCTS_PER_ORDER;
+    }
+
+    /**
+     * Builds the partial matrix of an order id range, splitting it in half until it is one chunk.
+     */
+    private final class RangeTask extends RecursiveTask<Partial> {
+        private final IdRangeScan rebuildScan;
+        private final long fromId;
+        private final long toId;
+
+        private RangeTask(IdRangeScan rebuildScan, long fromId, long toId) {
+            this.rebuildScan = rebuildScan;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toId - fromId < chunkSize) {
+                Partial partial = new Partial();
+                // Leaves start on chunk boundaries, so each one is exactly one chunk of the scan
+                int chunk = rebuildScan.chunkOf(fromId);
+                snapshotTemplate.executeWithoutResult(status -> {
+                    // Marked once the snapshot is open, so an order the scan already counted is not replayed
+                    rollupRepository.startSnapshot(fromId);
+                    rebuildScan.markStarted(chunk);
+                    coPurchaseRepository.forEachCompletedOrder(fromId, toId, partial::addOrder);
+                });
+                rebuildChunksDone.incrementAndGet();
+                return partial;
+            }
+            // Split on a chunk boundary so leaves line up with the progress count
+            long middle = fromId + Math.max(1, (toId - fromId + 1) / chunkSize / 2) * chunkSize - 1;
+            RangeTask lower = new RangeTask(rebuildScan, fromId, middle);
+            lower.fork();
+            Partial upper = new RangeTask(rebuildScan, middle + 1, toId).compute();
+            return lower.join().merge(upper);
+        }
+    }
+
+    /**
+     * Matrix under construction by one fork-join task; confined to that task until merged.
+     */
+    private static final class Partial {
+        private final Map<Long, LongCountMap> rows = new HashMap<>();
+        private final LongCountMap orderCounts = new LongCountMap();
+
+        private void addOrder(long[] products) {
+            if (tooLarge(products)) {
+                return;
+            }
+            for (long a : products) {
+                orderCounts.add(a, 1);
+                if (products.length > 1) {
+                    LongCountMap row = rows.computeIfAbsent(a, id -> new LongCountMap());
+                    for (long b : products) {
+                        if (a != b) {
+                            row.add(b, 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        private Partial merge(Partial other) {
+            // Fold the smaller matrix into the larger one
+            Partial target = rows.size() >= other.rows.size() ? this : other;
+            Partial source = target == this ? other : this;
+            source.rows.forEach((productId, row) -> {
+                LongCountMap existing = target.rows.putIfAbsent(productId, row);
+                if (existing != null) {
+                    existing.addAll(row);
+                }
+            });
+            target.orderCounts.addAll(source.orderCounts);
+            return target;
+        }
+
+        private Matrix toMatrix() {
+            Matrix built = new Matrix();
+            built.rows.putAll(rows);
+            built.orderCounts.addAll(orderCounts);
+            return built;
+        }
+    }
+
+    /**
+     * The live matrix. Each row and the order counts are guarded by their own monitor.
+     */
+    private static final class Matrix {
+        private final Map<Long, LongCountMap> rows = new ConcurrentHashMap<>();
+        private final LongCountMap orderCounts = new LongCountMap();
+        private final Map<Long, List<Related>> topCache = new ConcurrentHashMap<>();
+
+        private void addOrder(long[] products, int sign) {
+            if (tooLarge(products)) {
+                return;
+            }
+            synchronized (orderCounts) {
+                for (long productId : products) {
+                    orderCounts.add(productId, sign);
+                }
+            }
+            // The order count of each product here is part of the score of every pair it is in, so the
+            // cached lists of all its co-purchased products are stale too, not only its own. A
+            // single-product order changes only the order count.
+            boolean hasPairs = products.length > 1;
+            Set<Long> stale = new HashSet<>();
+            for (long a : products) {
+                stale.add(a);
+                LongCountMap row = hasPairs ? rows.computeIfAbsent(a, id -> new LongCountMap()) : rows.get(a);
+                if (row == null) {
+                    continue;
+                }
+                synchronized (row) {
+                    if (hasPairs) {
+                        for (long b : products) {
+                            if (a != b) {
+                                row.add(b, sign);
+                            }
+                        }
+                    }
+                    row.forEach((other, together) -> stale.add(other));
+                }
+            }
+            stale.forEach(topCache::remove);
+        }
+
+        private List<Related> topRelated(long productId, int n, int minTogether) {
+            List<Related> cached = topCache.get(productId);
+            if (cached != null) {
+                return cached;
+            }
+            LongCountMap row = rows.get(productId);
+            if (row == null) {
+                return List.of();
+            }
+            List<long[]> pairs = new ArrayList<>();
+            synchronized (row) {
+                row.forEach((other, together) -> {
+                    if (together >= minTogether) {
+                        pairs.add(new long[]{other, together});
+                    }
+                });
+            }
+
+            PriorityQueue<Related> heap = new PriorityQueue<>(Comparator.comparingDouble((Related related) -> related.score));
+            synchronized (orderCounts) {
+                long ordersOfProduct = Math.max(1, orderCounts.get(productId));
+                for (long[] pair : pairs) {
+                    long ordersOfOther = Math.max(1, orderCounts.get(pair[0]));
+                    double score = Math.min(1.0, pair[1] / Math.sqrt((double) ordersOfProduct * ordersOfOther));
+                    if (heap.size() < n) {
+                        heap.add(new Related(pair[0], pair[1], score));
+                    } else if (score > heap.peek().score) {
+                        heap.poll();
+                        heap.add(new Related(pair[0], pair[1], score));
+                    }
+                }
+            }
+            List<Related> top = new ArrayList<>(heap);
+            top.sort(Comparator.comparingDouble((Related related) -> related.score).reversed()
+                    .thenComparing(Comparator.comparingLong((Related related) -> related.together).reversed()));
+            List<Related> result = List.copyOf(top);
+            topCache.put(productId, result);
+            return result;
+        }
+    }
+
+    private static final class Related {
+        private final long productId;
+        private final long together;
+        private final double score;
+
+        private Related(long productId, long together, double score) {
+            this.productId = productId;
+            this.together = together;
+            this.score = score;
+        }
+    }
+
+    private static final class BufferedEvent {
+        private final OrderStatusChangedEvent event;
+        private final boolean chunkStarted;
+
+        private BufferedEvent(OrderStatusChangedEvent event, boolean chunkStarted) {
+            this.event = event;
+            this.chunkStarted = chunkStarted;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.repository.CustomerSummaryRepository;
+import za.co.tt.repository.CustomerSummaryRepository.CustomerRow;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Admin customer search with per-customer order count and lifetime spend.
+ *
+ * Totals come from customer_order_summary, which is adjusted as orders are placed or cancelled
+ * (OrderStatusChangedEvent), so listing customers never aggregates orders. Edits the events do not
+ * cover (order deletion, total changes, archive restores) are corrected by a cluster-wide reconcile
+ * job that recomputes the table from orders and orders_archive in user id ranges.
+ */
+@Service
+public class CustomerSummaryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSummaryService.class);
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int RECONCILE_CHUNK = 1000;
+
+    private final CustomerSummaryRepository summaryRepository;
+    private final ClusterSchedulerService clusterScheduler;
+
+    @Value("${customer.summary.reconcile-cron:0 45 3 * * *}")
+    private String reconcileCron = "0 45 3 * * *";
+
+    @Value("${customer.summary.reconcile-shards:2}")
+    private int reconcileShards = 2;
+
+    @Autowired
+    public CustomerSummaryService(CustomerSummaryRepository summaryRepository, ClusterSchedulerService clusterScheduler) {
+        this.summaryRepository = summaryRepository;
+        this.clusterScheduler = clusterScheduler;
+    }
+
+    @PostConstruct
+    public void registerJob() {
+        clusterScheduler.register("customer-summary-reconcile", reconcileCron, reconcileShards,
+                (shard, shardCount) -> "Reconciled " + reconcile(shard, shardCount) + " customers");
+    }
+
+    /**
+     * One page of users, newest first. Pass the returned nextCursor as cursor to get the next page.
+     *
+     * @param role   only users with this role (case-insensitive), or all roles when blank
+     * @param query  prefix of name, surname, username, email or phone, or everything when blank
+     * @param cursor user id the previous page ended at, or null for the first page
+     */
+    public Map<String, Object> search(String role, String query, Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, limit));
+        String roleFilter = role != null && !role.isBlank() ? role.trim().toUpperCase(Locale.ROOT) : null;
+        String prefix = query != null && !query.isBlank() ? query.trim() : null;
+        long beforeId = cursor != null ? cursor : Long.MAX_VALUE;
+
+        // Fetch one extra row to know whether another page exists
+        List<CustomerRow> rows = summaryRepository.search(roleFilter, prefix, beforeId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<CustomerRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", page);
+        result.put("nextCursor", hasMore ? page.get(page.size() - 1).getUserId() : null);
+        result.put("limit", pageSize);
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null) {
+            return;
+        }
+        boolean wasCounted = event.getPreviousStatus() != null && !isCancelled(event.getPreviousStatus());
+        boolean isCounted = event.getStatus() != null && !isCancelled(event.getStatus());
+        if (wasCounted == isCounted) {
+            return;
+        }
+        try {
+            List<Object[]> facts = summaryRepository.findOrderFacts(event.getOrderId());
+            if (facts.isEmpty() || facts.get(0)[0] == null) {
+                return;
+            }
+            Object[] order = facts.get(0);
+            BigDecimal total = order[1] != null ? (BigDecimal) order[1] : BigDecimal.ZERO;
+            int sign = isCounted ? 1 : -1;
+            summaryRepository.applyDelta((Long) order[0], sign, total.multiply(BigDecimal.valueOf(sign)),
+                    isCounted ? (Timestamp) order[2] : null);
+        } catch (Exception e) {
+            // The reconcile job repairs the row; the order itself has already committed
+            logger.error("Failed to update customer summary for order {}: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute this shard's user id chunks; chunk i belongs to shard i % shardCount.
+     */
+    public int reconcile(int shard, int shardCount) {
+        long maxUserId = summaryRepository.findMaxUserId();
+        int written = 0;
+        long chunk = 0;
+        for (long fromId = 1; fromId <= maxUserId; fromId += RECONCILE_CHUNK, chunk++) {
+            if (clusterScheduler.isLeaseLost()) {
+                throw new IllegalStateException("Lease lost after reconciling " + written + " customers");
+            }
+            if (chunk % shardCount == shard) {
+                written += summaryRepository.reconcileRange(fromId, fromId + RECONCILE_CHUNK - 1);
+            }
+        }
+        logger.info("Customer summary shard {}/{} reconciled up to user {}", shard, shardCount, maxUserId);
+        return written;
+    }
+
+    private static boolean isCancelled(String status) {
+        return OrderStatus.CANCELLED.name().equals(status);
+    }
+}
@@ -1,24 +1,50 @@
 package za.co.tt.service;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import za.co.tt.domain.Enum.IntegrityIssueType;
+import za.co.tt.domain.IntegrityIssue;
 import za.co.tt.domain.Order;
 import za.co.tt.domain.Payment;
 import za.co.tt.domain.Delivery;
+import za.co.tt.domain.Product;
+import za.co.tt.repository.IProductRepository;
 import za.co.tt.repository.OrderRepository;
 import za.co.tt.repository.PaymentRepository;
 import za.co.tt.repository.DeliveryRepository;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Database cleanup and integrity service for TymelessTyre
  * Handles orphaned records and constraint violations
+ *
+ * Besides the per-order checks, a background scan walks the whole orders table in keyset-ordered
+ * id chunks and checks each chunk with grouped queries on a small bounded pool, pausing between
+ * chunks so the scan does not compete with live traffic.
  */
 @Service
 public class DatabaseCleanupService {
@@ -34,6 +60,40 @@ public class DatabaseCleanupService {
     @Autowired
     private DeliveryRepository deliveryRepository;
 
+    @Autowired
+    private IProductRepository productRepository;
+
+    @Value("${integrity.scan.chunk-size:2000}")
+    private int scanChunkSize = 2000;
+
+    @Value("${integrity.scan.threads:2}")
+    private int scanThreads = 2;
+
+    @Value("${integrity.scan.chunk-pause-ms:50}")
+    private long scanChunkPauseMillis = 50;
+
+    @Value("${integrity.scan.max-issues:1000}")
+    private int maxReportedIssues = 1000;
+
+    private final ExecutorService scanRunner = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean scanning = new AtomicBoolean(false);
+    private volatile boolean scanCancelled;
+    private final AtomicInteger scanChunksDone = new AtomicInteger();
+    private final AtomicLong scanOrdersScanned = new AtomicLong();
+    private final AtomicLong scanLastOrderId = new AtomicLong();
+    private final Map<IntegrityIssueType, AtomicLong> scanIssueCounts = new EnumMap<>(IntegrityIssueType.class);
+    private final Queue<IntegrityIssue> scanIssues = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger scanIssuesKept = new AtomicInteger();
+    private volatile LocalDateTime scanStarted;
+    private volatile LocalDateTime scanFinished;
+    private volatile String scanError;
+
+    {
+        for (IntegrityIssueType type : IntegrityIssueType.values()) {
+            scanIssueCounts.put(type, new AtomicLong());
+        }
+    }
+
     /**
      * Check for and report duplicate delivery records
      * @param orderId Order ID to check
@@ -262,4 +322,155 @@ public class DatabaseCleanupService {
         
         return summary.toString();
     }
-}
\ No newline at end of file
+
+    // ---- whole-database scan ----
+
+    /**
+     * Start a background integrity scan over all orders. Returns false if one is already running.
+     */
+    public boolean startIntegrityScan() {
+        if (!scanning.compareAndSet(false, true)) {
+            return false;
+        }
+        scanCancelled = false;
+        scanChunksDone.set(0);
+        scanOrdersScanned.set(0);
+        scanLastOrderId.set(0);
+        scanIssueCounts.values().forEach(count -> count.set(0));
+        scanIssues.clear();
+        scanIssuesKept.set(0);
+        scanStarted = LocalDateTime.now();
+        scanFinished = null;
+        scanError = null;
+        scanRunner.submit(() -> {
+            try {
+                runIntegrityScan();
+            } catch (Exception e) {
+                scanError = e.getMessage();
+                logger.error("Integrity scan failed: {}", e.getMessage(), e);
+            } finally {
+                scanFinished = LocalDateTime.now();
+                scanning.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Ask a running scan to stop after the chunks already in flight.
+     */
+    public boolean cancelIntegrityScan() {
+        if (!scanning.get()) {
+            return false;
+        }
+        scanCancelled = true;
+        return true;
+    }
+
+    private void runIntegrityScan() throws Exception {
+        long startNanos = System.nanoTime();
+        int threads = Math.max(1, scanThreads);
+        // Bounded queue with caller-runs: the keyset walk never gets more than a few chunks ahead
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            long afterId = 0;
+            while (!scanCancelled) {
+                List<Long> ids = orderRepository.findOrderIdsAfter(afterId, scanChunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long fromId = ids.get(0);
+                long toId = ids.get(ids.size() - 1);
+                int orderCount = ids.size();
+                futures.add(workers.submit(() -> scanChunk(fromId, toId, orderCount)));
+                afterId = toId;
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if (!scanCancelled) {
+            for (Long itemId : orderRepository.findItemIdsWithoutOrder()) {
+                record(new IntegrityIssue(IntegrityIssueType.ORPHANED_ITEM, null, itemId, "Order item has no order"));
+            }
+            for (Product product : productRepository.findByStockQuantityLessThan(0)) {
+                record(new IntegrityIssue(IntegrityIssueType.NEGATIVE_STOCK, null, product.getProductId(),
+                        "Stock quantity is " + product.getStockQuantity()));
+            }
+        }
+        logger.info("Integrity scan {} after {} orders in {} ms: {}",
+                scanCancelled ? "cancelled" : "finished", scanOrdersScanned.get(),
+                (System.nanoTime() - startNanos) / 1_000_000, scanIssueCounts);
+    }
+
+    private void scanChunk(long fromId, long toId, int orderCount) {
+        if (scanCancelled) {
+            return;
+        }
+        for (Object[] row : paymentRepository.findDuplicatePaymentCounts(fromId, toId)) {
+            long orderId = ((Number) row[0]).longValue();
+            record(new IntegrityIssue(IntegrityIssueType.DUPLICATE_PAYMENT, orderId, null, row[1] + " payments"));
+        }
+        for (Object[] row : deliveryRepository.findDuplicateDeliveryCounts(fromId, toId)) {
+            long orderId = ((Number) row[0]).longValue();
+            record(new IntegrityIssue(IntegrityIssueType.DUPLICATE_DELIVERY, orderId, null, row[1] + " deliveries"));
+        }
+        for (Object[] row : orderRepository.findOrphanedItems(fromId, toId)) {
+            record(new IntegrityIssue(IntegrityIssueType.ORPHANED_ITEM, ((Number) row[1]).longValue(),
+                    ((Number) row[0]).longValue(), "Order item has no product"));
+        }
+        for (Object[] row : orderRepository.findTotalMismatches(fromId, toId)) {
+            record(new IntegrityIssue(IntegrityIssueType.TOTAL_MISMATCH, ((Number) row[0]).longValue(), null,
+                    "Order total " + row[1] + ", items sum to " + row[2]));
+        }
+
+        scanOrdersScanned.addAndGet(orderCount);
+        scanChunksDone.incrementAndGet();
+        scanLastOrderId.accumulateAndGet(toId, Math::max);
+        try {
+            Thread.sleep(scanChunkPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void record(IntegrityIssue issue) {
+        scanIssueCounts.get(issue.getType()).incrementAndGet();
+        // Counts stay exact; only the first max-issues findings are kept in detail
+        if (scanIssuesKept.incrementAndGet() <= maxReportedIssues) {
+            scanIssues.add(issue);
+        }
+    }
+
+    /**
+     * Progress and results of the current or last integrity scan.
+     */
+    public Map<String, Object> getIntegrityScanStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", scanning.get());
+        status.put("cancelled", scanCancelled);
+        status.put("chunksDone", scanChunksDone.get());
+        status.put("ordersScanned", scanOrdersScanned.get());
+        status.put("lastOrderId", scanLastOrderId.get());
+        status.put("started", scanStarted);
+        status.put("finished", scanFinished);
+        status.put("error", scanError);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        scanIssueCounts.forEach((type, count) -> counts.put(type.name(), count.get()));
+        status.put("issueCounts", counts);
+        status.put("issues", new ArrayList<>(scanIssues));
+        status.put("issuesTruncated", scanIssuesKept.get() > maxReportedIssues);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scanCancelled = true;
+        scanRunner.shutdownNow();
+    }
+}
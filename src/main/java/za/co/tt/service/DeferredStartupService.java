@@ -0,0 +1,79 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs non-critical startup work (admin bootstrap, expiry sweep, ...) either inline or, with
+ * startup.defer-noncritical=true, on a background thread so it no longer delays readiness.
+ * Each task's duration is kept for the startup report.
+ */
+@Service
+public class DeferredStartupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredStartupService.class);
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+    private final List<Map<String, Object>> completedTasks = new ArrayList<>();
+
+    @Value("${startup.defer-noncritical:false}")
+    private boolean deferNonCritical;
+
+    /**
+     * Run a startup task now, or queue it behind readiness when deferral is enabled.
+     */
+    public void run(String name, Runnable task) {
+        if (deferNonCritical) {
+            runner.submit(() -> timed(name, task, true));
+        } else {
+            timed(name, task, false);
+        }
+    }
+
+    public boolean isDeferring() {
+        return deferNonCritical;
+    }
+
+    public List<Map<String, Object>> getCompletedTasks() {
+        synchronized (completedTasks) {
+            return new ArrayList<>(completedTasks);
+        }
+    }
+
+    private void timed(String name, Runnable task, boolean deferred) {
+        long startNanos = System.nanoTime();
+        String error = null;
+        try {
+            task.run();
+        } catch (Exception e) {
+            error = e.getMessage();
+            logger.error("Startup task {} failed: {}", name, e.getMessage(), e);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("name", name);
+        entry.put("deferred", deferred);
+        entry.put("durationMillis", millis);
+        entry.put("error", error);
+        synchronized (completedTasks) {
+            completedTasks.add(entry);
+        }
+        logger.debug("Startup task {} took {} ms", name, millis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+}
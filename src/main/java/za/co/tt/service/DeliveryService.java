@@ -1,10 +1,12 @@
 package za.co.tt.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import za.co.tt.domain.Delivery;
 import za.co.tt.domain.DeliveryDto;
 import za.co.tt.domain.Order;
+import za.co.tt.domain.OrderStatusChangedEvent;
 import za.co.tt.domain.Address;
 import za.co.tt.domain.Enum.DeliveryMethod;
 import za.co.tt.domain.Enum.DeliveryStatus;
@@ -35,6 +37,9 @@ public class DeliveryService implements IDeliveryService {
     @Autowired
     private OrderStatusService orderStatusService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public Delivery save(Delivery delivery) {
         return deliveryRepository.save(delivery);
@@ -184,6 +189,15 @@ public class DeliveryService implements IDeliveryService {
 
         Delivery savedDelivery = deliveryRepository.save(updatedDelivery);
         
+        if (delivery.getDeliveryStatus() != newStatus && savedDelivery.getOrder() != null) {
+            Order order = savedDelivery.getOrder();
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    OrderStatusChangedEvent.Kind.DELIVERY,
+                    order.getOrderId(),
+                    order.getUser() != null ? order.getUser().getUserId() : null,
+                    delivery.getDeliveryStatus(), newStatus));
+        }
+        
         // Update order status if delivery is completed
         if (newStatus == DeliveryStatus.DELIVERED || newStatus == DeliveryStatus.COLLECTED) {
             Long orderId = savedDelivery.getOrder().getOrderId();
@@ -0,0 +1,123 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread pool that writes Server-Sent Events to clients, shared by the stock and order streams so
+ * blocking socket writes never run on the scheduling threads the @Scheduled jobs share.
+ *
+ * A write that blocks longer than sse.send-timeout-ms is abandoned: its thread is interrupted and the
+ * send fails with an IOException, so the caller drops that client and completes its emitter.
+ */
+@Service
+public class EventStreamSender {
+
+    private final ExecutorService sendPool;
+    private final ScheduledExecutorService sendTimeouts;
+    private final AtomicLong timedOutSends = new AtomicLong();
+
+    @Value("${sse.send-timeout-ms:5000}")
+    private long sendTimeoutMillis = 5000;
+
+    public EventStreamSender(@Value("${sse.send-threads:4}") int sendThreads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendPool = Executors.newFixedThreadPool(Math.max(1, sendThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sse-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sendTimeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-send-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendPool.shutdownNow();
+        sendTimeouts.shutdownNow();
+    }
+
+    /**
+     * Run a task that sends to one client on the send pool. Returns false if the pool is shut down.
+     */
+    public boolean submit(Runnable task) {
+        try {
+            sendPool.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write one event, giving up after the send timeout. onTimeout runs on the timeout thread when the
+     * write is abandoned, e.g. to stop queueing more events for the client; the emitter itself must be
+     * completed by the sending thread, since emitter methods wait for the blocked send.
+     *
+     * @throws IOException if the write failed or timed out
+     */
+    public void send(SseEmitter emitter, SseEmitter.SseEventBuilder event, Runnable onTimeout) throws IOException {
+        InFlightSend inFlight = new InFlightSend(Thread.currentThread());
+        ScheduledFuture<?> timeout = sendTimeouts.schedule(() -> {
+            if (inFlight.abandon()) {
+                timedOutSends.incrementAndGet();
+                onTimeout.run();
+            }
+        }, sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        boolean abandoned;
+        try {
+            emitter.send(event);
+        } finally {
+            timeout.cancel(false);
+            abandoned = inFlight.finish();
+            // Clear an interrupt from a timeout that fired as the send finished
+            Thread.interrupted();
+        }
+        if (abandoned) {
+            throw new IOException("Send timed out after " + sendTimeoutMillis + " ms");
+        }
+    }
+
+    public long getTimedOutSends() {
+        return timedOutSends.get();
+    }
+
+    private static final class InFlightSend {
+        // Null once the send has finished; guarded by this
+        private Thread sender;
+        private boolean timedOut;
+
+        private InFlightSend(Thread sender) {
+            this.sender = sender;
+        }
+
+        private synchronized boolean abandon() {
+            if (sender == null) {
+                return false;
+            }
+            timedOut = true;
+            sender.interrupt();
+            return true;
+        }
+
+        private synchronized boolean finish() {
+            sender = null;
+            return timedOut;
+        }
+    }
+}
@@ -1,11 +1,11 @@
-// package za.co.tt.service;
+package za.co.tt.service;
 
-// import za.co.tt.domain.Cart;
+import za.co.tt.domain.CartDto;
 
-// import java.util.List;
-
-// public interface ICartService extends IService<Cart,Long>{
-//     Cart createCart(Cart cart);
-//    List<Cart> getAllCarts();
-
-// }
+public interface ICartService {
+    CartDto getCart(Long userId);
+    CartDto addItem(Long userId, Long productId, int quantity);
+    CartDto setItemQuantity(Long userId, Long productId, int quantity);
+    CartDto removeItem(Long userId, Long productId);
+    void clearCart(Long userId);
+}
@@ -1,7 +1,9 @@
 package za.co.tt.service;
 
 import za.co.tt.domain.Order;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface IOrderService extends IService<Order, Long> {
@@ -11,6 +13,8 @@ public interface IOrderService extends IService<Order, Long> {
     Order updateOrder(Long id, Order order);
     void deleteOrder(Long id);
     List<Order> getOrdersByUserId(Long userId);
+    List<Order> getOrdersByUserId(Long userId, boolean includeArchived);
     List<Order> getOrdersByStatus(String status);
     List<Order> getAllOrdersBasic(); // Debug method
+    Map<Long, Integer> expirePendingOrders(Collection<Long> orderIds);
 }
\ No newline at end of file
@@ -1,10 +1,15 @@
 package za.co.tt.service;
 
 import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockAvailabilityDto;
+import za.co.tt.domain.StockCheckItem;
 import za.co.tt.domain.Enum.Season;
 import za.co.tt.domain.Enum.VehicleType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface IProductService {
@@ -34,4 +39,14 @@ public interface IProductService {
     List<Product> getProductsByTireSpecifications(int width, int aspectRatio, int rimDiameter);
 
     Product updateStockQuantity(Long id, int newStockQuantity);
-}
\ No newline at end of file
+
+    List<Product> getProductsByIds(Collection<Long> ids);
+
+    List<ProductSummary> getProductSummaries(List<Long> ids);
+
+    List<StockAvailabilityDto> checkStock(List<StockCheckItem> items);
+
+    List<Product> saveStockQuantities(Collection<Product> products);
+
+    Map<Long, Integer> addStockQuantities(Map<Long, Integer> quantities);
+}
@@ -0,0 +1,323 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Address;
+import za.co.tt.domain.ArchivedOrder;
+import za.co.tt.domain.ArchivedOrderItem;
+import za.co.tt.domain.Delivery;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Order;
+import za.co.tt.domain.OrderItem;
+import za.co.tt.domain.Payment;
+import za.co.tt.domain.Product;
+import za.co.tt.domain.User;
+import za.co.tt.repository.AddressRepository;
+import za.co.tt.repository.ArchivedOrderRepository;
+import za.co.tt.repository.IProductRepository;
+import za.co.tt.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves COMPLETED and CANCELLED orders older than a configurable age from the live order tables into
+ * orders_archive / order_items_archive, in small throttled batches so the live tables stay small.
+ *
+ * Archived orders are read back as detached Order objects for order history and review eligibility,
+ * and restored to the live tables when something needs a managed entity (e.g. attaching a review).
+ */
+@Service
+public class OrderArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    private static final String JOB_NAME = "order-archive";
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final UserRepository userRepository;
+    private final IProductRepository productRepository;
+    private final AddressRepository addressRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterSchedulerService clusterScheduler;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong totalArchived = new AtomicLong();
+    private volatile LocalDateTime lastRunStarted;
+    private volatile LocalDateTime lastRunFinished;
+    private volatile int lastRunArchived;
+    private volatile String lastRunError;
+
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${order.archive.min-age-days:365}")
+    private int minAgeDays = 365;
+
+    @Value("${order.archive.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${order.archive.batch-pause-ms:250}")
+    private long batchPauseMillis = 250;
+
+    @Value("${order.archive.max-batches-per-run:500}")
+    private int maxBatchesPerRun = 500;
+
+    @Value("${order.archive.cron:0 30 2 * * *}")
+    private String cron = "0 30 2 * * *";
+
+    @Value("${order.archive.shards:4}")
+    private int shards = 4;
+
+    @Autowired
+    public OrderArchiveService(ArchivedOrderRepository archivedOrderRepository,
+                               UserRepository userRepository,
+                               IProductRepository productRepository,
+                               AddressRepository addressRepository,
+                               PlatformTransactionManager transactionManager,
+                               ClusterSchedulerService clusterScheduler) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.addressRepository = addressRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterScheduler = clusterScheduler;
+    }
+
+    /**
+     * Nightly archival runs once per cluster, split by order id so several nodes can share it.
+     */
+    @PostConstruct
+    public void registerJob() {
+        if (!enabled) {
+            return;
+        }
+        clusterScheduler.register(JOB_NAME, cron, shards, (shard, shardCount) -> {
+            int archived = archiveEligibleOrders(shard, shardCount);
+            if (archived < 0) {
+                throw new ClusterSchedulerService.ShardSkippedException("Archival already running on this node");
+            }
+            if (lastRunError != null) {
+                throw new IllegalStateException(lastRunError);
+            }
+            return "Archived " + archived + " orders";
+        });
+    }
+
+    /**
+     * Ask the scheduler to start an archival run now. The run is sharded and leased like the nightly
+     * one and executes on the scheduler's worker pool, so it never overlaps a run on another node.
+     *
+     * @return false if a run is already requested or in progress anywhere in the cluster
+     * @throws IllegalStateException if archival is disabled
+     */
+    public boolean requestArchival() {
+        if (!enabled) {
+            throw new IllegalStateException("Order archival is disabled");
+        }
+        return clusterScheduler.requestRunIfIdle(JOB_NAME);
+    }
+
+    /**
+     * Archive the eligible orders whose id falls in one shard (order_id mod shardCount = shardIndex).
+     * Each batch is its own short transaction and batches are separated by a pause so the live tables
+     * are never locked for long.
+     *
+     * @return number of orders archived, or -1 if a run is already in progress on this node
+     */
+    public int archiveEligibleOrders(int shardIndex, int shardCount) {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        lastRunStarted = LocalDateTime.now();
+        lastRunError = null;
+        int archived = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                if (clusterScheduler.isLeaseLost()) {
+                    lastRunError = "Lease lost";
+                    break;
+                }
+                Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff, shardIndex, shardCount));
+                if (moved == null || moved == 0) {
+                    break;
+                }
+                archived += moved;
+                totalArchived.addAndGet(moved);
+                Thread.sleep(batchPauseMillis);
+            }
+            logger.info("Archived {} orders older than {}", archived, cutoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastRunError = "Interrupted";
+        } catch (Exception e) {
+            lastRunError = e.getMessage();
+            logger.error("Order archival failed after {} orders: {}", archived, e.getMessage(), e);
+        } finally {
+            lastRunArchived = archived;
+            lastRunFinished = LocalDateTime.now();
+            running.set(false);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff, int shardIndex, int shardCount) {
+        List<Long> orderIds = archivedOrderRepository.findArchivableOrderIds(cutoff, shardIndex, shardCount, batchSize);
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyOrdersToArchive(orderIds);
+        archivedOrderRepository.copyOrderItemsToArchive(orderIds);
+        archivedOrderRepository.deleteLiveDeliveries(orderIds);
+        archivedOrderRepository.deleteLivePayments(orderIds);
+        archivedOrderRepository.deleteLiveOrderItems(orderIds);
+        archivedOrderRepository.deleteLiveOrders(orderIds);
+        return orderIds.size();
+    }
+
+    /**
+     * Move one archived order back into the live tables.
+     *
+     * @return true if the order was in the archive and has been restored
+     */
+    public boolean restoreOrder(Long orderId) {
+        if (orderId == null) {
+            return false;
+        }
+        Boolean restored = transactionTemplate.execute(status -> {
+            if (archivedOrderRepository.restoreOrder(orderId) == 0) {
+                return false;
+            }
+            archivedOrderRepository.restoreOrderItems(orderId);
+            archivedOrderRepository.restorePayment(orderId);
+            archivedOrderRepository.restoreDelivery(orderId);
+            archivedOrderRepository.deleteArchivedOrderItems(orderId);
+            archivedOrderRepository.deleteArchivedOrder(orderId);
+            return true;
+        });
+        if (Boolean.TRUE.equals(restored)) {
+            logger.info("Restored archived order {} to live tables", orderId);
+        }
+        return Boolean.TRUE.equals(restored);
+    }
+
+    // ---- read-through ----
+
+    public List<Order> findArchivedOrdersByUser(Long userId) {
+        return toOrders(archivedOrderRepository.findByUserIdWithItems(userId));
+    }
+
+    public List<Order> findArchivedOrdersByUserAndStatus(Long userId, OrderStatus status) {
+        return toOrders(archivedOrderRepository.findByUserIdAndOrderStatusWithItems(userId, status));
+    }
+
+    public Optional<Order> findArchivedOrder(Long orderId) {
+        return archivedOrderRepository.findByIdWithItems(orderId)
+                .map(archived -> toOrders(List.of(archived)).get(0));
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("running", running.get());
+        status.put("minAgeDays", minAgeDays);
+        status.put("archivedOrders", archivedOrderRepository.count());
+        status.put("archivedSinceStartup", totalArchived.get());
+        status.put("lastRunStarted", lastRunStarted);
+        status.put("lastRunFinished", lastRunFinished);
+        status.put("lastRunArchived", lastRunArchived);
+        status.put("lastRunError", lastRunError);
+        return status;
+    }
+
+    /**
+     * Rebuild detached Order graphs, loading the referenced users, products and addresses once per batch.
+     */
+    private List<Order> toOrders(List<ArchivedOrder> archivedOrders) {
+        if (archivedOrders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> addressIds = new HashSet<>();
+        for (ArchivedOrder archived : archivedOrders) {
+            if (archived.getUserId() != null) userIds.add(archived.getUserId());
+            if (archived.getPaymentUserId() != null) userIds.add(archived.getPaymentUserId());
+            if (archived.getAddressId() != null) addressIds.add(archived.getAddressId());
+            for (ArchivedOrderItem item : archived.getItems()) {
+                if (item.getProductId() != null) productIds.add(item.getProductId());
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getUserId(), user));
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getProductId(), product));
+        Map<Long, Address> addresses = new HashMap<>();
+        addressRepository.findAllById(addressIds).forEach(address -> addresses.put(address.getAddressId(), address));
+
+        List<Order> orders = new ArrayList<>(archivedOrders.size());
+        for (ArchivedOrder archived : archivedOrders) {
+            Order order = new Order();
+            order.setOrderId(archived.getOrderId());
+            order.setUser(users.get(archived.getUserId()));
+            order.setOrderDate(archived.getOrderDate());
+            order.setOrderStatus(archived.getOrderStatus());
+            order.setTotalAmount(archived.getTotalAmount());
+
+            List<OrderItem> items = new ArrayList<>(archived.getItems().size());
+            for (ArchivedOrderItem archivedItem : archived.getItems()) {
+                OrderItem item = new OrderItem();
+                item.setId(archivedItem.getItemId());
+                item.setProduct(products.get(archivedItem.getProductId()));
+                item.setQuantity(archivedItem.getQuantity());
+                item.setPrice(archivedItem.getPrice());
+                item.setSubtotal(archivedItem.getSubtotal());
+                item.setOrder(order);
+                items.add(item);
+            }
+            order.setOrderItems(items);
+
+            if (archived.getPaymentId() != null) {
+                order.setPayment(new Payment.Builder()
+                        .setPaymentId(archived.getPaymentId())
+                        .setPaymentMethod(archived.getPaymentMethod())
+                        .setPaymentStatus(archived.getPaymentStatus())
+                        .setAmount(archived.getPaymentAmount())
+                        .setPaymentDate(archived.getPaymentDate())
+                        .setUser(users.get(archived.getPaymentUserId()))
+                        .setOrder(order)
+                        .build());
+            }
+            if (archived.getDeliveryId() != null) {
+                order.setDelivery(new Delivery.Builder()
+                        .setDeliveryId(archived.getDeliveryId())
+                        .setOrder(order)
+                        .setDeliveryAddress(addresses.get(archived.getAddressId()))
+                        .setDeliveryMethod(archived.getDeliveryMethod())
+                        .setDeliveryStatus(archived.getDeliveryStatus())
+                        .setCourierName(archived.getCourierName())
+                        .setEstimatedDeliveryDate(archived.getEstimatedDeliveryDate())
+                        .setActualDeliveryDate(archived.getActualDeliveryDate())
+                        .build());
+            }
+            orders.add(order);
+        }
+        return orders;
+    }
+}
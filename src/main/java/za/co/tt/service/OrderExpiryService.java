@@ -0,0 +1,233 @@
+package za.co.tt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.Enum.DeliveryMethod;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.repository.OrderRepository;
+import za.co.tt.util.TimingWheel;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancels orders that stay PENDING for too long and puts their stock back on sale.
+ *
+ * Every PENDING order is kept in a hashed timing wheel, registered from OrderStatusChangedEvent and
+ * from a periodic sweep of the orders table (which also picks up orders created on other nodes).
+ * Orders are first scheduled at the shortest timeout; when one comes due its delivery method is
+ * looked up and it is either rescheduled for the rest of its timeout or expired in a batch through
+ * OrderService.expirePendingOrders, which re-checks the status under a row lock.
+ */
+@Service
+public class OrderExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    private static final String NO_DELIVERY = "NONE";
+
+    private final OrderRepository orderRepository;
+    private final IOrderService orderService;
+    private final DeferredStartupService deferredStartup;
+    private final TimingWheel<Long> wheel;
+
+    private final AtomicLong expiredOrders = new AtomicLong();
+    private final AtomicLong releasedUnits = new AtomicLong();
+    private final Map<String, AtomicLong> expiredByMethod = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> releasedByMethod = new ConcurrentHashMap<>();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile LocalDateTime lastExpiryRun;
+
+    @Value("${order.expiry.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${order.expiry.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${order.expiry.retry-minutes:15}")
+    private long retryMinutes = 15;
+
+    @Value("${order.expiry.timeout-minutes.collection:2880}")
+    private long collectionTimeoutMinutes = 2880;
+
+    @Value("${order.expiry.timeout-minutes.delivery:1440}")
+    private long deliveryTimeoutMinutes = 1440;
+
+    // Orders that never got a delivery record (e.g. created through the plain order endpoint)
+    @Value("${order.expiry.timeout-minutes.default:1440}")
+    private long defaultTimeoutMinutes = 1440;
+
+    @Autowired
+    public OrderExpiryService(OrderRepository orderRepository,
+                              IOrderService orderService,
+                              DeferredStartupService deferredStartup,
+                              @Value("${order.expiry.tick-ms:60000}") long tickMillis) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.deferredStartup = deferredStartup;
+        this.wheel = new TimingWheel<>(tickMillis, 512, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingOrders() {
+        deferredStartup.run("order-expiry-sweep", this::sweep);
+    }
+
+    /**
+     * Re-register PENDING orders the wheel does not know about, e.g. ones created on another node.
+     */
+    @Scheduled(fixedDelayString = "${order.expiry.sweep-ms:1800000}", initialDelayString = "${order.expiry.sweep-ms:1800000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        int registered = 0;
+        for (Object[] row : orderRepository.findPendingOrderDates()) {
+            Long orderId = ((Number) row[0]).longValue();
+            if (!wheel.contains(orderId)) {
+                wheel.schedule(orderId, toMillis(row[1], System.currentTimeMillis()) + minutesToMillis(shortestTimeoutMinutes()));
+                registered++;
+            }
+        }
+        if (registered > 0) {
+            logger.info("Registered {} pending orders for expiry", registered);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null) {
+            return;
+        }
+        String pending = OrderStatus.PENDING.name();
+        if (pending.equals(event.getStatus()) && !pending.equals(event.getPreviousStatus())) {
+            wheel.schedule(event.getOrderId(), System.currentTimeMillis() + minutesToMillis(shortestTimeoutMinutes()));
+        } else if (!pending.equals(event.getStatus())) {
+            wheel.cancel(event.getOrderId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.tick-ms:60000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        lastExpiryRun = LocalDateTime.now();
+        for (int from = 0; from < due.size(); from += batchSize) {
+            processBatch(due.subList(from, Math.min(from + batchSize, due.size())));
+        }
+    }
+
+    private void processBatch(List<Long> orderIds) {
+        long now = System.currentTimeMillis();
+        List<Long> expire = new ArrayList<>();
+        Map<Long, String> methodByOrder = new HashMap<>();
+        try {
+            for (Object[] row : orderRepository.findPendingExpiryFacts(orderIds)) {
+                Long orderId = ((Number) row[0]).longValue();
+                String method = row[2] != null ? row[2].toString() : NO_DELIVERY;
+                long deadline = toMillis(row[1], now) + minutesToMillis(timeoutMinutes(method));
+                if (deadline > now) {
+                    wheel.schedule(orderId, deadline);
+                } else {
+                    expire.add(orderId);
+                    methodByOrder.put(orderId, method);
+                }
+            }
+            if (expire.isEmpty()) {
+                return;
+            }
+
+            Map<Long, Integer> released = orderService.expirePendingOrders(expire);
+            for (Map.Entry<Long, Integer> entry : released.entrySet()) {
+                String method = methodByOrder.getOrDefault(entry.getKey(), NO_DELIVERY);
+                expiredOrders.incrementAndGet();
+                releasedUnits.addAndGet(entry.getValue());
+                expiredByMethod.computeIfAbsent(method, key -> new AtomicLong()).incrementAndGet();
+                releasedByMethod.computeIfAbsent(method, key -> new AtomicLong()).addAndGet(entry.getValue());
+            }
+            logger.info("Expired {} stale pending orders, released {} units of stock",
+                    released.size(), released.values().stream().mapToInt(Integer::intValue).sum());
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            logger.error("Failed to expire pending orders {}, retrying in {} minutes: {}",
+                    orderIds, retryMinutes, e.getMessage());
+            long retryAt = now + minutesToMillis(retryMinutes);
+            for (Long orderId : expire.isEmpty() ? orderIds : expire) {
+                wheel.schedule(orderId, retryAt);
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("trackedPendingOrders", wheel.size());
+        metrics.put("expiredOrders", expiredOrders.get());
+        metrics.put("releasedUnits", releasedUnits.get());
+        metrics.put("expiredByDeliveryMethod", snapshot(expiredByMethod));
+        metrics.put("releasedUnitsByDeliveryMethod", snapshot(releasedByMethod));
+        metrics.put("failedBatches", failedBatches.get());
+        metrics.put("lastExpiryRun", lastExpiryRun);
+        Map<String, Long> timeouts = new LinkedHashMap<>();
+        timeouts.put(DeliveryMethod.COLLECTION.name(), collectionTimeoutMinutes);
+        timeouts.put(DeliveryMethod.DELIVERY.name(), deliveryTimeoutMinutes);
+        timeouts.put(NO_DELIVERY, defaultTimeoutMinutes);
+        metrics.put("timeoutMinutes", timeouts);
+        return metrics;
+    }
+
+    private long timeoutMinutes(String method) {
+        if (DeliveryMethod.COLLECTION.name().equals(method)) {
+            return collectionTimeoutMinutes;
+        }
+        if (DeliveryMethod.DELIVERY.name().equals(method)) {
+            return deliveryTimeoutMinutes;
+        }
+        return defaultTimeoutMinutes;
+    }
+
+    private long shortestTimeoutMinutes() {
+        return Math.min(defaultTimeoutMinutes, Math.min(collectionTimeoutMinutes, deliveryTimeoutMinutes));
+    }
+
+    private static long minutesToMillis(long minutes) {
+        return minutes * 60_000L;
+    }
+
+    private static long toMillis(Object value, long fallback) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).getTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return fallback;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> counters) {
+        Map<String, Long> copy = new LinkedHashMap<>();
+        counters.forEach((key, value) -> copy.put(key, value.get()));
+        return copy;
+    }
+}
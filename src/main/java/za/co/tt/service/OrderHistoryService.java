@@ -0,0 +1,122 @@
+package za.co.tt.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.OrderSummary;
+import za.co.tt.repository.OrderHistoryRepository;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A customer's order history as pages of summaries, newest first, across live and archived orders.
+ *
+ * Pages are keyset-based on order id, so a customer with hundreds of orders pays the same for every
+ * page. The first page at the default size is what "my orders" opens on, so it is cached per user and
+ * evicted when one of their orders is placed or changes status, updated or deleted; the TTL bounds
+ * how long changes made on other nodes go unseen. When the cache is full the least recently used
+ * user's page makes room.
+ */
+@Service
+public class OrderHistoryService {
+
+    private final OrderHistoryRepository historyRepository;
+
+    // Access-ordered, so the eldest entry is the least recently read page
+    private final Map<Long, CachedPage> firstPages;
+    private final AtomicLong orderWrites = new AtomicLong();
+
+    @Value("${order.history.default-size:10}")
+    private int defaultPageSize = 10;
+
+    @Value("${order.history.max-size:50}")
+    private int maxPageSize = 50;
+
+    @Value("${order.history.first-page-cache.ttl-ms:60000}")
+    private long firstPageTtlMillis = 60000;
+
+    @Value("${order.history.first-page-cache.max-users:10000}")
+    private int maxCachedUsers = 10000;
+
+    @Autowired
+    public OrderHistoryService(OrderHistoryRepository historyRepository) {
+        this.historyRepository = historyRepository;
+        this.firstPages = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedPage> eldest) {
+                return size() > maxCachedUsers;
+            }
+        });
+    }
+
+    /**
+     * One page of the user's orders. Pass the returned nextCursor as cursor to get the next page.
+     *
+     * @param cursor order id the previous page ended at, or null for the first page
+     * @param limit  page size, or null for the default
+     */
+    public Map<String, Object> getOrderPage(Long userId, Long cursor, Integer limit) {
+        int pageSize = limit != null ? Math.max(1, Math.min(maxPageSize, limit)) : defaultPageSize;
+        boolean cacheable = cursor == null && pageSize == defaultPageSize;
+        if (cacheable) {
+            CachedPage cached = firstPages.get(userId);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached.page;
+            }
+        }
+
+        long writesBefore = orderWrites.get();
+        Map<String, Object> page = loadPage(userId, cursor != null ? cursor : Long.MAX_VALUE, pageSize);
+        // Skip caching if an order was written while loading; the page may already be stale
+        if (cacheable && orderWrites.get() == writesBefore) {
+            firstPages.put(userId, new CachedPage(page, System.currentTimeMillis() + firstPageTtlMillis));
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() == OrderStatusChangedEvent.Kind.ORDER) {
+            evictUser(event.getUserId());
+        }
+    }
+
+    /**
+     * Drop the user's cached first page, e.g. after an order edit that publishes no status event.
+     */
+    public void evictUser(Long userId) {
+        orderWrites.incrementAndGet();
+        if (userId != null) {
+            firstPages.remove(userId);
+        }
+    }
+
+    private Map<String, Object> loadPage(long userId, long beforeId, int pageSize) {
+        // One extra row tells whether there is a next page
+        List<OrderSummary> rows = historyRepository.findSummaries(userId, beforeId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderSummary> page = hasMore ? List.copyOf(rows.subList(0, pageSize)) : rows;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", page);
+        result.put("nextCursor", hasMore ? page.get(page.size() - 1).getOrderId() : null);
+        result.put("limit", pageSize);
+        return result;
+    }
+
+    private static final class CachedPage {
+        private final Map<String, Object> page;
+        private final long expiresAt;
+
+        private CachedPage(Map<String, Object> page, long expiresAt) {
+            this.page = page;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package za.co.tt.service;
 
 
 import za.co.tt.domain.Order;
+import za.co.tt.domain.OrderStatusChangedEvent;
 import za.co.tt.domain.User;
 import za.co.tt.domain.OrderItem;
 import za.co.tt.domain.OrderItemDto;
@@ -14,14 +15,22 @@ import za.co.tt.domain.Enum.OrderStatus;
 import za.co.tt.repository.OrderRepository;
 import za.co.tt.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class OrderService implements IOrderService {
@@ -41,6 +50,18 @@ public class OrderService implements IOrderService {
     @Autowired
     private AddressService addressService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private BranchInventoryService branchInventoryService;
+
     @Autowired
     public OrderService(OrderRepository orderRepository, UserRepository userRepository, IProductService productService) {
         this.orderRepository = orderRepository;
@@ -74,9 +95,26 @@ public class OrderService implements IOrderService {
         return order;
     }
 
+    /**
+     * Full order with its items for the order detail view, falling back to the archive for old orders.
+     */
+    public Optional<Order> getOrderDetail(Long id) {
+        Optional<Order> order = orderRepository.findByIdWithItems(id);
+        return order.isPresent() ? order : orderArchiveService.findArchivedOrder(id);
+    }
+
     @Override
     @Transactional
     public Order createOrder(za.co.tt.domain.OrderDto orderDto) {
+        return createOrder(orderDto, null);
+    }
+
+    /**
+     * Create an order whose stock comes from products.stock_quantity or, when collectionBranchId is
+     * given, is reserved at that branch.
+     */
+    @Transactional
+    public Order createOrder(za.co.tt.domain.OrderDto orderDto, Long collectionBranchId) {
         logger.info("Creating order for userId: {}", orderDto.getUserId());
         
         // Parse status from DTO, default to PENDING if invalid or null
@@ -106,6 +144,19 @@ public class OrderService implements IOrderService {
             throw new IllegalArgumentException("Order must contain at least one item");
         }
         
+        // Load every referenced product in one query instead of one lookup per item
+        Set<Long> productIds = new HashSet<>();
+        for (OrderItemDto itemDto : itemDtos) {
+            if (itemDto != null && itemDto.getProductId() != null) {
+                productIds.add(itemDto.getProductId());
+            }
+        }
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productService.getProductsByIds(productIds)) {
+            products.put(product.getProductId(), product);
+        }
+        Map<Long, Integer> requestedByProduct = new HashMap<>();
+
         // Convert DTOs to entities and validate each order item
         List<OrderItem> items = new ArrayList<>();
         for (int i = 0; i < itemDtos.size(); i++) {
@@ -126,12 +177,17 @@ public class OrderService implements IOrderService {
             }
             
             // Check if product exists and has sufficient stock
-            Product product = productService.getProductById(productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product with ID " + productId + " not found"));
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product with ID " + productId + " not found");
+            }
             
-            if (product.getStockQuantity() < itemDto.getQuantity()) {
+            // Lines repeating a product are checked against the combined quantity
+            int requested = requestedByProduct.merge(productId, itemDto.getQuantity(), Integer::sum);
+            // Branch stock is checked when it is reserved
+            if (collectionBranchId == null && product.getStockQuantity() < requested) {
                 throw new IllegalArgumentException("Insufficient stock for product '" + product.getProductName() + "'. " +
-                    "Available: " + product.getStockQuantity() + ", Requested: " + itemDto.getQuantity());
+                    "Available: " + product.getStockQuantity() + ", Requested: " + requested);
             }
             
             // Create OrderItem entity from DTO
@@ -176,19 +232,25 @@ public class OrderService implements IOrderService {
         // Save the order first to get the ID
         Order savedOrder = orderRepository.save(order);
         
-        // Reduce stock quantities for each ordered item
-        for (OrderItem item : savedOrder.getOrderItems()) {
-            Long productId = item.getProductId();
-            Product product = productService.getProductById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found during stock reduction: " + productId));
-            
-            int newStockQuantity = product.getStockQuantity() - item.getQuantity();
-            productService.updateStockQuantity(product.getProductId(), newStockQuantity);
-            
-            logger.info("Reduced stock for product {}: {} -> {} (ordered: {})", 
-                product.getProductName(), product.getStockQuantity(), newStockQuantity, item.getQuantity());
+        if (collectionBranchId != null) {
+            branchInventoryService.reserveForOrder(savedOrder.getOrderId(), collectionBranchId, requestedByProduct);
+        } else {
+            // Reduce stock quantities on the products already loaded and save them as one batch
+            for (Map.Entry<Long, Integer> entry : requestedByProduct.entrySet()) {
+                Product product = products.get(entry.getKey());
+                int previousStockQuantity = product.getStockQuantity();
+                int newStockQuantity = previousStockQuantity - entry.getValue();
+                product.setStockQuantity(newStockQuantity);
+                
+                logger.info("Reduced stock for product {}: {} -> {} (ordered: {})", 
+                    product.getProductName(), previousStockQuantity, newStockQuantity, entry.getValue());
+            }
+            productService.saveStockQuantities(products.values());
         }
         
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+            OrderStatusChangedEvent.Kind.ORDER, savedOrder.getOrderId(), managedUser.getUserId(), null, savedOrder.getOrderStatus()));
+        
         return savedOrder;
     }
 
@@ -206,12 +268,22 @@ public class OrderService implements IOrderService {
         }
         
         // Update the order fields (excluding items for now to keep it simple)
+        OrderStatus previousStatus = existingOrder.getOrderStatus();
         existingOrder.setOrderStatus(updatedOrder.getOrderStatus());
         if (updatedOrder.getTotalAmount() != null) {
             existingOrder.setTotalAmount(updatedOrder.getTotalAmount());
         }
         
-        return orderRepository.save(existingOrder);
+        Order savedOrder = orderRepository.save(existingOrder);
+        Long userId = savedOrder.getUser() != null ? savedOrder.getUser().getUserId() : null;
+        if (previousStatus != savedOrder.getOrderStatus()) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, id, userId, previousStatus, savedOrder.getOrderStatus()));
+        } else {
+            // A total-only edit publishes no status event
+            evictOrderHistoryAfterCommit(userId);
+        }
+        return savedOrder;
     }
 
     @Override
@@ -225,14 +297,31 @@ public class OrderService implements IOrderService {
         restoreStockQuantities(order);
         
         orderRepository.deleteById(id);
+        evictOrderHistoryAfterCommit(order.getUser() != null ? order.getUser().getUserId() : null);
         logger.info("Deleted order {} and restored stock quantities", id);
     }
 
     @Override
     public List<Order> getOrdersByUserId(Long userId) {
+        return getOrdersByUserId(userId, true);
+    }
+
+    /**
+     * The user's live orders, plus their archived (older completed/cancelled) orders unless includeArchived
+     * is cleared. Archiving is transparent to readers, so callers should only skip the archive when they
+     * need live orders alone.
+     */
+    @Override
+    public List<Order> getOrdersByUserId(Long userId, boolean includeArchived) {
         logger.info("Fetching orders for user ID: {}", userId);
-        List<Order> orders = orderRepository.findByUser_UserId(userId);
-        logger.info("Found {} orders for user {}", orders.size(), userId);
+        List<Order> orders = new ArrayList<>(orderRepository.findByUser_UserId(userId));
+        if (!includeArchived) {
+            logger.info("Found {} orders for user {}", orders.size(), userId);
+            return orders;
+        }
+        List<Order> archivedOrders = orderArchiveService.findArchivedOrdersByUser(userId);
+        orders.addAll(archivedOrders);
+        logger.info("Found {} orders for user {} ({} archived)", orders.size(), userId, archivedOrders.size());
         return orders;
     }
 
@@ -294,26 +383,93 @@ public class OrderService implements IOrderService {
         return List.of();
     }
 
+    /**
+     * Cancel the given orders if they are still PENDING and put their stock back, as one batch.
+     * Orders that already left PENDING (paid, cancelled by hand, expired by another node) are skipped.
+     * @param orderIds Orders whose reservation has timed out
+     * @return units of stock released, per cancelled order
+     */
+    @Override
+    @Transactional
+    public Map<Long, Integer> expirePendingOrders(Collection<Long> orderIds) {
+        Map<Long, Integer> releasedByOrder = new HashMap<>();
+        if (orderIds == null || orderIds.isEmpty()) {
+            return releasedByOrder;
+        }
+        List<Long> pendingIds = orderRepository.lockPendingOrderIds(orderIds);
+        if (pendingIds.isEmpty()) {
+            return releasedByOrder;
+        }
+        orderRepository.cancelPendingOrders(pendingIds);
+        
+        List<Order> orders = orderRepository.findAllByIdWithItems(pendingIds);
+        restoreStockQuantities(orders);
+        
+        for (Order order : orders) {
+            int released = 0;
+            for (OrderItem item : order.getOrderItems()) {
+                released += item.getQuantity();
+            }
+            releasedByOrder.put(order.getOrderId(), released);
+            
+            Long userId = order.getUser() != null ? order.getUser().getUserId() : null;
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, order.getOrderId(), userId, OrderStatus.PENDING, OrderStatus.CANCELLED));
+        }
+        logger.info("Expired {} pending orders", orders.size());
+        return releasedByOrder;
+    }
+
     /**
      * Restores stock quantities when an order is cancelled or deleted
      * @param order The order whose stock quantities should be restored
      */
     private void restoreStockQuantities(Order order) {
-        if (order.getOrderItems() == null || order.getOrderItems().isEmpty()) {
+        restoreStockQuantities(List.of(order));
+    }
+
+    /**
+     * Restores stock for several orders at once with one atomic increment per product, so a
+     * concurrent order or restore on another node is never overwritten
+     * @param orders The orders whose stock quantities should be restored
+     */
+    private void restoreStockQuantities(Collection<Order> orders) {
+        // Collection orders give their units back to the branch they were reserved at
+        Set<Long> branchOrders = branchInventoryService.releaseOrders(orders.stream().map(Order::getOrderId).toList());
+        Map<Long, Integer> restoredByProduct = new HashMap<>();
+        for (Order order : orders) {
+            if (order.getOrderItems() == null || branchOrders.contains(order.getOrderId())) {
+                continue;
+            }
+            for (OrderItem item : order.getOrderItems()) {
+                restoredByProduct.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        if (restoredByProduct.isEmpty()) {
             return;
         }
         
-        for (OrderItem item : order.getOrderItems()) {
-            Long productId = item.getProductId();
-            Product product = productService.getProductById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found during stock restoration: " + productId));
-            
-            int restoredStockQuantity = product.getStockQuantity() + item.getQuantity();
-            productService.updateStockQuantity(product.getProductId(), restoredStockQuantity);
-            
-            logger.info("Restored stock for product {}: {} -> {} (restored: {})", 
-                product.getProductName(), product.getStockQuantity(), restoredStockQuantity, item.getQuantity());
+        Map<Long, Integer> stock = productService.addStockQuantities(restoredByProduct);
+        stock.forEach((productId, restoredStockQuantity) -> logger.info("Restored stock for product {}: {} (restored: {})",
+            productId, restoredStockQuantity, restoredByProduct.get(productId)));
+    }
+
+    /**
+     * Drops the user's cached order history once the current transaction commits; evicting earlier
+     * would let a concurrent read cache the uncommitted (old) rows again
+     * @param userId The owner of the changed order, or null for none
+     */
+    private void evictOrderHistoryAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderHistoryService.evictUser(userId);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderHistoryService.evictUser(userId);
+            }
+        });
     }
 
     /**
@@ -346,10 +502,26 @@ public class OrderService implements IOrderService {
                                                   PaymentMethod paymentMethod, 
                                                   DeliveryMethod deliveryMethod, 
                                                   Long addressId) {
+        return createOrderWithPaymentAndDelivery(orderDto, paymentMethod, deliveryMethod, addressId, null);
+    }
+
+    /**
+     * Create complete order with payment and delivery; a COLLECTION order may name the branch whose
+     * stock it is reserved from
+     */
+    @Transactional
+    public Order createOrderWithPaymentAndDelivery(za.co.tt.domain.OrderDto orderDto, 
+                                                  PaymentMethod paymentMethod, 
+                                                  DeliveryMethod deliveryMethod, 
+                                                  Long addressId,
+                                                  Long branchId) {
         logger.info("Creating order with payment and delivery for userId: {}", orderDto.getUserId());
+        if (branchId != null && deliveryMethod != DeliveryMethod.COLLECTION) {
+            throw new IllegalArgumentException("A branch can only be chosen for collection orders");
+        }
         
         // First create the basic order
-        Order order = createOrder(orderDto);
+        Order order = createOrder(orderDto, branchId);
         
         // Additional safety check: ensure this order doesn't already have payment/delivery
         if (order.getPayment() != null) {
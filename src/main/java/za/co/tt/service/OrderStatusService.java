@@ -1,12 +1,14 @@
 package za.co.tt.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import za.co.tt.domain.Order;
+import za.co.tt.domain.OrderStatusChangedEvent;
 import za.co.tt.domain.Delivery;
 import za.co.tt.domain.Payment;
 import za.co.tt.domain.Enum.OrderStatus;
@@ -27,6 +29,9 @@ public class OrderStatusService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Update order status based on delivery completion
      * Called when delivery status changes to DELIVERED or COLLECTED
@@ -58,6 +63,7 @@ public class OrderStatusService {
                 
                 order.setOrderStatus(OrderStatus.COMPLETED);
                 orderRepository.save(order);
+                publishStatusChange(order, currentStatus);
                 
                 logger.info("Order {} status successfully updated to COMPLETED", orderId);
             } else {
@@ -97,6 +103,7 @@ public class OrderStatusService {
                 
                 order.setOrderStatus(OrderStatus.CONFIRMED);
                 orderRepository.save(order);
+                publishStatusChange(order, currentStatus);
                 
                 logger.info("Order {} status successfully updated to CONFIRMED", orderId);
             } else {
@@ -135,6 +142,7 @@ public class OrderStatusService {
                 
                 order.setOrderStatus(newStatus);
                 orderRepository.save(order);
+                publishStatusChange(order, currentStatus);
                 
                 logger.info("Order {} status successfully updated to {}", orderId, newStatus);
                 return true;
@@ -192,6 +200,15 @@ public class OrderStatusService {
 
     // Helper methods
 
+    private void publishStatusChange(Order order, OrderStatus previousStatus) {
+        if (previousStatus == order.getOrderStatus()) {
+            return;
+        }
+        Long userId = order.getUser() != null ? order.getUser().getUserId() : null;
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, order.getOrderId(), userId, previousStatus, order.getOrderStatus()));
+    }
+
     private boolean isDeliveryCompleted(DeliveryStatus status) {
         return status == DeliveryStatus.DELIVERED || status == DeliveryStatus.COLLECTED;
     }
@@ -0,0 +1,257 @@
+package za.co.tt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.OrderTrackingEvent;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live order, payment and delivery status stream.
+ *
+ * Transitions are appended to a bounded in-memory log with increasing ids. Subscribers remember the
+ * last id they were sent; a short fixed-delay push sends each subscriber the newer events it may see
+ * (its own orders for customers, everything for admins). Because live delivery and replay read the same
+ * log, a client reconnecting with Last-Event-ID simply continues from that id. If the id has already
+ * fallen out of the log a "reset" event tells the client to reload its orders once.
+ *
+ * Writes run on the EventStreamSender pool, at most one task per subscriber at a time, so a slow
+ * client never holds up the scheduling threads; a write past the send timeout drops the client.
+ *
+ * The log is per node: OrderStatusChangedEvent is not carried by the cluster change log, so a
+ * subscriber only sees transitions made on the node it is connected to, and event ids are only
+ * meaningful to that node. Deployments with several nodes must route /api/orders/stream with sticky
+ * sessions; a Last-Event-ID this node never issued gets a "reset" and continues with live events.
+ */
+@Service
+public class OrderTrackingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderTrackingService.class);
+
+    private final ArrayDeque<OrderTrackingEvent> log = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final EventStreamSender sender;
+
+    // Seeded from the clock so ids keep increasing across restarts
+    private long lastEventId = System.currentTimeMillis() * 1000;
+
+    @Value("${order.tracking.log-size:10000}")
+    private int logSize = 10000;
+
+    @Value("${order.tracking.max-subscribers:2000}")
+    private int maxSubscribers = 2000;
+
+    @Value("${order.tracking.timeout-ms:1800000}")
+    private long emitterTimeoutMillis = 1800000;
+
+    public OrderTrackingService(EventStreamSender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Open a stream for a customer (userId set, admin false) or the admin firehose.
+     *
+     * @param lastEventId value of the Last-Event-ID header, or null for live events only
+     * @param orderId optional filter to a single order
+     */
+    public SseEmitter subscribe(Long userId, boolean admin, Long orderId, String lastEventId) {
+        if (!admin && userId == null) {
+            throw new IllegalArgumentException("UserId must not be null");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many order tracking subscribers");
+        }
+
+        long latest = latestEventId();
+        long resumeFrom = latest;
+        boolean resume = false;
+        boolean reset = false;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                resumeFrom = Long.parseLong(lastEventId.trim());
+                resume = true;
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring malformed Last-Event-ID '{}'", lastEventId);
+            }
+        }
+        // An id ahead of this node's log was issued by another node; its events cannot be replayed here
+        if (resumeFrom > latest) {
+            resumeFrom = latest;
+            reset = true;
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, admin ? null : userId, orderId, resumeFrom);
+        subscriber.resetDue = reset;
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        if (resume) {
+            schedule(subscriber);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(OrderStatusChangedEvent change) {
+        synchronized (log) {
+            log.addLast(new OrderTrackingEvent(++lastEventId, change));
+            while (log.size() > logSize) {
+                log.removeFirst();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.tracking.push-ms:250}")
+    public void pushEvents() {
+        long latest = latestEventId();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.lastSentId < latest) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.tracking.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private long latestEventId() {
+        synchronized (log) {
+            return lastEventId;
+        }
+    }
+
+    /**
+     * Queue a send task for the subscriber on the send pool unless one is already queued or running.
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true) && !sender.submit(() -> drain(subscriber))) {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            // Every write to the emitter happens under the subscriber's lock
+            synchronized (subscriber) {
+                if (subscribers.contains(subscriber)) {
+                    deliverTo(subscriber);
+                }
+            }
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // Events logged or a heartbeat requested while this task ran
+        if (subscribers.contains(subscriber) && (subscriber.heartbeatDue || subscriber.lastSentId < latestEventId())) {
+            schedule(subscriber);
+        }
+    }
+
+    private void deliverTo(Subscriber subscriber) {
+        List<OrderTrackingEvent> pending = new ArrayList<>();
+        boolean gap;
+        long latest;
+        synchronized (log) {
+            latest = lastEventId;
+            OrderTrackingEvent oldest = log.peekFirst();
+            gap = subscriber.lastSentId < latest
+                    && (oldest == null || subscriber.lastSentId < oldest.getEventId() - 1);
+            Iterator<OrderTrackingEvent> newestFirst = log.descendingIterator();
+            while (newestFirst.hasNext()) {
+                OrderTrackingEvent event = newestFirst.next();
+                if (event.getEventId() <= subscriber.lastSentId) {
+                    break;
+                }
+                if (subscriber.accepts(event)) {
+                    pending.add(event);
+                }
+            }
+        }
+
+        Runnable onTimeout = () -> remove(subscriber);
+        try {
+            if (gap || subscriber.resetDue) {
+                sender.send(subscriber.emitter, SseEmitter.event().name("reset").data("Events were missed; reload orders"),
+                        onTimeout);
+                subscriber.resetDue = false;
+            }
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                OrderTrackingEvent event = pending.get(i);
+                sender.send(subscriber.emitter, SseEmitter.event()
+                        .id(String.valueOf(event.getEventId()))
+                        .name(event.getKind().name().toLowerCase())
+                        .data(event, MediaType.APPLICATION_JSON), onTimeout);
+            }
+            subscriber.lastSentId = latest;
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                if (pending.isEmpty()) {
+                    sender.send(subscriber.emitter, SseEmitter.event().comment("keep-alive"), onTimeout);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping order tracking subscriber: {}", e.getMessage());
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Long orderId;
+        private volatile long lastSentId;
+        private volatile boolean heartbeatDue;
+        private volatile boolean resetDue;
+        // Set while a send task for this subscriber is queued or running
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Long userId, Long orderId, long lastSentId) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.orderId = orderId;
+            this.lastSentId = lastSentId;
+        }
+
+        private boolean accepts(OrderTrackingEvent event) {
+            if (userId != null && !userId.equals(event.getUserId())) {
+                return false;
+            }
+            return orderId == null || orderId.equals(event.getOrderId());
+        }
+    }
+}
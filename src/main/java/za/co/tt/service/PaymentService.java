@@ -1,10 +1,12 @@
 package za.co.tt.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import za.co.tt.domain.Payment;
 import za.co.tt.domain.PaymentDto;
 import za.co.tt.domain.Order;
+import za.co.tt.domain.OrderStatusChangedEvent;
 import za.co.tt.domain.User;
 import za.co.tt.domain.Enum.PaymentMethod;
 import za.co.tt.domain.Enum.PaymentStatus;
@@ -28,6 +30,9 @@ public class PaymentService implements IPaymentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public Payment save(Payment payment) {
         return repository.save(payment);
@@ -164,7 +169,15 @@ public class PaymentService implements IPaymentService {
                 .setPaymentStatus(newStatus)
                 .build();
 
-        return repository.save(updatedPayment);
+        Payment savedPayment = repository.save(updatedPayment);
+        if (payment.getPaymentStatus() != newStatus) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    OrderStatusChangedEvent.Kind.PAYMENT,
+                    savedPayment.getOrder() != null ? savedPayment.getOrder().getOrderId() : null,
+                    savedPayment.getUser() != null ? savedPayment.getUser().getUserId() : null,
+                    payment.getPaymentStatus(), newStatus));
+        }
+        return savedPayment;
     }
 
     /**
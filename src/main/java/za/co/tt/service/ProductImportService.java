@@ -0,0 +1,421 @@
+package za.co.tt.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Enum.Season;
+import za.co.tt.domain.Enum.VehicleType;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductChangedEvent.ChangeType;
+import za.co.tt.domain.ProductFitment;
+import za.co.tt.domain.ProductImportJob;
+import za.co.tt.domain.ProductImportRow;
+import za.co.tt.repository.ProductImportRepository;
+import za.co.tt.util.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk catalog import for supplier price/stock files (CSV with a header row, or a JSON array of objects).
+ *
+ * The uploaded file is spooled to a temporary file and then read one row at a time on a background
+ * thread. Valid rows are upserted in JDBC batches keyed on name, model and tyre size, each batch in its
+ * own transaction; invalid rows are recorded on the job and skipped. Jobs run one at a time.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String[] COLUMNS = {"productName", "productModel", "width", "aspectRatio", "rimDiameter",
+            "season", "vehicleType", "price", "stockQuantity", "imageUrl", "description", "fitments"};
+
+    private final ProductImportRepository importRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService importRunner = Executors.newSingleThreadExecutor();
+    private final Map<String, ProductImportJob> jobs = new LinkedHashMap<>();
+
+    @Value("${catalog.import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${catalog.import.max-errors:500}")
+    private int maxErrors = 500;
+
+    @Value("${catalog.import.history-size:20}")
+    private int historySize = 20;
+
+    @Autowired
+    public ProductImportService(ProductImportRepository importRepository,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.importRepository = importRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Copy the upload to a temporary file and queue it for import.
+     *
+     * @param format "csv" or "json"; when null it is taken from the file name
+     */
+    public ProductImportJob submit(InputStream upload, String fileName, String format) throws IOException {
+        String resolvedFormat = resolveFormat(format, fileName);
+        Path spool = Files.createTempFile("catalog-import-", "." + resolvedFormat);
+        try {
+            Files.copy(upload, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), fileName, resolvedFormat, maxErrors);
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+            while (jobs.size() > historySize) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+        importRunner.submit(() -> run(job, spool));
+        return job;
+    }
+
+    public Optional<ProductImportJob> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+    }
+
+    public List<ProductImportJob> getJobs() {
+        synchronized (jobs) {
+            List<ProductImportJob> recent = new ArrayList<>(jobs.values());
+            Collections.reverse(recent);
+            return recent;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importRunner.shutdownNow();
+    }
+
+    private void run(ProductImportJob job, Path spool) {
+        job.start();
+        long startNanos = System.nanoTime();
+        try (InputStream in = Files.newInputStream(spool)) {
+            if ("json".equals(job.getFormat())) {
+                importJson(job, in);
+            } else {
+                importCsv(job, new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+            job.finish(ProductImportJob.Status.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Catalog import {} failed after {} rows: {}", job.getJobId(), job.getRowsRead(), e.getMessage());
+            job.finish(ProductImportJob.Status.FAILED, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                logger.warn("Could not delete import spool file {}", spool);
+            }
+        }
+        logger.info("Catalog import {} ({}) {} in {} ms: {} rows, {} inserted, {} updated, {} failed",
+                job.getJobId(), job.getFileName(), job.getStatus(), (System.nanoTime() - startNanos) / 1_000_000,
+                job.getRowsRead(), job.getInserted(), job.getUpdated(), job.getFailed());
+    }
+
+    private void importCsv(ProductImportJob job, Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        Map<Integer, String> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            for (String column : COLUMNS) {
+                if (column.equalsIgnoreCase(name)) {
+                    columns.put(i, column);
+                }
+            }
+        }
+        if (!columns.containsValue("productName")) {
+            throw new IllegalArgumentException("CSV header must contain a productName column");
+        }
+
+        List<ProductImportRow> batch = new ArrayList<>(batchSize);
+        while (true) {
+            long rowNumber = csv.getLineNumber();
+            List<String> record = csv.readRecord();
+            if (record == null) {
+                break;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            for (int i = 0; i < record.size(); i++) {
+                String column = columns.get(i);
+                if (column != null && !record.get(i).isBlank()) {
+                    node.put(column, record.get(i).trim());
+                }
+            }
+            accept(job, rowNumber, node, batch);
+        }
+        flush(job, batch);
+    }
+
+    private void importJson(ProductImportJob job, InputStream in) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of product objects");
+            }
+            List<ProductImportRow> batch = new ArrayList<>(batchSize);
+            long rowNumber = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                rowNumber++;
+                JsonNode node = objectMapper.readTree(parser);
+                accept(job, rowNumber, node, batch);
+            }
+            flush(job, batch);
+        }
+    }
+
+    private void accept(ProductImportJob job, long rowNumber, JsonNode node, List<ProductImportRow> batch) {
+        job.rowRead();
+        try {
+            batch.add(toRow(rowNumber, node));
+        } catch (IllegalArgumentException | IOException e) {
+            job.addError(rowNumber, e.getMessage());
+            return;
+        }
+        if (batch.size() >= batchSize) {
+            flush(job, batch);
+        }
+    }
+
+    private ProductImportRow toRow(long rowNumber, JsonNode node) throws IOException {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Row is not an object");
+        }
+        String name = text(node, "productName");
+        if (name == null) {
+            throw new IllegalArgumentException("productName is required");
+        }
+        Integer price = integer(node, "price");
+        Integer stock = integer(node, "stockQuantity");
+        if (price != null && price < 0) {
+            throw new IllegalArgumentException("price must not be negative");
+        }
+        if (stock != null && stock < 0) {
+            throw new IllegalArgumentException("stockQuantity must not be negative");
+        }
+
+        List<ProductFitment> fitments = null;
+        JsonNode fitmentsNode = node.get("fitments");
+        if (fitmentsNode != null && !fitmentsNode.isNull()) {
+            // CSV carries fitments as a JSON array in a single column
+            if (fitmentsNode.isTextual()) {
+                fitmentsNode = objectMapper.readTree(fitmentsNode.asText());
+            }
+            try {
+                fitments = Arrays.asList(objectMapper.treeToValue(fitmentsNode, ProductFitment[].class));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("fitments must be a JSON array of {make, model, year, trim}");
+            }
+        }
+
+        return new ProductImportRow(rowNumber, name, text(node, "productModel"),
+                intOrZero(node, "width"), intOrZero(node, "aspectRatio"), intOrZero(node, "rimDiameter"),
+                parseSeason(text(node, "season")), parseVehicleType(text(node, "vehicleType")),
+                price, stock, text(node, "imageUrl"), text(node, "description"), fitments);
+    }
+
+    /**
+     * Upsert one batch in its own transaction. If the batch fails every row in it is reported and the
+     * import carries on with the next batch.
+     */
+    private void flush(ProductImportJob job, List<ProductImportRow> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> upsertBatch(job, batch));
+        } catch (Exception e) {
+            logger.warn("Catalog import {} batch failed: {}", job.getJobId(), e.getMessage());
+            for (ProductImportRow row : batch) {
+                job.addError(row.getRowNumber(), "Batch failed: " + e.getMessage());
+            }
+        }
+        batch.clear();
+    }
+
+    private void upsertBatch(ProductImportJob job, List<ProductImportRow> batch) {
+        // The last row for a key wins when a file repeats a product
+        Map<String, ProductImportRow> byKey = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (ProductImportRow row : batch) {
+            byKey.put(row.getKey(), row);
+            names.add(row.getProductName().trim());
+        }
+
+        Map<String, long[]> existing = importRepository.findByCatalogKeys(names);
+        List<ProductImportRow> inserts = new ArrayList<>();
+        List<ProductImportRow> updates = new ArrayList<>();
+        List<Long> updateIds = new ArrayList<>();
+        for (Map.Entry<String, ProductImportRow> entry : byKey.entrySet()) {
+            long[] match = existing.get(entry.getKey());
+            if (match == null) {
+                inserts.add(entry.getValue());
+            } else {
+                updates.add(entry.getValue());
+                updateIds.add(match[0]);
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            importRepository.updateProducts(updates, updateIds);
+        }
+        Map<String, long[]> inserted = new HashMap<>();
+        if (!inserts.isEmpty()) {
+            importRepository.insertProducts(inserts);
+            Set<String> insertedNames = new HashSet<>();
+            for (ProductImportRow row : inserts) {
+                insertedNames.add(row.getProductName().trim());
+            }
+            inserted = importRepository.findByCatalogKeys(insertedNames);
+        }
+
+        Map<Long, List<ProductFitment>> fitments = new HashMap<>();
+        for (int i = 0; i < updates.size(); i++) {
+            ProductImportRow row = updates.get(i);
+            Long productId = updateIds.get(i);
+            if (row.getFitments() != null) {
+                fitments.put(productId, row.getFitments());
+            }
+            int stock = row.getStockQuantity() != null ? row.getStockQuantity() : (int) existing.get(row.getKey())[1];
+            eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.UPDATED, stock));
+        }
+        for (ProductImportRow row : inserts) {
+            long[] match = inserted.get(row.getKey());
+            if (match == null) {
+                continue;
+            }
+            if (row.getFitments() != null) {
+                fitments.put(match[0], row.getFitments());
+            }
+            eventPublisher.publishEvent(new ProductChangedEvent(match[0], ChangeType.CREATED, (int) match[1]));
+        }
+        importRepository.replaceFitments(fitments);
+
+        // Counted per distinct product; a key repeated in the batch is written once
+        job.addInserted(inserts.size());
+        job.addUpdated(updates.size());
+    }
+
+    private static String resolveFormat(String format, String fileName) {
+        String candidate = format;
+        if ((candidate == null || candidate.isBlank()) && fileName != null && fileName.contains(".")) {
+            candidate = fileName.substring(fileName.lastIndexOf('.') + 1);
+        }
+        if (candidate != null && candidate.trim().equalsIgnoreCase("json")) {
+            return "json";
+        }
+        if (candidate == null || candidate.isBlank() || candidate.trim().equalsIgnoreCase("csv")) {
+            return "csv";
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + candidate);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static Integer integer(JsonNode node, String field) {
+        String text = text(node, field);
+        if (text == null) {
+            return null;
+        }
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + text);
+        }
+        // NaN, Infinity and out-of-range values would otherwise be cast to 0 or Integer.MAX_VALUE
+        if (!Double.isFinite(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(field + " is not a valid number: " + text);
+        }
+        // Prices may come with cents; the catalogue stores whole rand like Product.setPrice
+        return (int) value;
+    }
+
+    private static int intOrZero(JsonNode node, String field) {
+        Integer value = integer(node, field);
+        return value != null ? value : 0;
+    }
+
+    private static Season parseSeason(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (Season season : Season.values()) {
+            if (season.name().equalsIgnoreCase(value.replace(' ', '_'))) {
+                return season;
+            }
+        }
+        throw new IllegalArgumentException("Unknown season: " + value);
+    }
+
+    private static VehicleType parseVehicleType(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (VehicleType type : VehicleType.values()) {
+            if (type.name().equalsIgnoreCase(value.replace(' ', '_'))) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown vehicle type: " + value);
+    }
+}
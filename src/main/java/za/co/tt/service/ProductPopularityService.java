@@ -0,0 +1,392 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Enum.Season;
+import za.co.tt.domain.Enum.VehicleType;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.TrendingProduct;
+import za.co.tt.repository.IProductRepository;
+import za.co.tt.repository.ProductPopularityRepository;
+import za.co.tt.repository.SalesRollupRepository;
+import za.co.tt.util.SlidingWindowCounter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * "Trending tyres": products ranked by recent interest.
+ *
+ * Product views, add-to-carts and purchased units are added, weighted, to a per-product sliding
+ * window of time buckets (product.trending.bucket-minutes each, product.trending.buckets of them);
+ * a product's score sums the window with each bucket halving in weight every half-life. Every
+ * refresh-ms the scores are recomputed and a top-K heap is filled for all products, each Season and
+ * each VehicleType, so /api/products/trending reads a ready list.
+ *
+ * Score added since the last snapshot is written to product_popularity every snapshot-ms (and on
+ * shutdown) and read back on startup, so a restart keeps the ranking. Each node counts its own
+ * traffic; persisted scores from every node are merged when a node starts.
+ */
+@Service
+public class ProductPopularityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPopularityService.class);
+
+    private static final String ALL = "ALL";
+    private static final int CATEGORY_BATCH = 1000;
+
+    private final ProductPopularityRepository popularityRepository;
+    private final IProductRepository productRepository;
+    private final SalesRollupRepository rollupRepository;
+    private final ProductSnapshotCache snapshotCache;
+    private final DeferredStartupService deferredStartupService;
+
+    private final Map<Long, Popularity> products = new ConcurrentHashMap<>();
+    // Score not yet written, per bucket and product
+    private final Map<Long, Map<Long, LongAdder>> unsaved = new ConcurrentHashMap<>();
+    private volatile Map<String, List<Ranked>> rankings = Map.of();
+    private volatile long rankedAt;
+    private final Object snapshotLock = new Object();
+
+    @Value("${product.trending.bucket-minutes:60}")
+    private int bucketMinutes = 60;
+
+    @Value("${product.trending.buckets:24}")
+    private int bucketCount = 24;
+
+    @Value("${product.trending.half-life-minutes:360}")
+    private int halfLifeMinutes = 360;
+
+    @Value("${product.trending.top-k:50}")
+    private int topK = 50;
+
+    @Value("${product.trending.view-weight:1}")
+    private int viewWeight = 1;
+
+    @Value("${product.trending.cart-weight:3}")
+    private int cartWeight = 3;
+
+    @Value("${product.trending.purchase-weight:10}")
+    private int purchaseWeight = 10;
+
+    @Autowired
+    public ProductPopularityService(ProductPopularityRepository popularityRepository,
+                                    IProductRepository productRepository,
+                                    SalesRollupRepository rollupRepository,
+                                    ProductSnapshotCache snapshotCache,
+                                    DeferredStartupService deferredStartupService) {
+        this.popularityRepository = popularityRepository;
+        this.productRepository = productRepository;
+        this.rollupRepository = rollupRepository;
+        this.snapshotCache = snapshotCache;
+        this.deferredStartupService = deferredStartupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOnStartup() {
+        deferredStartupService.run("trending-restore", this::restore);
+    }
+
+    public void recordView(Product product) {
+        record(product.getProductId(), viewWeight, product.getSeason(), product.getVehicleType());
+    }
+
+    public void recordAddToCart(Long productId) {
+        record(productId, cartWeight, null, null);
+    }
+
+    /**
+     * New orders count as purchases of each line's units; later status changes are not interest.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null
+                || event.getPreviousStatus() != null || OrderStatus.CANCELLED.name().equals(event.getStatus())) {
+            return;
+        }
+        try {
+            for (Object[] line : rollupRepository.findOrderLineFacts(event.getOrderId())) {
+                if (line[1] != null && line[4] != null) {
+                    record(((Number) line[1]).longValue(), purchaseWeight * ((Number) line[4]).longValue(),
+                            parse(Season.class, line[2]), parse(VehicleType.class, line[3]));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to record purchases of order {}: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getProductId() == null) {
+            return;
+        }
+        switch (event.getChangeType()) {
+            case DELETED -> products.remove(event.getProductId());
+            case UPDATED -> {
+                // Season or vehicle type may have changed; looked up again on the next refresh
+                Popularity popularity = products.get(event.getProductId());
+                if (popularity != null) {
+                    popularity.categoryKnown = false;
+                }
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * The top products overall, for one season or for one vehicle type.
+     *
+     * @throws IllegalArgumentException if both season and vehicleType are given
+     */
+    public Map<String, Object> getTrending(Season season, VehicleType vehicleType, int limit) {
+        if (season != null && vehicleType != null) {
+            throw new IllegalArgumentException("Filter by season or by vehicleType, not both");
+        }
+        String group = season != null ? seasonGroup(season) : vehicleType != null ? vehicleTypeGroup(vehicleType) : ALL;
+        int size = Math.max(1, Math.min(topK, limit));
+        List<Ranked> ranked = rankings.getOrDefault(group, List.of());
+
+        Map<Long, ProductSummary> summaries = snapshotCache.getAll(ranked.stream().map(entry -> entry.productId).toList());
+        List<TrendingProduct> items = new ArrayList<>(size);
+        for (Ranked entry : ranked) {
+            ProductSummary summary = summaries.get(entry.productId);
+            // Absent if the product was deleted since the last refresh
+            if (summary != null) {
+                items.add(new TrendingProduct(summary, entry.score));
+                if (items.size() == size) {
+                    break;
+                }
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("group", group);
+        result.put("items", items);
+        result.put("rankedAt", rankedAt > 0 ? Instant.ofEpochMilli(rankedAt).toString() : null);
+        result.put("windowHours", (double) bucketMinutes * bucketCount / 60);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${product.trending.refresh-ms:30000}", initialDelayString = "${product.trending.refresh-ms:30000}")
+    public void refreshRankings() {
+        resolveCategories();
+        long bucket = currentBucket();
+        double decay = Math.pow(0.5, (double) bucketMinutes / halfLifeMinutes);
+
+        // Min-heaps of size topK: the weakest entry is evicted when a stronger one arrives
+        Map<String, PriorityQueue<Ranked>> heaps = new HashMap<>();
+        for (Map.Entry<Long, Popularity> entry : products.entrySet()) {
+            Popularity popularity = entry.getValue();
+            double score = popularity.counter.decayedSum(bucket, decay);
+            if (score <= 0) {
+                // Nothing left in the window; a new event recreates the entry
+                products.remove(entry.getKey(), popularity);
+                continue;
+            }
+            Ranked ranked = new Ranked(entry.getKey(), score);
+            offer(heaps, ALL, ranked);
+            if (popularity.season != null) {
+                offer(heaps, seasonGroup(popularity.season), ranked);
+            }
+            if (popularity.vehicleType != null) {
+                offer(heaps, vehicleTypeGroup(popularity.vehicleType), ranked);
+            }
+        }
+
+        Map<String, List<Ranked>> fresh = new HashMap<>();
+        heaps.forEach((group, heap) -> {
+            List<Ranked> list = new ArrayList<>(heap);
+            list.sort(Comparator.comparingDouble((Ranked ranked) -> ranked.score).reversed()
+                    .thenComparingLong(ranked -> ranked.productId));
+            fresh.put(group, List.copyOf(list));
+        });
+        rankings = fresh;
+        rankedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Add the score recorded since the last snapshot to product_popularity and drop rows that have
+     * left the window. On failure the score is kept for the next snapshot.
+     */
+    @Scheduled(fixedDelayString = "${product.trending.snapshot-ms:300000}", initialDelayString = "${product.trending.snapshot-ms:300000}")
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            long current = currentBucket();
+            List<long[]> deltas = new ArrayList<>();
+            for (Map.Entry<Long, Map<Long, LongAdder>> bucket : unsaved.entrySet()) {
+                bucket.getValue().forEach((productId, score) -> {
+                    long delta = score.sumThenReset();
+                    if (delta > 0) {
+                        deltas.add(new long[]{productId, bucket.getKey(), delta});
+                    }
+                });
+                if (bucket.getKey() < current) {
+                    // Past buckets take no more events, short of an add racing the bucket boundary
+                    unsaved.remove(bucket.getKey());
+                }
+            }
+            if (!deltas.isEmpty()) {
+                try {
+                    popularityRepository.addScores(deltas);
+                } catch (Exception e) {
+                    logger.error("Failed to save {} product popularity scores, will retry: {}", deltas.size(), e.getMessage());
+                    for (long[] delta : deltas) {
+                        unsavedScore(delta[1], delta[0]).add(delta[2]);
+                    }
+                    return;
+                }
+            }
+            try {
+                popularityRepository.deleteBefore(current - bucketCount + 1);
+            } catch (Exception e) {
+                logger.warn("Failed to prune product popularity: {}", e.getMessage());
+            }
+            logger.debug("Saved {} product popularity scores", deltas.size());
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private void restore() {
+        long startMillis = System.currentTimeMillis();
+        int[] rows = {0};
+        popularityRepository.forEachScore(currentBucket() - bucketCount + 1, (productId, bucket, score) -> {
+            popularity(productId).counter.add(bucket, score);
+            rows[0]++;
+        });
+        refreshRankings();
+        logger.info("Restored trending scores from {} rows for {} products in {} ms",
+                rows[0], products.size(), System.currentTimeMillis() - startMillis);
+    }
+
+    private void record(Long productId, long score, Season season, VehicleType vehicleType) {
+        if (productId == null || score <= 0) {
+            return;
+        }
+        long bucket = currentBucket();
+        Popularity popularity = popularity(productId);
+        if (season != null || vehicleType != null) {
+            popularity.season = season;
+            popularity.vehicleType = vehicleType;
+            popularity.categoryKnown = true;
+        }
+        popularity.counter.add(bucket, score);
+        unsavedScore(bucket, productId).add(score);
+    }
+
+    private Popularity popularity(long productId) {
+        return products.computeIfAbsent(productId, id -> new Popularity(bucketCount));
+    }
+
+    private LongAdder unsavedScore(long bucket, long productId) {
+        return unsaved.computeIfAbsent(bucket, b -> new ConcurrentHashMap<>())
+                .computeIfAbsent(productId, id -> new LongAdder());
+    }
+
+    /**
+     * Look up season and vehicle type for products only known from cart adds or restored scores.
+     */
+    private void resolveCategories() {
+        List<Long> unknown = new ArrayList<>();
+        products.forEach((productId, popularity) -> {
+            if (!popularity.categoryKnown) {
+                unknown.add(productId);
+            }
+        });
+        for (int from = 0; from < unknown.size(); from += CATEGORY_BATCH) {
+            Set<Long> missing = new HashSet<>(unknown.subList(from, Math.min(unknown.size(), from + CATEGORY_BATCH)));
+            for (Object[] row : productRepository.findCategoriesByIds(missing)) {
+                missing.remove((Long) row[0]);
+                Popularity popularity = products.get((Long) row[0]);
+                if (popularity != null) {
+                    popularity.season = (Season) row[1];
+                    popularity.vehicleType = (VehicleType) row[2];
+                    popularity.categoryKnown = true;
+                }
+            }
+            // Deleted products
+            missing.forEach(products::remove);
+        }
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / (bucketMinutes * 60_000L);
+    }
+
+    private void offer(Map<String, PriorityQueue<Ranked>> heaps, String group, Ranked ranked) {
+        PriorityQueue<Ranked> heap = heaps.computeIfAbsent(group,
+                g -> new PriorityQueue<>(Comparator.comparingDouble((Ranked entry) -> entry.score)));
+        if (heap.size() < topK) {
+            heap.add(ranked);
+        } else if (ranked.score > heap.peek().score) {
+            heap.poll();
+            heap.add(ranked);
+        }
+    }
+
+    private static String seasonGroup(Season season) {
+        return "season:" + season.name();
+    }
+
+    private static String vehicleTypeGroup(VehicleType vehicleType) {
+        return "vehicleType:" + vehicleType.name();
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static final class Popularity {
+        private final SlidingWindowCounter counter;
+        private volatile Season season;
+        private volatile VehicleType vehicleType;
+        private volatile boolean categoryKnown;
+
+        private Popularity(int buckets) {
+            this.counter = new SlidingWindowCounter(buckets);
+        }
+    }
+
+    private static final class Ranked {
+        private final long productId;
+        private final double score;
+
+        private Ranked(long productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package za.co.tt.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductChangedEvent.ChangeType;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockAvailabilityDto;
+import za.co.tt.domain.StockCheckItem;
 import za.co.tt.domain.Enum.Season;
 import za.co.tt.domain.Enum.VehicleType;
 import za.co.tt.repository.IProductRepository;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
 public class ProductService implements IProductService {
 
     private final IProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSnapshotCache productSnapshotCache;
 
     @Autowired
-    public ProductService(IProductRepository productRepository) {
+    public ProductService(IProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                          ProductSnapshotCache productSnapshotCache) {
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.productSnapshotCache = productSnapshotCache;
     }
 
     @Override
@@ -45,7 +60,9 @@ public class ProductService implements IProductService {
         if (product.getProductId() != null) {
             throw new IllegalArgumentException("Product ID must be null for new product");
         }
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        publishChange(saved, ChangeType.CREATED);
+        return saved;
     }
 
     @Override
@@ -63,7 +80,9 @@ public class ProductService implements IProductService {
                     existingProduct.setStockQuantity(product.getStockQuantity());
                     existingProduct.setImageUrl(product.getImageUrl());
                     existingProduct.setDescription(product.getDescription());
-                    return productRepository.save(existingProduct);
+                    Product saved = productRepository.save(existingProduct);
+                    publishChange(saved, ChangeType.UPDATED);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
@@ -74,6 +93,7 @@ public class ProductService implements IProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.DELETED, 0));
     }
 
     @Override
@@ -117,8 +137,91 @@ public class ProductService implements IProductService {
         return productRepository.findById(id)
                 .map(product -> {
                     product.setStockQuantity(newStockQuantity);
-                    return productRepository.save(product);
+                    Product saved = productRepository.save(product);
+                    publishChange(saved, ChangeType.STOCK);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
     }
+
+    /**
+     * Load managed products for the given ids in a single query. Missing ids are simply absent.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return productRepository.findAllById(ids);
+    }
+
+    /**
+     * Price/stock snapshots for the given ids in request order, served from the snapshot cache.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getProductSummaries(List<Long> ids) {
+        return new ArrayList<>(productSnapshotCache.getAll(ids).values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockAvailabilityDto> checkStock(List<StockCheckItem> items) {
+        List<Long> ids = new ArrayList<>(items.size());
+        for (StockCheckItem item : items) {
+            ids.add(item.getProductId());
+        }
+        Map<Long, ProductSummary> products = productSnapshotCache.getAll(ids);
+
+        List<StockAvailabilityDto> result = new ArrayList<>(items.size());
+        for (StockCheckItem item : items) {
+            ProductSummary product = products.get(item.getProductId());
+            result.add(product != null
+                    ? StockAvailabilityDto.of(product, item.getQuantity())
+                    : StockAvailabilityDto.notFound(item.getProductId(), item.getQuantity()));
+        }
+        return result;
+    }
+
+    /**
+     * Persist stock changes made to already-loaded products in one batch.
+     */
+    @Override
+    public List<Product> saveStockQuantities(Collection<Product> products) {
+        List<Product> saved = productRepository.saveAll(products);
+        for (Product product : saved) {
+            publishChange(product, ChangeType.STOCK);
+        }
+        return saved;
+    }
+
+    /**
+     * Add units to several products' stock with one atomic increment each, in product id order so
+     * concurrent callers lock rows in the same order.
+     * @return the resulting stock quantity per product
+     * @throws RuntimeException if a product does not exist
+     */
+    @Override
+    public Map<Long, Integer> addStockQuantities(Map<Long, Integer> quantities) {
+        Map<Long, Integer> stock = new TreeMap<>();
+        if (quantities.isEmpty()) {
+            return stock;
+        }
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            if (productRepository.addStock(entry.getKey(), entry.getValue()) == 0) {
+                throw new RuntimeException("Product not found with id: " + entry.getKey());
+            }
+        }
+        for (Object[] row : productRepository.findStockQuantities(quantities.keySet())) {
+            Long productId = (Long) row[0];
+            stock.put(productId, (Integer) row[1]);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.STOCK, (Integer) row[1]));
+        }
+        return stock;
+    }
+
+    private void publishChange(Product product, ChangeType changeType) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getProductId(), changeType, product.getStockQuantity()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package za.co.tt.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.repository.IProductRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short-lived in-memory cache of product price/stock snapshots.
+ * Misses are resolved with a single projection query for the whole batch;
+ * ProductService refreshes or evicts entries whenever a product is written.
+ * At max-entries the least recently used snapshot is dropped.
+ */
+@Service
+public class ProductSnapshotCache {
+
+    private final IProductRepository productRepository;
+    private final Map<Long, Entry> entries;
+
+    @Value("${product.snapshot.ttl-ms:5000}")
+    private long ttlMillis = 5000;
+
+    @Value("${product.snapshot.max-entries:20000}")
+    private int maxEntries = 20000;
+
+    @Autowired
+    public ProductSnapshotCache(IProductRepository productRepository) {
+        this.productRepository = productRepository;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Get snapshots for the given ids, preserving request order. Unknown ids are absent from the result.
+     */
+    public Map<Long, ProductSummary> getAll(Collection<Long> productIds) {
+        Map<Long, ProductSummary> result = new LinkedHashMap<>();
+        List<Long> misses = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (Long id : productIds) {
+            if (id == null || result.containsKey(id)) {
+                continue;
+            }
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                result.put(id, entry.summary);
+            } else {
+                result.put(id, null);
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            for (ProductSummary summary : productRepository.findSummariesByIds(misses)) {
+                put(summary);
+                result.put(summary.getProductId(), summary);
+            }
+        }
+
+        result.values().removeIf(summary -> summary == null);
+        return result;
+    }
+
+    public ProductSummary get(Long productId) {
+        return getAll(List.of(productId)).get(productId);
+    }
+
+    public void put(ProductSummary summary) {
+        entries.put(summary.getProductId(), new Entry(summary, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void evict(Long productId) {
+        entries.remove(productId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.getProductId());
+    }
+
+    public void evictAll() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final ProductSummary summary;
+        private final long expiresAt;
+
+        private Entry(ProductSummary summary, long expiresAt) {
+            this.summary = summary;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
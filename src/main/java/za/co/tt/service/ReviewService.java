@@ -7,17 +7,28 @@ import za.co.tt.domain.Product;
 import za.co.tt.domain.Order;
 import za.co.tt.domain.OrderItem;
 import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Enum.ReviewSort;
+import za.co.tt.domain.ReviewSummary;
 import za.co.tt.repository.ReviewRepository;
 import za.co.tt.repository.OrderRepository;
 import za.co.tt.repository.IProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class ReviewService implements IReviewService {
@@ -27,14 +38,44 @@ public class ReviewService implements IReviewService {
     private final ReviewRepository reviewRepository;
     private final OrderRepository orderRepository;
     private final IProductRepository productRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final ReviewVoteService reviewVoteService;
+
+    // First page per product and sort; evicted on every review write for the product. The TTL bounds
+    // how long another node's writes stay invisible here. Access-ordered, so the eldest entry is the
+    // product whose pages were read least recently.
+    private final Map<Long, Map<ReviewSort, CachedPage>> firstPages;
+    private final AtomicLong reviewWrites = new AtomicLong();
+
+    @Value("${review.page.default-size:10}")
+    private int defaultPageSize = 10;
+
+    @Value("${review.page.max-size:50}")
+    private int maxPageSize = 50;
+
+    @Value("${review.first-page-cache.ttl-ms:60000}")
+    private long firstPageTtlMillis = 60000;
+
+    @Value("${review.first-page-cache.max-products:5000}")
+    private int maxCachedProducts = 5000;
 
     @Autowired
     public ReviewService(ReviewRepository reviewRepository, 
                         OrderRepository orderRepository,
-                        IProductRepository productRepository) {
+                        IProductRepository productRepository,
+                        OrderArchiveService orderArchiveService,
+                        ReviewVoteService reviewVoteService) {
         this.reviewRepository = reviewRepository;
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.reviewVoteService = reviewVoteService;
+        this.firstPages = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<ReviewSort, CachedPage>> eldest) {
+                return size() > maxCachedProducts;
+            }
+        });
     }
 
     @Override
@@ -49,12 +90,19 @@ public class ReviewService implements IReviewService {
 
     @Override
     public Review createReview(Review review) {
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        evictFirstPages(saved.getProduct() != null ? saved.getProduct().getProductId() : null);
+        return saved;
     }
     
     public Review createReviewFromDto(ReviewDto reviewDto, User user) {
         // Validate that the order exists and belongs to the user
         Optional<Order> orderOpt = orderRepository.findById(reviewDto.getOrderId());
+        if (orderOpt.isEmpty() && isArchivedOrderOfUser(reviewDto.getOrderId(), user.getUserId())) {
+            // The review references the order by foreign key, so bring an archived order back first
+            orderArchiveService.restoreOrder(reviewDto.getOrderId());
+            orderOpt = orderRepository.findById(reviewDto.getOrderId());
+        }
         if (orderOpt.isEmpty()) {
             throw new IllegalArgumentException("Order not found");
         }
@@ -108,12 +156,14 @@ public class ReviewService implements IReviewService {
                 .setReviewDate(LocalDateTime.now())
                 .build();
         
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        evictFirstPages(product.getProductId());
+        return saved;
     }
     
     public boolean canUserReviewProduct(Long userId, Long productId) {
         // Check if user has any completed orders containing this product
-        List<Order> completedOrders = orderRepository.findByUser_UserIdAndOrderStatus(userId, OrderStatus.COMPLETED);
+        List<Order> completedOrders = findCompletedOrders(userId);
         
         for (Order order : completedOrders) {
             for (OrderItem item : order.getOrderItems()) {
@@ -126,6 +176,21 @@ public class ReviewService implements IReviewService {
         return false;
     }
     
+    /**
+     * Completed orders from the live tables followed by archived ones.
+     */
+    private List<Order> findCompletedOrders(Long userId) {
+        List<Order> completedOrders = new ArrayList<>(orderRepository.findByUser_UserIdAndOrderStatus(userId, OrderStatus.COMPLETED));
+        completedOrders.addAll(orderArchiveService.findArchivedOrdersByUserAndStatus(userId, OrderStatus.COMPLETED));
+        return completedOrders;
+    }
+
+    private boolean isArchivedOrderOfUser(Long orderId, Long userId) {
+        return orderArchiveService.findArchivedOrder(orderId)
+                .map(order -> order.getUser() != null && order.getUser().getUserId().equals(userId))
+                .orElse(false);
+    }
+    
     public boolean hasUserReviewedProduct(Long userId, Long productId) {
         return reviewRepository.existsByUser_UserIdAndProduct_ProductId(userId, productId);
     }
@@ -135,13 +200,16 @@ public class ReviewService implements IReviewService {
     }
     
     public List<Order> getReviewableOrdersForUser(Long userId) {
-        // Get all completed orders for the user
-        return orderRepository.findByUser_UserIdAndOrderStatus(userId, OrderStatus.COMPLETED);
+        // Get all completed orders for the user, including archived ones
+        return findCompletedOrders(userId);
     }
     
     public List<Product> getReviewableProductsForOrder(Long orderId) {
         // Get the order and return products that haven't been reviewed yet
         Optional<Order> orderOpt = orderRepository.findById(orderId);
+        if (orderOpt.isEmpty()) {
+            orderOpt = orderArchiveService.findArchivedOrder(orderId);
+        }
         if (orderOpt.isEmpty()) {
             return List.of();
         }
@@ -168,7 +236,7 @@ public class ReviewService implements IReviewService {
     }
     
     public List<Product> getReviewableProductsForUser(Long userId) {
-        List<Order> completedOrders = orderRepository.findByUser_UserIdAndOrderStatus(userId, OrderStatus.COMPLETED);
+        List<Order> completedOrders = findCompletedOrders(userId);
         
         return completedOrders.stream()
                 .flatMap(order -> order.getOrderItems().stream())
@@ -188,8 +256,14 @@ public class ReviewService implements IReviewService {
         if (!reviewRepository.existsById(id)) {
             throw new RuntimeException("Review not found with id: " + id);
         }
+        Long previousProductId = reviewRepository.findProductIdByReviewId(id);
         review.setReviewId(id);
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        evictFirstPages(previousProductId);
+        if (saved.getProduct() != null) {
+            evictFirstPages(saved.getProduct().getProductId());
+        }
+        return saved;
     }
 
     @Override
@@ -197,7 +271,10 @@ public class ReviewService implements IReviewService {
         if (!reviewRepository.existsById(id)) {
             throw new RuntimeException("Review not found with id: " + id);
         }
+        Long productId = reviewRepository.findProductIdByReviewId(id);
         reviewRepository.deleteById(id);
+        evictFirstPages(productId);
+        reviewVoteService.forgetReview(id, productId);
     }
 
     @Override
@@ -205,6 +282,154 @@ public class ReviewService implements IReviewService {
     return reviewRepository.findByProduct_ProductId(productId);
     }
 
+    /**
+     * One page of a product's reviews as lightweight summaries, using keyset pagination: pass the
+     * returned nextCursor to get the following page. First pages at the default size are served
+     * from memory, except for HELPFUL, whose order moves with every vote. Helpful counts are added
+     * to the items on every call so cached pages still show current votes.
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by the same sort
+     */
+    public Map<String, Object> getReviewPage(Long productId, ReviewSort sort, String cursor, Integer limit) {
+        int pageSize = limit != null ? Math.max(1, Math.min(maxPageSize, limit)) : defaultPageSize;
+        if (sort == ReviewSort.HELPFUL) {
+            return loadPage(productId, sort, cursor, pageSize);
+        }
+        boolean cacheable = cursor == null && pageSize == defaultPageSize;
+        if (cacheable) {
+            CachedPage cached = firstPages.getOrDefault(productId, Map.of()).get(sort);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return withHelpfulCounts(productId, cached.page);
+            }
+        }
+
+        long writesBefore = reviewWrites.get();
+        Map<String, Object> page = loadPage(productId, sort, cursor, pageSize);
+        // Skip caching if a review was written while loading; the page may already be stale
+        if (cacheable && reviewWrites.get() == writesBefore) {
+            firstPages.computeIfAbsent(productId, id -> Collections.synchronizedMap(new EnumMap<>(ReviewSort.class)))
+                    .put(sort, new CachedPage(page, System.currentTimeMillis() + firstPageTtlMillis));
+        }
+        return withHelpfulCounts(productId, page);
+    }
+
+    private Map<String, Object> loadPage(Long productId, ReviewSort sort, String cursor, int pageSize) {
+        // One extra row tells whether there is a next page
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        long[] position = parseCursor(sort, cursor);
+        List<ReviewSummary> rows = switch (sort) {
+            case NEWEST -> reviewRepository.findNewestPage(productId, position[1], limit);
+            case HIGHEST -> reviewRepository.findHighestPage(productId, (int) position[0], position[1], limit);
+            case LOWEST -> reviewRepository.findLowestPage(productId, (int) position[0], position[1], limit);
+            case HELPFUL -> findMostHelpfulPage(productId, position[0], position[1], pageSize + 1);
+        };
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ReviewSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ReviewSummary last = items.get(items.size() - 1);
+            nextCursor = switch (sort) {
+                case NEWEST -> String.valueOf(last.getReviewId());
+                case HIGHEST, LOWEST -> last.getRating() + "." + last.getReviewId();
+                case HELPFUL -> last.getHelpfulCount() + "." + last.getReviewId();
+            };
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("items", List.copyOf(items));
+        page.put("nextCursor", nextCursor);
+        page.put("sort", sort);
+        page.put("limit", pageSize);
+        return Collections.unmodifiableMap(page);
+    }
+
+    /**
+     * Reviews ranked after (helpfulCount, beforeId) by the merged vote counts, in ranking order.
+     * The ranking covers every review of the product but holds only ids and counts; summaries are
+     * loaded for the page alone.
+     */
+    private List<ReviewSummary> findMostHelpfulPage(Long productId, long helpfulCount, long beforeId, int rows) {
+        List<long[]> page = new ArrayList<>();
+        for (long[] entry : reviewVoteService.rankByHelpfulness(productId)) {
+            if (entry[1] < helpfulCount || (entry[1] == helpfulCount && entry[0] < beforeId)) {
+                page.add(entry);
+                if (page.size() == rows) {
+                    break;
+                }
+            }
+        }
+        if (page.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ReviewSummary> summaries = new HashMap<>();
+        for (ReviewSummary summary : reviewRepository.findSummariesByIds(page.stream().map(entry -> entry[0]).toList())) {
+            summaries.put(summary.getReviewId(), summary);
+        }
+        List<ReviewSummary> ordered = new ArrayList<>(page.size());
+        for (long[] entry : page) {
+            ReviewSummary summary = summaries.get(entry[0]);
+            // Missing if the review was deleted after the ranking was loaded
+            if (summary != null) {
+                ordered.add(summary.withHelpfulCount(entry[1]));
+            }
+        }
+        return ordered;
+    }
+
+    private Map<String, Object> withHelpfulCounts(Long productId, Map<String, Object> page) {
+        @SuppressWarnings("unchecked")
+        List<ReviewSummary> items = (List<ReviewSummary>) page.get("items");
+        if (items.isEmpty()) {
+            return page;
+        }
+        Map<String, Object> counted = new LinkedHashMap<>(page);
+        counted.put("items", items.stream()
+                .map(item -> item.withHelpfulCount(reviewVoteService.getHelpfulCount(productId, item.getReviewId())))
+                .toList());
+        return counted;
+    }
+
+    /**
+     * {rating or helpful count, reviewId} to continue after; the first page starts past either end
+     * of the order.
+     */
+    private static long[] parseCursor(ReviewSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return switch (sort) {
+                case NEWEST, HIGHEST -> new long[]{Integer.MAX_VALUE, Long.MAX_VALUE};
+                case HELPFUL -> new long[]{Long.MAX_VALUE, Long.MAX_VALUE};
+                case LOWEST -> new long[]{Integer.MIN_VALUE, Long.MIN_VALUE};
+            };
+        }
+        try {
+            if (sort == ReviewSort.NEWEST) {
+                return new long[]{0, Long.parseLong(cursor)};
+            }
+            int dot = cursor.indexOf('.');
+            return new long[]{Long.parseLong(cursor.substring(0, dot)), Long.parseLong(cursor.substring(dot + 1))};
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor for sort " + sort + ": " + cursor);
+        }
+    }
+
+    private void evictFirstPages(Long productId) {
+        reviewWrites.incrementAndGet();
+        if (productId != null) {
+            firstPages.remove(productId);
+        }
+    }
+
+    private static final class CachedPage {
+        private final Map<String, Object> page;
+        private final long expiresAt;
+
+        private CachedPage(Map<String, Object> page, long expiresAt) {
+            this.page = page;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     @Override
     public List<Review> getReviewsByRating(int rating) {
         return reviewRepository.findByRating(rating);
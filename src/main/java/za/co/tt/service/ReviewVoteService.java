@@ -0,0 +1,389 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.repository.ReviewVoteRepository;
+import za.co.tt.util.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Was this review helpful?" votes.
+ *
+ * A vote only touches memory: the voter is checked against the review's voter set, the review's
+ * pending count is bumped and the vote is queued. Every review.votes.flush-ms the queue
+ * is written in one transaction: one multi-row INSERT IGNORE into review_vote per review, whose
+ * affected row count is how many votes were really new, then one batched upsert adding those counts
+ * to review_helpfulness. A popular review therefore takes one row update per flush instead of one
+ * per click, and a vote accepted twice (by two nodes, or after its voter set was evicted) is still
+ * only counted once. A batch that fails is retried on the following flushes, up to
+ * review.votes.max-flush-attempts times, and then dropped.
+ *
+ * Displayed counts are the persisted totals of the product's reviews (cached for
+ * review.votes.counts-ttl-ms) plus the votes this node has not flushed yet. Votes pending on other
+ * nodes show up once they flush and the cache expires. Voter sets and cached totals are evicted least
+ * recently used first; pending counts are kept apart from them, so they stay until their votes are
+ * written or dropped.
+ */
+@Service
+public class ReviewVoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewVoteService.class);
+
+    private static final int VOTER_STRIPES = 8;
+
+    private final ReviewVoteRepository voteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Voters per review, loaded on the first vote after startup; access-ordered, eldest evicted first
+    private final Map<Long, ReviewVotes> reviews;
+    // Unflushed votes per review; never evicted, an entry goes once its count is back to zero
+    private final Map<Long, Long> pendingCounts = new ConcurrentHashMap<>();
+    // Accepted votes not yet written
+    private final ConcurrentLinkedQueue<PendingVote> unflushed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong unflushedCount = new AtomicLong();
+    // Persisted totals per product, access-ordered; bumped counter means a load that started earlier may be stale
+    private final Map<Long, CachedCounts> persistedCounts;
+    private final AtomicLong countWrites = new AtomicLong();
+    private final Object flushLock = new Object();
+
+    private final AtomicLong votesAccepted = new AtomicLong();
+    private final AtomicLong repeatVotes = new AtomicLong();
+    private final AtomicLong votesWritten = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong votesDropped = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @Value("${review.votes.max-flush-votes:10000}")
+    private int maxFlushVotes = 10000;
+
+    @Value("${review.votes.max-flush-attempts:5}")
+    private int maxFlushAttempts = 5;
+
+    @Value("${review.votes.max-reviews:20000}")
+    private int maxTrackedReviews = 20000;
+
+    @Value("${review.votes.counts-ttl-ms:10000}")
+    private long countsTtlMillis = 10000;
+
+    @Value("${review.votes.max-products:5000}")
+    private int maxCachedProducts = 5000;
+
+    @Autowired
+    public ReviewVoteService(ReviewVoteRepository voteRepository, PlatformTransactionManager transactionManager) {
+        this.voteRepository = voteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reviews = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ReviewVotes> eldest) {
+                return size() > maxTrackedReviews;
+            }
+        });
+        this.persistedCounts = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedCounts> eldest) {
+                return size() > maxCachedProducts;
+            }
+        });
+    }
+
+    /**
+     * Mark a review as helpful for a user.
+     *
+     * @return the review's helpful count including this vote
+     * @throws IllegalArgumentException if the review does not exist or was written by the user
+     * @throws IllegalStateException    if the user has already voted on the review
+     */
+    public long vote(long reviewId, long userId) {
+        ReviewVotes votes = votesFor(reviewId);
+        if (votes.authorId != null && votes.authorId == userId) {
+            throw new IllegalArgumentException("You cannot vote on your own review");
+        }
+        if (!votes.addVoter(userId)) {
+            repeatVotes.incrementAndGet();
+            throw new IllegalStateException("You have already marked this review as helpful");
+        }
+        pendingCounts.merge(reviewId, 1L, Long::sum);
+        unflushed.add(new PendingVote(reviewId, votes.productId, userId));
+        unflushedCount.incrementAndGet();
+        votesAccepted.incrementAndGet();
+        return getHelpfulCount(votes.productId, reviewId);
+    }
+
+    public long getHelpfulCount(long productId, long reviewId) {
+        return loadPersistedCounts(productId).getOrDefault(reviewId, 0L) + pendingFor(reviewId);
+    }
+
+    /**
+     * Helpful count of every review of a product, persisted plus not yet flushed.
+     */
+    public Map<Long, Long> getHelpfulCounts(long productId) {
+        Map<Long, Long> counts = new HashMap<>(loadPersistedCounts(productId));
+        counts.replaceAll((reviewId, persisted) -> persisted + pendingFor(reviewId));
+        return counts;
+    }
+
+    /**
+     * Every review of a product as {reviewId, helpfulCount}, most helpful first and newest first
+     * among equals.
+     */
+    public List<long[]> rankByHelpfulness(long productId) {
+        List<long[]> ranking = new ArrayList<>();
+        getHelpfulCounts(productId).forEach((reviewId, count) -> ranking.add(new long[]{reviewId, count}));
+        ranking.sort(Comparator.<long[]>comparingLong(entry -> entry[1]).thenComparingLong(entry -> entry[0]).reversed());
+        return ranking;
+    }
+
+    /**
+     * Drop what is held for a deleted review. Its unflushed votes are discarded by the foreign key
+     * when they are written.
+     */
+    public void forgetReview(Long reviewId, Long productId) {
+        if (reviewId != null) {
+            reviews.remove(reviewId);
+        }
+        invalidateCounts(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${review.votes.flush-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            while (!unflushed.isEmpty()) {
+                if (!flushBatch()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (unflushedCount.get() > 0) {
+            logger.warn("{} review votes were not written before shutdown", unflushedCount.get());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        List<ReviewVotes> tracked;
+        synchronized (reviews) {
+            tracked = new ArrayList<>(reviews.values());
+        }
+        long voterSetBytes = 0;
+        for (ReviewVotes votes : tracked) {
+            voterSetBytes += votes.sizeInBytes();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("votesAccepted", votesAccepted.get());
+        metrics.put("repeatVotesRejected", repeatVotes.get());
+        metrics.put("unflushedVotes", unflushedCount.get());
+        metrics.put("votesWritten", votesWritten.get());
+        metrics.put("duplicatesSkippedByDatabase", duplicatesSkipped.get());
+        metrics.put("flushes", flushes.get());
+        metrics.put("failedFlushes", failedFlushes.get());
+        metrics.put("votesDropped", votesDropped.get());
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        metrics.put("trackedReviews", reviews.size());
+        metrics.put("voterSetBytes", voterSetBytes);
+        metrics.put("cachedProducts", persistedCounts.size());
+        return metrics;
+    }
+
+    /**
+     * Write up to max-flush-votes queued votes. On failure they go back on the queue, except those
+     * that have failed max-flush-attempts times, which are dropped.
+     */
+    private boolean flushBatch() {
+        // Grouped and ordered by review so concurrent flushes from other nodes lock rows in the same order
+        Map<Long, List<PendingVote>> byReview = new TreeMap<>();
+        int drained = 0;
+        PendingVote vote;
+        while (drained < maxFlushVotes && (vote = unflushed.poll()) != null) {
+            byReview.computeIfAbsent(vote.reviewId, id -> new ArrayList<>()).add(vote);
+            drained++;
+        }
+        if (drained == 0) {
+            return true;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        Map<Long, Long> added;
+        try {
+            added = transactionTemplate.execute(status -> {
+                Map<Long, Long> deltas = new LinkedHashMap<>();
+                byReview.forEach((reviewId, votes) -> {
+                    int inserted = voteRepository.insertVotes(reviewId, votes.stream().map(v -> v.userId).toList());
+                    if (inserted > 0) {
+                        deltas.put(reviewId, (long) inserted);
+                    }
+                });
+                if (!deltas.isEmpty()) {
+                    voteRepository.addHelpfulCounts(deltas);
+                }
+                return deltas;
+            });
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            int dropped = 0;
+            for (List<PendingVote> votes : byReview.values()) {
+                for (PendingVote pending : votes) {
+                    if (++pending.attempts < maxFlushAttempts) {
+                        unflushed.add(pending);
+                    } else {
+                        settle(pending);
+                        dropped++;
+                    }
+                }
+            }
+            votesDropped.addAndGet(dropped);
+            logger.error("Failed to write {} review votes, will retry {} of them: {}",
+                    drained, drained - dropped, e.getMessage());
+            return false;
+        }
+
+        // Persisted totals now include these votes: drop cached totals first, then the pending counts
+        countWrites.incrementAndGet();
+        long written = 0;
+        for (List<PendingVote> votes : byReview.values()) {
+            invalidateCounts(votes.get(0).productId);
+            votes.forEach(this::settle);
+        }
+        for (long count : added.values()) {
+            written += count;
+        }
+        votesWritten.addAndGet(written);
+        duplicatesSkipped.addAndGet(drained - written);
+        flushes.incrementAndGet();
+        lastFlushMillis = System.currentTimeMillis() - startMillis;
+        logger.debug("Wrote {} review votes for {} reviews ({} duplicates skipped)", written, byReview.size(), drained - written);
+        return true;
+    }
+
+    /**
+     * Take a vote that has been written or dropped off the pending counts.
+     */
+    private void settle(PendingVote vote) {
+        pendingCounts.computeIfPresent(vote.reviewId, (id, count) -> count > 1 ? count - 1 : null);
+        unflushedCount.decrementAndGet();
+    }
+
+    private ReviewVotes votesFor(long reviewId) {
+        ReviewVotes votes = reviews.get(reviewId);
+        if (votes != null) {
+            return votes;
+        }
+        List<Object[]> facts = voteRepository.findReviewFacts(reviewId);
+        if (facts.isEmpty() || facts.get(0)[0] == null) {
+            throw new IllegalArgumentException("Review not found");
+        }
+        ReviewVotes loaded = new ReviewVotes(reviewId, (Long) facts.get(0)[0], (Long) facts.get(0)[1]);
+        voteRepository.forEachVoter(reviewId, loaded::addVoter);
+        ReviewVotes existing = reviews.putIfAbsent(reviewId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private long pendingFor(long reviewId) {
+        return pendingCounts.getOrDefault(reviewId, 0L);
+    }
+
+    private Map<Long, Long> loadPersistedCounts(long productId) {
+        CachedCounts cached = persistedCounts.get(productId);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            return cached.counts;
+        }
+        long writesBefore = countWrites.get();
+        Map<Long, Long> counts = voteRepository.findHelpfulCounts(productId);
+        // A flush that finished while loading may not be in these totals
+        if (countWrites.get() == writesBefore) {
+            persistedCounts.put(productId, new CachedCounts(counts, System.currentTimeMillis() + countsTtlMillis));
+        }
+        return counts;
+    }
+
+    private void invalidateCounts(Long productId) {
+        countWrites.incrementAndGet();
+        if (productId != null) {
+            persistedCounts.remove(productId);
+        }
+    }
+
+    /**
+     * Who has voted on one review, split over stripes by user id so concurrent voters rarely wait on
+     * the same lock.
+     */
+    private static final class ReviewVotes {
+        private final long reviewId;
+        private final Long productId;
+        private final Long authorId;
+        private final LongHashSet[] voterStripes = new LongHashSet[VOTER_STRIPES];
+
+        private ReviewVotes(long reviewId, Long productId, Long authorId) {
+            this.reviewId = reviewId;
+            this.productId = productId;
+            this.authorId = authorId;
+            for (int i = 0; i < VOTER_STRIPES; i++) {
+                voterStripes[i] = new LongHashSet();
+            }
+        }
+
+        private boolean addVoter(long userId) {
+            LongHashSet stripe = voterStripes[(int) (userId & (VOTER_STRIPES - 1))];
+            synchronized (stripe) {
+                return stripe.add(userId);
+            }
+        }
+
+        private long sizeInBytes() {
+            long bytes = 0;
+            for (LongHashSet stripe : voterStripes) {
+                synchronized (stripe) {
+                    bytes += stripe.sizeInBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private static final class PendingVote {
+        private final long reviewId;
+        private final Long productId;
+        private final long userId;
+        // Failed flushes so far; only touched under flushLock
+        private int attempts;
+
+        private PendingVote(long reviewId, Long productId, long userId) {
+            this.reviewId = reviewId;
+            this.productId = productId;
+            this.userId = userId;
+        }
+    }
+
+    private static final class CachedCounts {
+        private final Map<Long, Long> counts;
+        private final long expiresAt;
+
+        private CachedCounts(Map<Long, Long> counts, long expiresAt) {
+            this.counts = counts;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,805 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.Enum.RollupType;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.SalesRollup;
+import za.co.tt.domain.SalesRollupId;
+import za.co.tt.repository.SalesRollupRepository;
+import za.co.tt.util.IdRangeScan;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sales analytics kept as incrementally maintained rollups.
+ *
+ * Orders, units and revenue are rolled up per hour and per day, lines per product, season and vehicle
+ * type, and orders per status. All rollup rows live in memory as primitive counters, so dashboard reads never touch orders or
+ * order_items. Order creation, cancellation and completion (OrderStatusChangedEvent) adjust the affected
+ * rows and record the same change as a pending delta. On a fixed delay the pending deltas are added to
+ * sales_rollup, so every node contributes only its own changes, and the in-memory rows are reloaded from
+ * the table to pick up what other nodes flushed. A rebuild job recomputes everything from history by
+ * aggregating order id ranges in parallel and then swaps the result in.
+ *
+ * Only one node rebuilds at a time. While it runs, sales_rollup_state fences off the other nodes'
+ * flushes, and when it finishes it starts a new generation. Pending deltas are kept per order and tagged
+ * with the generation they were recorded under, so deltas recorded before the rebuild for orders it
+ * scanned are dropped instead of being added on top of the rebuilt rows.
+ */
+@Service
+public class SalesAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsService.class);
+
+    // Counter slots of each rollup row; revenue is kept in cents
+    private static final int ORDER_COUNT = 0;
+    private static final int CANCELLED_COUNT = 1;
+    private static final int COMPLETED_COUNT = 2;
+    private static final int UNITS = 3;
+    private static final int REVENUE_CENTS = 4;
+    private static final int CANCELLED_REVENUE_CENTS = 5;
+    private static final int SLOTS = 6;
+
+    private static final int MAX_DAYS_PER_QUERY = 366;
+    private static final int MAX_DAYS_PER_HOURLY_QUERY = 31;
+
+    private static final String REBUILD_LEASE = "sales-rollup-rebuild";
+    // How long a rebuild fences off other nodes' flushes; renewed after every chunk
+    private static final int FLUSH_FENCE_SECONDS = 300;
+
+    private final SalesRollupRepository rollupRepository;
+    private final ClusterSchedulerService clusterScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final ExecutorService rebuildRunner = Executors.newSingleThreadExecutor();
+
+    private volatile Map<SalesRollupId, AtomicLongArray> rollups = new ConcurrentHashMap<>();
+    // Changes made on this node that are not yet in sales_rollup, per order and rebuild generation
+    private final Map<PendingKey, Map<SalesRollupId, AtomicLongArray>> pendingDeltas = new ConcurrentHashMap<>();
+    // Events update the rows under the read lock; replacing the rows takes the write lock
+    private final ReadWriteLock rollupLock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private final List<BufferedEvent> eventsDuringRebuild = new ArrayList<>();
+    private volatile IdRangeScan scan;
+    private final AtomicInteger rebuildChunksDone = new AtomicInteger();
+    private volatile int rebuildChunksTotal;
+    private volatile LocalDateTime lastRebuildStarted;
+    private volatile LocalDateTime lastRebuildFinished;
+    private volatile String lastRebuildError;
+
+    @Value("${analytics.rebuild.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    @Value("${analytics.rebuild.threads:4}")
+    private int rebuildThreads = 4;
+
+    @Autowired
+    public SalesAnalyticsService(SalesRollupRepository rollupRepository,
+                                 ClusterSchedulerService clusterScheduler,
+                                 PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.clusterScheduler = clusterScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Each rebuild chunk reads orders and lines from one consistent snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Load persisted rollups; backfill from history the first time the table is empty. The backfill
+     * runs under the rebuild lease so nodes starting together do not all rebuild; the others pick the
+     * rows up on their next flush.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRollups() {
+        Map<SalesRollupId, AtomicLongArray> loaded = new ConcurrentHashMap<>();
+        for (SalesRollup row : rollupRepository.findAll()) {
+            loaded.put(row.getId(), toCounters(row));
+        }
+        rollups = loaded;
+        logger.info("Loaded {} sales rollup rows", loaded.size());
+
+        if (loaded.isEmpty() && hasOrders()) {
+            logger.info("Sales rollups are empty; starting backfill from order history");
+            startRebuild(true);
+        }
+    }
+
+    // ---- incremental maintenance ----
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getKind() != OrderStatusChangedEvent.Kind.ORDER || event.getOrderId() == null) {
+            return;
+        }
+        rollupLock.readLock().lock();
+        try {
+            if (rebuilding.get()) {
+                // Whether the rebuild already read this order decides at the swap if the event is replayed
+                IdRangeScan current = scan;
+                boolean chunkStarted = current != null && current.hasStarted(event.getOrderId());
+                synchronized (eventsDuringRebuild) {
+                    eventsDuringRebuild.add(new BufferedEvent(event, chunkStarted));
+                }
+            }
+            Map<SalesRollupId, AtomicLongArray> deltas = pendingDeltas.computeIfAbsent(
+                    new PendingKey(event.getOrderId(), currentGeneration()), key -> new ConcurrentHashMap<>());
+            apply(event, rollups, deltas);
+        } catch (Exception e) {
+            logger.error("Failed to update sales rollups for order {}: {}", event.getOrderId(), e.getMessage());
+        } finally {
+            rollupLock.readLock().unlock();
+        }
+    }
+
+    private void apply(OrderStatusChangedEvent event,
+                       Map<SalesRollupId, AtomicLongArray> target,
+                       Map<SalesRollupId, AtomicLongArray> deltas) {
+        OrderStatus previous = parseStatus(event.getPreviousStatus());
+        OrderStatus current = parseStatus(event.getStatus());
+        if (previous == current) {
+            return;
+        }
+
+        if (previous != null) {
+            add(target, deltas, RollupType.STATUS, previous.name(), ORDER_COUNT, -1);
+        }
+        if (current != null) {
+            add(target, deltas, RollupType.STATUS, current.name(), ORDER_COUNT, 1);
+        }
+
+        boolean created = previous == null;
+        boolean cancelled = current == OrderStatus.CANCELLED;
+        boolean uncancelled = previous == OrderStatus.CANCELLED;
+        boolean completed = current == OrderStatus.COMPLETED;
+        boolean uncompleted = previous == OrderStatus.COMPLETED;
+        if (!created && !cancelled && !uncancelled && !completed && !uncompleted) {
+            return;
+        }
+
+        List<Object[]> lines = rollupRepository.findOrderLineFacts(event.getOrderId());
+        if (lines.isEmpty()) {
+            return;
+        }
+        String hour = hourKey(lines.get(0)[0]);
+        long units = 0;
+        long revenueCents = 0;
+        for (Object[] line : lines) {
+            units += toLong(line[4]);
+            revenueCents += toCents(line[5]);
+        }
+
+        if (hour != null) {
+            if (created) {
+                addPeriod(target, deltas, hour, ORDER_COUNT, 1);
+                addPeriod(target, deltas, hour, UNITS, units);
+                addPeriod(target, deltas, hour, REVENUE_CENTS, revenueCents);
+            }
+            if (cancelled != uncancelled) {
+                int sign = cancelled ? 1 : -1;
+                addPeriod(target, deltas, hour, CANCELLED_COUNT, sign);
+                addPeriod(target, deltas, hour, CANCELLED_REVENUE_CENTS, sign * revenueCents);
+            }
+            if (completed != uncompleted) {
+                addPeriod(target, deltas, hour, COMPLETED_COUNT, completed ? 1 : -1);
+            }
+        }
+
+        // Product and mix rollups are net of cancellations
+        int lineSign = 0;
+        if (created && !cancelled) {
+            lineSign = 1;
+        } else if (!created && cancelled) {
+            lineSign = -1;
+        } else if (uncancelled) {
+            lineSign = 1;
+        }
+        if (lineSign != 0) {
+            for (Object[] line : lines) {
+                if (line[1] == null) {
+                    continue;
+                }
+                long lineUnits = lineSign * toLong(line[4]);
+                long lineCents = lineSign * toCents(line[5]);
+                addLine(target, deltas, String.valueOf(toLong(line[1])), keyOf(line[2]), keyOf(line[3]),
+                        lineSign, lineUnits, lineCents);
+            }
+        }
+    }
+
+    private void addLine(Map<SalesRollupId, AtomicLongArray> target, Map<SalesRollupId, AtomicLongArray> deltas,
+                         String productKey, String seasonKey, String vehicleTypeKey,
+                         long lineCount, long units, long revenueCents) {
+        add(target, deltas, RollupType.PRODUCT, productKey, ORDER_COUNT, lineCount);
+        add(target, deltas, RollupType.PRODUCT, productKey, UNITS, units);
+        add(target, deltas, RollupType.PRODUCT, productKey, REVENUE_CENTS, revenueCents);
+        add(target, deltas, RollupType.SEASON, seasonKey, ORDER_COUNT, lineCount);
+        add(target, deltas, RollupType.SEASON, seasonKey, UNITS, units);
+        add(target, deltas, RollupType.SEASON, seasonKey, REVENUE_CENTS, revenueCents);
+        add(target, deltas, RollupType.VEHICLE_TYPE, vehicleTypeKey, ORDER_COUNT, lineCount);
+        add(target, deltas, RollupType.VEHICLE_TYPE, vehicleTypeKey, UNITS, units);
+        add(target, deltas, RollupType.VEHICLE_TYPE, vehicleTypeKey, REVENUE_CENTS, revenueCents);
+    }
+
+    /**
+     * Add to both the hour and the day an order falls in.
+     */
+    private static void addPeriod(Map<SalesRollupId, AtomicLongArray> target, Map<SalesRollupId, AtomicLongArray> deltas,
+                                  String hour, int slot, long delta) {
+        add(target, deltas, RollupType.HOUR, hour, slot, delta);
+        add(target, deltas, RollupType.DAY, hour.substring(0, 10), slot, delta);
+    }
+
+    private static void add(Map<SalesRollupId, AtomicLongArray> target, Map<SalesRollupId, AtomicLongArray> deltas,
+                            RollupType type, String key, int slot, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        SalesRollupId id = new SalesRollupId(type, key);
+        target.computeIfAbsent(id, k -> new AtomicLongArray(SLOTS)).addAndGet(slot, delta);
+        if (deltas != null) {
+            deltas.computeIfAbsent(id, k -> new AtomicLongArray(SLOTS)).addAndGet(slot, delta);
+        }
+    }
+
+    /**
+     * Write-behind of this node's changes, then reload the rows to pick up the other nodes' changes.
+     * Nothing is written while another node rebuilds, and deltas recorded before the last rebuild for
+     * orders it scanned are dropped, since the rebuilt rows already hold them.
+     */
+    @Scheduled(fixedDelayString = "${analytics.flush-ms:30000}")
+    public void flush() {
+        if (rebuilding.get()) {
+            return;
+        }
+        Map<PendingKey, Map<SalesRollupId, long[]>> batch = new LinkedHashMap<>();
+        pendingDeltas.forEach((key, rows) -> rows.forEach((id, deltas) -> {
+            long[] values = valuesOf(deltas);
+            if (values != null) {
+                batch.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(id, values);
+            }
+        }));
+
+        if (!batch.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            boolean taken;
+            try {
+                taken = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    List<Object[]> state = rollupRepository.lockState();
+                    if (state.isEmpty()) {
+                        throw new IllegalStateException("sales_rollup_state row is missing");
+                    }
+                    if (isTrue(state.get(0)[2])) {
+                        return false;
+                    }
+                    long generation = toLong(state.get(0)[0]);
+                    long rebuiltUpTo = toLong(state.get(0)[1]);
+                    Map<SalesRollupId, long[]> totals = new LinkedHashMap<>();
+                    batch.forEach((key, rows) -> {
+                        if (key.generation != generation && key.orderId <= rebuiltUpTo) {
+                            return;
+                        }
+                        rows.forEach((id, values) -> {
+                            long[] total = totals.computeIfAbsent(id, k -> new long[SLOTS]);
+                            for (int slot = 0; slot < SLOTS; slot++) {
+                                total[slot] += values[slot];
+                            }
+                        });
+                    });
+                    totals.forEach((key, values) ->
+                            rollupRepository.addDeltas(key.getRollupType().name(), key.getRollupKey(),
+                                    values[ORDER_COUNT], values[CANCELLED_COUNT], values[COMPLETED_COUNT], values[UNITS],
+                                    BigDecimal.valueOf(values[REVENUE_CENTS], 2),
+                                    BigDecimal.valueOf(values[CANCELLED_REVENUE_CENTS], 2), now));
+                    return true;
+                }));
+            } catch (Exception e) {
+                logger.error("Failed to flush sales rollups, will retry: {}", e.getMessage());
+                return;
+            }
+            if (taken) {
+                // Committed: take off only what was written or dropped, changes made meanwhile stay pending
+                rollupLock.writeLock().lock();
+                try {
+                    batch.forEach((key, rows) -> {
+                        Map<SalesRollupId, AtomicLongArray> pending = pendingDeltas.get(key);
+                        if (pending == null) {
+                            return;
+                        }
+                        rows.forEach((id, values) -> {
+                            AtomicLongArray deltas = pending.get(id);
+                            for (int slot = 0; slot < SLOTS; slot++) {
+                                deltas.addAndGet(slot, -values[slot]);
+                            }
+                        });
+                    });
+                } finally {
+                    rollupLock.writeLock().unlock();
+                }
+                logger.debug("Flushed deltas of {} orders", batch.size());
+            } else {
+                logger.debug("Another node is rebuilding sales rollups; keeping {} orders' deltas", batch.size());
+            }
+        }
+        reload();
+    }
+
+    /**
+     * Replace the in-memory rows with sales_rollup plus the deltas not flushed yet.
+     */
+    private void reload() {
+        Map<SalesRollupId, AtomicLongArray> loaded = new ConcurrentHashMap<>();
+        try {
+            for (SalesRollup row : rollupRepository.findAll()) {
+                loaded.put(row.getId(), toCounters(row));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to reload sales rollups: {}", e.getMessage());
+            return;
+        }
+        rollupLock.writeLock().lock();
+        try {
+            if (rebuilding.get()) {
+                return;
+            }
+            // Events add to the deltas under the read lock, so an order with nothing left can go
+            pendingDeltas.values().removeIf(rows -> rows.values().stream().allMatch(deltas -> valuesOf(deltas) == null));
+            pendingDeltas.values().forEach(rows -> rows.forEach((key, deltas) -> {
+                AtomicLongArray counters = loaded.computeIfAbsent(key, k -> new AtomicLongArray(SLOTS));
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    counters.addAndGet(slot, deltas.get(slot));
+                }
+            }));
+            rollups = loaded;
+        } finally {
+            rollupLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        rebuildRunner.shutdownNow();
+    }
+
+    // ---- rebuild ----
+
+    /**
+     * Start a background rebuild from order history. Returns false if one is already running on this
+     * node; if another node is rebuilding, the run ends at once and getRebuildStatus reports it.
+     */
+    public boolean startRebuild() {
+        return startRebuild(false);
+    }
+
+    private boolean startRebuild(boolean backfill) {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (eventsDuringRebuild) {
+            eventsDuringRebuild.clear();
+        }
+        lastRebuildStarted = LocalDateTime.now();
+        lastRebuildError = null;
+        rebuildRunner.submit(() -> {
+            try {
+                if (backfill) {
+                    if (!clusterScheduler.runExclusive(REBUILD_LEASE, this::backfill)) {
+                        logger.info("Another node is backfilling sales rollups; they load on the next flush");
+                    }
+                } else if (!clusterScheduler.runExclusive(REBUILD_LEASE, () -> {
+                    rebuild();
+                    return "Rebuilt sales rollups from order history";
+                })) {
+                    lastRebuildError = "Another node is rebuilding sales rollups";
+                    logger.info("Another node is rebuilding sales rollups; not starting a second rebuild");
+                }
+            } catch (Exception e) {
+                lastRebuildError = e.getMessage();
+                logger.error("Sales rollup rebuild failed: {}", e.getMessage(), e);
+            } finally {
+                scan = null;
+                lastRebuildFinished = LocalDateTime.now();
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    private String backfill() throws Exception {
+        // A node holding the lease before us may have finished the backfill already
+        if (rollupRepository.count() > 0) {
+            return "Sales rollups already backfilled";
+        }
+        rebuild();
+        return "Backfilled sales rollups from order history";
+    }
+
+    private void rebuild() throws Exception {
+        // The other nodes' deltas would land on rows this rebuild replaces; they keep them until it is done
+        transactionTemplate.executeWithoutResult(status -> rollupRepository.fenceFlushes(FLUSH_FENCE_SECONDS));
+        try {
+            replaceRollups();
+        } catch (Exception e) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rollupRepository.liftFence());
+            } catch (Exception liftFailure) {
+                logger.warn("Could not lift the sales rollup flush fence: {}", liftFailure.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private void replaceRollups() throws Exception {
+        long startNanos = System.nanoTime();
+        Map<SalesRollupId, AtomicLongArray> fresh = new ConcurrentHashMap<>();
+
+        List<Object[]> range = rollupRepository.findOrderIdRange();
+        IdRangeScan rebuildScan = null;
+        if (!range.isEmpty() && range.get(0)[0] != null) {
+            rebuildScan = new IdRangeScan(toLong(range.get(0)[0]), toLong(range.get(0)[1]), Math.max(1, chunkSize));
+            scan = rebuildScan;
+            int chunks = rebuildScan.chunkCount();
+            rebuildChunksTotal = chunks;
+            rebuildChunksDone.set(0);
+
+            ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, rebuildThreads));
+            try {
+                List<Future<?>> futures = new ArrayList<>(chunks);
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    IdRangeScan chunkScan = rebuildScan;
+                    int index = chunk;
+                    futures.add(workers.submit(() -> {
+                        snapshotTemplate.executeWithoutResult(status -> {
+                            // Marked once the snapshot is open, so a change it already holds is not replayed
+                            rollupRepository.startSnapshot(chunkScan.fromId(index));
+                            chunkScan.markStarted(index);
+                            aggregateChunk(chunkScan.fromId(index), chunkScan.toId(index), fresh);
+                        });
+                        transactionTemplate.executeWithoutResult(status ->
+                                rollupRepository.fenceFlushes(FLUSH_FENCE_SECONDS));
+                        rebuildChunksDone.incrementAndGet();
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        // Checking for a rebuild and applying an event happen under the read lock, so no event can
+        // land on the old rows after the buffer has been drained here
+        int replayed = 0;
+        rollupLock.writeLock().lock();
+        try {
+            List<BufferedEvent> buffered;
+            synchronized (eventsDuringRebuild) {
+                buffered = new ArrayList<>(eventsDuringRebuild);
+                eventsDuringRebuild.clear();
+            }
+            // The scan already holds the effect of events that arrived before their order's chunk was
+            // read. Replay the others: changes to orders whose chunk had been read, and new orders
+            // beyond the scanned range.
+            for (BufferedEvent buffer : buffered) {
+                long orderId = buffer.event.getOrderId();
+                if (rebuildScan == null || rebuildScan.needsReplay(orderId, buffer.chunkStarted)) {
+                    apply(buffer.event, fresh, null);
+                    replayed++;
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<SalesRollup> rows = new ArrayList<>(fresh.size());
+            fresh.forEach((key, counters) -> rows.add(toEntity(key, counters, now)));
+            long scannedUpTo = rebuildScan != null ? rebuildScan.getMaxId() : 0;
+            transactionTemplate.executeWithoutResult(status -> {
+                // State row first, in the same order as flush takes its locks
+                rollupRepository.completeRebuild(scannedUpTo);
+                rollupRepository.deleteAllInBatch();
+                rollupRepository.saveAll(rows);
+            });
+
+            rollups = fresh;
+            pendingDeltas.clear();
+            scan = null;
+            rebuilding.set(false);
+        } finally {
+            rollupLock.writeLock().unlock();
+        }
+        logger.info("Rebuilt {} sales rollup rows from orders up to id {} ({} events replayed) in {} ms",
+                fresh.size(), rebuildScan != null ? rebuildScan.getMaxId() : 0, replayed,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private void aggregateChunk(long fromId, long toId, Map<SalesRollupId, AtomicLongArray> target) {
+        // Archived orders keep their ids, so each range is aggregated from both the live and archive tables
+        aggregateOrders(rollupRepository.aggregateOrdersByHourAndStatus(fromId, toId), target);
+        aggregateOrders(rollupRepository.aggregateArchivedOrdersByHourAndStatus(fromId, toId), target);
+        aggregateLines(rollupRepository.aggregateLinesByProduct(fromId, toId), target);
+        aggregateLines(rollupRepository.aggregateArchivedLinesByProduct(fromId, toId), target);
+    }
+
+    private void aggregateOrders(List<Object[]> rows, Map<SalesRollupId, AtomicLongArray> target) {
+        for (Object[] row : rows) {
+            String hour = hourKey(row[0]);
+            String status = keyOf(row[1]);
+            long orders = toLong(row[2]);
+            long units = toLong(row[3]);
+            long revenueCents = toCents(row[4]);
+
+            add(target, null, RollupType.STATUS, status, ORDER_COUNT, orders);
+            if (hour == null) {
+                continue;
+            }
+            addPeriod(target, null, hour, ORDER_COUNT, orders);
+            addPeriod(target, null, hour, UNITS, units);
+            addPeriod(target, null, hour, REVENUE_CENTS, revenueCents);
+            if (OrderStatus.CANCELLED.name().equals(status)) {
+                addPeriod(target, null, hour, CANCELLED_COUNT, orders);
+                addPeriod(target, null, hour, CANCELLED_REVENUE_CENTS, revenueCents);
+            } else if (OrderStatus.COMPLETED.name().equals(status)) {
+                addPeriod(target, null, hour, COMPLETED_COUNT, orders);
+            }
+        }
+    }
+
+    private void aggregateLines(List<Object[]> rows, Map<SalesRollupId, AtomicLongArray> target) {
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            addLine(target, null, String.valueOf(toLong(row[0])), keyOf(row[1]), keyOf(row[2]),
+                    toLong(row[3]), toLong(row[4]), toCents(row[5]));
+        }
+    }
+
+    public Map<String, Object> getRebuildStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", rebuilding.get());
+        status.put("chunksDone", rebuildChunksDone.get());
+        status.put("chunksTotal", rebuildChunksTotal);
+        status.put("lastStarted", lastRebuildStarted);
+        status.put("lastFinished", lastRebuildFinished);
+        status.put("lastError", lastRebuildError);
+        return status;
+    }
+
+    // ---- reads (served from memory) ----
+
+    public List<SalesRollup> getDailySales(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusDays(MAX_DAYS_PER_QUERY).isBefore(to)) {
+            throw new IllegalArgumentException("At most " + MAX_DAYS_PER_QUERY + " days per request");
+        }
+        Map<SalesRollupId, AtomicLongArray> current = rollups;
+        List<SalesRollup> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            SalesRollupId id = new SalesRollupId(RollupType.DAY, day.toString());
+            AtomicLongArray counters = current.get(id);
+            days.add(toEntity(id, counters != null ? counters : new AtomicLongArray(SLOTS), null));
+        }
+        return days;
+    }
+
+    /**
+     * Orders, units and revenue for each hour of the given days, 24 rows per day.
+     */
+    public List<SalesRollup> getHourlySales(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusDays(MAX_DAYS_PER_HOURLY_QUERY).isBefore(to)) {
+            throw new IllegalArgumentException("At most " + MAX_DAYS_PER_HOURLY_QUERY + " days of hours per request");
+        }
+        Map<SalesRollupId, AtomicLongArray> current = rollups;
+        List<SalesRollup> hours = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            for (int hour = 0; hour < 24; hour++) {
+                SalesRollupId id = new SalesRollupId(RollupType.HOUR, hourKey(day.atTime(hour, 0)));
+                AtomicLongArray counters = current.get(id);
+                hours.add(toEntity(id, counters != null ? counters : new AtomicLongArray(SLOTS), null));
+            }
+        }
+        return hours;
+    }
+
+    public List<SalesRollup> getRollups(RollupType type) {
+        List<SalesRollup> rows = new ArrayList<>();
+        rollups.forEach((key, counters) -> {
+            if (key.getRollupType() == type) {
+                rows.add(toEntity(key, counters, null));
+            }
+        });
+        rows.sort(Comparator.comparingLong(SalesRollup::getUnits).reversed()
+                .thenComparing(row -> row.getId().getRollupKey()));
+        return rows;
+    }
+
+    public List<SalesRollup> getTopProducts(int limit) {
+        List<SalesRollup> products = getRollups(RollupType.PRODUCT);
+        return products.subList(0, Math.min(Math.max(limit, 0), products.size()));
+    }
+
+    /**
+     * Current number of orders in each status, in lifecycle order.
+     */
+    public Map<String, Long> getStatusFunnel() {
+        Map<SalesRollupId, AtomicLongArray> current = rollups;
+        Map<String, Long> funnel = new LinkedHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            AtomicLongArray counters = current.get(new SalesRollupId(RollupType.STATUS, status.name()));
+            funnel.put(status.name(), counters != null ? counters.get(ORDER_COUNT) : 0L);
+        }
+        return funnel;
+    }
+
+    // ---- helpers ----
+
+    private long currentGeneration() {
+        List<Object[]> state = rollupRepository.findState();
+        return state.isEmpty() ? 0L : toLong(state.get(0)[0]);
+    }
+
+    /**
+     * The counters as values, or null if they are all zero.
+     */
+    private static long[] valuesOf(AtomicLongArray counters) {
+        long[] values = new long[SLOTS];
+        boolean changed = false;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            values[slot] = counters.get(slot);
+            changed |= values[slot] != 0;
+        }
+        return changed ? values : null;
+    }
+
+    private static boolean isTrue(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number && ((Number) value).intValue() != 0;
+    }
+
+    private boolean hasOrders() {
+        List<Object[]> range = rollupRepository.findOrderIdRange();
+        return !range.isEmpty() && range.get(0)[0] != null;
+    }
+
+    private static SalesRollup toEntity(SalesRollupId id, AtomicLongArray counters, LocalDateTime updatedAt) {
+        return new SalesRollup.Builder()
+                .setId(id)
+                .setOrderCount(counters.get(ORDER_COUNT))
+                .setCancelledCount(counters.get(CANCELLED_COUNT))
+                .setCompletedCount(counters.get(COMPLETED_COUNT))
+                .setUnits(counters.get(UNITS))
+                .setRevenue(BigDecimal.valueOf(counters.get(REVENUE_CENTS), 2))
+                .setCancelledRevenue(BigDecimal.valueOf(counters.get(CANCELLED_REVENUE_CENTS), 2))
+                .setUpdatedAt(updatedAt)
+                .build();
+    }
+
+    private static AtomicLongArray toCounters(SalesRollup row) {
+        AtomicLongArray counters = new AtomicLongArray(SLOTS);
+        counters.set(ORDER_COUNT, row.getOrderCount());
+        counters.set(CANCELLED_COUNT, row.getCancelledCount());
+        counters.set(COMPLETED_COUNT, row.getCompletedCount());
+        counters.set(UNITS, row.getUnits());
+        counters.set(REVENUE_CENTS, toCents(row.getRevenue()));
+        counters.set(CANCELLED_REVENUE_CENTS, toCents(row.getCancelledRevenue()));
+        return counters;
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hour an order date falls in, as yyyy-MM-ddTHH; the first ten characters are its day.
+     */
+    private static String hourKey(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp) {
+            return hourKey(((Timestamp) value).toLocalDateTime());
+        }
+        if (value instanceof LocalDateTime) {
+            LocalDateTime time = (LocalDateTime) value;
+            return time.toLocalDate() + String.format("T%02d", time.getHour());
+        }
+        String text = value.toString();
+        return text.length() >= 13 ? text.substring(0, 10) + "T" + text.substring(11, 13) : null;
+    }
+
+    private static String keyOf(Object value) {
+        return value != null ? value.toString() : "UNKNOWN";
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static long toCents(Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        BigDecimal amount = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        return amount.movePointRight(2).setScale(0, java.math.RoundingMode.HALF_UP).longValue();
+    }
+
+    private static final class PendingKey {
+        private final long orderId;
+        private final long generation;
+
+        private PendingKey(long orderId, long generation) {
+            this.orderId = orderId;
+            this.generation = generation;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PendingKey)) return false;
+            PendingKey that = (PendingKey) o;
+            return orderId == that.orderId && generation == that.generation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(orderId) * 31 + Long.hashCode(generation);
+        }
+    }
+
+    private static final class BufferedEvent {
+        private final OrderStatusChangedEvent event;
+        private final boolean chunkStarted;
+
+        private BufferedEvent(OrderStatusChangedEvent event, boolean chunkStarted) {
+            this.event = event;
+            this.chunkStarted = chunkStarted;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package za.co.tt.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-phase startup timing report built from the BufferingApplicationStartup installed in Main.
+ *
+ * The report is logged once the application is ready, optionally written as JSON to
+ * startup.report.file (so CI can track time-to-ready across builds) and served at GET /admin/startup.
+ * With startup.training-run=true the application exits right after the report; that is how the
+ * class-list training run for the AppCDS archive is driven (see fast-startup.sh).
+ */
+@Service
+public class StartupReportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupReportService.class);
+
+    private static final int SLOWEST_BEANS = 15;
+
+    private final ConfigurableApplicationContext context;
+    private final DeferredStartupService deferredStartupService;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<String, Object> report;
+    private volatile long firstRequestUptimeMillis = -1;
+
+    @Value("${startup.report.file:}")
+    private String reportFile;
+
+    @Value("${startup.training-run:false}")
+    private boolean trainingRun;
+
+    @Autowired
+    public StartupReportService(ConfigurableApplicationContext context,
+                                DeferredStartupService deferredStartupService,
+                                ObjectMapper objectMapper) {
+        this.context = context;
+        this.deferredStartupService = deferredStartupService;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onReady(ApplicationReadyEvent event) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        long springMillis = event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : -1;
+
+        Map<String, Object> built = new LinkedHashMap<>();
+        built.put("jvmUptimeAtReadyMillis", uptimeMillis);
+        built.put("springStartupMillis", springMillis);
+        built.put("jvmBeforeSpringMillis", springMillis >= 0 ? uptimeMillis - springMillis : null);
+        built.put("aotEnabled", Boolean.getBoolean("spring.aot.enabled"));
+        built.put("deferNonCritical", deferredStartupService.isDeferring());
+
+        if (context.getApplicationStartup() instanceof BufferingApplicationStartup buffering) {
+            addTimeline(built, buffering.getBufferedTimeline());
+        } else {
+            built.put("phases", List.of());
+            built.put("note", "Startup steps are only recorded when started through Main");
+        }
+        report = built;
+
+        logger.info("Ready in {} ms ({} ms in Spring, {} ms JVM before Spring)",
+                uptimeMillis, springMillis, built.get("jvmBeforeSpringMillis"));
+        writeReportFile();
+
+        if (trainingRun) {
+            logger.info("Training run complete, exiting so the class archive can be written");
+            Thread exit = new Thread(() -> System.exit(SpringApplication.exit(context, () -> 0)), "training-run-exit");
+            exit.start();
+        }
+    }
+
+    @EventListener(ServletRequestHandledEvent.class)
+    public void onRequestHandled() {
+        if (firstRequestUptimeMillis < 0) {
+            firstRequestUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+    }
+
+    public Map<String, Object> getReport() {
+        Map<String, Object> current = new LinkedHashMap<>();
+        if (report != null) {
+            current.putAll(report);
+        }
+        current.put("firstRequestUptimeMillis", firstRequestUptimeMillis >= 0 ? firstRequestUptimeMillis : null);
+        current.put("startupTasks", deferredStartupService.getCompletedTasks());
+        return current;
+    }
+
+    private void addTimeline(Map<String, Object> target, StartupTimeline timeline) {
+        Map<String, long[]> byName = new LinkedHashMap<>();
+        List<Map<String, Object>> beans = new ArrayList<>();
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            StartupStep step = event.getStartupStep();
+            long millis = event.getDuration().toMillis();
+            // {count, total ms, max ms}
+            long[] stats = byName.computeIfAbsent(step.getName(), name -> new long[3]);
+            stats[0]++;
+            stats[1] += millis;
+            stats[2] = Math.max(stats[2], millis);
+
+            if ("spring.beans.instantiate".equals(step.getName())) {
+                for (StartupStep.Tag tag : step.getTags()) {
+                    if ("beanName".equals(tag.getKey())) {
+                        Map<String, Object> bean = new LinkedHashMap<>();
+                        bean.put("bean", tag.getValue());
+                        bean.put("millis", millis);
+                        beans.add(bean);
+                    }
+                }
+            }
+        }
+
+        List<Map<String, Object>> phases = new ArrayList<>();
+        byName.forEach((name, stats) -> {
+            Map<String, Object> phase = new LinkedHashMap<>();
+            phase.put("step", name);
+            phase.put("count", stats[0]);
+            phase.put("totalMillis", stats[1]);
+            phase.put("maxMillis", stats[2]);
+            phases.add(phase);
+        });
+        phases.sort(Comparator.comparingLong(phase -> -(long) phase.get("totalMillis")));
+        beans.sort(Comparator.comparingLong(bean -> -(long) bean.get("millis")));
+
+        target.put("recordedSteps", timeline.getEvents().size());
+        target.put("phases", phases);
+        // Inclusive: a bean's time includes the dependencies it caused to be created
+        target.put("slowestBeans", beans.subList(0, Math.min(SLOWEST_BEANS, beans.size())));
+    }
+
+    private void writeReportFile() {
+        if (reportFile == null || reportFile.isBlank()) {
+            return;
+        }
+        try {
+            objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(new File(reportFile), getReport());
+        } catch (Exception e) {
+            logger.warn("Could not write startup report to {}: {}", reportFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package za.co.tt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductChangedEvent.ChangeType;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockLevelUpdate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock levels to storefront clients over Server-Sent Events.
+ *
+ * Stock changes published by ProductService (single updates, order placement and stock restoration)
+ * are coalesced per product: only the latest level seen within one push interval is delivered.
+ * Each subscriber keeps at most one pending value per product it watches, so a slow client never
+ * queues more than its subscription size and stale values are simply overwritten.
+ *
+ * Writes to clients run on the EventStreamSender pool, never on the shared scheduling threads, and
+ * one subscriber is written by at most one thread at a time. A write that blocks longer than the send
+ * timeout drops that subscriber.
+ */
+@Service
+public class StockStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockStreamService.class);
+
+    private final ProductSnapshotCache productSnapshotCache;
+
+    private final Map<Long, Integer> changedStock = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Subscriber>> subscribersByProduct = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final EventStreamSender sender;
+
+    @Value("${stock.stream.max-subscribers:5000}")
+    private int maxSubscribers = 5000;
+
+    @Value("${stock.stream.max-products-per-subscriber:50}")
+    private int maxProductsPerSubscriber = 50;
+
+    @Value("${stock.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMillis = 1800000;
+
+    @Autowired
+    public StockStreamService(ProductSnapshotCache productSnapshotCache, EventStreamSender sender) {
+        this.productSnapshotCache = productSnapshotCache;
+        this.sender = sender;
+    }
+
+    /**
+     * Open a stream for the given products. The current levels are sent straight away.
+     */
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : productIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one product id is required");
+        }
+        if (ids.size() > maxProductsPerSubscriber) {
+            throw new IllegalArgumentException("At most " + maxProductsPerSubscriber + " products per subscription");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many stock stream subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, ids);
+        subscribers.add(subscriber);
+        for (Long id : ids) {
+            subscribersByProduct.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        for (ProductSummary product : productSnapshotCache.getAll(ids).values()) {
+            subscriber.offer(product.getProductId(), product.getStockQuantity());
+        }
+        subscriber.flush();
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getChangeType() == ChangeType.CREATED || !subscribersByProduct.containsKey(event.getProductId())) {
+            return;
+        }
+        int stock = event.getChangeType() == ChangeType.DELETED ? 0 : event.getStockQuantity();
+        changedStock.put(event.getProductId(), stock);
+    }
+
+    /**
+     * Deliver the latest level of every product that changed since the previous run.
+     */
+    @Scheduled(fixedDelayString = "${stock.stream.coalesce-ms:500}")
+    public void pushChanges() {
+        if (changedStock.isEmpty()) {
+            return;
+        }
+        Set<Subscriber> touched = new LinkedHashSet<>();
+        for (Long productId : changedStock.keySet()) {
+            Integer stock = changedStock.remove(productId);
+            Set<Subscriber> watching = subscribersByProduct.get(productId);
+            if (stock == null || watching == null) {
+                continue;
+            }
+            for (Subscriber subscriber : watching) {
+                subscriber.offer(productId, stock);
+                touched.add(subscriber);
+            }
+        }
+        for (Subscriber subscriber : touched) {
+            subscriber.flush();
+        }
+    }
+
+    /**
+     * Comment-only heartbeat so proxies keep idle connections open and dead ones are detected.
+     */
+    @Scheduled(fixedDelayString = "${stock.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue.set(true);
+            subscriber.flush();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        for (Long id : subscriber.productIds) {
+            subscribersByProduct.computeIfPresent(id, (key, watching) -> {
+                watching.remove(subscriber);
+                return watching.isEmpty() ? null : watching;
+            });
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> productIds;
+        // Latest undelivered level per product; older values are overwritten, never queued
+        private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        // Set while a send task for this subscriber is queued or running
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        private void offer(Long productId, int stockQuantity) {
+            pending.put(productId, stockQuantity);
+        }
+
+        /**
+         * Hand pending levels and heartbeats to the send pool unless a send task is already on it.
+         */
+        private void flush() {
+            if ((pending.isEmpty() && !heartbeatDue.get()) || !sending.compareAndSet(false, true)) {
+                return;
+            }
+            if (!sender.submit(this::drain)) {
+                sending.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (subscribers.contains(this)) {
+                    List<StockLevelUpdate> updates = new ArrayList<>(pending.size());
+                    for (Long productId : pending.keySet()) {
+                        Integer stock = pending.remove(productId);
+                        if (stock != null) {
+                            updates.add(new StockLevelUpdate(productId, stock));
+                        }
+                    }
+                    boolean heartbeat = heartbeatDue.getAndSet(false);
+                    if (updates.isEmpty() && !heartbeat) {
+                        break;
+                    }
+                    sender.send(emitter, updates.isEmpty()
+                            ? SseEmitter.event().comment("keep-alive")
+                            : SseEmitter.event().name("stock").data(updates, MediaType.APPLICATION_JSON),
+                            () -> remove(this));
+                }
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Dropping stock subscriber: {}", e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+            // Levels offered between the last check and clearing the flag would otherwise wait a push interval
+            if (subscribers.contains(this)) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package za.co.tt.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Enum.Season;
+import za.co.tt.domain.Enum.VehicleType;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.domain.ProductChangedEvent.ChangeType;
+import za.co.tt.domain.SupplierSyncReport;
+import za.co.tt.repository.ProductImportRepository;
+import za.co.tt.util.MappedFeedReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Nightly delta sync of price, stock, season and vehicle type from the distributor's full feed.
+ *
+ * The feed (CSV with a header row, matched on name, model and tyre size like the catalog import) is
+ * read through a memory mapping without building strings per row. Each product's current values are
+ * kept in memory as a compact fingerprint keyed by a 64-bit hash of its catalog key, so a row that
+ * matches what is stored costs a hash lookup and nothing else. Only changed rows are written, in
+ * batched UPDATEs, and only those products publish ProductChangedEvent. Fingerprints of products
+ * changed elsewhere are refreshed before each run.
+ */
+@Service
+public class SupplierSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SupplierSyncService.class);
+
+    private static final byte NONE = -1;
+    private static final long KEY_SEPARATOR = -1L;
+
+    private final ProductImportRepository importRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterSchedulerService clusterScheduler;
+    private final ExecutorService syncRunner = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Guarded by this
+    private final Map<Long, Fingerprint> fingerprints = new HashMap<>();
+    private final Map<Long, Long> keyByProductId = new HashMap<>();
+    private boolean fingerprintsLoaded;
+    private final Set<Long> staleProductIds = ConcurrentHashMap.newKeySet();
+
+    private final long[] seasonHashes = new long[Season.values().length];
+    private final long[] vehicleTypeHashes = new long[VehicleType.values().length];
+
+    private volatile SupplierSyncReport lastReport;
+
+    @Value("${supplier.sync.enabled:false}")
+    private boolean enabled;
+
+    @Value("${supplier.sync.feed-path:}")
+    private String feedPath;
+
+    @Value("${supplier.sync.cron:0 0 4 * * *}")
+    private String cron = "0 0 4 * * *";
+
+    @Value("${supplier.sync.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${supplier.sync.window-mb:256}")
+    private long windowMegabytes = 256;
+
+    @Autowired
+    public SupplierSyncService(ProductImportRepository importRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager,
+                               ClusterSchedulerService clusterScheduler) {
+        this.importRepository = importRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterScheduler = clusterScheduler;
+        for (Season season : Season.values()) {
+            seasonHashes[season.ordinal()] = MappedFeedReader.hashText(season.name(), MappedFeedReader.hashSeed());
+        }
+        for (VehicleType type : VehicleType.values()) {
+            vehicleTypeHashes[type.ordinal()] = MappedFeedReader.hashText(type.name(), MappedFeedReader.hashSeed());
+        }
+    }
+
+    /**
+     * The nightly sync runs on one node per cluster via the cluster scheduler.
+     */
+    @PostConstruct
+    public void registerJob() {
+        clusterScheduler.register("supplier-sync", cron, 1, (shard, shards) -> {
+            if (!enabled || feedPath == null || feedPath.isBlank()) {
+                return "Skipped: supplier sync disabled";
+            }
+            SupplierSyncReport report = syncNow(false);
+            if (report == null) {
+                return "Skipped: sync already running on this node";
+            }
+            if (report.getStatus() == SupplierSyncReport.Status.FAILED) {
+                throw new IllegalStateException(report.getMessage());
+            }
+            return report.getChanged() + " changed, " + report.getUnchanged() + " unchanged of "
+                    + report.getRowsRead() + " rows";
+        });
+    }
+
+    /**
+     * Start a sync of the configured feed in the background. Returns false if one is already running.
+     *
+     * @throws IllegalArgumentException if no readable feed is configured
+     */
+    public boolean startSync(boolean dryRun) {
+        Path feed = configuredFeed();
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        SupplierSyncReport report = new SupplierSyncReport(feed.getFileName().toString(), dryRun);
+        lastReport = report;
+        syncRunner.submit(() -> runSync(feed, report));
+        return true;
+    }
+
+    /**
+     * Run a sync of the configured feed on the calling thread.
+     *
+     * @return the finished report, or null if a sync is already running
+     * @throws IllegalArgumentException if no readable feed is configured
+     */
+    public SupplierSyncReport syncNow(boolean dryRun) {
+        Path feed = configuredFeed();
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        SupplierSyncReport report = new SupplierSyncReport(feed.getFileName().toString(), dryRun);
+        lastReport = report;
+        runSync(feed, report);
+        return report;
+    }
+
+    private Path configuredFeed() {
+        if (feedPath == null || feedPath.isBlank()) {
+            throw new IllegalArgumentException("No supplier feed configured (supplier.sync.feed-path)");
+        }
+        Path feed = Paths.get(feedPath);
+        if (!Files.isReadable(feed)) {
+            throw new IllegalArgumentException("Supplier feed is not readable: " + feedPath);
+        }
+        return feed;
+    }
+
+    private void runSync(Path feed, SupplierSyncReport report) {
+        try {
+            sync(feed, report);
+            report.finish(SupplierSyncReport.Status.COMPLETED, null);
+        } catch (Exception e) {
+            logger.error("Supplier sync failed: {}", e.getMessage(), e);
+            report.finish(SupplierSyncReport.Status.FAILED, e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SupplierSyncReport getLastReport() {
+        return lastReport;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        staleProductIds.add(event.getProductId());
+    }
+
+    private void sync(Path feed, SupplierSyncReport report) throws IOException {
+        long startNanos = System.nanoTime();
+        refreshFingerprints();
+
+        try (MappedFeedReader reader = new MappedFeedReader(feed, windowMegabytes * 1024 * 1024)) {
+            report.setFeedBytes(reader.getFileSize());
+            if (!reader.next()) {
+                throw new IllegalArgumentException("Feed is empty");
+            }
+            Columns columns = Columns.fromHeader(reader);
+
+            Map<Long, PendingChange> batch = new LinkedHashMap<>();
+            while (reader.next()) {
+                report.rowRead();
+                try {
+                    PendingChange change = diff(reader, columns, report);
+                    if (change != null) {
+                        batch.put(change.productId, change);
+                        if (batch.size() >= batchSize) {
+                            apply(batch, report);
+                        }
+                    }
+                } catch (NumberFormatException | IllegalStateException e) {
+                    report.recordMalformed(reader.getRecordNumber(), e.getMessage());
+                }
+            }
+            apply(batch, report);
+        }
+        logger.info("Supplier sync{} of {} finished in {} ms: {} rows, {} changed, {} unchanged, {} unknown, {} malformed",
+                report.isDryRun() ? " (dry run)" : "", feed.getFileName(), (System.nanoTime() - startNanos) / 1_000_000,
+                report.getRowsRead(), report.getChanged(), report.getUnchanged(), report.getUnknownProducts(),
+                report.getMalformedRows());
+    }
+
+    /**
+     * Compare one feed row with the stored fingerprint; blank or missing columns keep the stored value.
+     *
+     * @return the change to write, or null if the row is unchanged or unknown
+     */
+    private PendingChange diff(MappedFeedReader reader, Columns columns, SupplierSyncReport report) {
+        if (reader.isBlank(columns.name)) {
+            throw new IllegalStateException("productName is empty");
+        }
+        long key = MappedFeedReader.hashSeed();
+        key = reader.hashField(columns.name, key);
+        key = MappedFeedReader.hashLong(KEY_SEPARATOR, key);
+        key = reader.hashField(columns.model, key);
+        key = MappedFeedReader.hashLong(intOrZero(reader, columns.width), key);
+        key = MappedFeedReader.hashLong(intOrZero(reader, columns.aspectRatio), key);
+        key = MappedFeedReader.hashLong(intOrZero(reader, columns.rimDiameter), key);
+
+        Fingerprint stored;
+        synchronized (this) {
+            stored = fingerprints.get(key);
+        }
+        if (stored == null) {
+            report.unknownProduct();
+            return null;
+        }
+
+        int price = reader.isBlank(columns.price) ? stored.price : reader.parseInt(columns.price);
+        int stock = reader.isBlank(columns.stock) ? stored.stock : reader.parseInt(columns.stock);
+        byte season = reader.isBlank(columns.season) ? stored.season : code(reader, columns.season, seasonHashes, "season");
+        byte vehicleType = reader.isBlank(columns.vehicleType)
+                ? stored.vehicleType : code(reader, columns.vehicleType, vehicleTypeHashes, "vehicleType");
+        if (price < 0 || stock < 0) {
+            throw new IllegalStateException("price and stockQuantity must not be negative");
+        }
+
+        if (price == stored.price && stock == stored.stock
+                && season == stored.season && vehicleType == stored.vehicleType) {
+            report.unchangedRow();
+            return null;
+        }
+        return new PendingChange(stored.productId, key, stored, new Fingerprint(stored.productId, price, stock, season, vehicleType));
+    }
+
+    private void apply(Map<Long, PendingChange> batch, SupplierSyncReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (clusterScheduler.isLeaseLost()) {
+            throw new IllegalStateException("Lease lost; another node is taking over the sync");
+        }
+        List<PendingChange> changes = new ArrayList<>(batch.values());
+        batch.clear();
+        if (!report.isDryRun()) {
+            List<Object[]> values = new ArrayList<>(changes.size());
+            List<Long> productIds = new ArrayList<>(changes.size());
+            for (PendingChange change : changes) {
+                Fingerprint next = change.next;
+                values.add(new Object[]{next.productId, next.price, next.stock - change.previous.stock,
+                        next.season == NONE ? null : Season.values()[next.season].name(),
+                        next.vehicleType == NONE ? null : VehicleType.values()[next.vehicleType].name()});
+                productIds.add(next.productId);
+            }
+            Map<Long, Integer> stockAfter;
+            try {
+                stockAfter = transactionTemplate.execute(status -> {
+                    importRepository.updateSyncedProducts(values);
+                    // Orders may have moved stock since it was read, so publish what the rows now hold
+                    Map<Long, Integer> stock = importRepository.findStockQuantities(productIds);
+                    for (PendingChange change : changes) {
+                        boolean stockOnly = change.next.price == change.previous.price
+                                && change.next.season == change.previous.season
+                                && change.next.vehicleType == change.previous.vehicleType;
+                        eventPublisher.publishEvent(new ProductChangedEvent(change.productId,
+                                stockOnly ? ChangeType.STOCK : ChangeType.UPDATED,
+                                stock.getOrDefault(change.productId, change.next.stock)));
+                    }
+                    return stock;
+                });
+            } catch (Exception e) {
+                logger.error("Supplier sync batch of {} updates failed: {}", changes.size(), e.getMessage());
+                report.failedRows(changes.size());
+                return;
+            }
+            synchronized (this) {
+                for (PendingChange change : changes) {
+                    Fingerprint next = change.next;
+                    fingerprints.put(change.key, new Fingerprint(next.productId, next.price,
+                            stockAfter.getOrDefault(change.productId, next.stock), next.season, next.vehicleType));
+                }
+            }
+            // Our own writes are already reflected in the fingerprints
+            for (PendingChange change : changes) {
+                staleProductIds.remove(change.productId);
+            }
+        }
+        for (PendingChange change : changes) {
+            report.recordChange(new SupplierSyncReport.Change(change.productId,
+                    change.previous.price, change.next.price, change.previous.stock, change.next.stock,
+                    change.next.season != change.previous.season || change.next.vehicleType != change.previous.vehicleType));
+        }
+    }
+
+    /**
+     * Load all fingerprints on the first run; afterwards reload only products changed since the last run.
+     */
+    private void refreshFingerprints() {
+        if (!fingerprintsLoaded) {
+            staleProductIds.clear();
+            Map<Long, Fingerprint> loaded = new HashMap<>();
+            Map<Long, Long> keys = new HashMap<>();
+            importRepository.streamSyncSnapshot(null, row -> addFingerprint(row, loaded, keys));
+            synchronized (this) {
+                fingerprints.clear();
+                fingerprints.putAll(loaded);
+                keyByProductId.clear();
+                keyByProductId.putAll(keys);
+                fingerprintsLoaded = true;
+            }
+            logger.info("Loaded {} product fingerprints for supplier sync", loaded.size());
+            return;
+        }
+        if (staleProductIds.isEmpty()) {
+            return;
+        }
+        List<Long> stale = new ArrayList<>(staleProductIds);
+        staleProductIds.removeAll(stale);
+        Map<Long, Fingerprint> loaded = new HashMap<>();
+        Map<Long, Long> keys = new HashMap<>();
+        importRepository.streamSyncSnapshot(stale, row -> addFingerprint(row, loaded, keys));
+        Set<Long> releasedKeys = new HashSet<>();
+        List<Long> successors = new ArrayList<>();
+        synchronized (this) {
+            for (Long productId : stale) {
+                Long oldKey = keyByProductId.remove(productId);
+                // A lower id sharing the catalog key owns the fingerprint; leave it in place
+                Fingerprint owner = oldKey != null ? fingerprints.get(oldKey) : null;
+                if (owner != null && owner.productId == productId) {
+                    fingerprints.remove(oldKey);
+                    releasedKeys.add(oldKey);
+                }
+            }
+            // Another product sharing a key whose owner moved away takes it over
+            if (!releasedKeys.isEmpty()) {
+                for (Map.Entry<Long, Long> entry : keyByProductId.entrySet()) {
+                    if (releasedKeys.contains(entry.getValue())) {
+                        successors.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        importRepository.streamSyncSnapshot(successors, row -> addFingerprint(row, loaded, keys));
+        synchronized (this) {
+            for (Map.Entry<Long, Fingerprint> entry : loaded.entrySet()) {
+                Fingerprint previous = fingerprints.get(entry.getKey());
+                if (previous == null || previous.productId > entry.getValue().productId) {
+                    fingerprints.put(entry.getKey(), entry.getValue());
+                }
+            }
+            keyByProductId.putAll(keys);
+        }
+    }
+
+    private void addFingerprint(Object[] row, Map<Long, Fingerprint> target, Map<Long, Long> keys) {
+        long productId = (Long) row[0];
+        long key = MappedFeedReader.hashSeed();
+        key = MappedFeedReader.hashText((String) row[1], key);
+        key = MappedFeedReader.hashLong(KEY_SEPARATOR, key);
+        key = MappedFeedReader.hashText((String) row[2], key);
+        key = MappedFeedReader.hashLong((Integer) row[3], key);
+        key = MappedFeedReader.hashLong((Integer) row[4], key);
+        key = MappedFeedReader.hashLong((Integer) row[5], key);
+        byte season = row[6] != null ? (byte) Season.valueOf((String) row[6]).ordinal() : NONE;
+        byte vehicleType = row[7] != null ? (byte) VehicleType.valueOf((String) row[7]).ordinal() : NONE;
+        // Products sharing a catalog key resolve to the lowest id, as in the catalog import
+        target.merge(key, new Fingerprint(productId, (Integer) row[8], (Integer) row[9], season, vehicleType),
+                (kept, other) -> kept.productId <= other.productId ? kept : other);
+        keys.put(productId, key);
+    }
+
+    private static int intOrZero(MappedFeedReader reader, int field) {
+        return reader.isBlank(field) ? 0 : reader.parseInt(field);
+    }
+
+    private static byte code(MappedFeedReader reader, int field, long[] hashes, String name) {
+        long hash = reader.hashField(field, MappedFeedReader.hashSeed());
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] == hash) {
+                return (byte) i;
+            }
+        }
+        throw new IllegalStateException("Unknown " + name + ": " + reader.text(field));
+    }
+
+    /**
+     * Current synced values of one product.
+     */
+    private static final class Fingerprint {
+        private final long productId;
+        private final int price;
+        private final int stock;
+        private final byte season;
+        private final byte vehicleType;
+
+        private Fingerprint(long productId, int price, int stock, byte season, byte vehicleType) {
+            this.productId = productId;
+            this.price = price;
+            this.stock = stock;
+            this.season = season;
+            this.vehicleType = vehicleType;
+        }
+    }
+
+    private static final class PendingChange {
+        private final long productId;
+        private final long key;
+        private final Fingerprint previous;
+        private final Fingerprint next;
+
+        private PendingChange(long productId, long key, Fingerprint previous, Fingerprint next) {
+            this.productId = productId;
+            this.key = key;
+            this.previous = previous;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Column positions from the feed header; -1 when a column is absent.
+     */
+    private static final class Columns {
+        private int name = -1, model = -1, width = -1, aspectRatio = -1, rimDiameter = -1;
+        private int price = -1, stock = -1, season = -1, vehicleType = -1;
+
+        private static Columns fromHeader(MappedFeedReader reader) {
+            Columns columns = new Columns();
+            for (int i = 0; i < reader.getFieldCount(); i++) {
+                String header = reader.text(i);
+                if (header == null) {
+                    continue;
+                }
+                switch (header.toLowerCase()) {
+                    case "productname" -> columns.name = i;
+                    case "productmodel" -> columns.model = i;
+                    case "width" -> columns.width = i;
+                    case "aspectratio" -> columns.aspectRatio = i;
+                    case "rimdiameter" -> columns.rimDiameter = i;
+                    case "price" -> columns.price = i;
+                    case "stockquantity" -> columns.stock = i;
+                    case "season" -> columns.season = i;
+                    case "vehicletype" -> columns.vehicleType = i;
+                    default -> { }
+                }
+            }
+            if (columns.name < 0) {
+                throw new IllegalArgumentException("Feed header must contain a productName column");
+            }
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package za.co.tt.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import za.co.tt.domain.UserChangedEvent;
+import za.co.tt.repository.UserIdentityRepository;
+import za.co.tt.repository.UserRepository;
+import za.co.tt.util.BloomFilter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers "is this username / email taken?" for registration and the signup form.
+ *
+ * A Bloom filter of every lowercased username and email is built at startup by streaming the users
+ * table. A value the filter has never seen is definitely free and is answered without touching the
+ * database; only possible matches are confirmed against the unique index. Until the first build
+ * finishes every check goes to the database.
+ *
+ * New and renamed users (local or replayed from other nodes) are added as their change events
+ * arrive. Deleted or replaced values cannot be taken out of a Bloom filter; they only cost an
+ * extra index lookup, and the filter is rebuilt once they make up user.availability.rebuild-stale-ratio
+ * of its contents or it outgrows the size it was built for.
+ */
+@Service
+public class UserAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityService.class);
+
+    private static final int MIN_CAPACITY = 1024;
+
+    private final UserRepository userRepository;
+    private final UserIdentityRepository userIdentityRepository;
+    private final DeferredStartupService deferredStartupService;
+
+    private volatile BloomFilter filter;
+    // Filter being rebuilt; values added while the scan runs go into both
+    private volatile BloomFilter building;
+    private volatile long lastBuildMillis;
+    private final Object rebuildLock = new Object();
+
+    private final AtomicLong staleValues = new AtomicLong();
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong definiteNegatives = new AtomicLong();
+    private final AtomicLong databaseChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    @Value("${user.availability.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${user.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    @Value("${user.availability.headroom:2.0}")
+    private double headroom = 2.0;
+
+    @Value("${user.availability.rebuild-stale-ratio:0.1}")
+    private double rebuildStaleRatio = 0.1;
+
+    @Autowired
+    public UserAvailabilityService(UserRepository userRepository,
+                                   UserIdentityRepository userIdentityRepository,
+                                   DeferredStartupService deferredStartupService) {
+        this.userRepository = userRepository;
+        this.userIdentityRepository = userIdentityRepository;
+        this.deferredStartupService = deferredStartupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            deferredStartupService.run("availability-filter", this::rebuild);
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        String key = normalise(username);
+        return !mightBeTaken("u:" + key) || !confirm(userRepository.existsByUsername(key));
+    }
+
+    public boolean isEmailAvailable(String email) {
+        String key = normalise(email);
+        return !mightBeTaken("e:" + key) || !confirm(userRepository.existsByEmail(key));
+    }
+
+    /**
+     * Add a user's identities straight away, without waiting for the change event.
+     */
+    public void remember(String username, String email) {
+        add("u:" + normalise(username));
+        add("e:" + normalise(email));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled || event.getUserId() == null) {
+            return;
+        }
+        switch (event.getChangeType()) {
+            case CREATED -> userRepository.findById(event.getUserId())
+                    .ifPresent(user -> remember(user.getUsername(), user.getEmail()));
+            case UPDATED -> {
+                // The previous username/email may have been replaced and now lingers in the filter
+                staleValues.addAndGet(2);
+                userRepository.findById(event.getUserId())
+                        .ifPresent(user -> remember(user.getUsername(), user.getEmail()));
+            }
+            case DELETED -> staleValues.addAndGet(2);
+            default -> { }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user.availability.check-ms:600000}")
+    public void rebuildIfDegraded() {
+        BloomFilter current = filter;
+        if (!enabled || current == null) {
+            return;
+        }
+        boolean tooStale = staleValues.get() > current.getInsertions() * rebuildStaleRatio;
+        boolean overfull = current.getInsertions() > current.getExpectedInsertions();
+        if (tooStale || overfull) {
+            logger.info("Rebuilding availability filter ({} stale values, {} of {} expected entries)",
+                    staleValues.get(), current.getInsertions(), current.getExpectedInsertions());
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long startMillis = System.currentTimeMillis();
+            long users = userIdentityRepository.countUsers();
+            long capacity = Math.max(MIN_CAPACITY, (long) (users * 2 * headroom));
+            BloomFilter fresh = new BloomFilter(capacity, falsePositiveRate);
+            long staleBefore = staleValues.get();
+            building = fresh;
+            try {
+                userIdentityRepository.forEachIdentity((username, email) -> {
+                    fresh.put("u:" + normalise(username));
+                    fresh.put("e:" + normalise(email));
+                });
+                filter = fresh;
+                staleValues.addAndGet(-staleBefore);
+                rebuilds.incrementAndGet();
+            } finally {
+                building = null;
+            }
+            lastBuildMillis = System.currentTimeMillis() - startMillis;
+            logger.info("Availability filter built from {} users in {} ms ({} bits, {} hashes)",
+                    users, lastBuildMillis, fresh.getBitCount(), fresh.getHashCount());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        BloomFilter current = filter;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("ready", current != null);
+        metrics.put("entries", current != null ? current.getInsertions() : 0);
+        metrics.put("capacity", current != null ? current.getExpectedInsertions() : 0);
+        metrics.put("sizeBytes", current != null ? current.getBitCount() / 8 : 0);
+        metrics.put("estimatedFalsePositiveRate", current != null ? current.getEstimatedFalsePositiveProbability() : null);
+        metrics.put("staleValues", staleValues.get());
+        metrics.put("checks", checks.get());
+        metrics.put("answeredWithoutDatabase", definiteNegatives.get());
+        metrics.put("databaseChecks", databaseChecks.get());
+        metrics.put("falsePositives", falsePositives.get());
+        metrics.put("rebuilds", rebuilds.get());
+        metrics.put("lastBuildMillis", lastBuildMillis);
+        return metrics;
+    }
+
+    private boolean mightBeTaken(String key) {
+        checks.incrementAndGet();
+        BloomFilter current = filter;
+        if (!enabled || current == null || current.mightContain(key)) {
+            databaseChecks.incrementAndGet();
+            return true;
+        }
+        definiteNegatives.incrementAndGet();
+        return false;
+    }
+
+    private boolean confirm(boolean exists) {
+        if (!exists && filter != null) {
+            falsePositives.incrementAndGet();
+        }
+        return exists;
+    }
+
+    private void add(String key) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    private static String normalise(String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Value must not be blank");
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
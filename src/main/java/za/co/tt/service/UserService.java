@@ -4,12 +4,19 @@ package za.co.tt.service;
 import za.co.tt.domain.Address;
 import za.co.tt.domain.Enum.AddressType;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import za.co.tt.domain.RegisterRequest;
 import za.co.tt.domain.User;
+import za.co.tt.domain.UserChangedEvent;
+import za.co.tt.domain.UserChangedEvent.ChangeType;
 import za.co.tt.repository.UserRepository;
+import za.co.tt.security.JwtUtil;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,13 +24,20 @@ import java.util.Optional;
 @Service
 public class UserService implements IUserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserAvailabilityService availabilityService;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, UserAvailabilityService availabilityService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.availabilityService = availabilityService;
     }
 
     @Override
@@ -38,7 +52,10 @@ public class UserService implements IUserService {
 
     @Override
     public User save(User entity) {
-        return userRepository.save(entity);
+        boolean created = entity.getUserId() == null;
+        User saved = userRepository.save(entity);
+        publishChange(saved.getUserId(), created ? ChangeType.CREATED : ChangeType.UPDATED);
+        return saved;
     }
 
     @Override
@@ -46,7 +63,9 @@ public class UserService implements IUserService {
         if (entity.getUserId() == null || !userRepository.existsById(entity.getUserId())) {
             throw new IllegalArgumentException("User does not exist");
         }
-        return userRepository.save(entity);
+        User saved = userRepository.save(entity);
+        publishChange(saved.getUserId(), ChangeType.UPDATED);
+        return saved;
     }
 
 
@@ -66,18 +85,39 @@ public class UserService implements IUserService {
             throw new IllegalArgumentException("User with ID " + userId + " not found");
         }
         userRepository.deleteById(userId);
+        publishChange(userId, ChangeType.DELETED);
     }
 
     public Optional<User> login(String username, String password) {
-    return userRepository.findByUsername(username)
-        .filter(user -> passwordEncoder.matches(password, user.getPassword()));
+        Optional<User> user = userRepository.findByUsername(username)
+            .filter(candidate -> passwordEncoder.matches(password, candidate.getPassword()));
+        user.ifPresent(matched -> rehashIfWeaker(matched, password));
+        return user;
+    }
+
+    /**
+     * Rehash a password stored with a lower BCrypt cost than the encoder now uses. The raw password is
+     * only available at login, so this is the one place an upgrade can happen. A failure here must not
+     * fail the login; the upgrade is simply retried next time.
+     */
+    private void rehashIfWeaker(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordEncoder.encode(rawPassword));
+            userRepository.save(user);
+            publishChange(user.getUserId(), ChangeType.PASSWORD);
+        } catch (RuntimeException e) {
+            logger.warn("Could not upgrade password hash for user {}: {}", user.getUserId(), e.getMessage());
+        }
     }
 
     public User register(RegisterRequest request) {
-        if (userRepository.findByUsername(request.getUsername()).isPresent()) {
+        if (!availabilityService.isUsernameAvailable(request.getUsername())) {
             throw new IllegalArgumentException("Username already exists");
         }
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (!availabilityService.isEmailAvailable(request.getEmail())) {
             throw new IllegalArgumentException("Email already registered");
         }
 
@@ -113,7 +153,16 @@ public class UserService implements IUserService {
 
         user.getAddresses().add(address);
 
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently (possibly on another node) after the availability check
+            throw new IllegalArgumentException("Username or email already registered");
+        }
+        availabilityService.remember(saved.getUsername(), saved.getEmail());
+        publishChange(saved.getUserId(), ChangeType.CREATED);
+        return saved;
     }
 
     public Optional<User> findById(Long id) {
@@ -125,6 +174,27 @@ public class UserService implements IUserService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * User id of the caller from a "Bearer" Authorization header, or null if it is missing or invalid.
+     */
+    public Long resolveUserId(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            String token = authHeader.substring(7);
+            Long userId = JwtUtil.getUserIdFromToken(token);
+            if (userId != null) {
+                return userId;
+            }
+            // Older tokens carry no userId claim
+            return findByUsername(JwtUtil.getUsernameFromToken(token)).map(User::getUserId).orElse(null);
+        } catch (Exception e) {
+            logger.warn("Could not resolve user from token: {}", e.getMessage());
+            return null;
+        }
+    }
+
     public boolean verifyPassword(String rawPassword, String encodedPassword) {
         return passwordEncoder.matches(rawPassword, encodedPassword);
     }
@@ -135,5 +205,10 @@ public class UserService implements IUserService {
         
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        publishChange(userId, ChangeType.PASSWORD);
+    }
+
+    private void publishChange(Long userId, ChangeType changeType) {
+        eventPublisher.publishEvent(new UserChangedEvent(userId, changeType));
     }
 }
@@ -0,0 +1,84 @@
+package za.co.tt.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Progress of a rebuild that reads an id range in fixed-size chunks while live updates keep arriving.
+ * Chunk i covers minId + i * chunkSize up to the next chunk's first id (or maxId).
+ *
+ * A live update for an id whose chunk has started reading may have been missed by the scan and has to
+ * be replayed on the rebuilt state; one for an id whose chunk has not started yet will be seen by the
+ * scan. Ids outside the range were never scanned at all. Chunks are marked started once their read's
+ * snapshot is open, so an update the snapshot already holds is not replayed on top of it.
+ *
+ * Thread-safe.
+ */
+public class IdRangeScan {
+
+    private final long minId;
+    private final long maxId;
+    private final int chunkSize;
+    private final AtomicIntegerArray started;
+
+    public IdRangeScan(long minId, long maxId, int chunkSize) {
+        if (maxId < minId) {
+            throw new IllegalArgumentException("maxId must not be below minId");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        long chunks = (maxId - minId) / chunkSize + 1;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many chunks");
+        }
+        this.minId = minId;
+        this.maxId = maxId;
+        this.chunkSize = chunkSize;
+        this.started = new AtomicIntegerArray((int) chunks);
+    }
+
+    public long getMinId() { return minId; }
+    public long getMaxId() { return maxId; }
+
+    public int chunkCount() {
+        return started.length();
+    }
+
+    public long fromId(int chunk) {
+        return minId + (long) chunk * chunkSize;
+    }
+
+    public long toId(int chunk) {
+        return Math.min(fromId(chunk) + chunkSize - 1, maxId);
+    }
+
+    /**
+     * Chunk that id falls in; id must be within the range.
+     */
+    public int chunkOf(long id) {
+        return (int) ((id - minId) / chunkSize);
+    }
+
+    public void markStarted(int chunk) {
+        started.set(chunk, 1);
+    }
+
+    public boolean covers(long id) {
+        return id >= minId && id <= maxId;
+    }
+
+    /**
+     * True if id is in the range and its chunk has started reading.
+     */
+    public boolean hasStarted(long id) {
+        return covers(id) && started.get(chunkOf(id)) == 1;
+    }
+
+    /**
+     * Whether a live update for id, noted with the hasStarted value it saw when it arrived, must be
+     * replayed on the rebuilt state.
+     */
+    public boolean needsReplay(long id, boolean startedOnArrival) {
+        return startedOnArrival || !covers(id);
+    }
+}
@@ -0,0 +1,137 @@
+package za.co.tt.util;
+
+/**
+ * Map from primitive long keys to long counts in two parallel open-addressing arrays (linear
+ * probing), with no boxing and about 16 to 32 bytes per key. Missing keys count as 0. Keys are never
+ * removed; a count brought back to 0 stays as an entry and is skipped by forEach.
+ *
+ * Not thread-safe; callers synchronise.
+ */
+public class LongCountMap {
+
+    /**
+     * Receives one key and its non-zero count.
+     */
+    public interface EntryConsumer {
+        void accept(long key, long count);
+    }
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private long[] counts;
+    private int size;
+    // 0 marks an empty slot, so key 0 is kept separately
+    private boolean hasZeroKey;
+    private long zeroKeyCount;
+
+    public LongCountMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongCountMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative");
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        counts = new long[capacity];
+    }
+
+    /**
+     * Add delta to key's count and return the new count.
+     */
+    public long add(long key, long delta) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroKeyCount += delta;
+            return zeroKeyCount;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] += delta;
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = delta;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+        return delta;
+    }
+
+    public long get(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroKeyCount : 0;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Add every count of other to this map.
+     */
+    public void addAll(LongCountMap other) {
+        other.forEach(this::add);
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasZeroKey && zeroKeyCount != 0) {
+            consumer.accept(EMPTY, zeroKeyCount);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && counts[i] != 0) {
+                consumer.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Number of keys ever added, including any whose count is back to 0.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
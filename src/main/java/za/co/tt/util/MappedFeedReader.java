@@ -0,0 +1,318 @@
+package za.co.tt.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a comma separated feed file through a read-only memory mapping, one record at a time.
+ *
+ * Fields are not copied out: each record is described by start/end offsets into the mapped window,
+ * and numbers and hashes are computed straight from the bytes. Only text() allocates. Large files are
+ * mapped in windows; a record that straddles a window edge is re-read from a window starting at it.
+ * Quoted fields may contain commas and "" escapes but not line breaks.
+ */
+public class MappedFeedReader implements Closeable {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private long recordNumber;
+
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private boolean[] quoted = new boolean[32];
+    private int fieldCount;
+
+    /**
+     * @param windowSize bytes mapped at a time (at least 64); no record may be longer than this
+     */
+    public MappedFeedReader(Path file, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowSize = Math.max(64, windowSize);
+        map(0);
+        if (window.limit() >= 3 && (window.get(0) & 0xFF) == 0xEF && (window.get(1) & 0xFF) == 0xBB
+                && (window.get(2) & 0xFF) == 0xBF) {
+            position = 3;
+        }
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * 1-based number of the current record (the header is record 1).
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Advance to the next non-blank record.
+     *
+     * @return false at end of file
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (windowStart + position >= fileSize) {
+                return false;
+            }
+            int recordStart = position;
+            int end = scanRecord();
+            if (end < 0) {
+                // Record runs past the mapped window; remap so it starts at the window start
+                if (recordStart == 0) {
+                    throw new IOException("Record longer than the mapping window at record " + (recordNumber + 1));
+                }
+                map(windowStart + recordStart);
+                continue;
+            }
+            recordNumber++;
+            if (!(fieldCount == 1 && starts[0] == ends[0])) {
+                return true;
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isBlank(int field) {
+        if (field < 0 || field >= fieldCount) {
+            return true;
+        }
+        for (int i = starts[field]; i < ends[field]; i++) {
+            byte b = window.get(i);
+            if (b != ' ' && b != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Integer part of a numeric field ("1299.95" reads as 1299). Surrounding spaces are ignored.
+     *
+     * @throws NumberFormatException if the field holds anything else
+     */
+    public int parseInt(int field) {
+        if (isBlank(field)) {
+            throw new NumberFormatException("Field " + field + " is empty");
+        }
+        int i = starts[field];
+        int end = ends[field];
+        while (window.get(i) == ' ' || window.get(i) == '\t') i++;
+        while (window.get(end - 1) == ' ' || window.get(end - 1) == '\t') end--;
+        boolean negative = false;
+        if (window.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long value = 0;
+        boolean digits = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                if (!fraction) {
+                    value = value * 10 + (b - '0');
+                    if (value > Integer.MAX_VALUE) {
+                        throw new NumberFormatException("Field " + field + " is out of range");
+                    }
+                }
+                digits = true;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                throw new NumberFormatException("Field " + field + " is not a number");
+            }
+        }
+        if (!digits) {
+            throw new NumberFormatException("Field " + field + " is not a number");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * Continue a 64-bit FNV-1a hash over the field's content, ASCII-lowercased and trimmed, with
+     * quote escapes removed. Use hashBytes with the same seed to hash values from other sources.
+     */
+    public long hashField(int field, long seed) {
+        long hash = seed;
+        if (field < 0 || field >= fieldCount) {
+            return hash;
+        }
+        int i = starts[field];
+        int end = ends[field];
+        while (i < end && (window.get(i) == ' ' || window.get(i) == '\t')) i++;
+        while (end > i && (window.get(end - 1) == ' ' || window.get(end - 1) == '\t')) end--;
+        for (; i < end; i++) {
+            byte b = window.get(i);
+            if (quoted[field] && b == '"') {
+                i++;
+            }
+            hash = (hash ^ lower(b)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public String text(int field) {
+        if (isBlank(field)) {
+            return null;
+        }
+        byte[] bytes = new byte[ends[field] - starts[field]];
+        int length = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            byte b = window.get(i);
+            if (quoted[field] && b == '"') {
+                i++;
+            }
+            bytes[length++] = b;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8).trim();
+    }
+
+    public static long hashSeed() {
+        return FNV_OFFSET;
+    }
+
+    /**
+     * Hash text the same way hashField hashes a feed field.
+     */
+    public static long hashText(String text, long seed) {
+        long hash = seed;
+        if (text == null) {
+            return hash;
+        }
+        for (byte b : text.trim().getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ lower(b)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static long hashLong(long value, long seed) {
+        long hash = seed;
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xFF)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, fileSize - start));
+        position = 0;
+    }
+
+    /**
+     * Split the record at position into fields.
+     *
+     * @return offset just past the record, or -1 if the window ends before the record does
+     */
+    private int scanRecord() {
+        int limit = window.limit();
+        boolean lastWindow = windowStart + limit >= fileSize;
+        fieldCount = 0;
+        int i = position;
+        int fieldStart = i;
+        boolean inQuotes = false;
+        boolean fieldQuoted = false;
+        while (true) {
+            if (i >= limit) {
+                if (!lastWindow) {
+                    return -1;
+                }
+                addField(fieldStart, i, fieldQuoted);
+                position = i;
+                return i;
+            }
+            byte b = window.get(i);
+            if (inQuotes) {
+                if (b == '"') {
+                    if (i + 1 < limit && window.get(i + 1) == '"') {
+                        i++;
+                    } else {
+                        inQuotes = false;
+                        addField(fieldStart, i, true);
+                        // Skip to the delimiter after the closing quote
+                        i++;
+                        while (i < limit && window.get(i) != ',' && window.get(i) != '\n' && window.get(i) != '\r') i++;
+                        if (i >= limit && !lastWindow) {
+                            return -1;
+                        }
+                        if (i >= limit || window.get(i) != ',') {
+                            position = skipLineEnd(i, limit);
+                            return position;
+                        }
+                        fieldStart = i + 1;
+                        fieldQuoted = false;
+                    }
+                }
+            } else if (b == '"' && i == fieldStart) {
+                inQuotes = true;
+                fieldQuoted = true;
+                fieldStart = i + 1;
+            } else if (b == ',') {
+                addField(fieldStart, i, false);
+                fieldStart = i + 1;
+            } else if (b == '\n' || b == '\r') {
+                addField(fieldStart, i, false);
+                position = skipLineEnd(i, limit);
+                if (position < 0) {
+                    return -1;
+                }
+                return position;
+            }
+            i++;
+        }
+    }
+
+    private int skipLineEnd(int i, int limit) {
+        if (i < limit && window.get(i) == '\r') {
+            i++;
+            if (i >= limit && windowStart + limit < fileSize) {
+                return -1;
+            }
+        }
+        if (i < limit && window.get(i) == '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            quoted = Arrays.copyOf(quoted, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    private static int lower(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (b + 32) & 0xFF : b & 0xFF;
+    }
+}
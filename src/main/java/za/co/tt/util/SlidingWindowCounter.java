@@ -0,0 +1,111 @@
+package za.co.tt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Event counter over the last N time buckets, kept in a ring: bucket b lives in slot b % N and a slot
+ * is reset the first time a newer bucket lands on it, so old counts fall out without any sweeping.
+ * Callers pick the bucket length and pass absolute bucket numbers (e.g. epoch millis / bucket millis).
+ *
+ * Each slot packs the low 24 bits of its bucket number with a 40-bit count into one long, updated by
+ * compare-and-set, so add and the sums are lock-free and a reset can never lose a concurrent add.
+ */
+public class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+    private static final long HALF_EPOCH_RANGE = (EPOCH_MASK + 1) / 2;
+
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter(int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        // Starts as bucket 0 with no count, which reads as empty once bucket 0 is out of the window
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    /**
+     * Add to a bucket's count. Adding to a bucket whose slot already holds a newer bucket does nothing;
+     * that bucket has left the window.
+     */
+    public void add(long bucket, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount must not be negative");
+        }
+        int slot = slotOf(bucket);
+        long epoch = bucket & EPOCH_MASK;
+        while (true) {
+            long current = slots.get(slot);
+            long storedEpoch = current >>> COUNT_BITS;
+            long next;
+            if (storedEpoch == epoch) {
+                next = pack(epoch, Math.min(COUNT_MASK, (current & COUNT_MASK) + amount));
+            } else if (isNewer(epoch, storedEpoch)) {
+                next = pack(epoch, Math.min(COUNT_MASK, amount));
+            } else {
+                return;
+            }
+            if (slots.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Count of one bucket, or 0 if it is outside the window ending at currentBucket.
+     */
+    public long get(long bucket, long currentBucket) {
+        long age = currentBucket - bucket;
+        if (age < 0 || age >= slots.length()) {
+            return 0;
+        }
+        long value = slots.get(slotOf(bucket));
+        return (value >>> COUNT_BITS) == (bucket & EPOCH_MASK) ? value & COUNT_MASK : 0;
+    }
+
+    /**
+     * Total over the window ending at currentBucket.
+     */
+    public long sum(long currentBucket) {
+        long total = 0;
+        for (int age = 0; age < slots.length(); age++) {
+            total += get(currentBucket - age, currentBucket);
+        }
+        return total;
+    }
+
+    /**
+     * Total over the window with each bucket weighted by decayPerBucket^age, so the current bucket
+     * counts in full and older ones progressively less.
+     */
+    public double decayedSum(long currentBucket, double decayPerBucket) {
+        double total = 0;
+        double weight = 1;
+        for (int age = 0; age < slots.length(); age++) {
+            total += get(currentBucket - age, currentBucket) * weight;
+            weight *= decayPerBucket;
+        }
+        return total;
+    }
+
+    public int getBucketCount() {
+        return slots.length();
+    }
+
+    private int slotOf(long bucket) {
+        return (int) Math.floorMod(bucket, (long) slots.length());
+    }
+
+    // Epochs wrap, so "newer" means less than half the epoch range ahead
+    private static boolean isNewer(long epoch, long storedEpoch) {
+        long ahead = (epoch - storedEpoch) & EPOCH_MASK;
+        return ahead != 0 && ahead < HALF_EPOCH_RANGE;
+    }
+
+    private static long pack(long epoch, long count) {
+        return (epoch << COUNT_BITS) | count;
+    }
+}
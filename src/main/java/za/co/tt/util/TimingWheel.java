@@ -0,0 +1,115 @@
+package za.co.tt.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel: keys are hashed into a fixed ring of slots by deadline tick, so scheduling,
+ * cancelling and expiring are all O(1) per key no matter how many keys are waiting. Deadlines further
+ * away than one rotation carry a round count that is decremented each time the cursor passes.
+ *
+ * Resolution is one tick; a key expires on the first tick at or after its deadline.
+ * All methods are synchronized; callers drive the wheel by calling advance with the current time.
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<Set<K>> slots;
+    private final Map<K, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Schedule a key, replacing any deadline it already has.
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long deadlineTick = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        long targetTick = Math.max(currentTick + 1, deadlineTick);
+        int slot = (int) (targetTick % slots.size());
+        long rounds = (targetTick - currentTick - 1) / slots.size();
+        slots.get(slot).add(key);
+        entries.put(key, new Entry(slot, rounds));
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        slots.get(entry.slot).remove(key);
+        return true;
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Move the cursor over every tick that has elapsed by nowMillis and remove the keys that are due.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        // After a long pause there is no point in passing the same slots more than once per round
+        if (targetTick - currentTick > slots.size()) {
+            long skippedRotations = (targetTick - currentTick) / slots.size() - 1;
+            for (Entry entry : entries.values()) {
+                entry.rounds = Math.max(0, entry.rounds - skippedRotations);
+            }
+            currentTick += skippedRotations * slots.size();
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            Set<K> slot = slots.get((int) (currentTick % slots.size()));
+            if (slot.isEmpty()) {
+                continue;
+            }
+            List<K> expired = new ArrayList<>();
+            for (K key : slot) {
+                Entry entry = entries.get(key);
+                if (entry.rounds > 0) {
+                    entry.rounds--;
+                } else {
+                    expired.add(key);
+                }
+            }
+            for (K key : expired) {
+                slot.remove(key);
+                entries.remove(key);
+            }
+            due.addAll(expired);
+        }
+        return due;
+    }
+
+    private static final class Entry {
+        private final int slot;
+        private long rounds;
+
+        private Entry(int slot, long rounds) {
+            this.slot = slot;
+            this.rounds = rounds;
+        }
+    }
+}
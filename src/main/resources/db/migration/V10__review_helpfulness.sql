@@ -0,0 +1,20 @@
+-- "Was this review helpful?" votes, written by ReviewVoteService in periodic batches.
+-- review_vote holds one row per (review, user) and is what makes a vote count only once;
+-- review_helpfulness holds the running total per review so listings never count votes.
+-- Both go away with their review. Votes of deleted users are kept so totals do not shift.
+
+CREATE TABLE review_vote (
+    review_id  BIGINT      NOT NULL,
+    user_id    BIGINT      NOT NULL,
+    voted_at   DATETIME(6) NOT NULL,
+    PRIMARY KEY (review_id, user_id),
+    CONSTRAINT fk_review_vote_review FOREIGN KEY (review_id) REFERENCES reviews (review_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE review_helpfulness (
+    review_id      BIGINT      NOT NULL,
+    helpful_count  BIGINT      NOT NULL DEFAULT 0,
+    updated_at     DATETIME(6) NOT NULL,
+    PRIMARY KEY (review_id),
+    CONSTRAINT fk_review_helpfulness_review FOREIGN KEY (review_id) REFERENCES reviews (review_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
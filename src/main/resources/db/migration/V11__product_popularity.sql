@@ -0,0 +1,14 @@
+-- Trending products: weighted view / add-to-cart / purchase score per product and time bucket
+-- (bucket = epoch millis / bucket length), added to by ProductPopularityService snapshots and read
+-- back on startup. Rows older than the trending window are deleted by the snapshot.
+
+CREATE TABLE product_popularity (
+    product_id  BIGINT NOT NULL,
+    bucket      BIGINT NOT NULL,
+    score       BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id, bucket),
+    CONSTRAINT fk_product_popularity_product FOREIGN KEY (product_id) REFERENCES products (product_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- ProductPopularityRepository.forEachScore and deleteBefore: window range by bucket
+CREATE INDEX idx_product_popularity_bucket ON product_popularity (bucket);
@@ -0,0 +1,4 @@
+-- OrderHistoryRepository.findSummaries: keyset scan of one customer's orders by order id, newest first,
+-- in both the live and the archived orders.
+CREATE INDEX idx_orders_user_id ON orders (user_id, order_id);
+CREATE INDEX idx_orders_archive_user_id ON orders_archive (user_id, order_id);
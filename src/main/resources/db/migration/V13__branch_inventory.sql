@@ -0,0 +1,53 @@
+-- Fitment centres holding their own stock for COLLECTION orders. products.stock_quantity stays the
+-- stock shipped by DELIVERY orders.
+
+CREATE TABLE branch (
+    branch_id   BIGINT         NOT NULL AUTO_INCREMENT,
+    code        VARCHAR(32)    NOT NULL,
+    name        VARCHAR(255)   NOT NULL,
+    active      BOOLEAN        NOT NULL DEFAULT TRUE,
+    PRIMARY KEY (branch_id),
+    UNIQUE KEY uk_branch_code (code)
+) ENGINE = InnoDB;
+
+-- On-hand units per product and branch, of which reserved are held for open collection orders.
+CREATE TABLE branch_stock (
+    product_id  BIGINT         NOT NULL,
+    branch_id   BIGINT         NOT NULL,
+    quantity    INT            NOT NULL DEFAULT 0,
+    reserved    INT            NOT NULL DEFAULT 0,
+    updated_at  DATETIME(6)    NOT NULL,
+    PRIMARY KEY (product_id, branch_id),
+    CONSTRAINT fk_branch_stock_product FOREIGN KEY (product_id) REFERENCES products (product_id) ON DELETE CASCADE,
+    CONSTRAINT fk_branch_stock_branch FOREIGN KEY (branch_id) REFERENCES branch (branch_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_branch_stock_branch ON branch_stock (branch_id);
+
+-- Units a collection order holds at its branch. consumed_at is set when the order completes and the
+-- units leave the branch; released_at when the order is cancelled or expires and the units go back.
+-- Released rows are kept so the order is still known to have taken its stock from a branch.
+CREATE TABLE branch_reservation (
+    order_id     BIGINT         NOT NULL,
+    product_id   BIGINT         NOT NULL,
+    branch_id    BIGINT         NOT NULL,
+    quantity     INT            NOT NULL,
+    created_at   DATETIME(6)    NOT NULL,
+    consumed_at  DATETIME(6),
+    released_at  DATETIME(6),
+    PRIMARY KEY (order_id, product_id),
+    CONSTRAINT fk_branch_reservation_order FOREIGN KEY (order_id) REFERENCES orders (order_id) ON DELETE CASCADE,
+    CONSTRAINT fk_branch_reservation_stock FOREIGN KEY (product_id, branch_id) REFERENCES branch_stock (product_id, branch_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Applied inter-branch transfers; one batch_id per admin request.
+CREATE TABLE branch_transfer (
+    transfer_id     BIGINT         NOT NULL AUTO_INCREMENT,
+    batch_id        VARCHAR(36)    NOT NULL,
+    product_id      BIGINT         NOT NULL,
+    from_branch_id  BIGINT         NOT NULL,
+    to_branch_id    BIGINT         NOT NULL,
+    quantity        INT            NOT NULL,
+    transferred_at  DATETIME(6)    NOT NULL,
+    PRIMARY KEY (transfer_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,125 @@
+-- Baseline schema for TymelessTyre.
+-- Mirrors the tables previously generated by spring.jpa.hibernate.ddl-auto=update.
+-- Databases that already contain these tables are baselined at version 1 and skip this script.
+
+CREATE TABLE users (
+    user_id       BIGINT       NOT NULL AUTO_INCREMENT,
+    name          VARCHAR(255),
+    surname       VARCHAR(255),
+    username      VARCHAR(255) NOT NULL,
+    email         VARCHAR(255) NOT NULL,
+    password      VARCHAR(255) NOT NULL,
+    phone_number  VARCHAR(255),
+    created_at    DATETIME(6)  NOT NULL,
+    role          VARCHAR(255) NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE addresses (
+    address_id    BIGINT       NOT NULL AUTO_INCREMENT,
+    street        VARCHAR(255),
+    city          VARCHAR(255),
+    state         VARCHAR(255),
+    postal_code   INT          NOT NULL,
+    country       VARCHAR(255),
+    address_type  VARCHAR(32),
+    user_id       BIGINT,
+    PRIMARY KEY (address_id),
+    CONSTRAINT fk_addresses_user FOREIGN KEY (user_id) REFERENCES users (user_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE products (
+    product_id      BIGINT       NOT NULL AUTO_INCREMENT,
+    product_name    VARCHAR(255),
+    product_model   VARCHAR(255),
+    width           INT          NOT NULL,
+    aspect_ratio    INT          NOT NULL,
+    rim_diameter    INT          NOT NULL,
+    season          VARCHAR(32),
+    vehicle_type    VARCHAR(32),
+    product_price   INT          NOT NULL,
+    stock_quantity  INT          NOT NULL,
+    image_url       VARCHAR(255),
+    description     VARCHAR(255),
+    image           LONGBLOB,
+    PRIMARY KEY (product_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE product_fitments (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    make        VARCHAR(255),
+    model       VARCHAR(255),
+    year        INT,
+    trim        VARCHAR(255),
+    product_id  BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_product_fitments_product FOREIGN KEY (product_id) REFERENCES products (product_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE orders (
+    order_id      BIGINT         NOT NULL AUTO_INCREMENT,
+    user_id       BIGINT,
+    order_date    DATETIME(6),
+    order_status  VARCHAR(32)    NOT NULL,
+    total_amount  DECIMAL(38, 2),
+    PRIMARY KEY (order_id),
+    CONSTRAINT fk_orders_user FOREIGN KEY (user_id) REFERENCES users (user_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE order_items (
+    id          BIGINT         NOT NULL AUTO_INCREMENT,
+    product_id  BIGINT,
+    quantity    INT            NOT NULL,
+    price       DECIMAL(38, 2),
+    subtotal    DECIMAL(38, 2),
+    order_id    BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (product_id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (order_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE payment (
+    payment_id      BIGINT         NOT NULL AUTO_INCREMENT,
+    payment_method  VARCHAR(32)    NOT NULL,
+    payment_status  VARCHAR(32)    NOT NULL,
+    amount          DECIMAL(10, 2) NOT NULL,
+    payment_date    DATETIME(6)    NOT NULL,
+    user_id         BIGINT         NOT NULL,
+    order_id        BIGINT         NOT NULL,
+    PRIMARY KEY (payment_id),
+    CONSTRAINT uk_payment_order UNIQUE (order_id),
+    CONSTRAINT fk_payment_user FOREIGN KEY (user_id) REFERENCES users (user_id),
+    CONSTRAINT fk_payment_order FOREIGN KEY (order_id) REFERENCES orders (order_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE delivery (
+    delivery_id              BIGINT       NOT NULL AUTO_INCREMENT,
+    order_id                 BIGINT       NOT NULL,
+    address_id               BIGINT,
+    delivery_method          VARCHAR(32)  NOT NULL,
+    delivery_status          VARCHAR(32)  NOT NULL,
+    courier_name             VARCHAR(255),
+    estimated_delivery_date  DATETIME(6),
+    actual_delivery_date     DATETIME(6),
+    PRIMARY KEY (delivery_id),
+    CONSTRAINT uk_delivery_order UNIQUE (order_id),
+    CONSTRAINT fk_delivery_order FOREIGN KEY (order_id) REFERENCES orders (order_id),
+    CONSTRAINT fk_delivery_address FOREIGN KEY (address_id) REFERENCES addresses (address_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE reviews (
+    review_id      BIGINT       NOT NULL AUTO_INCREMENT,
+    reviewer_name  VARCHAR(255),
+    comment        VARCHAR(255),
+    rating         INT          NOT NULL,
+    review_date    DATETIME(6),
+    product_id     BIGINT,
+    user_id        BIGINT,
+    order_id       BIGINT,
+    PRIMARY KEY (review_id),
+    CONSTRAINT fk_reviews_product FOREIGN KEY (product_id) REFERENCES products (product_id),
+    CONSTRAINT fk_reviews_user FOREIGN KEY (user_id) REFERENCES users (user_id),
+    CONSTRAINT fk_reviews_order FOREIGN KEY (order_id) REFERENCES orders (order_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,55 @@
+-- Composite and covering indexes derived from the @Query and derived finder methods in za.co.tt.repository.
+-- Each index lists the repository method(s) it serves.
+
+-- OrderRepository.findByUser_UserId, findByUser_UserIdAndOrderStatus
+CREATE INDEX idx_orders_user_status ON orders (user_id, order_status, order_date);
+-- OrderRepository.findByOrderStatus
+CREATE INDEX idx_orders_status_date ON orders (order_status, order_date);
+
+-- Order.orderItems fetch joins (order_items.order_id) and product joins
+CREATE INDEX idx_order_items_order ON order_items (order_id, product_id);
+CREATE INDEX idx_order_items_product ON order_items (product_id);
+
+-- ReviewRepository.findByProduct_ProductId, findAverageRatingByProductId (covering on rating)
+CREATE INDEX idx_reviews_product_rating ON reviews (product_id, rating);
+-- ReviewRepository.existsByOrder_OrderIdAndProduct_ProductId (covering)
+CREATE INDEX idx_reviews_order_product ON reviews (order_id, product_id);
+-- ReviewRepository.findByUser_UserId, existsByUser_UserIdAndProduct_ProductId (covering)
+CREATE INDEX idx_reviews_user_product ON reviews (user_id, product_id);
+-- ReviewRepository.findByRating
+CREATE INDEX idx_reviews_rating ON reviews (rating);
+
+-- PaymentRepository.findByPaymentStatus
+CREATE INDEX idx_payment_status ON payment (payment_status);
+-- PaymentRepository.findByUser_UserId, findByUserIdAndPaymentStatus
+CREATE INDEX idx_payment_user_status ON payment (user_id, payment_status);
+-- PaymentRepository.findByPaymentMethod
+CREATE INDEX idx_payment_method ON payment (payment_method);
+
+-- DeliveryRepository.findByDeliveryStatus, findByStatusAndMethod
+CREATE INDEX idx_delivery_status_method ON delivery (delivery_status, delivery_method);
+-- DeliveryRepository.findByDeliveryMethod
+CREATE INDEX idx_delivery_method ON delivery (delivery_method);
+-- DeliveryRepository.findByCourierName
+CREATE INDEX idx_delivery_courier ON delivery (courier_name);
+-- DeliveryRepository.findByDeliveryAddressUserId (join through addresses)
+CREATE INDEX idx_delivery_address ON delivery (address_id);
+
+-- IProductRepository.findByTireSpecifications
+CREATE INDEX idx_products_size ON products (width, aspect_ratio, rim_diameter);
+-- IProductRepository.findBySeason
+CREATE INDEX idx_products_season ON products (season);
+-- IProductRepository.findByVehicleType
+CREATE INDEX idx_products_vehicle_type ON products (vehicle_type);
+-- IProductRepository.findByStockQuantityGreaterThan
+CREATE INDEX idx_products_stock ON products (stock_quantity);
+-- IProductRepository.findByProductPriceBetween
+CREATE INDEX idx_products_price ON products (product_price);
+-- IProductRepository.findByProductName
+CREATE INDEX idx_products_name ON products (product_name);
+
+-- UserRepository.findByRole (findByUsernameAndRole is served by the unique username index)
+CREATE INDEX idx_users_role ON users (role);
+
+-- AddressRepository.findByUserUserIdAndAddressType, findFirstByUserIdAndAddressType, countByUserId
+CREATE INDEX idx_addresses_user_type ON addresses (user_id, address_type);
@@ -0,0 +1,21 @@
+-- Server-side cart. Rows are written by CartService's write-behind flush, one cart per user.
+
+CREATE TABLE cart (
+    cart_id     BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id     BIGINT      NOT NULL,
+    created_at  DATETIME(6),
+    updated_at  DATETIME(6),
+    is_active   BIT,
+    PRIMARY KEY (cart_id),
+    CONSTRAINT uk_cart_user UNIQUE (user_id),
+    CONSTRAINT fk_cart_user FOREIGN KEY (user_id) REFERENCES users (user_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE cart_items (
+    cart_id     BIGINT      NOT NULL,
+    product_id  BIGINT      NOT NULL,
+    quantity    INT         NOT NULL,
+    -- A cart holds each product once (CartService keys lines by product); the key also serves the foreign key
+    PRIMARY KEY (cart_id, product_id),
+    CONSTRAINT fk_cart_items_cart FOREIGN KEY (cart_id) REFERENCES cart (cart_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,29 @@
+-- Pre-aggregated sales analytics maintained incrementally by SalesAnalyticsService.
+-- One row per (rollup_type, rollup_key), e.g. ('HOUR', '2025-10-01T14'), ('DAY', '2025-10-01') or ('SEASON', 'WINTER').
+
+CREATE TABLE sales_rollup (
+    rollup_type        VARCHAR(16)    NOT NULL,
+    rollup_key         VARCHAR(64)    NOT NULL,
+    order_count        BIGINT         NOT NULL DEFAULT 0,
+    cancelled_count    BIGINT         NOT NULL DEFAULT 0,
+    completed_count    BIGINT         NOT NULL DEFAULT 0,
+    units              BIGINT         NOT NULL DEFAULT 0,
+    revenue            DECIMAL(19, 2),
+    cancelled_revenue  DECIMAL(19, 2),
+    updated_at         DATETIME(6),
+    PRIMARY KEY (rollup_type, rollup_key)
+) ENGINE = InnoDB;
+
+-- Coordinates rebuilds across nodes. A rebuild replaces every sales_rollup row; while it runs,
+-- rebuilding_until fences off delta flushes from the other nodes, and on completion generation is
+-- bumped and max_order_id records the highest order id it scanned. Deltas a node recorded under an
+-- older generation for orders up to max_order_id are already in the rebuilt rows and are dropped.
+CREATE TABLE sales_rollup_state (
+    id                TINYINT      NOT NULL,
+    generation        BIGINT       NOT NULL DEFAULT 0,
+    max_order_id      BIGINT,
+    rebuilding_until  DATETIME(3),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO sales_rollup_state (id, generation) VALUES (1, 0);
@@ -0,0 +1,40 @@
+-- Cold storage for terminal-state orders moved out of the live tables by OrderArchiveService.
+-- Payment and delivery are one-to-one with an order, so they are flattened into orders_archive.
+-- Ids are preserved so an archived order can be restored unchanged.
+
+CREATE TABLE orders_archive (
+    order_id                 BIGINT         NOT NULL,
+    user_id                  BIGINT,
+    order_date               DATETIME(6),
+    order_status             VARCHAR(32)    NOT NULL,
+    total_amount             DECIMAL(38, 2),
+    payment_id               BIGINT,
+    payment_user_id          BIGINT,
+    payment_method           VARCHAR(32),
+    payment_status           VARCHAR(32),
+    payment_amount           DECIMAL(10, 2),
+    payment_date             DATETIME(6),
+    delivery_id              BIGINT,
+    address_id               BIGINT,
+    delivery_method          VARCHAR(32),
+    delivery_status          VARCHAR(32),
+    courier_name             VARCHAR(255),
+    estimated_delivery_date  DATETIME(6),
+    actual_delivery_date     DATETIME(6),
+    archived_at              DATETIME(6)    NOT NULL,
+    PRIMARY KEY (order_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_orders_archive_user_status ON orders_archive (user_id, order_status);
+
+CREATE TABLE order_items_archive (
+    order_id    BIGINT         NOT NULL,
+    item_id     BIGINT         NOT NULL,
+    product_id  BIGINT,
+    quantity    INT            NOT NULL,
+    price       DECIMAL(38, 2),
+    subtotal    DECIMAL(38, 2),
+    PRIMARY KEY (order_id, item_id),
+    CONSTRAINT fk_order_items_archive_order FOREIGN KEY (order_id) REFERENCES orders_archive (order_id)
+) ENGINE = InnoDB;
+
@@ -0,0 +1,15 @@
+-- Cross-node cache invalidation log written and tailed by ClusterInvalidationService.
+-- Each node appends the entity changes it made and reads rows above its high-water mark.
+-- Rows are short-lived and pruned after cluster.invalidation.retention-minutes.
+
+CREATE TABLE cluster_change_log (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    entity_type     VARCHAR(16)  NOT NULL,
+    entity_id       BIGINT       NOT NULL,
+    change_type     VARCHAR(16)  NOT NULL,
+    stock_quantity  INT,
+    origin_node     VARCHAR(64)  NOT NULL,
+    created_at      DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (id),
+    INDEX idx_cluster_change_log_created (created_at)
+) ENGINE = InnoDB;
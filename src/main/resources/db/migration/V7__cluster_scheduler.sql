@@ -0,0 +1,50 @@
+-- Cluster-wide job scheduling used by ClusterSchedulerService.
+-- scheduler_node: live application instances (heartbeat), used for sharding and the admin view.
+-- scheduler_job: one row per registered job; the leader bumps generation when a run is due.
+-- scheduler_lease: the leader lease, exclusive task leases and one lease per job shard.
+-- scheduler_job_run: history of finished shard runs.
+-- All lease times are compared against the database clock.
+
+CREATE TABLE scheduler_node (
+    node_id     VARCHAR(64)  NOT NULL,
+    started_at  DATETIME(3)  NOT NULL,
+    last_seen   DATETIME(3)  NOT NULL,
+    PRIMARY KEY (node_id)
+) ENGINE = InnoDB;
+
+CREATE TABLE scheduler_job (
+    job_name           VARCHAR(64)  NOT NULL,
+    generation         BIGINT       NOT NULL DEFAULT 0,
+    shard_count        INT          NOT NULL DEFAULT 1,
+    next_run_at        DATETIME(3),
+    last_triggered_at  DATETIME(3),
+    PRIMARY KEY (job_name)
+) ENGINE = InnoDB;
+
+CREATE TABLE scheduler_lease (
+    lease_name   VARCHAR(96)  NOT NULL,
+    job_name     VARCHAR(64),
+    shard_index  INT,
+    owner_node   VARCHAR(64),
+    lease_until  DATETIME(3)  NOT NULL,
+    generation   BIGINT       NOT NULL DEFAULT 0,
+    completed    BOOLEAN      NOT NULL DEFAULT TRUE,
+    PRIMARY KEY (lease_name),
+    INDEX idx_scheduler_lease_job (job_name)
+) ENGINE = InnoDB;
+
+CREATE TABLE scheduler_job_run (
+    id           BIGINT        NOT NULL AUTO_INCREMENT,
+    job_name     VARCHAR(64)   NOT NULL,
+    generation   BIGINT        NOT NULL,
+    shard_index  INT           NOT NULL,
+    shard_count  INT           NOT NULL,
+    node_id      VARCHAR(64)   NOT NULL,
+    started_at   DATETIME(3)   NOT NULL,
+    finished_at  DATETIME(3)   NOT NULL,
+    duration_ms  BIGINT        NOT NULL,
+    status       VARCHAR(16)   NOT NULL,
+    message      VARCHAR(512),
+    PRIMARY KEY (id),
+    INDEX idx_scheduler_job_run_job (job_name, id)
+) ENGINE = InnoDB;
@@ -0,0 +1,33 @@
+-- Per-customer order totals for the admin customer search, maintained by CustomerSummaryService from
+-- order status events and reconciled against orders + orders_archive by a scheduled job.
+-- Cancelled orders count towards neither order_count nor lifetime_spend.
+
+CREATE TABLE customer_order_summary (
+    user_id         BIGINT         NOT NULL,
+    order_count     BIGINT         NOT NULL DEFAULT 0,
+    lifetime_spend  DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    last_order_at   DATETIME(6),
+    updated_at      DATETIME(6)    NOT NULL,
+    PRIMARY KEY (user_id)
+) ENGINE = InnoDB;
+
+INSERT INTO customer_order_summary (user_id, order_count, lifetime_spend, last_order_at, updated_at)
+SELECT user_id, SUM(order_count), SUM(spend), MAX(last_order_at), NOW(6)
+FROM (
+    SELECT user_id, COUNT(*) AS order_count, COALESCE(SUM(total_amount), 0) AS spend, MAX(order_date) AS last_order_at
+    FROM orders WHERE user_id IS NOT NULL AND order_status <> 'CANCELLED' GROUP BY user_id
+    UNION ALL
+    SELECT user_id, COUNT(*), COALESCE(SUM(total_amount), 0), MAX(order_date)
+    FROM orders_archive WHERE user_id IS NOT NULL AND order_status <> 'CANCELLED' GROUP BY user_id
+) totals
+GROUP BY user_id;
+
+-- CustomerSummaryRepository.search: keyset listing by role, newest first
+CREATE INDEX idx_users_role_id ON users (role, user_id);
+-- CustomerSummaryRepository.search: prefix match per column, with user_id as the second key part so the
+-- keyset bound (user_id < :beforeId) is checked in the index. The prefix is a range, so each UNION branch
+-- still sorts the entries it matches by user_id; short prefixes shared by many users are the slow case.
+CREATE INDEX idx_users_name_id ON users (name, user_id);
+CREATE INDEX idx_users_surname_id ON users (surname, user_id);
+CREATE INDEX idx_users_phone_id ON users (phone_number, user_id);
+-- username and email use their unique keys, which InnoDB already extends with the primary key
@@ -0,0 +1,3 @@
+-- ReviewRepository.findNewestPage: keyset scan of one product's reviews by review id.
+-- The rating sorts use idx_reviews_product_rating, whose implicit review_id suffix is the tie-breaker.
+CREATE INDEX idx_reviews_product_id ON reviews (product_id, review_id);
@@ -0,0 +1,184 @@
+package za.co.tt.repositoryTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Seeds a realistic spread of rows and checks with EXPLAIN that every repository query
+ * is resolved through an index rather than a full table scan (access type ALL).
+ *
+ * Probed values are deliberately the selective ones (e.g. a rare delivery method), which is
+ * how the storefront and admin screens use these finders.
+ */
+@SpringBootTest
+class QueryIndexCoverageTest {
+
+    private static final String PREFIX = "idxtest";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+    private long productId;
+    private long orderId;
+
+    @BeforeEach
+    void seed() {
+        cleanup();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int u = 0; u < 50; u++) {
+            jdbcTemplate.update("INSERT INTO users (name, surname, username, email, password, phone_number, created_at, role) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                    "Test", "User" + u, PREFIX + "-user-" + u, PREFIX + u + "@example.com", "x", "0123456789",
+                    Timestamp.valueOf(now), u == 0 ? "ADMIN" : "CUSTOMER");
+        }
+        userId = jdbcTemplate.queryForObject("SELECT MIN(user_id) FROM users WHERE username LIKE ?", Long.class, PREFIX + "-user-%");
+
+        String[] seasons = {"SUMMER", "WINTER", "ALL_SEASON"};
+        String[] vehicleTypes = {"LightTruck", "Commercial", "SUV", "Passenger", "Sedan", "Sports_Car"};
+        for (int p = 0; p < 120; p++) {
+            jdbcTemplate.update("INSERT INTO products (product_name, product_model, width, aspect_ratio, rim_diameter, season, " +
+                            "vehicle_type, product_price, stock_quantity, image_url, description) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    PREFIX + "-product-" + p, "Model " + p, 175 + (p % 12) * 10, 40 + (p % 8) * 5, 14 + (p % 6),
+                    seasons[p % 3], vehicleTypes[p % 6], 1000 + p * 25, p % 10 == 0 ? 5 : 0, null, "seeded");
+        }
+        productId = jdbcTemplate.queryForObject("SELECT MIN(product_id) FROM products WHERE product_name LIKE ?", Long.class, PREFIX + "-product-%");
+
+        String[] orderStatuses = {"PENDING", "CONFIRMED", "PROCESSING", "SHIPPED", "COMPLETED", "CANCELLED"};
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT user_id FROM users WHERE username LIKE ?", Long.class, PREFIX + "-user-%");
+        List<Long> productIds = jdbcTemplate.queryForList("SELECT product_id FROM products WHERE product_name LIKE ?", Long.class, PREFIX + "-product-%");
+        for (int o = 0; o < 200; o++) {
+            long owner = userIds.get(o % userIds.size());
+            jdbcTemplate.update("INSERT INTO orders (user_id, order_date, order_status, total_amount) VALUES (?, ?, ?, ?)",
+                    owner, Timestamp.valueOf(now.minusDays(o)), orderStatuses[o % 6], 1000);
+            long id = jdbcTemplate.queryForObject("SELECT MAX(order_id) FROM orders WHERE user_id = ?", Long.class, owner);
+            long product = productIds.get(o % productIds.size());
+            jdbcTemplate.update("INSERT INTO order_items (product_id, quantity, price, subtotal, order_id) VALUES (?, 1, 1000, 1000, ?)", product, id);
+            jdbcTemplate.update("INSERT INTO payment (payment_method, payment_status, amount, payment_date, user_id, order_id) VALUES (?, ?, 1000, ?, ?, ?)",
+                    o % 10 == 0 ? "CASH_ON_COLLECTION" : "CASH_ON_DELIVERY", o % 10 == 0 ? "FAILED" : "COMPLETED", Timestamp.valueOf(now), owner, id);
+            jdbcTemplate.update("INSERT INTO delivery (order_id, delivery_method, delivery_status, courier_name) VALUES (?, ?, ?, ?)",
+                    id, o % 10 == 0 ? "COLLECTION" : "DELIVERY", o % 10 == 0 ? "RETURNED" : "DELIVERED", "Courier " + (o % 7));
+            jdbcTemplate.update("INSERT INTO reviews (reviewer_name, comment, rating, review_date, product_id, user_id, order_id) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    "Test User", "seeded", 1 + (o % 5), Timestamp.valueOf(now), product, owner, id);
+            if (o == 0) {
+                orderId = id;
+            }
+        }
+
+        for (String table : List.of("users", "addresses", "products", "orders", "order_items", "payment", "delivery", "reviews")) {
+            jdbcTemplate.execute("ANALYZE TABLE " + table);
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        String users = "SELECT user_id FROM users WHERE username LIKE '" + PREFIX + "-user-%'";
+        jdbcTemplate.update("DELETE FROM reviews WHERE user_id IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM delivery WHERE order_id IN (SELECT order_id FROM orders WHERE user_id IN (" + users + "))");
+        jdbcTemplate.update("DELETE FROM payment WHERE user_id IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT order_id FROM orders WHERE user_id IN (" + users + "))");
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id IN (" + users + ")");
+        jdbcTemplate.update("DELETE FROM products WHERE product_name LIKE ?", PREFIX + "-product-%");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE ?", PREFIX + "-user-%");
+    }
+
+    @Test
+    void everyRepositoryQueryUsesAnIndex() {
+        String orderJoin = "SELECT * FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.order_id " +
+                "LEFT JOIN products p ON p.product_id = oi.product_id ";
+
+        Map<String, Object[]> queries = new LinkedHashMap<>();
+        // OrderRepository
+        queries.put(orderJoin + "WHERE o.user_id = ?", new Object[]{userId});
+        queries.put(orderJoin + "WHERE o.order_status = ?", new Object[]{"CANCELLED"});
+        queries.put(orderJoin + "WHERE o.user_id = ? AND o.order_status = ?", new Object[]{userId, "COMPLETED"});
+        queries.put(orderJoin + "WHERE o.order_id = ?", new Object[]{orderId});
+        // OrderHistoryRepository.findSummaries: keyset branches and per-order item lookups
+        queries.put("SELECT * FROM orders WHERE user_id = ? AND order_id < ? ORDER BY order_id DESC LIMIT 11",
+                new Object[]{userId, Long.MAX_VALUE});
+        queries.put("SELECT * FROM orders_archive WHERE user_id = ? AND order_id < ? ORDER BY order_id DESC LIMIT 11",
+                new Object[]{userId, Long.MAX_VALUE});
+        queries.put("SELECT COALESCE(SUM(quantity), 0) FROM order_items WHERE order_id = ?", new Object[]{orderId});
+        queries.put("SELECT product_id FROM order_items_archive WHERE order_id = ? ORDER BY item_id LIMIT 1", new Object[]{orderId});
+        // ReviewRepository
+        queries.put("SELECT * FROM reviews WHERE product_id = ?", new Object[]{productId});
+        queries.put("SELECT * FROM reviews WHERE rating = ?", new Object[]{5});
+        queries.put("SELECT * FROM reviews WHERE user_id = ?", new Object[]{userId});
+        queries.put("SELECT 1 FROM reviews WHERE order_id = ? AND product_id = ? LIMIT 1", new Object[]{orderId, productId});
+        queries.put("SELECT 1 FROM reviews WHERE user_id = ? AND product_id = ? LIMIT 1", new Object[]{userId, productId});
+        queries.put("SELECT AVG(rating) FROM reviews WHERE product_id = ?", new Object[]{productId});
+        queries.put("SELECT * FROM reviews WHERE product_id = ? AND review_id < ? ORDER BY review_id DESC LIMIT 11",
+                new Object[]{productId, Long.MAX_VALUE});
+        queries.put("SELECT * FROM reviews WHERE product_id = ? AND (rating < ? OR (rating = ? AND review_id < ?)) " +
+                "ORDER BY rating DESC, review_id DESC LIMIT 11", new Object[]{productId, 4, 4, Long.MAX_VALUE});
+        // ReviewVoteRepository
+        queries.put("SELECT r.review_id, COALESCE(h.helpful_count, 0) FROM reviews r " +
+                "LEFT JOIN review_helpfulness h ON h.review_id = r.review_id WHERE r.product_id = ?", new Object[]{productId});
+        queries.put("SELECT user_id FROM review_vote WHERE review_id = ?", new Object[]{1L});
+        // PaymentRepository
+        queries.put("SELECT * FROM payment WHERE user_id = ?", new Object[]{userId});
+        queries.put("SELECT * FROM payment WHERE order_id = ?", new Object[]{orderId});
+        queries.put("SELECT * FROM payment WHERE payment_status = ?", new Object[]{"FAILED"});
+        queries.put("SELECT * FROM payment WHERE payment_method = ?", new Object[]{"CASH_ON_COLLECTION"});
+        queries.put("SELECT * FROM payment WHERE user_id = ? AND payment_status = ?", new Object[]{userId, "COMPLETED"});
+        // DeliveryRepository
+        queries.put("SELECT * FROM delivery WHERE order_id = ?", new Object[]{orderId});
+        queries.put("SELECT * FROM delivery WHERE delivery_status = ?", new Object[]{"RETURNED"});
+        queries.put("SELECT * FROM delivery WHERE delivery_method = ?", new Object[]{"COLLECTION"});
+        queries.put("SELECT * FROM delivery WHERE courier_name = ?", new Object[]{"Courier 3"});
+        queries.put("SELECT * FROM delivery WHERE delivery_status = ? AND delivery_method = ?", new Object[]{"RETURNED", "COLLECTION"});
+        queries.put("SELECT d.* FROM delivery d JOIN addresses a ON a.address_id = d.address_id WHERE a.user_id = ?", new Object[]{userId});
+        // IProductRepository (searchProducts uses a leading-wildcard LIKE and cannot be indexed by design)
+        queries.put("SELECT * FROM products WHERE product_name = ?", new Object[]{PREFIX + "-product-7"});
+        queries.put("SELECT * FROM products WHERE season = ?", new Object[]{"WINTER"});
+        queries.put("SELECT * FROM products WHERE vehicle_type = ?", new Object[]{"SUV"});
+        queries.put("SELECT * FROM products WHERE stock_quantity > ?", new Object[]{0});
+        queries.put("SELECT * FROM products WHERE product_price BETWEEN ? AND ?", new Object[]{1000, 1200});
+        queries.put("SELECT * FROM products WHERE width = ? AND aspect_ratio = ? AND rim_diameter = ?", new Object[]{205, 55, 16});
+        // UserRepository
+        queries.put("SELECT * FROM users WHERE username = ?", new Object[]{PREFIX + "-user-3"});
+        queries.put("SELECT * FROM users WHERE email = ?", new Object[]{PREFIX + "3@example.com"});
+        queries.put("SELECT * FROM users WHERE role = ?", new Object[]{"ADMIN"});
+        queries.put("SELECT * FROM users WHERE username = ? AND role = ?", new Object[]{PREFIX + "-user-0", "ADMIN"});
+        // CustomerSummaryRepository.search: keyset listing and one prefix branch per column
+        queries.put("SELECT user_id FROM users WHERE role = ? AND user_id < ? ORDER BY user_id DESC LIMIT 51",
+                new Object[]{"CUSTOMER", Long.MAX_VALUE});
+        for (String column : List.of("name", "surname", "username", "email", "phone_number")) {
+            queries.put("SELECT user_id FROM users WHERE " + column + " LIKE ? AND user_id < ? ORDER BY user_id DESC LIMIT 51",
+                    new Object[]{PREFIX + "-user-1%", Long.MAX_VALUE});
+        }
+        queries.put("SELECT * FROM customer_order_summary WHERE user_id = ?", new Object[]{userId});
+        // BranchInventoryRepository
+        queries.put("SELECT * FROM branch_stock WHERE product_id = ? AND branch_id = ?", new Object[]{productId, 1L});
+        queries.put("SELECT * FROM branch_reservation WHERE order_id IN (?)", new Object[]{orderId});
+        // AddressRepository
+        queries.put("SELECT * FROM addresses WHERE user_id = ?", new Object[]{userId});
+        queries.put("SELECT * FROM addresses WHERE user_id = ? AND address_type = ?", new Object[]{userId, "HOME"});
+        queries.put("SELECT COUNT(*) FROM addresses WHERE user_id = ?", new Object[]{userId});
+
+        List<String> fullScans = new ArrayList<>();
+        queries.forEach((sql, args) -> {
+            for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql, args)) {
+                if ("ALL".equals(row.get("type"))) {
+                    fullScans.add(row.get("table") + " <- " + sql);
+                }
+            }
+        });
+
+        assertTrue(fullScans.isEmpty(), "Full table scans found:\n" + String.join("\n", fullScans));
+    }
+}
@@ -0,0 +1,92 @@
+package za.co.tt.securityTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.security.AdaptiveConcurrencyLimiter;
+import za.co.tt.security.AdaptiveConcurrencyLimiter.Priority;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    /**
+     * One window of requests, inFlight of them running at a time.
+     */
+    private static void window(AdaptiveConcurrencyLimiter limiter, int requests, int inFlight, long latencyMillis) {
+        for (int done = 0; done < requests; done += inFlight) {
+            for (int i = 0; i < inFlight; i++) {
+                assertTrue(limiter.tryAcquire(Priority.NORMAL));
+            }
+            for (int i = 0; i < inFlight; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis), true);
+            }
+        }
+        limiter.adjustLimit();
+    }
+
+    private static int limit(AdaptiveConcurrencyLimiter limiter) {
+        return (Integer) limiter.getMetrics().get("limit");
+    }
+
+    @Test
+    void cutsTheLimitInProportionWhenLatencyPassesTheTolerance() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 8, 200, 2.0, 0.5, 300);
+        window(limiter, 10, 1, 10);
+        assertEquals(40, limit(limiter));
+
+        // Within tolerance: 15 ms against a 10 ms baseline
+        window(limiter, 10, 1, 15);
+        assertEquals(40, limit(limiter));
+
+        // 4x the baseline at tolerance 2 halves the limit
+        window(limiter, 10, 1, 40);
+        assertEquals(20, limit(limiter));
+        assertEquals(1L, limiter.getMetrics().get("limitDecreases"));
+    }
+
+    @Test
+    void growsTheLimitOnlyWhenHealthyAndMostlyUsed() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 8, 200, 2.0, 0.5, 300);
+
+        // Healthy, but one request at a time never uses the limit
+        window(limiter, 10, 1, 10);
+        assertEquals(40, limit(limiter));
+
+        // 32 of 40 in flight at once
+        window(limiter, 32, 32, 10);
+        assertEquals(46, limit(limiter));
+    }
+
+    @Test
+    void aFastWindowOnlyLowersTheBaselineUntilItAgesOut() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 8, 200, 2.0, 0.5, 3);
+        window(limiter, 10, 1, 1);
+        window(limiter, 10, 1, 10);
+        window(limiter, 10, 1, 10);
+        assertEquals(1.0, limiter.getMetrics().get("baselineLatencyMillis"));
+        int cut = limit(limiter);
+        assertTrue(cut < 40);
+
+        // The 1 ms window has left the last three; 10 ms is normal again and the limit is not cut further
+        window(limiter, 10, 1, 10);
+        assertEquals(10.0, limiter.getMetrics().get("baselineLatencyMillis"));
+        assertEquals(cut, limit(limiter));
+    }
+
+    @Test
+    void shedsLowPriorityBeforeNormalAndCritical() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 12, 2.0, 0.5, 300);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.LOW));
+        }
+        assertFalse(limiter.tryAcquire(Priority.LOW));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(Priority.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(Priority.NORMAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertTrue(limiter.tryAcquire(Priority.CRITICAL));
+        assertFalse(limiter.tryAcquire(Priority.CRITICAL));
+    }
+}
@@ -0,0 +1,93 @@
+package za.co.tt.securityTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import za.co.tt.security.AdaptiveConcurrencyLimiter;
+import za.co.tt.security.RateLimitFilter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter(double perSecond, int burst) {
+        RateLimitFilter filter = new RateLimitFilter(new AdaptiveConcurrencyLimiter(40, 8, 200, 2.0, 0.5, 300));
+        ReflectionTestUtils.setField(filter, "defaultPerSecond", perSecond);
+        ReflectionTestUtils.setField(filter, "defaultBurst", burst);
+        filter.init();
+        return filter;
+    }
+
+    private MockHttpServletResponse call(RateLimitFilter filter, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/addresses");
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void admitsAFullBurstAndRejectsTheNextRequest() throws Exception {
+        RateLimitFilter filter = filter(1, 5);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, call(filter, "10.0.0.1").getStatus(), "request " + (i + 1));
+        }
+        MockHttpServletResponse rejected = call(filter, "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        // Another caller has its own bucket
+        assertEquals(200, call(filter, "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void admitsAgainOnceOneIntervalHasPassed() throws Exception {
+        // One token every 500 ms
+        RateLimitFilter filter = filter(2, 2);
+
+        assertEquals(200, call(filter, "10.0.0.1").getStatus());
+        assertEquals(200, call(filter, "10.0.0.1").getStatus());
+        assertEquals(429, call(filter, "10.0.0.1").getStatus());
+
+        Thread.sleep(600);
+        assertEquals(200, call(filter, "10.0.0.1").getStatus());
+        assertEquals(429, call(filter, "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void fullMapIsSweptInlineAtMostOncePerInterval() throws Exception {
+        // One token per millisecond, so a used bucket is full again almost at once
+        RateLimitFilter filter = filter(1000, 1);
+        ReflectionTestUtils.setField(filter, "maxKeys", 1);
+        ReflectionTestUtils.setField(filter, "sweepMillis", 60_000L);
+
+        assertEquals(200, call(filter, "10.0.0.1").getStatus());
+        Thread.sleep(20);
+        // The idle bucket could be swept, but the interval since the last sweep has not passed
+        assertEquals(200, call(filter, "10.0.0.2").getStatus());
+        assertEquals(1L, filter.getMetrics().get("overflowRequests"));
+        assertEquals(0L, filter.getMetrics().get("evictedBuckets"));
+
+        filter.sweepIdleBuckets();
+        assertEquals(1L, filter.getMetrics().get("evictedBuckets"));
+        assertEquals(0, filter.getMetrics().get("buckets"));
+    }
+
+    @Test
+    void fullMapIsSweptInlineOnceTheIntervalHasPassed() throws Exception {
+        RateLimitFilter filter = filter(1000, 1);
+        ReflectionTestUtils.setField(filter, "maxKeys", 1);
+        ReflectionTestUtils.setField(filter, "sweepMillis", 10L);
+
+        assertEquals(200, call(filter, "10.0.0.1").getStatus());
+        Thread.sleep(20);
+        assertEquals(200, call(filter, "10.0.0.2").getStatus());
+
+        assertEquals(0L, filter.getMetrics().get("overflowRequests"));
+        assertEquals(1L, filter.getMetrics().get("evictedBuckets"));
+        assertEquals(1, filter.getMetrics().get("buckets"));
+    }
+}
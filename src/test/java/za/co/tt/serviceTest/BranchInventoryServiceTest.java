@@ -0,0 +1,306 @@
+package za.co.tt.serviceTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import za.co.tt.domain.Branch;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.domain.StockTransfer;
+import za.co.tt.repository.BranchInventoryRepository;
+import za.co.tt.service.BranchInventoryService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchInventoryServiceTest {
+
+    private static final long PRODUCT = 10L;
+    private static final long OTHER_PRODUCT = 11L;
+    private static final long BRANCH = 1L;
+    private static final long OTHER_BRANCH = 2L;
+
+    private FakeRepository repository;
+    private FakeTransactionManager transactionManager;
+    private TransactionTemplate orderTransaction;
+    private BranchInventoryService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FakeRepository();
+        repository.stock(PRODUCT, BRANCH, 5);
+        repository.stock(OTHER_PRODUCT, BRANCH, 1);
+        transactionManager = new FakeTransactionManager();
+        orderTransaction = new TransactionTemplate(transactionManager);
+        service = new BranchInventoryService(repository, null, null, transactionManager);
+        service.resync();
+    }
+
+    @Test
+    void rolledBackReservationPutsUnitsBackOnTheCounter() {
+        orderTransaction.executeWithoutResult(status -> {
+            service.reserveForOrder(100L, BRANCH, Map.of(PRODUCT, 3));
+            assertEquals(2, available(PRODUCT, BRANCH));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(5, available(PRODUCT, BRANCH));
+    }
+
+    @Test
+    void reservationRefusedByTheDatabasePutsUnitsBackOnTheCounter() {
+        // Another node reserved 4 units since this node's counters were loaded
+        repository.rows.get(key(PRODUCT, BRANCH))[1] = 4;
+
+        assertThrows(IllegalArgumentException.class, () -> orderTransaction.executeWithoutResult(status ->
+                service.reserveForOrder(100L, BRANCH, Map.of(PRODUCT, 3))));
+
+        assertEquals(5, available(PRODUCT, BRANCH));
+        assertEquals(4, repository.rows.get(key(PRODUCT, BRANCH))[1]);
+    }
+
+    @Test
+    void releasingAnOrderTwiceReturnsItsUnitsOnce() {
+        orderTransaction.executeWithoutResult(status -> service.reserveForOrder(100L, BRANCH, Map.of(PRODUCT, 3)));
+        assertEquals(2, available(PRODUCT, BRANCH));
+
+        Set<Long> cancelled = orderTransaction.execute(status -> service.releaseOrders(List.of(100L)));
+        // e.g. the cancelled order is deleted later
+        Set<Long> deleted = orderTransaction.execute(status -> service.releaseOrders(List.of(100L)));
+
+        assertEquals(Set.of(100L), cancelled);
+        assertEquals(Set.of(100L), deleted, "still a branch order, so its units must not go to delivery stock");
+        assertEquals(5, available(PRODUCT, BRANCH));
+        assertEquals(0, repository.rows.get(key(PRODUCT, BRANCH))[1]);
+        assertEquals(5, repository.rows.get(key(PRODUCT, BRANCH))[0]);
+    }
+
+    @Test
+    void collectedOrderIsConsumedInItsOwnTransaction() {
+        orderTransaction.executeWithoutResult(status -> service.reserveForOrder(100L, BRANCH, Map.of(PRODUCT, 3)));
+        int begunBefore = transactionManager.begun;
+
+        // Listeners run while the committed order transaction is still bound
+        orderTransaction.executeWithoutResult(status -> service.onOrderStatusChanged(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, 100L, 7L, OrderStatus.SHIPPED, OrderStatus.COMPLETED)));
+
+        assertEquals(begunBefore + 2, transactionManager.begun);
+        assertEquals(2, repository.rows.get(key(PRODUCT, BRANCH))[0]);
+        assertEquals(0, repository.rows.get(key(PRODUCT, BRANCH))[1]);
+    }
+
+    @Test
+    void transferBatchWithOneShortSourceMovesNothing() {
+        List<StockTransfer> batch = List.of(
+                new StockTransfer(PRODUCT, BRANCH, OTHER_BRANCH, 3),
+                new StockTransfer(OTHER_PRODUCT, BRANCH, OTHER_BRANCH, 2));
+
+        assertThrows(IllegalArgumentException.class, () -> service.transfer(batch));
+
+        assertEquals(5, available(PRODUCT, BRANCH));
+        assertEquals(1, available(OTHER_PRODUCT, BRANCH));
+        assertEquals(0, repository.appliedTransfers);
+    }
+
+    @Test
+    void transferRefusedUnderTheRowLockRestoresTheCounters() {
+        // The counter still says 5, but another node has reserved 3 of them
+        repository.rows.get(key(PRODUCT, BRANCH))[1] = 3;
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.transfer(List.of(new StockTransfer(PRODUCT, BRANCH, OTHER_BRANCH, 4))));
+
+        assertEquals(5, available(PRODUCT, BRANCH));
+        assertEquals(0, repository.appliedTransfers);
+    }
+
+    @Test
+    void transferMovesUnitsBetweenBranches() {
+        service.transfer(List.of(new StockTransfer(PRODUCT, BRANCH, OTHER_BRANCH, 3)));
+
+        assertEquals(2, available(PRODUCT, BRANCH));
+        assertEquals(3, available(PRODUCT, OTHER_BRANCH));
+        assertEquals(1, repository.appliedTransfers);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int available(long productId, long branchId) {
+        Map<Long, Map<Long, AtomicInteger>> counters =
+                (Map<Long, Map<Long, AtomicInteger>>) ReflectionTestUtils.getField(service, "available");
+        return counters.get(productId).get(branchId).get();
+    }
+
+    private static List<Long> key(long productId, long branchId) {
+        return List.of(productId, branchId);
+    }
+
+    /**
+     * branch_stock and branch_reservation in memory; each stock value is {quantity, reserved}.
+     */
+    private static final class FakeRepository extends BranchInventoryRepository {
+        private final Map<List<Long>, int[]> rows = new HashMap<>();
+        private final List<ReservationRow> reservations = new ArrayList<>();
+        private final Map<Long, Boolean> consumed = new HashMap<>();
+        private final Map<Long, Boolean> released = new HashMap<>();
+        private int appliedTransfers;
+
+        private FakeRepository() {
+            super(null);
+        }
+
+        private void stock(long productId, long branchId, int quantity) {
+            rows.put(key(productId, branchId), new int[]{quantity, 0});
+        }
+
+        private StockRow row(List<Long> key) {
+            int[] value = rows.get(key);
+            return new StockRow(key.get(0), key.get(1), value[0], value[1]);
+        }
+
+        @Override
+        public List<Branch> findBranches() {
+            return List.of(new Branch(BRANCH, "JHB", "Johannesburg", true), new Branch(OTHER_BRANCH, "CPT", "Cape Town", true));
+        }
+
+        @Override
+        public void forEachStock(Consumer<StockRow> consumer) {
+            rows.keySet().forEach(key -> consumer.accept(row(key)));
+        }
+
+        @Override
+        public List<StockRow> findStock(long productId, long branchId) {
+            return rows.containsKey(key(productId, branchId)) ? List.of(row(key(productId, branchId))) : List.of();
+        }
+
+        @Override
+        public List<StockRow> lockStock(List<Object[]> keys) {
+            List<StockRow> found = new ArrayList<>();
+            for (Object[] key : keys) {
+                found.addAll(findStock((Long) key[0], (Long) key[1]));
+            }
+            return found;
+        }
+
+        @Override
+        public boolean reserve(long productId, long branchId, int quantity) {
+            int[] value = rows.get(key(productId, branchId));
+            if (value == null || value[0] - value[1] < quantity) {
+                return false;
+            }
+            value[1] += quantity;
+            return true;
+        }
+
+        @Override
+        public void insertReservations(long orderId, long branchId, Map<Long, Integer> quantities) {
+            quantities.forEach((productId, quantity) ->
+                    reservations.add(new ReservationRow(orderId, productId, branchId, quantity, false, false)));
+        }
+
+        @Override
+        public List<ReservationRow> lockReservations(Collection<Long> orderIds) {
+            List<ReservationRow> found = new ArrayList<>();
+            for (ReservationRow row : reservations) {
+                if (orderIds.contains(row.getOrderId())) {
+                    found.add(new ReservationRow(row.getOrderId(), row.getProductId(), row.getBranchId(), row.getQuantity(),
+                            consumed.getOrDefault(row.getOrderId(), false), released.getOrDefault(row.getOrderId(), false)));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public void releaseReservations(List<ReservationRow> toRelease) {
+            for (ReservationRow row : toRelease) {
+                int[] value = rows.get(key(row.getProductId(), row.getBranchId()));
+                if (row.isConsumed()) {
+                    value[0] += row.getQuantity();
+                } else {
+                    value[1] = Math.max(0, value[1] - row.getQuantity());
+                }
+                released.put(row.getOrderId(), true);
+            }
+        }
+
+        @Override
+        public int consumeReservations(long orderId) {
+            if (consumed.getOrDefault(orderId, false) || released.getOrDefault(orderId, false)) {
+                return 0;
+            }
+            int count = 0;
+            for (ReservationRow row : reservations) {
+                if (row.getOrderId() == orderId) {
+                    int[] value = rows.get(key(row.getProductId(), row.getBranchId()));
+                    value[0] -= row.getQuantity();
+                    value[1] = Math.max(0, value[1] - row.getQuantity());
+                    count++;
+                }
+            }
+            consumed.put(orderId, true);
+            return count;
+        }
+
+        @Override
+        public void applyTransfers(String batchId, List<StockTransfer> transfers) {
+            for (StockTransfer transfer : transfers) {
+                rows.get(key(transfer.getProductId(), transfer.getFromBranchId()))[0] -= transfer.getQuantity();
+                rows.computeIfAbsent(key(transfer.getProductId(), transfer.getToBranchId()), key -> new int[2])[0]
+                        += transfer.getQuantity();
+                appliedTransfers++;
+            }
+        }
+    }
+
+    /**
+     * Transaction manager without a resource: counts the transactions it begins, joins an active one
+     * for REQUIRED and suspends it for REQUIRES_NEW.
+     */
+    private static final class FakeTransactionManager extends AbstractPlatformTransactionManager {
+        private int begun;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object[]{TransactionSynchronizationManager.isActualTransactionActive()};
+        }
+
+        @Override
+        protected boolean isExistingTransaction(Object transaction) {
+            return (Boolean) ((Object[]) transaction)[0];
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            begun++;
+        }
+
+        @Override
+        protected Object doSuspend(Object transaction) {
+            return transaction;
+        }
+
+        @Override
+        protected void doResume(Object transaction, Object suspendedResources) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
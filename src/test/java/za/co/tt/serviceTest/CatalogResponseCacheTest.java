@@ -0,0 +1,121 @@
+package za.co.tt.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import za.co.tt.domain.ProductChangedEvent;
+import za.co.tt.service.CatalogResponseCache;
+import za.co.tt.service.CatalogResponseCache.CachedResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheTest {
+
+    private final CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper());
+
+    @Test
+    void servesRepeatedRequestsFromOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+
+        CachedResponse first = cache.get("/api/products", () -> { loads.incrementAndGet(); return List.of("a", "b"); });
+        CachedResponse second = cache.get("/api/products", () -> { loads.incrementAndGet(); return List.of("c"); });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals("[\"a\",\"b\"]", new String(second.getJson(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void productWriteInvalidatesEveryEntry() {
+        CachedResponse before = cache.get("/api/products/in-stock", () -> List.of(1));
+        cache.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.STOCK, 0));
+        CachedResponse after = cache.get("/api/products/in-stock", () -> List.of());
+
+        assertNotSame(before, after);
+        assertNotEquals(before.getEtag(), after.getEtag());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CachedResponse>> results = new ArrayList<>();
+            results.add(pool.submit(() -> cache.get("/api/products", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return List.of("slow");
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(pool.submit(() -> cache.get("/api/products", () -> {
+                    loads.incrementAndGet();
+                    return List.of("duplicate");
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<CachedResponse> result : results) {
+                assertEquals("[\"slow\"]", new String(result.get(5, TimeUnit.SECONDS).getJson(), StandardCharsets.UTF_8));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryWhenFull() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("all", () -> { loads.incrementAndGet(); return List.of(1); });
+        cache.get("in-stock", () -> { loads.incrementAndGet(); return List.of(2); });
+        cache.get("all", () -> { loads.incrementAndGet(); return List.of(1); });
+        cache.get("season:WINTER", () -> { loads.incrementAndGet(); return List.of(3); });
+        assertEquals(3, loads.get());
+
+        // "all" was used more recently than "in-stock", so only "in-stock" was dropped
+        cache.get("all", () -> { loads.incrementAndGet(); return List.of(1); });
+        assertEquals(3, loads.get());
+        cache.get("in-stock", () -> { loads.incrementAndGet(); return List.of(2); });
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getMetrics().get("entries"));
+    }
+
+    @Test
+    void etagMatchesIfNoneMatchLists() {
+        CachedResponse response = cache.get("/api/products/season/WINTER", () -> List.of("x"));
+        String etag = response.getEtag();
+
+        assertTrue(etag.startsWith("W/\""));
+        assertTrue(response.matches(etag));
+        assertTrue(response.matches("\"other\", " + etag));
+        assertTrue(response.matches(etag.substring(2)));
+        assertTrue(response.matches("*"));
+        assertFalse(response.matches("\"other\""));
+        assertFalse(response.matches(null));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package za.co.tt.serviceTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.tt.domain.Enum.OrderStatus;
+import za.co.tt.domain.OrderStatusChangedEvent;
+import za.co.tt.repository.CustomerSummaryRepository;
+import za.co.tt.service.CustomerSummaryService;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSummaryServiceTest {
+
+    private static final long ORDER = 100L;
+    private static final long USER = 7L;
+    private static final BigDecimal TOTAL = new BigDecimal("250.00");
+    private static final Timestamp ORDER_DATE = Timestamp.valueOf("2026-10-01 12:00:00");
+
+    private FakeRepository repository;
+    private CustomerSummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FakeRepository();
+        repository.orders.put(ORDER, new Object[]{USER, TOTAL, ORDER_DATE});
+        service = new CustomerSummaryService(repository, null);
+    }
+
+    @Test
+    void placedOrderIsAdded() {
+        service.onOrderStatusChanged(orderEvent(null, OrderStatus.PENDING));
+
+        assertEquals(1, repository.deltas.size());
+        Object[] delta = repository.deltas.get(0);
+        assertEquals(USER, delta[0]);
+        assertEquals(1, delta[1]);
+        assertEquals(0, TOTAL.compareTo((BigDecimal) delta[2]));
+        assertEquals(ORDER_DATE, delta[3]);
+    }
+
+    @Test
+    void cancelledOrderIsSubtractedWithoutTouchingTheLastOrderDate() {
+        service.onOrderStatusChanged(orderEvent(OrderStatus.PROCESSING, OrderStatus.CANCELLED));
+
+        Object[] delta = repository.deltas.get(0);
+        assertEquals(-1, delta[1]);
+        assertEquals(0, TOTAL.negate().compareTo((BigDecimal) delta[2]));
+        assertNull(delta[3]);
+    }
+
+    @Test
+    void restoredCancelledOrderIsAddedAgain() {
+        service.onOrderStatusChanged(orderEvent(OrderStatus.CANCELLED, OrderStatus.PENDING));
+
+        assertEquals(1, repository.deltas.get(0)[1]);
+    }
+
+    @Test
+    void changeBetweenCountedStatusesIsIgnored() {
+        service.onOrderStatusChanged(orderEvent(OrderStatus.PENDING, OrderStatus.SHIPPED));
+        service.onOrderStatusChanged(orderEvent(OrderStatus.CANCELLED, OrderStatus.CANCELLED));
+
+        assertTrue(repository.deltas.isEmpty());
+        assertEquals(0, repository.lookups);
+    }
+
+    @Test
+    void missingOrderOrGuestOrderIsIgnored() {
+        repository.orders.put(ORDER + 1, new Object[]{null, TOTAL, ORDER_DATE});
+
+        service.onOrderStatusChanged(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, ORDER + 1, null, null, OrderStatus.PENDING));
+        service.onOrderStatusChanged(new OrderStatusChangedEvent(
+                OrderStatusChangedEvent.Kind.ORDER, ORDER + 2, USER, null, OrderStatus.PENDING));
+
+        assertTrue(repository.deltas.isEmpty());
+    }
+
+    @Test
+    void repositoryFailureIsLeftForTheReconcileJob() {
+        repository.failing = true;
+
+        assertDoesNotThrow(() -> service.onOrderStatusChanged(orderEvent(null, OrderStatus.PENDING)));
+        assertTrue(repository.deltas.isEmpty());
+    }
+
+    @Test
+    void nonOrderEventsAreIgnored() {
+        for (OrderStatusChangedEvent.Kind kind : OrderStatusChangedEvent.Kind.values()) {
+            if (kind != OrderStatusChangedEvent.Kind.ORDER) {
+                service.onOrderStatusChanged(new OrderStatusChangedEvent(kind, ORDER, USER, null, OrderStatus.PENDING));
+            }
+        }
+
+        assertEquals(0, repository.lookups);
+    }
+
+    private static OrderStatusChangedEvent orderEvent(OrderStatus previous, OrderStatus status) {
+        return new OrderStatusChangedEvent(OrderStatusChangedEvent.Kind.ORDER, ORDER, USER, previous, status);
+    }
+
+    /**
+     * Order facts in memory; each applied delta is recorded as {userId, orderCount, spend, orderDate}.
+     */
+    private static final class FakeRepository extends CustomerSummaryRepository {
+        private final Map<Long, Object[]> orders = new HashMap<>();
+        private final List<Object[]> deltas = new ArrayList<>();
+        private int lookups;
+        private boolean failing;
+
+        private FakeRepository() {
+            super(null);
+        }
+
+        @Override
+        public List<Object[]> findOrderFacts(long orderId) {
+            lookups++;
+            Object[] order = orders.get(orderId);
+            return order != null ? List.<Object[]>of(order) : List.of();
+        }
+
+        @Override
+        public void applyDelta(long userId, int orderCountDelta, BigDecimal spendDelta, Timestamp orderDate) {
+            if (failing) {
+                throw new IllegalStateException("Lock wait timeout exceeded");
+            }
+            deltas.add(new Object[]{userId, orderCountDelta, spendDelta, orderDate});
+        }
+    }
+}
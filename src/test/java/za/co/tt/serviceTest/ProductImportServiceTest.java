@@ -0,0 +1,158 @@
+package za.co.tt.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import za.co.tt.domain.ProductFitment;
+import za.co.tt.domain.ProductImportJob;
+import za.co.tt.domain.ProductImportRow;
+import za.co.tt.repository.ProductImportRepository;
+import za.co.tt.service.ProductImportService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImportServiceTest {
+
+    private FakeRepository repository;
+    private ProductImportService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FakeRepository();
+        service = new ProductImportService(repository, new ObjectMapper(), event -> { }, new FakeTransactionManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void nonFiniteAndOutOfRangeNumbersRejectTheirRowOnly() throws Exception {
+        ProductImportJob job = importFile("products.csv", "productName,price,stockQuantity,width\n"
+                + "Good,1299.95,4,205\n"
+                + "NaN price,NaN,1,205\n"
+                + "Infinite stock,100,Infinity,205\n"
+                + "Negative infinity,100,1,-Infinity\n"
+                + "Too big,1e10,1,205\n"
+                + "Hex,0x10,1,205\n");
+
+        assertEquals(ProductImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(6, job.getRowsRead());
+        assertEquals(1, job.getInserted());
+        assertEquals(5, job.getFailed());
+        assertEquals(List.of("Good"), repository.insertedNames());
+        assertEquals(1299, repository.inserted.get(0).getProductPrice());
+        Map<Long, String> errors = job.getErrors().stream()
+                .collect(Collectors.toMap(ProductImportJob.RowError::getRow, ProductImportJob.RowError::getError));
+        assertEquals("price is not a valid number: NaN", errors.get(3L));
+        assertEquals("stockQuantity is not a valid number: Infinity", errors.get(4L));
+        assertEquals("width is not a valid number: -Infinity", errors.get(5L));
+        assertEquals("price is not a valid number: 1e10", errors.get(6L));
+        assertEquals("price is not a number: 0x10", errors.get(7L));
+    }
+
+    @Test
+    void jsonNumbersAreCheckedTheSameWay() throws Exception {
+        ProductImportJob job = importFile("products.json",
+                "[{\"productName\": \"Good\", \"price\": 10},"
+                        + " {\"productName\": \"Huge\", \"price\": 1e400},"
+                        + " {\"productName\": \"Text\", \"stockQuantity\": \"NaN\"}]");
+
+        assertEquals(ProductImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getInserted());
+        assertEquals(2, job.getFailed());
+        assertEquals(List.of("Good"), repository.insertedNames());
+    }
+
+    private ProductImportJob importFile(String fileName, String content) throws Exception {
+        ProductImportJob job = service.submit(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), fileName, null);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getFinishedAt() == null) {
+            assertTrue(System.currentTimeMillis() < deadline, "import did not finish");
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    /**
+     * products in memory, keyed by catalog key.
+     */
+    private static final class FakeRepository extends ProductImportRepository {
+        private final List<ProductImportRow> inserted = new ArrayList<>();
+        private final Map<String, long[]> products = new HashMap<>();
+
+        private FakeRepository() {
+            super(null);
+        }
+
+        private List<String> insertedNames() {
+            return inserted.stream().map(ProductImportRow::getProductName).toList();
+        }
+
+        @Override
+        public Map<String, long[]> findByCatalogKeys(Collection<String> productNames) {
+            Map<String, long[]> found = new HashMap<>();
+            products.forEach((key, value) -> {
+                if (productNames.stream().anyMatch(name -> key.startsWith(name.trim().toLowerCase(Locale.ROOT) + "|"))) {
+                    found.put(key, value);
+                }
+            });
+            return found;
+        }
+
+        @Override
+        public void insertProducts(List<ProductImportRow> rows) {
+            for (ProductImportRow row : rows) {
+                inserted.add(row);
+                products.put(row.getKey(), new long[]{products.size() + 1,
+                        row.getStockQuantity() != null ? row.getStockQuantity() : 0});
+            }
+        }
+
+        @Override
+        public void updateProducts(List<ProductImportRow> rows, List<Long> productIds) {
+        }
+
+        @Override
+        public void replaceFitments(Map<Long, List<ProductFitment>> fitmentsByProduct) {
+        }
+    }
+
+    /**
+     * Transaction manager without a resource; every transaction commits unless the callback throws.
+     */
+    private static final class FakeTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
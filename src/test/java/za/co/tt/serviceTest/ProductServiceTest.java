@@ -6,6 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import za.co.tt.domain.Product;
+import za.co.tt.domain.ProductSummary;
+import za.co.tt.domain.StockAvailabilityDto;
+import za.co.tt.domain.StockCheckItem;
 import za.co.tt.domain.Enum.Season;
 import za.co.tt.domain.Enum.VehicleType;
 import za.co.tt.factory.ProductFactory;
@@ -139,4 +142,39 @@ public class ProductServiceTest {
         assertFalse(sedanProducts.isEmpty());
         assertEquals(VehicleType.Sedan, sedanProducts.get(0).getVehicleType());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetProductSummariesPreservesOrderAndSkipsUnknownIds() {
+        Product first = productService.createProduct(testProduct);
+        Product second = productService.createProduct(ProductFactory.createProduct(
+                "Winter Tire", "Model W", 205, 65, 16,
+                Season.WINTER, VehicleType.SUV, 18000, 30,
+                "winter.jpg", "Winter tire"
+        ));
+
+        List<ProductSummary> summaries = productService.getProductSummaries(
+                List.of(second.getProductId(), -1L, first.getProductId()));
+
+        assertEquals(2, summaries.size());
+        assertEquals(second.getProductId(), summaries.get(0).getProductId());
+        assertEquals(first.getProductId(), summaries.get(1).getProductId());
+        assertEquals(30, summaries.get(0).getStockQuantity());
+    }
+
+    @Test
+    public void testCheckStockBatch() {
+        Product saved = productService.createProduct(testProduct);
+
+        List<StockAvailabilityDto> result = productService.checkStock(List.of(
+                new StockCheckItem(saved.getProductId(), 10),
+                new StockCheckItem(saved.getProductId(), 500),
+                new StockCheckItem(-1L, 1)
+        ));
+
+        assertEquals(3, result.size());
+        assertTrue(result.get(0).isValid());
+        assertEquals(50, result.get(0).getAvailableStock());
+        assertFalse(result.get(1).isValid());
+        assertFalse(result.get(2).isFound());
+    }
+}
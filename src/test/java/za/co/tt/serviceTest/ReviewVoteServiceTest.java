@@ -0,0 +1,199 @@
+package za.co.tt.serviceTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import za.co.tt.repository.ReviewVoteRepository;
+import za.co.tt.service.ReviewVoteService;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewVoteServiceTest {
+
+    private static final long PRODUCT = 10L;
+    private static final long REVIEW = 1L;
+    private static final long OTHER_REVIEW = 2L;
+    private static final long AUTHOR = 7L;
+
+    private FakeRepository repository;
+    private ReviewVoteService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FakeRepository();
+        repository.review(REVIEW, PRODUCT, AUTHOR);
+        repository.review(OTHER_REVIEW, PRODUCT, AUTHOR);
+        service = new ReviewVoteService(repository, new FakeTransactionManager());
+    }
+
+    @Test
+    void voteIsShownAtOnceAndWrittenOnFlush() {
+        assertEquals(1, service.vote(REVIEW, 100L));
+        assertEquals(0, repository.helpful.getOrDefault(REVIEW, 0L));
+
+        service.flush();
+
+        assertEquals(1, repository.helpful.get(REVIEW));
+        assertEquals(1, service.getHelpfulCount(PRODUCT, REVIEW));
+        assertEquals(0L, service.getMetrics().get("unflushedVotes"));
+    }
+
+    @Test
+    void repeatAndOwnVotesAreRejected() {
+        service.vote(REVIEW, 100L);
+
+        assertThrows(IllegalStateException.class, () -> service.vote(REVIEW, 100L));
+        assertThrows(IllegalArgumentException.class, () -> service.vote(REVIEW, AUTHOR));
+        assertEquals(1, service.getHelpfulCount(PRODUCT, REVIEW));
+    }
+
+    @Test
+    void pendingVotesStayCountedWhenTheirVoterSetIsEvicted() {
+        ReflectionTestUtils.setField(service, "maxTrackedReviews", 1);
+
+        service.vote(REVIEW, 100L);
+        service.vote(OTHER_REVIEW, 100L);
+
+        assertEquals(1, service.getMetrics().get("trackedReviews"));
+        assertEquals(Map.of(REVIEW, 1L, OTHER_REVIEW, 1L), service.getHelpfulCounts(PRODUCT));
+    }
+
+    @Test
+    void voteAcceptedAgainAfterEvictionIsWrittenOnce() {
+        ReflectionTestUtils.setField(service, "maxTrackedReviews", 1);
+        service.vote(REVIEW, 100L);
+        service.vote(OTHER_REVIEW, 101L);
+
+        // The reloaded voter set does not have the unflushed vote yet
+        service.vote(REVIEW, 100L);
+        service.flush();
+
+        assertEquals(1, repository.helpful.get(REVIEW));
+        assertEquals(1, service.getHelpfulCount(PRODUCT, REVIEW));
+        assertEquals(1L, service.getMetrics().get("duplicatesSkippedByDatabase"));
+    }
+
+    @Test
+    void failedFlushIsRetriedOnTheNextOne() {
+        service.vote(REVIEW, 100L);
+        repository.failuresLeft = 1;
+
+        service.flush();
+        assertEquals(0, repository.helpful.getOrDefault(REVIEW, 0L));
+        assertEquals(1, service.getHelpfulCount(PRODUCT, REVIEW));
+
+        service.flush();
+        assertEquals(1, repository.helpful.get(REVIEW));
+        assertEquals(1, service.getHelpfulCount(PRODUCT, REVIEW));
+        assertEquals(0L, service.getMetrics().get("votesDropped"));
+    }
+
+    @Test
+    void voteIsDroppedAfterTheLastAttempt() {
+        ReflectionTestUtils.setField(service, "maxFlushAttempts", 2);
+        service.vote(REVIEW, 100L);
+        repository.failuresLeft = Integer.MAX_VALUE;
+
+        service.flush();
+        assertEquals(1L, service.getMetrics().get("unflushedVotes"));
+        service.flush();
+
+        assertEquals(0L, service.getMetrics().get("unflushedVotes"));
+        assertEquals(1L, service.getMetrics().get("votesDropped"));
+        assertEquals(0, service.getHelpfulCount(PRODUCT, REVIEW));
+        service.flush();
+        assertEquals(2L, service.getMetrics().get("failedFlushes"));
+    }
+
+    /**
+     * reviews, review_vote and review_helpfulness in memory.
+     */
+    private static final class FakeRepository extends ReviewVoteRepository {
+        private final Map<Long, long[]> reviews = new HashMap<>();
+        private final Set<List<Long>> votes = new HashSet<>();
+        private final Map<Long, Long> helpful = new HashMap<>();
+        private int failuresLeft;
+
+        private FakeRepository() {
+            super(null);
+        }
+
+        private void review(long reviewId, long productId, long authorId) {
+            reviews.put(reviewId, new long[]{productId, authorId});
+        }
+
+        @Override
+        public List<Object[]> findReviewFacts(long reviewId) {
+            long[] review = reviews.get(reviewId);
+            return review != null ? List.<Object[]>of(new Object[]{review[0], review[1]}) : List.of();
+        }
+
+        @Override
+        public void forEachVoter(long reviewId, LongConsumer consumer) {
+            votes.stream().filter(vote -> vote.get(0) == reviewId).forEach(vote -> consumer.accept(vote.get(1)));
+        }
+
+        @Override
+        public int insertVotes(long reviewId, List<Long> userIds) {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("Lock wait timeout exceeded");
+            }
+            int inserted = 0;
+            for (Long userId : userIds) {
+                if (votes.add(List.of(reviewId, userId))) {
+                    inserted++;
+                }
+            }
+            return inserted;
+        }
+
+        @Override
+        public void addHelpfulCounts(Map<Long, Long> deltas) {
+            deltas.forEach((reviewId, delta) -> helpful.merge(reviewId, delta, Long::sum));
+        }
+
+        @Override
+        public Map<Long, Long> findHelpfulCounts(long productId) {
+            Map<Long, Long> counts = new HashMap<>();
+            reviews.forEach((reviewId, review) -> {
+                if (review[0] == productId) {
+                    counts.put(reviewId, helpful.getOrDefault(reviewId, 0L));
+                }
+            });
+            return counts;
+        }
+    }
+
+    /**
+     * Transaction manager without a resource; every transaction commits unless the callback throws.
+     */
+    private static final class FakeTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.CsvReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader(
+                "name,description,price\r\n\"Tyre, 205/55\",\"Says \"\"quiet\"\"\nand grippy\",1299\r\n"));
+
+        assertEquals(List.of("name", "description", "price"), csv.readRecord());
+        assertEquals(2, csv.getLineNumber());
+        assertEquals(List.of("Tyre, 205/55", "Says \"quiet\"\nand grippy", "1299"), csv.readRecord());
+        // The quoted line break counts as a line
+        assertEquals(4, csv.getLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void emptyFieldsAndLastRecordWithoutLineBreakAreKept() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,,\"\"\n\nb,c"));
+
+        assertEquals(List.of("a", "", ""), csv.readRecord());
+        // A blank line is one empty field; callers decide to skip it
+        assertEquals(List.of(""), csv.readRecord());
+        assertEquals(List.of("b", "c"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void byteOrderMarkIsSkippedOnlyAtTheStart() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\uFEFFproductName\n\uFEFFx\n"));
+
+        assertEquals(List.of("productName"), csv.readRecord());
+        assertEquals(List.of("\uFEFFx"), csv.readRecord());
+    }
+
+    @Test
+    void quoteInsideAnUnquotedFieldIsLiteral() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("17\" rim,\"a\"b\n"));
+
+        assertEquals(List.of("17\" rim", "ab"), csv.readRecord());
+    }
+
+    @Test
+    void unterminatedQuoteIsRejectedWithItsLine() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("name\n\"open,\nstill open"));
+        csv.readRecord();
+
+        IOException error = assertThrows(IOException.class, csv::readRecord);
+        assertTrue(error.getMessage().contains("line 3"), error.getMessage());
+    }
+}
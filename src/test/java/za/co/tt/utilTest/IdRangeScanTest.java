@@ -0,0 +1,44 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.IdRangeScan;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdRangeScanTest {
+
+    @Test
+    void splitsTheRangeIntoChunks() {
+        IdRangeScan scan = new IdRangeScan(10, 34, 10);
+        assertEquals(3, scan.chunkCount());
+        assertEquals(10, scan.fromId(0));
+        assertEquals(19, scan.toId(0));
+        assertEquals(30, scan.fromId(2));
+        assertEquals(34, scan.toId(2));
+        assertEquals(1, scan.chunkOf(29));
+    }
+
+    @Test
+    void replaysUpdatesForStartedChunksAndIdsOutsideTheRange() {
+        IdRangeScan scan = new IdRangeScan(1, 100, 25);
+        scan.markStarted(1);
+
+        assertFalse(scan.hasStarted(10));
+        assertTrue(scan.hasStarted(26));
+        assertTrue(scan.hasStarted(50));
+        assertFalse(scan.hasStarted(51));
+        assertFalse(scan.hasStarted(101));
+
+        // Arrived before its chunk started: the scan saw it
+        assertFalse(scan.needsReplay(10, false));
+        assertTrue(scan.needsReplay(26, true));
+        // Created after the range was read
+        assertTrue(scan.needsReplay(101, false));
+    }
+
+    @Test
+    void rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> new IdRangeScan(5, 4, 10));
+        assertThrows(IllegalArgumentException.class, () -> new IdRangeScan(1, 4, 0));
+    }
+}
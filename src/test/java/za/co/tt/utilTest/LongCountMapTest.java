@@ -0,0 +1,50 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.LongCountMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongCountMapTest {
+
+    @Test
+    void addsAndReadsCounts() {
+        LongCountMap map = new LongCountMap();
+        for (long key = 1; key <= 20_000; key++) {
+            map.add(key, key);
+            map.add(key, 1);
+        }
+        for (long key = 1; key <= 20_000; key++) {
+            assertEquals(key + 1, map.get(key));
+        }
+        assertEquals(0, map.get(20_001));
+        assertEquals(20_000, map.size());
+    }
+
+    @Test
+    void forEachSkipsZeroCounts() {
+        LongCountMap map = new LongCountMap();
+        map.add(0, 2);
+        map.add(5, 3);
+        map.add(7, 1);
+        map.add(7, -1);
+        Map<Long, Long> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(Map.of(0L, 2L, 5L, 3L), seen);
+    }
+
+    @Test
+    void mergesAnotherMap() {
+        LongCountMap left = new LongCountMap();
+        LongCountMap right = new LongCountMap();
+        left.add(1, 1);
+        right.add(1, 2);
+        right.add(2, 5);
+        left.addAll(right);
+        assertEquals(3, left.get(1));
+        assertEquals(5, left.get(2));
+    }
+}
@@ -0,0 +1,48 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.LongHashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void addsEachValueOnce() {
+        LongHashSet set = new LongHashSet();
+        for (long id = 1; id <= 50_000; id++) {
+            assertTrue(set.add(id));
+        }
+        for (long id = 1; id <= 50_000; id++) {
+            assertFalse(set.add(id), "added " + id + " twice");
+            assertTrue(set.contains(id));
+        }
+        assertFalse(set.contains(50_001));
+        assertEquals(50_000, set.size());
+    }
+
+    @Test
+    void handlesZeroAndNegativeValues() {
+        LongHashSet set = new LongHashSet(4);
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-7));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-7));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void staysCompact() {
+        LongHashSet set = new LongHashSet();
+        for (long id = 1; id <= 10_000; id++) {
+            set.add(id * 1_000_003);
+        }
+        // Load factor stays between one quarter and one half
+        assertTrue(set.sizeInBytes() <= 10_000L * 4 * Long.BYTES);
+        assertTrue(set.sizeInBytes() >= 10_000L * 2 * Long.BYTES);
+    }
+}
@@ -0,0 +1,136 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import za.co.tt.util.MappedFeedReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFeedReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private Path feed(String content) throws IOException {
+        return Files.writeString(dir.resolve("feed.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void quotedFieldsKeepCommasAndUnescapeQuotes() throws IOException {
+        Path file = feed("sku,name,stock\nA-1,\"Acme, Inc. \"\"Pro\"\"\",7\n");
+
+        try (MappedFeedReader reader = new MappedFeedReader(file, 1 << 20)) {
+            assertTrue(reader.next());
+            assertTrue(reader.next());
+            assertEquals(3, reader.getFieldCount());
+            assertEquals("A-1", reader.text(0));
+            assertEquals("Acme, Inc. \"Pro\"", reader.text(1));
+            assertEquals(7, reader.parseInt(2));
+            long seed = MappedFeedReader.hashSeed();
+            assertEquals(MappedFeedReader.hashText("acme, inc. \"pro\"", seed), reader.hashField(1, seed));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void skipsByteOrderMarkAndBlankLinesButCountsThem() throws IOException {
+        Path file = feed("\uFEFFsku,stock\r\n\r\nA-1,3\r\n\nB-2,4");
+
+        try (MappedFeedReader reader = new MappedFeedReader(file, 1 << 20)) {
+            assertTrue(reader.next());
+            assertEquals("sku", reader.text(0));
+            assertTrue(reader.next());
+            assertEquals("A-1", reader.text(0));
+            assertEquals(3, reader.getRecordNumber());
+            assertTrue(reader.next());
+            // Last record without a line break
+            assertEquals("B-2", reader.text(0));
+            assertEquals(4, reader.parseInt(1));
+            assertEquals(5, reader.getRecordNumber());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void recordsStraddlingWindowEdgesAreReadWhole() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String sku = "SKU-" + i;
+            String name = i % 3 == 0 ? "Box, \"size " + i + "\"" : "Item " + i;
+            String quotedName = "\"" + name.replace("\"", "\"\"") + "\"";
+            content.append(sku).append(',').append(i % 3 == 0 ? quotedName : name).append(',').append(i)
+                    .append(i % 2 == 0 ? "\r\n" : "\n");
+            expected.add(new String[]{sku, name, String.valueOf(i)});
+        }
+        Path file = feed(content.toString());
+
+        // Every window size in a range so record ends, quotes and CRLF pairs all land on an edge
+        for (int windowSize = 64; windowSize < 128; windowSize++) {
+            try (MappedFeedReader reader = new MappedFeedReader(file, windowSize)) {
+                for (String[] record : expected) {
+                    assertTrue(reader.next(), "window " + windowSize + " ended before " + record[0]);
+                    assertEquals(3, reader.getFieldCount(), "window " + windowSize + " at " + record[0]);
+                    assertEquals(record[0], reader.text(0), "window " + windowSize);
+                    assertEquals(record[1], reader.text(1), "window " + windowSize + " at " + record[0]);
+                    assertEquals(Integer.parseInt(record[2]), reader.parseInt(2), "window " + windowSize);
+                }
+                assertFalse(reader.next(), "window " + windowSize);
+                assertEquals(expected.size(), reader.getRecordNumber());
+            }
+        }
+    }
+
+    @Test
+    void recordLongerThanTheWindowIsRejected() throws IOException {
+        Path file = feed("a,b\n" + "x".repeat(200) + ",1\n");
+
+        try (MappedFeedReader reader = new MappedFeedReader(file, 64)) {
+            assertTrue(reader.next());
+            IOException error = assertThrows(IOException.class, reader::next);
+            assertTrue(error.getMessage().contains("record 2"), error.getMessage());
+        }
+    }
+
+    @Test
+    void malformedNumbersAreRejected() throws IOException {
+        Path file = feed("12a,,-,99999999999,1299.95, -5 ,1.2.3\n");
+
+        try (MappedFeedReader reader = new MappedFeedReader(file, 1 << 20)) {
+            assertTrue(reader.next());
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(0));
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(1));
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(2));
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(3));
+            assertEquals(1299, reader.parseInt(4));
+            assertEquals(-5, reader.parseInt(5));
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(6));
+            // Past the last field
+            assertThrows(NumberFormatException.class, () -> reader.parseInt(7));
+            assertNull(reader.text(7));
+        }
+    }
+
+    @Test
+    void textAfterAClosingQuoteIsDropped() throws IOException {
+        Path file = feed("\"Widget\" extra,5\n\"open");
+
+        try (MappedFeedReader reader = new MappedFeedReader(file, 1 << 20)) {
+            assertTrue(reader.next());
+            assertEquals("Widget", reader.text(0));
+            assertEquals(5, reader.parseInt(1));
+            // An unterminated quote runs to the end of the file
+            assertTrue(reader.next());
+            assertEquals(1, reader.getFieldCount());
+            assertEquals("open", reader.text(0));
+            assertFalse(reader.next());
+        }
+    }
+}
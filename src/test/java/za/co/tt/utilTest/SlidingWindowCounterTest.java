@@ -0,0 +1,71 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.SlidingWindowCounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTest {
+
+    @Test
+    void countsFallOutOfTheWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(4);
+        long start = 1_000_000;
+        counter.add(start, 5);
+        counter.add(start + 1, 3);
+        assertEquals(8, counter.sum(start + 1));
+        assertEquals(8, counter.sum(start + 3));
+        // start has left a 4-bucket window ending at start + 4
+        assertEquals(3, counter.sum(start + 4));
+        // Writing start + 4 reuses start's slot
+        counter.add(start + 4, 2);
+        assertEquals(0, counter.get(start, start + 4));
+        assertEquals(5, counter.sum(start + 4));
+    }
+
+    @Test
+    void ignoresBucketsOlderThanTheSlot() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(2);
+        counter.add(10, 1);
+        counter.add(8, 7);
+        assertEquals(1, counter.sum(10));
+        assertEquals(0, counter.get(8, 10));
+    }
+
+    @Test
+    void decaysOlderBuckets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(3);
+        counter.add(100, 8);
+        counter.add(101, 8);
+        counter.add(102, 8);
+        assertEquals(8 + 4 + 2, counter.decayedSum(102, 0.5), 1e-9);
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(8);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    counter.add(42, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, counter.sum(42));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(0));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowCounter(2).add(1, -1));
+    }
+}
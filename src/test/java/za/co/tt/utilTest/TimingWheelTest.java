@@ -0,0 +1,60 @@
+package za.co.tt.utilTest;
+
+import org.junit.jupiter.api.Test;
+import za.co.tt.util.TimingWheel;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void expiresKeysOnFirstTickAtOrAfterDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.schedule(1L, 2500);
+        wheel.schedule(2L, 3000);
+
+        assertTrue(wheel.advance(2999).isEmpty());
+        assertEquals(List.of(1L, 2L), wheel.advance(3000).stream().sorted().toList());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keepsKeysScheduledBeyondOneRotation() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 4, 0);
+        wheel.schedule(1L, 10_000);
+
+        for (long now = TICK; now < 10_000; now += TICK) {
+            assertTrue(wheel.advance(now).isEmpty(), "expired early at " + now);
+        }
+        assertEquals(List.of(1L), wheel.advance(10_000));
+    }
+
+    @Test
+    void cancelledAndRescheduledKeysDoNotFireEarly() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, 0);
+        wheel.schedule(1L, 2000);
+        wheel.schedule(2L, 2000);
+        assertTrue(wheel.cancel(1L));
+        wheel.schedule(2L, 5000);
+
+        assertTrue(wheel.advance(4000).isEmpty());
+        assertEquals(List.of(2L), wheel.advance(5000));
+        assertFalse(wheel.contains(1L));
+    }
+
+    @Test
+    void catchesUpAfterLongPause() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 4, 0);
+        wheel.schedule(1L, 3000);
+        wheel.schedule(2L, 50_000);
+        wheel.schedule(3L, 90_000);
+
+        assertEquals(List.of(1L, 2L), wheel.advance(60_000).stream().sorted().toList());
+        assertTrue(wheel.contains(3L));
+        assertEquals(List.of(3L), wheel.advance(90_000));
+    }
+}